@@ -23,6 +23,7 @@ import by.iba.vfapi.model.auth.UserInfo;
 import by.iba.vfapi.services.KubernetesService;
 import by.iba.vfapi.services.auth.AuthenticationService;
 import by.iba.vfapi.services.auth.OAuthService;
+import by.iba.vfapi.services.auth.OidcService;
 import java.io.IOException;
 import java.util.Set;
 import javax.servlet.FilterChain;
@@ -31,6 +32,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.AuthenticationException;
@@ -39,7 +41,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * Filter for extracting token from every request
- * and check with OAuth service.
+ * and check with OAuth service, or validate it locally in OIDC mode.
  */
 @Slf4j
 @Component
@@ -48,6 +50,8 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final OAuthService oauthService;
+    private final OidcService oidcService;
+    private final boolean oidcEnabled;
     private final AuthenticationService authenticationService;
     private final KubernetesService kubernetesService;
     private final Set<String> superusers;
@@ -56,9 +60,13 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
     public JWTAuthenticationFilter(
         SuperusersConfig superusersConfig,
         OAuthService oauthService,
+        OidcService oidcService,
+        @Value("${oauth.oidc.enabled:false}") boolean oidcEnabled,
         AuthenticationService authenticationService,
         KubernetesService kubernetesService) {
         this.oauthService = oauthService;
+        this.oidcService = oidcService;
+        this.oidcEnabled = oidcEnabled;
         this.superusers = superusersConfig.getSet();
         this.authenticationService = authenticationService;
         this.kubernetesService = kubernetesService;
@@ -86,7 +94,12 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
             } else {
                 token = token.replace(BEARER_PREFIX, "");
 
-                UserInfo userInfo = oauthService.getUserInfoByToken(token);
+                UserInfo userInfo;
+                if (oidcEnabled) {
+                    userInfo = oidcService.getUserInfoByToken(token);
+                } else {
+                    userInfo = oauthService.getUserInfoByToken(token);
+                }
                 userInfo.setSuperuser(superusers.contains(userInfo.getUsername()));
                 if (!userInfo.hasAllInformation()) {
                     throw new InternalProcessingException("User information doesn't contain all necessary data");
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.controllers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Util class for responses, which clients may cache.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class CachingResponses {
+    /**
+     * Responses, which may be stored by the browser, but must be revalidated before each use.
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    /**
+     * Responses, which rarely change and may be reused by the browser for a while.
+     */
+    static final CacheControl STATIC = CacheControl.maxAge(5, TimeUnit.MINUTES).cachePrivate();
+
+    /**
+     * Builds response conditional on the entity tag.
+     * When the client already has the response with the same tag, Not Modified is returned without building the body.
+     * The tag itself is put into the response by {@link WebRequest#checkNotModified(String)}.
+     *
+     * @param request request.
+     * @param tag     entity tag of the response or null if it's unknown.
+     * @param body    body supplier.
+     * @param <T>     body type.
+     * @return response.
+     */
+    static <T> ResponseEntity<T> ifModified(WebRequest request, String tag, Supplier<T> body) {
+        if (tag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body.get());
+    }
+}
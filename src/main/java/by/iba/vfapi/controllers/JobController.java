@@ -18,14 +18,18 @@
 package by.iba.vfapi.controllers;
 
 import by.iba.vfapi.dto.LogDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.jobs.JobOverviewDto;
 import by.iba.vfapi.dto.jobs.JobOverviewListDto;
 import by.iba.vfapi.dto.jobs.JobRequestDto;
 import by.iba.vfapi.dto.jobs.JobResponseDto;
 import by.iba.vfapi.services.JobService;
+import by.iba.vfapi.services.ListQuery;
+import by.iba.vfapi.services.ListView;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import java.util.List;
+import java.util.concurrent.Callable;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,7 +41,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Job controller class.
@@ -53,17 +59,43 @@ public class JobController {
     /**
      * Get all jobs in project.
      *
-     * @param projectId project id
-     * @return ResponseEntity with jobs graphs
+     * @param projectId     project id
+     * @param limit         maximum number of jobs to return, all jobs are returned if it's not set
+     * @param continueToken token of the next page from the previous page
+     * @param sort          field to sort by: name, lastModified, status or startedAt, prefixed by - for descending
+     * @param status        comma separated statuses of jobs to return
+     * @param name          prefix of names of jobs to return
+     * @param view          summary to skip usage, pipeline instances and runnable flag of jobs, full by default
+     * @param request       request
+     * @return ResponseEntity with jobs graphs or Not Modified if the client has them already, built asynchronously,
+     * so the calls of the request are interrupted when it times out or fails
      */
     @ApiOperation(value = "Get all jobs in project")
     @GetMapping("{projectId}/job")
-    public JobOverviewListDto getAll(@PathVariable String projectId) {
+    public Callable<ResponseEntity<JobOverviewListDto>> getAll(
+        @PathVariable String projectId,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(value = "continue", required = false) String continueToken,
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String name,
+        @RequestParam(required = false) String view,
+        WebRequest request) {
         LOGGER.info("Receiving all jobs in project '{}'", projectId);
-        //TODO replace full method body on "return jobService.getAll(projectId)" and remove method transform
-        JobOverviewListDto jobs = jobService.getAll(projectId);
-
-        return JobOverviewDto.withPipelineJobs(jobs);
+        ListQuery query = ListQuery
+            .builder()
+            .limit(limit)
+            .continueToken(continueToken)
+            .sort(sort)
+            .status(status)
+            .name(name)
+            .view(ListView.of(view))
+            .build();
+        //TODO replace body supplier on "() -> jobService.getAll(projectId, query)" and remove method transform
+        return () -> CachingResponses.ifModified(request,
+                                                 jobService.getAllTag(projectId, query.getView()),
+                                                 () -> JobOverviewDto.withPipelineJobs(jobService.getAll(projectId,
+                                                                                                         query)));
     }
 
     /**
@@ -142,6 +174,24 @@ public class JobController {
         return jobService.getLogs(projectId, id);
     }
 
+    /**
+     * Getting job resource usage history.
+     *
+     * @param projectId  project id
+     * @param id         job id
+     * @param resolution history resolution: 1m, 10m or 1h
+     * @return usage history
+     */
+    @ApiOperation(value = "Getting job resource usage history")
+    @GetMapping("{projectId}/job/{id}/usage/history")
+    public UsageHistoryDto getUsageHistory(
+        @PathVariable String projectId,
+        @PathVariable String id,
+        @RequestParam(defaultValue = "1m") String resolution) {
+        LOGGER.info("Receiving job '{}' resource usage history in project '{}'", id, projectId);
+        return jobService.getUsageHistory(projectId, id, resolution);
+    }
+
     /**
      * Run job.
      *
@@ -21,6 +21,8 @@ import by.iba.vfapi.dto.pipelines.CronPipelineDto;
 import by.iba.vfapi.dto.pipelines.PipelineOverviewListDto;
 import by.iba.vfapi.dto.pipelines.PipelineRequestDto;
 import by.iba.vfapi.dto.pipelines.PipelineResponseDto;
+import by.iba.vfapi.services.ListQuery;
+import by.iba.vfapi.services.ListView;
 import by.iba.vfapi.services.PipelineService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -35,7 +37,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Manage requests for pipelines.
@@ -114,14 +118,43 @@ public class PipelineController {
     /**
      * Get all pipelines in project.
      *
-     * @param projectId project id
-     * @return ResponseEntity with jobs graphs
+     * @param projectId     project id
+     * @param limit         maximum number of pipelines to return, all pipelines are returned if it's not set
+     * @param continueToken token of the next page from the previous page
+     * @param sort          field to sort by: name, lastModified, status or startedAt, prefixed by - for descending
+     * @param status        comma separated statuses of pipelines to return
+     * @param name          prefix of names of pipelines to return
+     * @param cron          whether to return only pipelines with or without schedule
+     * @param view          summary to skip statuses of jobs and runnable flag of pipelines, full by default
+     * @param request       request
+     * @return ResponseEntity with jobs graphs or Not Modified if the client has them already
      */
     @ApiOperation(value = "Get all pipelines in project")
     @GetMapping("{projectId}/pipeline")
-    public PipelineOverviewListDto getAll(@PathVariable String projectId) {
+    public ResponseEntity<PipelineOverviewListDto> getAll(
+        @PathVariable String projectId,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(value = "continue", required = false) String continueToken,
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String name,
+        @RequestParam(required = false) Boolean cron,
+        @RequestParam(required = false) String view,
+        WebRequest request) {
         LOGGER.info("Receiving all pipelines in project '{}'", projectId);
-        return pipelineService.getAll(projectId);
+        ListQuery query = ListQuery
+            .builder()
+            .limit(limit)
+            .continueToken(continueToken)
+            .sort(sort)
+            .status(status)
+            .name(name)
+            .cron(cron)
+            .view(ListView.of(view))
+            .build();
+        return CachingResponses.ifModified(request,
+                                           pipelineService.getAllTag(projectId, query.getView()),
+                                           () -> pipelineService.getAll(projectId, query));
     }
 
     /**
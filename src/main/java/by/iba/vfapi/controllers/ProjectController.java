@@ -18,6 +18,7 @@
 package by.iba.vfapi.controllers;
 
 import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.projects.AccessTableDto;
 import by.iba.vfapi.dto.projects.ParamDto;
 import by.iba.vfapi.dto.projects.ParamsDto;
@@ -35,6 +36,7 @@ import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -42,8 +44,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Project controller class.
@@ -76,14 +82,15 @@ public class ProjectController {
     /**
      * Gets project by id.
      *
-     * @param id project id.
-     * @return ResponseEntity with status code and project date (ProjectDto).
+     * @param id      project id.
+     * @param request request.
+     * @return ResponseEntity with status code and project date (ProjectDto) or Not Modified if the client has it.
      */
     @ApiOperation(value = "Get project by id")
     @GetMapping("/{id}")
-    public ProjectResponseDto get(@PathVariable final String id) {
+    public ResponseEntity<ProjectResponseDto> get(@PathVariable final String id, WebRequest request) {
         LOGGER.info("Receiving project '{}' ", id);
-        return projectService.get(id);
+        return CachingResponses.ifModified(request, projectService.getTag(id), () -> projectService.get(id));
     }
 
     /**
@@ -141,6 +148,37 @@ public class ProjectController {
         return projectService.getUsage(id);
     }
 
+    /**
+     * Gets project resource utilization history.
+     *
+     * @param id         project id.
+     * @param resolution history resolution: 1m, 10m or 1h.
+     * @return project usage history.
+     */
+    @ApiOperation(value = "Get project resource utilization history")
+    @GetMapping("/{id}/usage/history")
+    public UsageHistoryDto getUsageHistory(
+        @PathVariable String id, @RequestParam(defaultValue = "1m") String resolution) {
+        LOGGER.info("Receiving project '{}' resource utilization history", id);
+        return projectService.getUsageHistory(id, resolution);
+    }
+
+    /**
+     * Subscribes to changes of project jobs, pipelines and resource utilization.
+     * Events are job, jobRemoved, pipeline and usage, reset means that the client should reload the lists.
+     *
+     * @param id          project id.
+     * @param lastEventId id of the last received event, sent by the client when it reconnects.
+     * @return stream of server-sent events.
+     */
+    @ApiOperation(value = "Subscribe to changes of project jobs and pipelines")
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getEvents(
+        @PathVariable String id, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        LOGGER.info("Subscribing to events of project '{}'", id);
+        return projectService.subscribe(id, lastEventId);
+    }
+
     /**
      * Create or updates params for given project.
      *
@@ -28,6 +28,7 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -53,13 +54,16 @@ public class TransferController {
      *
      * @param projectId        project id
      * @param exportRequestDto dto with job ids and pipelines for export
-     * @return object with exported jobs and pipelines
+     * @return object with exported jobs and pipelines, built asynchronously, so the calls of the export are
+     * interrupted when it times out or fails
      */
     @ApiOperation(value = "Export")
     @PostMapping("{projectId}/exportResources")
-    public ExportResponseDto exporting(
+    public Callable<ExportResponseDto> exporting(
         @PathVariable String projectId, @RequestBody @Valid ExportRequestDto exportRequestDto) {
-        return transferService.exporting(projectId, exportRequestDto.getJobIds(), exportRequestDto.getPipelines());
+        return () -> transferService.exporting(projectId,
+                                               exportRequestDto.getJobIds(),
+                                               exportRequestDto.getPipelines());
     }
 
     /**
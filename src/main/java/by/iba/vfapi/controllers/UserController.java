@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -61,9 +62,9 @@ public class UserController {
      */
     @ApiOperation(value = "Retrieves application users")
     @GetMapping("/users")
-    public List<Map<String, String>> getUsers() {
+    public ResponseEntity<List<Map<String, String>>> getUsers() {
         LOGGER.info("Receiving users of application");
-        return userService.getUsers();
+        return ResponseEntity.ok().cacheControl(CachingResponses.STATIC).body(userService.getUsers());
     }
 
     /**
@@ -73,8 +74,8 @@ public class UserController {
      */
     @ApiOperation(value = "Retrieves application roles")
     @GetMapping("/roles")
-    public List<String> getRoles() {
+    public ResponseEntity<List<String>> getRoles() {
         LOGGER.info("Receiving roles of application");
-        return userService.getRoleNames();
+        return ResponseEntity.ok().cacheControl(CachingResponses.STATIC).body(userService.getRoleNames());
     }
 }
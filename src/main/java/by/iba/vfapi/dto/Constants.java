@@ -35,8 +35,12 @@ public final class Constants {
     public static final String NAME = "name";
     public static final String TYPE = "type";
     public static final String TYPE_JOB = "job";
+    public static final String TYPE_DEFINITION = "definition";
     public static final String DEFINITION = "definition";
     public static final String LAST_MODIFIED = "lastModified";
+    public static final String RUNNABLE = "runnable";
+    public static final String NODE_COUNT = "nodeCount";
+    public static final String STAGE_COUNTS = "stageCounts";
 
     public static final String DESCRIPTION_FIELD = "description";
     public static final String NAME_FIELD = "projectName";
@@ -70,4 +74,5 @@ public final class Constants {
     public static final String CREATE_ACTION = "create";
 
     public static final String NODE_TYPE_POD = "Pod";
+    public static final String GRAPH_ID = "graphId";
 }
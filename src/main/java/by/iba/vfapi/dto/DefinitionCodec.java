@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto;
+
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Encoding of graph definitions stored in the definition annotation of jobs and pipelines.
+ * Values start with a version marker: "v2:gzip:" is followed by Base64 of gzip-compressed JSON and "v2:blob:" by
+ * the hash of a definition kept in a separate config map. Values without a marker are plain Base64 JSON written
+ * by previous versions. Markers can't be mistaken for Base64, since it has no colons.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class DefinitionCodec {
+    public static final String GZIP_PREFIX = "v2:gzip:";
+    public static final String BLOB_PREFIX = "v2:blob:";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Encodes definition as compressed value.
+     *
+     * @param definition definition.
+     * @return annotation value.
+     */
+    public static String encode(JsonNode definition) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            MAPPER.writeValue(gzip, definition);
+        } catch (IOException e) {
+            throw new InternalProcessingException("Unable to compress definition", e);
+        }
+        return GZIP_PREFIX + Base64.encodeBase64String(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes definition stored in annotation value.
+     *
+     * @param value compressed or legacy annotation value.
+     * @return definition.
+     */
+    public static JsonNode decode(String value) {
+        if (isBlob(value)) {
+            throw new IllegalArgumentException("Definition is kept in config map " + getBlobHash(value));
+        }
+        try {
+            if (value.startsWith(GZIP_PREFIX)) {
+                byte[] compressed = Base64.decodeBase64(value.substring(GZIP_PREFIX.length()));
+                try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                    return MAPPER.readTree(gzip);
+                }
+            }
+            return MAPPER.readTree(Base64.decodeBase64(value));
+        } catch (IOException e) {
+            throw new InternalProcessingException("Unable to parse definition JSON", e);
+        }
+    }
+
+    /**
+     * Checks whether annotation value refers to a definition kept in config map.
+     *
+     * @param value annotation value.
+     * @return true for blob reference.
+     */
+    public static boolean isBlob(String value) {
+        return value.startsWith(BLOB_PREFIX);
+    }
+
+    /**
+     * Gets hash of definition kept in config map.
+     *
+     * @param value blob reference.
+     * @return hash.
+     */
+    public static String getBlobHash(String value) {
+        return value.substring(BLOB_PREFIX.length());
+    }
+}
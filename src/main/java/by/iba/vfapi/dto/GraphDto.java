@@ -26,6 +26,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -41,6 +42,7 @@ import lombok.Setter;
 @Setter
 public class GraphDto {
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String OPERATION_FIELD = "operation";
 
     private List<NodeDto> nodes;
     private List<EdgeDto> edges;
@@ -67,6 +69,19 @@ public class GraphDto {
         return new GraphDto(nodes, edges);
     }
 
+    /**
+     * Counts nodes of each stage type.
+     *
+     * @return number of nodes by operation, sorted by operation
+     */
+    public Map<String, Long> countStages() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (NodeDto node : nodes) {
+            counts.merge(node.getValue().get(OPERATION_FIELD), 1L, Long::sum);
+        }
+        return counts;
+    }
+
     /**
      * Creating data for configMap.
      *
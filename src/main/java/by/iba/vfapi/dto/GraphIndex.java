@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of graph edges by positions of their nodes.
+ * Edges are indexed once, so each search in the graph takes time linear in number of nodes and edges.
+ */
+public final class GraphIndex {
+    private final List<GraphDto.NodeDto> nodes;
+    private final Map<String, Integer> positions;
+    private final List<String> duplicateIds = new ArrayList<>();
+    private final List<GraphDto.EdgeDto> danglingEdges = new ArrayList<>();
+    private final List<List<GraphDto.EdgeDto>> incomingEdges;
+    private final List<List<GraphDto.EdgeDto>> outgoingEdges;
+    private final List<List<Integer>> successors;
+    private final List<List<Integer>> predecessors;
+
+    /**
+     * Constructor for class GraphIndex.
+     *
+     * @param graphDto graph with nodes and edges
+     */
+    public GraphIndex(GraphDto graphDto) {
+        nodes = graphDto.getNodes();
+        int size = nodes.size();
+        positions = new HashMap<>();
+        incomingEdges = new ArrayList<>(size);
+        outgoingEdges = new ArrayList<>(size);
+        successors = new ArrayList<>(size);
+        predecessors = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = nodes.get(i).getId();
+            if (positions.putIfAbsent(id, i) != null) {
+                duplicateIds.add(id);
+            }
+            incomingEdges.add(new ArrayList<>(1));
+            outgoingEdges.add(new ArrayList<>(1));
+            successors.add(new ArrayList<>(1));
+            predecessors.add(new ArrayList<>(1));
+        }
+        for (GraphDto.EdgeDto edge : graphDto.getEdges()) {
+            Integer source = positions.get(edge.getSource());
+            Integer target = positions.get(edge.getTarget());
+            if (source == null || target == null) {
+                danglingEdges.add(edge);
+            } else {
+                outgoingEdges.get(source).add(edge);
+                incomingEdges.get(target).add(edge);
+                successors.get(source).add(target);
+                predecessors.get(target).add(source);
+            }
+        }
+    }
+
+    /**
+     * Gets number of nodes.
+     *
+     * @return number of nodes
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Gets node by position.
+     *
+     * @param position position of node
+     * @return node
+     */
+    public GraphDto.NodeDto getNode(int position) {
+        return nodes.get(position);
+    }
+
+    /**
+     * Gets ids which are used by several nodes. Edges of such ids are indexed for the first node.
+     *
+     * @return duplicate ids
+     */
+    public List<String> getDuplicateIds() {
+        return duplicateIds;
+    }
+
+    /**
+     * Gets edges which refer to missing nodes. Such edges are not indexed.
+     *
+     * @return dangling edges
+     */
+    public List<GraphDto.EdgeDto> getDanglingEdges() {
+        return danglingEdges;
+    }
+
+    /**
+     * Gets edges which end at node, in order of graph edges.
+     *
+     * @param position position of node
+     * @return incoming edges
+     */
+    public List<GraphDto.EdgeDto> getIncomingEdges(int position) {
+        return incomingEdges.get(position);
+    }
+
+    /**
+     * Gets edges which start at node, in order of graph edges.
+     *
+     * @param position position of node
+     * @return outgoing edges
+     */
+    public List<GraphDto.EdgeDto> getOutgoingEdges(int position) {
+        return outgoingEdges.get(position);
+    }
+
+    /**
+     * Finds nodes on cycles.
+     * Nodes left by topological sort are on cycles or after them, so nodes left by topological sort in
+     * reverse order among them are on cycles or between them.
+     *
+     * @return marks of nodes on cycles
+     */
+    public boolean[] findCycles() {
+        boolean[] left = new boolean[size()];
+        Arrays.fill(left, true);
+        int[] inDegrees = new int[size()];
+        for (int i = 0; i < inDegrees.length; i++) {
+            inDegrees[i] = predecessors.get(i).size();
+        }
+        sort(left, inDegrees, successors);
+        int[] leftOutDegrees = new int[size()];
+        for (int i = 0; i < left.length; i++) {
+            if (left[i]) {
+                for (int predecessor : predecessors.get(i)) {
+                    if (left[predecessor]) {
+                        leftOutDegrees[predecessor]++;
+                    }
+                }
+            }
+        }
+        sort(left, leftOutDegrees, predecessors);
+        return left;
+    }
+
+    /**
+     * Removes left nodes without incoming edges until there are none.
+     *
+     * @param left      marks of nodes which are not removed yet
+     * @param degrees   number of incoming edges from left nodes
+     * @param following nodes at the end of edges of each node
+     */
+    private static void sort(boolean[] left, int[] degrees, List<List<Integer>> following) {
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] && degrees[i] == 0) {
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            left[node] = false;
+            for (int next : following.get(node)) {
+                if (left[next] && --degrees[next] == 0) {
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds nodes which can't be reached from given ones.
+     *
+     * @param starts positions of start nodes
+     * @return marks of unreachable nodes
+     */
+    public boolean[] findUnreachable(int[] starts) {
+        boolean[] unreachable = new boolean[size()];
+        Arrays.fill(unreachable, true);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int start : starts) {
+            unreachable[start] = false;
+            queue.add(start);
+        }
+        while (!queue.isEmpty()) {
+            for (int next : successors.get(queue.poll())) {
+                if (unreachable[next]) {
+                    unreachable[next] = false;
+                    queue.add(next);
+                }
+            }
+        }
+        return unreachable;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Resource usage history DTO class.
+ * Each point is an average over the resolution interval, cpu is in cores and memory is in bytes.
+ */
+@EqualsAndHashCode
+@Builder
+@Getter
+@ToString
+public class UsageHistoryDto {
+    private final String resolution;
+    private final List<Point> points;
+
+    /**
+     * Usage averaged over one interval.
+     */
+    @EqualsAndHashCode
+    @Builder
+    @Getter
+    @ToString
+    public static class Point {
+        private final String timestamp;
+        private final double cpu;
+        private final double memory;
+    }
+}
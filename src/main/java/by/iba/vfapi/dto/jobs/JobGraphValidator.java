@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto.jobs;
+
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.dto.GraphIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Validator of job graphs.
+ * Stages are checked against the rule of their type by numbers of their arrows, then graph is sorted
+ * topologically to find cycles and stages which can't be reached from read stages. Each check takes time linear
+ * in number of nodes and edges, and all errors are reported at once with ids of their stages.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JobGraphValidator {
+    private static final String OPERATION_FIELD = "operation";
+    private static final String READ = "READ";
+    private static final StageRule ONE_INPUT = new StageRule(1, true, "must have one input arrows");
+    private static final StageRule TWO_INPUTS = new StageRule(2, true, "must have two input arrows");
+    private static final Map<String, StageRule> RULES =
+        Map.of(READ,
+               new StageRule(0, true, "can have only output arrows"),
+               "WRITE",
+               new StageRule(1, false, "must have only one input arrows"),
+               "UNION",
+               TWO_INPUTS,
+               "JOIN",
+               TWO_INPUTS,
+               "CDC",
+               TWO_INPUTS,
+               "TRANSFORM",
+               ONE_INPUT,
+               "GROUP",
+               ONE_INPUT,
+               "FILTER",
+               ONE_INPUT,
+               "REMOVE_DUPLICATES",
+               ONE_INPUT,
+               "CACHE",
+               ONE_INPUT);
+
+    /**
+     * Validates stages and connections of job graph.
+     *
+     * @param graphDto graph with nodes and edges
+     * @return errors, empty if graph is valid
+     */
+    public static List<String> validate(GraphDto graphDto) {
+        GraphIndex index = new GraphIndex(graphDto);
+        int size = index.size();
+        List<String> errors = new ArrayList<>();
+        for (String id : index.getDuplicateIds()) {
+            errors.add(String.format("Stage id %s is used more than once", id));
+        }
+        for (GraphDto.EdgeDto edge : index.getDanglingEdges()) {
+            errors.add(String.format("Arrow from %s to %s refers to missing stage",
+                                     edge.getSource(),
+                                     edge.getTarget()));
+        }
+
+        String[] operations = new String[size];
+        for (int i = 0; i < size; i++) {
+            GraphDto.NodeDto node = index.getNode(i);
+            operations[i] = node.getValue() == null ? null : node.getValue().get(OPERATION_FIELD);
+            StageRule rule = operations[i] == null ? null : RULES.get(operations[i]);
+            if (rule == null) {
+                errors.add(String.format("Invalid stage type of stage %s", node.getId()));
+            } else if (index.getIncomingEdges(i).size() != rule.inputs ||
+                (!rule.outputs && !index.getOutgoingEdges(i).isEmpty())) {
+                errors.add(String.format("%s stage %s %s", operations[i], node.getId(), rule.message));
+            }
+        }
+
+        boolean[] cyclic = index.findCycles();
+        if (IntStream.range(0, size).anyMatch(i -> cyclic[i])) {
+            errors.add(String.format("Stages %s form a cycle", ids(index, cyclic)));
+        }
+        boolean[] unreachable = index.findUnreachable(IntStream
+                                                          .range(0, size)
+                                                          .filter(i -> READ.equals(operations[i]))
+                                                          .toArray());
+        for (int i = 0; i < size; i++) {
+            if (unreachable[i] && !cyclic[i]) {
+                errors.add(String.format("Stage %s can't be reached from read stages", index.getNode(i).getId()));
+            }
+        }
+        return errors;
+    }
+
+    private static String ids(GraphIndex index, boolean[] marked) {
+        return IntStream
+            .range(0, index.size())
+            .filter(i -> marked[i])
+            .mapToObj(i -> index.getNode(i).getId())
+            .collect(Collectors.joining(", "));
+    }
+
+    @RequiredArgsConstructor
+    private static final class StageRule {
+        private final int inputs;
+        private final boolean outputs;
+        private final String message;
+    }
+}
@@ -19,7 +19,7 @@ package by.iba.vfapi.dto.jobs;
 
 import by.iba.vfapi.dto.Constants;
 import by.iba.vfapi.dto.ResourceUsageDto;
-import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -48,18 +48,21 @@ public class JobOverviewDto {
     private final String pipelineId;
     private final boolean runnable;
 
-    public static JobOverviewDto.JobOverviewDtoBuilder fromConfigMap(ConfigMap configMap) {
+    public static JobOverviewDto.JobOverviewDtoBuilder fromMetadata(ObjectMeta metadata) {
         return JobOverviewDto
             .builder()
-            .id(configMap.getMetadata().getName())
-            .name(configMap.getMetadata().getLabels().get(Constants.NAME))
-            .lastModified(configMap.getMetadata().getAnnotations().get(Constants.LAST_MODIFIED));
+            .id(metadata.getName())
+            .name(metadata.getLabels().get(Constants.NAME))
+            .lastModified(metadata.getAnnotations().get(Constants.LAST_MODIFIED));
     }
 
     public static JobOverviewListDto withPipelineJobs(JobOverviewListDto jobOverviewDtos) {
         List<JobOverviewDto> jobs = new ArrayList<>();
         for (JobOverviewDto job : jobOverviewDtos.getJobs()) {
             jobs.add(job);
+            if (job.getPipelineInstances() == null) {
+                continue;
+            }
             jobs.addAll(job
                               .getPipelineInstances()
                               .stream()
@@ -77,6 +80,12 @@ public class JobOverviewDto {
                               .collect(Collectors.toList()));
         }
 
-        return JobOverviewListDto.builder().jobs(jobs).editable(jobOverviewDtos.isEditable()).build();
+        return JobOverviewListDto
+            .builder()
+            .jobs(jobs)
+            .editable(jobOverviewDtos.isEditable())
+            .total(jobOverviewDtos.getTotal())
+            .continueToken(jobOverviewDtos.getContinueToken())
+            .build();
     }
 }
@@ -17,6 +17,7 @@
 
 package by.iba.vfapi.dto.jobs;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -31,5 +32,8 @@ import lombok.Getter;
 public class JobOverviewListDto {
     private final List<JobOverviewDto> jobs;
     private final boolean editable;
+    private final int total;
+    @JsonProperty("continue")
+    private final String continueToken;
 }
 
@@ -18,17 +18,17 @@
 package by.iba.vfapi.dto.jobs;
 
 import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
 import by.iba.vfapi.dto.GraphDto;
 import by.iba.vfapi.exceptions.BadRequestException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Joiner;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -36,7 +36,6 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.apache.commons.codec.binary.Base64;
 
 /**
  * Job DTO class.
@@ -47,8 +46,6 @@ import org.apache.commons.codec.binary.Base64;
 @Setter
 @Builder
 public class JobRequestDto {
-    private static final int TWO = 2;
-    private static final String OPERATION_FIELD = "operation";
     @NotNull
     private String name;
     @NotNull
@@ -59,6 +56,9 @@ public class JobRequestDto {
 
     /**
      * Creating job cm.
+     * Facts derived from the graph are kept in metadata, so listing jobs doesn't need to parse the graph:
+     * runnable label tells whether the graph has nodes and annotations hold number of nodes and number of
+     * nodes of each stage type.
      *
      * @param id job id
      * @return new cm
@@ -81,8 +81,11 @@ public class JobRequestDto {
             .withName(id)
             .addToLabels(Constants.NAME, name)
             .addToLabels(Constants.TYPE, Constants.TYPE_JOB)
-            .addToAnnotations(Constants.DEFINITION,
-                              Base64.encodeBase64String(definition.toString().getBytes(StandardCharsets.UTF_8)))
+            .addToLabels(Constants.RUNNABLE, String.valueOf(!graphDto.getNodes().isEmpty()))
+            .addToAnnotations(Constants.DEFINITION, DefinitionCodec.encode(definition))
+            .addToAnnotations(Constants.NODE_COUNT, String.valueOf(graphDto.getNodes().size()))
+            .addToAnnotations(Constants.STAGE_COUNTS,
+                              Joiner.on(',').withKeyValueSeparator('=').join(graphDto.countStages()))
             .addToAnnotations(Constants.LAST_MODIFIED, ZonedDateTime.now().format(Constants.DATE_TIME_FORMATTER))
             .endMetadata()
             .build();
@@ -94,40 +97,9 @@ public class JobRequestDto {
      * @param graphDto graph with nodes and edges
      */
     public void validateGraph(GraphDto graphDto) {
-        List<GraphDto.NodeDto> nodes = graphDto.getNodes();
-        List<String> targets =
-            graphDto.getEdges().stream().map(GraphDto.EdgeDto::getTarget).collect(Collectors.toList());
-        List<String> sources =
-            graphDto.getEdges().stream().map(GraphDto.EdgeDto::getSource).collect(Collectors.toList());
-        for (GraphDto.NodeDto node : nodes) {
-            long targetsCount = targets.stream().filter(target -> target.equals(node.getId())).count();
-            String operation = node.getValue().get(OPERATION_FIELD);
-            if ("READ".equals(operation) && targets.contains(node.getId())) {
-                throw new BadRequestException(String.format("%s stage can have only output arrows", operation));
-            } else if ("WRITE".equals(operation) && (sources.contains(node.getId()) || targetsCount != 1)) {
-                throw new BadRequestException(String.format("%s stage must have only one input arrows",
-                                                            operation));
-            } else if (("UNION".equals(operation) || "JOIN".equals(operation) || "CDC".equals(operation)) &&
-                targetsCount != TWO) {
-                throw new BadRequestException(String.format("%s stage must have two input arrows", operation));
-            } else if (("TRANSFORM".equals(operation) ||
-                "GROUP".equals(operation) ||
-                "FILTER".equals(operation) ||
-                "REMOVE_DUPLICATES".equals(operation) ||
-                "CACHE".equals(operation)) && targetsCount != 1) {
-                throw new BadRequestException(String.format("%s stage must have one input arrows", operation));
-            } else if (!List.of("READ",
-                                "WRITE",
-                                "UNION",
-                                "JOIN",
-                                "CDC",
-                                "TRANSFORM",
-                                "GROUP",
-                                "FILTER",
-                                "REMOVE_DUPLICATES",
-                                "CACHE").contains(operation)) {
-                throw new BadRequestException("Invalid stage type");
-            }
+        List<String> errors = JobGraphValidator.validate(graphDto);
+        if (!errors.isEmpty()) {
+            throw new BadRequestException(String.join("; ", errors));
         }
     }
 }
@@ -18,19 +18,15 @@
 package by.iba.vfapi.dto.jobs;
 
 import by.iba.vfapi.dto.Constants;
-import by.iba.vfapi.exceptions.InternalProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
-import org.apache.commons.codec.binary.Base64;
 
 /**
  * Single job response DTO class.
@@ -40,8 +36,6 @@ import org.apache.commons.codec.binary.Base64;
 @Getter
 @ToString
 public class JobResponseDto {
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-
     private final String name;
     private final JsonNode definition;
     private final String startedAt;
@@ -55,10 +49,11 @@ public class JobResponseDto {
     /**
      * Create JobResponseDtoBuilder from configmap.
      *
-     * @param configMap configmap
+     * @param configMap  configmap
+     * @param definition definition of the job read from configmap
      * @return JobResponseDtoBuilder
      */
-    public static JobResponseDtoBuilder fromConfigMap(ConfigMap configMap) {
+    public static JobResponseDtoBuilder fromConfigMap(ConfigMap configMap, JsonNode definition) {
         ObjectMeta metadata = configMap.getMetadata();
         Map<String, String> annotations = metadata.getAnnotations();
         Map<String, String> data = new HashMap<>(configMap.getData());
@@ -67,15 +62,11 @@ public class JobResponseDto {
         String executorMemory = data.get(Constants.EXECUTOR_MEMORY);
         data.replace(Constants.DRIVER_MEMORY, driverMemory.substring(0, driverMemory.length() - 1));
         data.replace(Constants.EXECUTOR_MEMORY, executorMemory.substring(0, executorMemory.length() - 1));
-        try {
-            return JobResponseDto
-                .builder()
-                .name(metadata.getLabels().get(Constants.NAME))
-                .definition(MAPPER.readTree(Base64.decodeBase64(annotations.get(Constants.DEFINITION))))
-                .lastModified(annotations.get(Constants.LAST_MODIFIED))
-                .params(data);
-        } catch (IOException e) {
-            throw new InternalProcessingException("Unable to parse definition JSON", e);
-        }
+        return JobResponseDto
+            .builder()
+            .name(metadata.getLabels().get(Constants.NAME))
+            .definition(definition)
+            .lastModified(annotations.get(Constants.LAST_MODIFIED))
+            .params(data);
     }
 }
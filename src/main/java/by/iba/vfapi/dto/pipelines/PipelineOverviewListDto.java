@@ -17,6 +17,7 @@
 
 package by.iba.vfapi.dto.pipelines;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -31,4 +32,7 @@ import lombok.Getter;
 public class PipelineOverviewListDto {
     private final List<PipelineOverviewDto> pipelines;
     private final boolean editable;
+    private final int total;
+    @JsonProperty("continue")
+    private final String continueToken;
 }
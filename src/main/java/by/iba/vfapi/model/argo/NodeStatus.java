@@ -19,6 +19,7 @@ package by.iba.vfapi.model.argo;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.io.Serializable;
 import java.util.List;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -32,7 +33,9 @@ import org.joda.time.DateTime;
 @Setter
 @NoArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class NodeStatus {
+public class NodeStatus implements Serializable {
+    private static final long serialVersionUID = 1;
+
     private List<String> children;
     private String displayName;
     @JsonDeserialize(using = MyDateTimeDeserializer.class)
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.model.argo;
+
+import by.iba.vfapi.dto.Constants;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.joda.time.DateTime;
+
+/**
+ * Class represents runtime info of workflow: phase, times, progress and phases of pods of its jobs.
+ * It's all the pipeline lists need, so it's read from kubernetes instead of the whole workflow, see
+ * {@link WorkflowRuntimeDeserializer}. Workflow has not started yet if it has no start time.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonDeserialize(using = WorkflowRuntimeDeserializer.class)
+public class WorkflowRuntime {
+    private String name;
+    private String phase;
+    private String message;
+    private DateTime startedAt;
+    private DateTime finishedAt;
+    private double progress;
+    private Map<String, String> jobsStatuses;
+
+    /**
+     * Projects workflow on its runtime info.
+     * Statuses of jobs are mapped in one pass over the nodes of the workflow with the help of the index of graph ids
+     * of dag tasks.
+     *
+     * @param workflow workflow
+     * @return runtime info
+     */
+    public static WorkflowRuntime of(Workflow workflow) {
+        WorkflowRuntime runtime = new WorkflowRuntime();
+        if (workflow.getMetadata() != null) {
+            runtime.setName(workflow.getMetadata().getName());
+        }
+        WorkflowStatus status = workflow.getStatus();
+        if (status == null) {
+            return runtime;
+        }
+        runtime.setPhase(status.getPhase());
+        runtime.setMessage(status.getMessage());
+        runtime.setStartedAt(status.getStartedAt());
+        runtime.setFinishedAt(status.getFinishedAt());
+        runtime.setProgress(status.getProgress());
+        Map<String, NodeStatus> nodes = status.getNodes();
+        if (nodes == null) {
+            return runtime;
+        }
+        Map<String, String> statuses = new HashMap<>();
+        Map<String, List<String>> graphIds = getGraphIdsByTaskName(status.getStoredTemplates());
+        for (NodeStatus nodeStatus : nodes.values()) {
+            if (Constants.NODE_TYPE_POD.equals(nodeStatus.getType())) {
+                for (String graphId : graphIds.getOrDefault(nodeStatus.getDisplayName(), List.of())) {
+                    statuses.put(graphId, nodeStatus.getPhase());
+                }
+            }
+        }
+        runtime.setJobsStatuses(statuses);
+        return runtime;
+    }
+
+    /**
+     * Indexes graph ids of tasks of dag templates by task names.
+     *
+     * @param storedTemplates stored templates of workflow
+     * @return graph ids by task name
+     */
+    private static Map<String, List<String>> getGraphIdsByTaskName(Map<String, Template> storedTemplates) {
+        if (storedTemplates == null) {
+            return Map.of();
+        }
+        Map<String, List<String>> graphIds = new HashMap<>();
+        for (Template storedTemplate : storedTemplates.values()) {
+            if (!Constants.DAG_TEMPLATE_NAME.equals(storedTemplate.getName()) ||
+                storedTemplate.getDag() == null ||
+                storedTemplate.getDag().getTasks() == null) {
+                continue;
+            }
+            for (DagTask dagTask : storedTemplate.getDag().getTasks()) {
+                if (dagTask.getArguments() == null || dagTask.getArguments().getParameters() == null) {
+                    continue;
+                }
+                for (Parameter parameter : dagTask.getArguments().getParameters()) {
+                    if (Constants.GRAPH_ID.equals(parameter.getName())) {
+                        graphIds.computeIfAbsent(dagTask.getName(), key -> new ArrayList<>()).add(parameter.getValue());
+                    }
+                }
+            }
+        }
+        return graphIds;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.model.argo;
+
+import by.iba.vfapi.dto.Constants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTime;
+
+/**
+ * Deserializer for runtime info of workflow.
+ * It walks the tokens of workflow and builds only the values of runtime info, other subtrees, such as spec,
+ * templates of jobs and most fields of nodes, are skipped without being built. Only phases of pod nodes by their
+ * display names and graph ids of tasks of dag template by task names are kept until the end of status, when they
+ * are joined into statuses of jobs. Types and phases of nodes and names of templates and parameters are matched
+ * against known values in place, so they take no memory per node.
+ */
+public class WorkflowRuntimeDeserializer extends StdDeserializer<WorkflowRuntime> {
+    private static final long serialVersionUID = 1;
+    private static final List<String> PHASES =
+        List.of("Pending", "Running", "Succeeded", "Skipped", "Failed", "Error", "Omitted");
+
+    private final MyDateTimeDeserializer dateTimeDeserializer = new MyDateTimeDeserializer();
+
+    public WorkflowRuntimeDeserializer() {
+        super(WorkflowRuntime.class);
+    }
+
+    /**
+     * Checks that parser is at the start of object, skips the value otherwise.
+     *
+     * @param parser parser
+     * @return true if parser is at the start of object
+     */
+    private static boolean startObject(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    /**
+     * Checks that parser is at the start of array, skips the value otherwise.
+     *
+     * @param parser parser
+     * @return true if parser is at the start of array
+     */
+    private static boolean startArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    /**
+     * Moves parser to the value of the next field of object. Name of the field is then the current name of parser.
+     * Value must be consumed by the caller, e.g. skipped.
+     *
+     * @param parser parser
+     * @return false if there are no more fields in object
+     */
+    private static boolean nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return false;
+        }
+        parser.nextToken();
+        return true;
+    }
+
+    /**
+     * Checks whether parser is at the given text value without building a string of the value.
+     *
+     * @param parser parser
+     * @param value  value
+     * @return true if text value equals to the given one
+     */
+    private static boolean isText(JsonParser parser, String value) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() != value.length()) {
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < value.length(); i++) {
+            if (chars[offset + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets text value, which parser is at, as one of known values if it's one of them.
+     *
+     * @param parser parser
+     * @param known  known values
+     * @return text value
+     */
+    private static String getText(JsonParser parser, List<String> known) throws IOException {
+        for (String value : known) {
+            if (isText(parser, value)) {
+                return value;
+            }
+        }
+        return parser.getValueAsString();
+    }
+
+    @Override
+    public WorkflowRuntime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        WorkflowRuntime runtime = new WorkflowRuntime();
+        if (!startObject(parser)) {
+            return runtime;
+        }
+        while (nextField(parser)) {
+            String field = parser.getCurrentName();
+            if ("metadata".equals(field)) {
+                runtime.setName(readName(parser));
+            } else if ("status".equals(field) && startObject(parser)) {
+                readStatus(parser, context, runtime);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return runtime;
+    }
+
+    private static String readName(JsonParser parser) throws IOException {
+        String name = null;
+        if (startObject(parser)) {
+            while (nextField(parser)) {
+                if ("name".equals(parser.getCurrentName())) {
+                    name = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return name;
+    }
+
+    private void readStatus(JsonParser parser, DeserializationContext context, WorkflowRuntime runtime)
+        throws IOException {
+        Map<String, String> podPhases = null;
+        List<String> taskGraphIds = new ArrayList<>();
+        while (nextField(parser)) {
+            switch (parser.getCurrentName()) {
+                case "phase":
+                    runtime.setPhase(getText(parser, PHASES));
+                    break;
+                case "message":
+                    runtime.setMessage(parser.getValueAsString());
+                    break;
+                case "startedAt":
+                    runtime.setStartedAt(readDateTime(parser, context));
+                    break;
+                case "finishedAt":
+                    runtime.setFinishedAt(readDateTime(parser, context));
+                    break;
+                case "progress":
+                    readProgress(parser, runtime);
+                    break;
+                case "nodes":
+                    podPhases = readPodPhases(parser);
+                    break;
+                case "storedTemplates":
+                    readTaskGraphIds(parser, taskGraphIds);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (podPhases != null) {
+            Map<String, String> statuses = new HashMap<>();
+            for (int i = 0; i < taskGraphIds.size(); i += 2) {
+                String phase = podPhases.get(taskGraphIds.get(i));
+                if (phase != null) {
+                    statuses.put(taskGraphIds.get(i + 1), phase);
+                }
+            }
+            runtime.setJobsStatuses(statuses);
+        }
+    }
+
+    private DateTime readDateTime(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return (DateTime) dateTimeDeserializer.deserialize(parser, context);
+    }
+
+    private static void readProgress(JsonParser parser, WorkflowRuntime runtime) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            double progress = WorkflowStatus.parseProgress(parser.getText());
+            if (!Double.isNaN(progress)) {
+                runtime.setProgress(progress);
+            }
+        }
+    }
+
+    /**
+     * Reads phases of pod nodes.
+     *
+     * @param parser parser
+     * @return phases by display names of nodes or null if there are no nodes
+     */
+    private static Map<String, String> readPodPhases(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        Map<String, String> podPhases = new HashMap<>();
+        while (nextField(parser)) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            boolean pod = false;
+            String displayName = null;
+            String phase = null;
+            while (nextField(parser)) {
+                switch (parser.getCurrentName()) {
+                    case "displayName":
+                        displayName = parser.getValueAsString();
+                        break;
+                    case "type":
+                        pod = isText(parser, Constants.NODE_TYPE_POD);
+                        break;
+                    case "phase":
+                        phase = getText(parser, PHASES);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (pod) {
+                podPhases.put(displayName, phase);
+            }
+        }
+        return podPhases;
+    }
+
+    /**
+     * Reads graph ids of tasks of dag template from stored templates.
+     *
+     * @param parser       parser
+     * @param taskGraphIds list to add names of tasks followed by their graph ids to
+     */
+    private static void readTaskGraphIds(JsonParser parser, List<String> taskGraphIds) throws IOException {
+        if (!startObject(parser)) {
+            return;
+        }
+        while (nextField(parser)) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            boolean dagTemplate = false;
+            int tasksStart = taskGraphIds.size();
+            while (nextField(parser)) {
+                if ("name".equals(parser.getCurrentName())) {
+                    dagTemplate = isText(parser, Constants.DAG_TEMPLATE_NAME);
+                } else if ("dag".equals(parser.getCurrentName()) && startObject(parser)) {
+                    while (nextField(parser)) {
+                        if ("tasks".equals(parser.getCurrentName()) && startArray(parser)) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                readTaskGraphId(parser, taskGraphIds);
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!dagTemplate) {
+                taskGraphIds.subList(tasksStart, taskGraphIds.size()).clear();
+            }
+        }
+    }
+
+    private static void readTaskGraphId(JsonParser parser, List<String> taskGraphIds) throws IOException {
+        if (!startObject(parser)) {
+            return;
+        }
+        String name = null;
+        int graphIdsStart = taskGraphIds.size();
+        while (nextField(parser)) {
+            if ("name".equals(parser.getCurrentName())) {
+                name = parser.getValueAsString();
+            } else if ("arguments".equals(parser.getCurrentName()) && startObject(parser)) {
+                while (nextField(parser)) {
+                    if ("parameters".equals(parser.getCurrentName()) && startArray(parser)) {
+                        readGraphIds(parser, taskGraphIds);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        for (int i = graphIdsStart; i < taskGraphIds.size(); i += 2) {
+            taskGraphIds.set(i, name);
+        }
+    }
+
+    /**
+     * Reads graph ids from parameters of task.
+     * Name of the task may follow its arguments, so graph ids are added with placeholders for the name.
+     *
+     * @param parser       parser
+     * @param taskGraphIds list to add placeholders followed by graph ids to
+     */
+    private static void readGraphIds(JsonParser parser, List<String> taskGraphIds) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            boolean graphId = false;
+            boolean other = false;
+            String value = null;
+            while (nextField(parser)) {
+                if ("name".equals(parser.getCurrentName())) {
+                    graphId = isText(parser, Constants.GRAPH_ID);
+                    other = !graphId;
+                } else if ("value".equals(parser.getCurrentName()) && !other) {
+                    value = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (graphId) {
+                taskGraphIds.add(null);
+                taskGraphIds.add(value);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package by.iba.vfapi.model.argo;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Map;
@@ -34,8 +35,10 @@ import org.joda.time.DateTime;
 @Getter
 @Setter
 @NoArgsConstructor
-public class WorkflowStatus {
+public class WorkflowStatus implements Serializable {
+    private static final long serialVersionUID = 1;
     private static final int PROGRESS_SCALE = 2;
+
     @JsonDeserialize(using = MyDateTimeDeserializer.class)
     private DateTime finishedAt;
     private String message;
@@ -47,11 +50,24 @@ public class WorkflowStatus {
     private double progress;
 
     public void setProgress(String progress) {
+        double progressValue = parseProgress(progress);
+        if (!Double.isNaN(progressValue)) {
+            this.progress = progressValue;
+        }
+    }
+
+    /**
+     * Parses progress of workflow.
+     *
+     * @param progress progress in form of done/total
+     * @return share of done nodes or NaN if there are no nodes
+     */
+    static double parseProgress(String progress) {
         String[] split = progress.split("/");
         double progressValue = Double.parseDouble(split[0]) / Double.parseDouble(split[1]);
-        if (!Double.isNaN(progressValue)) {
-            this.progress =
-                BigDecimal.valueOf(progressValue).setScale(PROGRESS_SCALE, RoundingMode.HALF_UP).doubleValue();
+        if (Double.isNaN(progressValue)) {
+            return progressValue;
         }
+        return BigDecimal.valueOf(progressValue).setScale(PROGRESS_SCALE, RoundingMode.HALF_UP).doubleValue();
     }
 }
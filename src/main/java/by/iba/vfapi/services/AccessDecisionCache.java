@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-living cache of access review decisions.
+ * Decisions of a namespace are dropped as soon as app role bindings in this namespace change.
+ * When rules review is enabled, user's rules in a namespace are fetched once and all decisions
+ * in this namespace are made locally, falling back to access review only when rules are incomplete.
+ */
+@Slf4j
+@Component
+public class AccessDecisionCache {
+    private final NamespacedKubernetesClient client;
+    private final String appNameLabel;
+    private final Cache<AccessKey, Boolean> decisions;
+    private final Cache<AccessKey, AccessRules> rules;
+    private final boolean rulesReviewEnabled;
+    private volatile Watch watch;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for class AccessDecisionCache.
+     *
+     * @param client       admin kubernetes client.
+     * @param appNameLabel value of app label.
+     * @param ttl          how long decision is kept.
+     * @param size         maximum number of cached decisions.
+     * @param rulesReview  whether to resolve decisions from SelfSubjectRulesReview.
+     */
+    public AccessDecisionCache(
+        NamespacedKubernetesClient client,
+        @Value("${namespace.label}") String appNameLabel,
+        @Value("${kubernetes.accessCache.ttl:30s}") Duration ttl,
+        @Value("${kubernetes.accessCache.maxSize:10000}") long size,
+        @Value("${kubernetes.accessCache.rulesReview:false}") boolean rulesReview) {
+        this.client = client;
+        this.appNameLabel = appNameLabel;
+        this.decisions = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(size).recordStats().build();
+        this.rules = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(size).recordStats().build();
+        this.rulesReviewEnabled = rulesReview;
+    }
+
+    /**
+     * Starts watch on app role bindings.
+     */
+    @PostConstruct
+    public void startWatch() {
+        try {
+            watch = client
+                .rbac()
+                .roleBindings()
+                .inAnyNamespace()
+                .withLabel(K8sUtils.APP, appNameLabel)
+                .watch(new Watcher<>() {
+                    @Override
+                    public void eventReceived(Action action, RoleBinding resource) {
+                        invalidateNamespace(resource.getMetadata().getNamespace());
+                    }
+
+                    @Override
+                    public void onClose(WatcherException cause) {
+                        decisions.invalidateAll();
+                        rules.invalidateAll();
+                        if (!closed) {
+                            LOGGER.warn("Role bindings watch closed, restarting", cause);
+                            startWatch();
+                        }
+                    }
+                });
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to watch role bindings, access decisions will expire by ttl only", e);
+        }
+    }
+
+    /**
+     * Closes watch and reports hit ratio of the cache.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (watch != null) {
+            watch.close();
+        }
+        CacheStats stats = decisions.stats();
+        LOGGER.info("Access decisions cache: {} requests, hit ratio {}", stats.requestCount(), stats.hitRate());
+        if (rulesReviewEnabled) {
+            CacheStats rulesStats = rules.stats();
+            LOGGER.info("Access rules cache: {} requests, hit ratio {}",
+                        rulesStats.requestCount(),
+                        rulesStats.hitRate());
+        }
+    }
+
+    /**
+     * Gets cached decision or makes a review.
+     * Concurrent requests for the same decision share a single review.
+     *
+     * @param username    user name.
+     * @param namespace   namespace.
+     * @param group       resource group.
+     * @param resource    resource kind.
+     * @param verb        action.
+     * @param review      access review.
+     * @param rulesReview rules review of the user in the namespace, used when rules review is enabled.
+     * @return true if action is allowed.
+     */
+    public boolean isAllowed(
+        String username,
+        String namespace,
+        String group,
+        String resource,
+        String verb,
+        Callable<Boolean> review,
+        Callable<AccessRules> rulesReview) {
+        return get(decisions, new AccessKey(username, namespace, group, resource, verb), () -> {
+            if (rulesReviewEnabled) {
+                AccessRules accessRules = get(rules, new AccessKey(username, namespace, null, null, null), rulesReview);
+                if (accessRules.allows(group, resource, verb)) {
+                    return true;
+                }
+                if (!accessRules.isIncomplete()) {
+                    return false;
+                }
+            }
+            return review.call();
+        });
+    }
+
+    private static <T> T get(Cache<AccessKey, T> cache, AccessKey key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalProcessingException("Unable to review access", e.getCause());
+        }
+    }
+
+    /**
+     * Drops all decisions made for given namespace.
+     *
+     * @param namespace namespace.
+     */
+    public void invalidateNamespace(String namespace) {
+        decisions.asMap().keySet().removeIf(key -> Objects.equals(key.namespace, namespace));
+        rules.asMap().keySet().removeIf(key -> Objects.equals(key.namespace, namespace));
+    }
+
+    /**
+     * Gets decisions cache statistics.
+     *
+     * @return hit, miss and eviction counters.
+     */
+    public CacheStats getCacheStats() {
+        return decisions.stats();
+    }
+
+    /**
+     * Gets rules cache statistics.
+     *
+     * @return hit, miss and eviction counters.
+     */
+    public CacheStats getRulesCacheStats() {
+        return rules.stats();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class AccessKey {
+        private final String username;
+        private final String namespace;
+        private final String group;
+        private final String resource;
+        private final String verb;
+    }
+}
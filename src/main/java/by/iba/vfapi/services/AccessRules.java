@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.authorization.v1.ResourceRule;
+import io.fabric8.kubernetes.api.model.authorization.v1.SubjectRulesReviewStatus;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Resource rules of the user in a namespace, resolved by SelfSubjectRulesReview.
+ * Lets to check any number of permissions without additional calls to kubernetes.
+ */
+public class AccessRules {
+    private static final String WILDCARD = "*";
+
+    private final List<ResourceRule> rules;
+    /**
+     * Whether rules list may be incomplete, e.g. when some authorizer doesn't support rules evaluation.
+     * Denials based on incomplete rules must be confirmed by access review.
+     */
+    @Getter
+    private final boolean incomplete;
+
+    /**
+     * Constructor for class AccessRules.
+     *
+     * @param status rules review status.
+     */
+    public AccessRules(SubjectRulesReviewStatus status) {
+        this.rules = status.getResourceRules() == null ? List.of() : status.getResourceRules();
+        this.incomplete = Boolean.TRUE.equals(status.getIncomplete()) || status.getEvaluationError() != null;
+    }
+
+    /**
+     * Checks whether rules allow given action on all resources of given kind.
+     *
+     * @param group    resource group.
+     * @param resource resource kind.
+     * @param verb     action.
+     * @return true if action is allowed.
+     */
+    public boolean allows(String group, String resource, String verb) {
+        String apiGroup = group == null ? "" : group;
+        return rules
+            .stream()
+            .filter(rule -> rule.getResourceNames() == null || rule.getResourceNames().isEmpty())
+            .anyMatch(rule -> matches(rule.getVerbs(), verb) &&
+                matches(rule.getApiGroups(), apiGroup) &&
+                matches(rule.getResources(), resource));
+    }
+
+    private static boolean matches(List<String> values, String value) {
+        return values != null && (values.contains(WILDCARD) || values.contains(value));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import java.time.Duration;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory set of app namespaces, i.e. namespaces with app label.
+ * Backed by an informer, so lookups don't make any calls to kubernetes.
+ * Lets caches watch resources, which don't carry app label, with a single informer in all namespaces and serve
+ * only the ones of app namespaces.
+ */
+@Slf4j
+@Component
+public class AppNamespaceIndex {
+    private final SharedIndexInformer<Namespace> informer;
+
+    /**
+     * Constructor for class AppNamespaceIndex.
+     *
+     * @param client       admin kubernetes client.
+     * @param appNameLabel value of app label.
+     * @param resync       informer resync period.
+     */
+    public AppNamespaceIndex(
+        NamespacedKubernetesClient client,
+        @Value("${namespace.label}") String appNameLabel,
+        @Value("${kubernetes.informers.resync:10m}") Duration resync) {
+        this.informer = client
+            .informers()
+            .sharedIndexInformerFor(Namespace.class,
+                                    new OperationContext().withLabels(Map.of(K8sUtils.APP, appNameLabel)),
+                                    resync.toMillis());
+    }
+
+    /**
+     * Starts informer.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            informer.run();
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to start namespaces informer, caches of app namespaces won't be used", e);
+        }
+    }
+
+    /**
+     * Stops informer.
+     */
+    @PreDestroy
+    public void stop() {
+        informer.stop();
+    }
+
+    /**
+     * Checks whether index reflects the state of the cluster.
+     *
+     * @return true if informer has synced.
+     */
+    public boolean isSynced() {
+        return informer.hasSynced();
+    }
+
+    /**
+     * Checks whether namespace is an app namespace.
+     *
+     * @param namespace namespace name.
+     * @return true if namespace has app label.
+     */
+    public boolean contains(final String namespace) {
+        return informer.getIndexer().getByKey(namespace) != null;
+    }
+}
@@ -21,26 +21,117 @@ import by.iba.vfapi.model.argo.CronWorkflow;
 import by.iba.vfapi.model.argo.CronWorkflowList;
 import by.iba.vfapi.model.argo.Workflow;
 import by.iba.vfapi.model.argo.WorkflowList;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
+import by.iba.vfapi.model.argo.WorkflowRuntimeList;
 import by.iba.vfapi.model.argo.WorkflowTemplate;
 import by.iba.vfapi.model.argo.WorkflowTemplateList;
 import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.HttpClientAware;
 import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ArgoKubernetesService extends KubernetesService {
+    private static final String ARGO_GROUP = "argoproj.io";
+    private static final String WORKFLOW_TEMPLATES = "workflowtemplates";
+    private static final String WORKFLOWS = "workflows";
+    private static final String CRON_WORKFLOWS = "cronworkflows";
+    private static final String ARGO_API_PATH = "apis/argoproj.io/v1alpha1";
+    private static final String WORKFLOWS_PATH = ARGO_API_PATH + "/namespaces";
+
+    private final ArgoResourceCache argoResourceCache;
 
     public ArgoKubernetesService(
         NamespacedKubernetesClient client,
         @Value("${namespace.app}") String appName,
         @Value("${namespace.label}") String appNameLabel,
-        AuthenticationService authenticationService) {
-        super(client, appName, appNameLabel, authenticationService);
+        AuthenticationService authenticationService,
+        ServiceAccountCache serviceAccountCache,
+        AccessDecisionCache accessDecisionCache,
+        JobConfigMapCache jobConfigMapCache,
+        PodCache podCache,
+        ArgoResourceCache argoResourceCache) {
+        super(client,
+              appName,
+              appNameLabel,
+              authenticationService,
+              serviceAccountCache,
+              accessDecisionCache,
+              jobConfigMapCache,
+              podCache);
+        this.argoResourceCache = argoResourceCache;
+    }
+
+    private <T extends CustomResource<?, ?>> List<T> getAllFromCache(
+        final Class<T> type, final String resource, final String namespaceId) {
+        checkAccess(namespaceId, resource, ARGO_GROUP, "list");
+        return argoResourceCache.getAll(type, namespaceId);
+    }
+
+    private <T extends CustomResource<?, ?>> T getFromCache(
+        final Class<T> type, final String resource, final String namespaceId, final String name) {
+        if (!argoResourceCache.isSynced()) {
+            return null;
+        }
+        T cached = argoResourceCache.get(type, namespaceId, name);
+        if (cached != null) {
+            checkAccess(namespaceId, resource, ARGO_GROUP, "get");
+        }
+        return cached;
+    }
+
+    private <T extends CustomResource<?, ?>, R> List<R> projectFromCache(
+        final Class<T> type, final String resource, final String namespaceId, final Function<? super T, R> projection) {
+        checkAccess(namespaceId, resource, ARGO_GROUP, "list");
+        return argoResourceCache.project(type, namespaceId, projection);
+    }
+
+    private <T extends CustomResource<?, ?>> List<ObjectMeta> getAllMetadata(
+        final Class<T> type, final String resource, final String namespaceId) {
+        if (argoResourceCache.isSynced()) {
+            return projectFromCache(type,
+                                    resource,
+                                    namespaceId,
+                                    (T cached) -> new ObjectMetaBuilder(cached.getMetadata()).build());
+        }
+        return listMetadata(namespaceId, ARGO_API_PATH, resource, Map.of());
+    }
+
+    /**
+     * Deletes resource and removes it from argo resources cache, so it's gone before watch event arrives.
+     */
+    private <T extends CustomResource<?, ?>> void delete(
+        final Class<T> type,
+        final Function<NamespacedKubernetesClient, MixedOperation<T, ?, Resource<T>>> crdClient,
+        final String namespaceId,
+        final String name) {
+        T cached = argoResourceCache.isSynced() ? argoResourceCache.get(type, namespaceId, name) : null;
+        authenticatedCall(authenticatedClient -> crdClient
+            .apply(authenticatedClient)
+            .inNamespace(namespaceId)
+            .withName(name)
+            .delete());
+        if (cached != null) {
+            argoResourceCache.remove(type, cached);
+        }
     }
 
     private MixedOperation<CronWorkflow, CronWorkflowList, Resource<CronWorkflow>> getCronWorkflowCrdClient(
@@ -68,18 +159,31 @@ public class ArgoKubernetesService extends KubernetesService {
         final String namespaceId, final WorkflowTemplate workflowTemplate) {
         workflowTemplate.getMetadata().getLabels().put(K8sUtils.APP, appNameLabel);
 
-        authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(authenticatedClient)
-            .inNamespace(namespaceId)
-            .createOrReplace(workflowTemplate));
+        argoResourceCache.put(WorkflowTemplate.class,
+                              authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(
+                                  authenticatedClient).inNamespace(namespaceId).createOrReplace(workflowTemplate)));
+    }
+
+    /**
+     * Checks whether argo resources are served from cache.
+     *
+     * @return true if argo resources cache has synced.
+     */
+    public boolean isArgoCacheSynced() {
+        return argoResourceCache.isSynced();
     }
 
     /**
      * Getting all workflowTemplates in namespace.
+     * Served from argo resources cache once it's synced.
      *
      * @param namespaceId namespace id
      * @return List with all workflowTemplates
      */
     public List<WorkflowTemplate> getAllWorkflowTemplates(final String namespaceId) {
+        if (argoResourceCache.isSynced()) {
+            return getAllFromCache(WorkflowTemplate.class, WORKFLOW_TEMPLATES, namespaceId);
+        }
         return authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
             .list()
@@ -95,6 +199,12 @@ public class ArgoKubernetesService extends KubernetesService {
      */
     public List<WorkflowTemplate> getWorkflowTemplatesByLabels(
         final String namespaceId, final Map<String, String> labels) {
+        if (argoResourceCache.isSynced()) {
+            return getAllFromCache(WorkflowTemplate.class, WORKFLOW_TEMPLATES, namespaceId)
+                .stream()
+                .filter(template -> template.getMetadata().getLabels().entrySet().containsAll(labels.entrySet()))
+                .collect(Collectors.toList());
+        }
         return authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
             .withLabels(labels)
@@ -102,6 +212,40 @@ public class ArgoKubernetesService extends KubernetesService {
             .getItems());
     }
 
+    /**
+     * Getting metadata of all workflowTemplates in namespace.
+     * Served from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return metadata of workflowTemplates
+     */
+    public List<ObjectMeta> getAllWorkflowTemplatesMetadata(final String namespaceId) {
+        return getWorkflowTemplatesMetadataByLabels(namespaceId, Map.of());
+    }
+
+    /**
+     * Getting metadata of workflowTemplates by labels.
+     * Served from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace name
+     * @param labels      map of labels
+     * @return metadata of workflowTemplates
+     */
+    public List<ObjectMeta> getWorkflowTemplatesMetadataByLabels(
+        final String namespaceId, final Map<String, String> labels) {
+        if (argoResourceCache.isSynced()) {
+            return projectFromCache(WorkflowTemplate.class,
+                                    WORKFLOW_TEMPLATES,
+                                    namespaceId,
+                                    WorkflowTemplate::getMetadata)
+                .stream()
+                .filter(metadata -> metadata.getLabels().entrySet().containsAll(labels.entrySet()))
+                .map(metadata -> new ObjectMetaBuilder(metadata).build())
+                .collect(Collectors.toList());
+        }
+        return listMetadata(namespaceId, ARGO_API_PATH, WORKFLOW_TEMPLATES, labels);
+    }
+
     /**
      * Getting workflowTemplate by name.
      *
@@ -110,6 +254,10 @@ public class ArgoKubernetesService extends KubernetesService {
      * @return workflowTemplate
      */
     public WorkflowTemplate getWorkflowTemplate(final String namespaceId, final String name) {
+        WorkflowTemplate cached = getFromCache(WorkflowTemplate.class, WORKFLOW_TEMPLATES, namespaceId, name);
+        if (cached != null) {
+            return cached;
+        }
         return authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
             .withName(name)
@@ -123,10 +271,7 @@ public class ArgoKubernetesService extends KubernetesService {
      * @param name        workflowTemplate name
      */
     public void deleteWorkflowTemplate(final String namespaceId, final String name) {
-        authenticatedCall(authenticatedClient -> getWorkflowTemplateCrdClient(authenticatedClient)
-            .inNamespace(namespaceId)
-            .withName(name)
-            .delete());
+        delete(WorkflowTemplate.class, this::getWorkflowTemplateCrdClient, namespaceId, name);
     }
 
     /**
@@ -136,9 +281,10 @@ public class ArgoKubernetesService extends KubernetesService {
      * @param workflow    new workflowTemplate
      */
     public void createOrReplaceWorkflow(final String namespaceId, final Workflow workflow) {
-        authenticatedCall(authenticatedClient -> getWorkflowCrdClient(authenticatedClient)
-            .inNamespace(namespaceId)
-            .createOrReplace(workflow));
+        argoResourceCache.put(Workflow.class,
+                              authenticatedCall(authenticatedClient -> getWorkflowCrdClient(authenticatedClient)
+                                  .inNamespace(namespaceId)
+                                  .createOrReplace(workflow)));
     }
 
     /**
@@ -148,10 +294,35 @@ public class ArgoKubernetesService extends KubernetesService {
      * @param name        workflow name
      */
     public void deleteWorkflow(final String namespaceId, final String name) {
-        authenticatedCall(authenticatedClient -> getWorkflowCrdClient(authenticatedClient)
+        delete(Workflow.class, this::getWorkflowCrdClient, namespaceId, name);
+    }
+
+    /**
+     * Getting all workflows in namespace.
+     * Served from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return List with all workflows
+     */
+    public List<Workflow> getAllWorkflows(final String namespaceId) {
+        if (argoResourceCache.isSynced()) {
+            return getAllFromCache(Workflow.class, WORKFLOWS, namespaceId);
+        }
+        return authenticatedCall(authenticatedClient -> getWorkflowCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
-            .withName(name)
-            .delete());
+            .list()
+            .getItems());
+    }
+
+    /**
+     * Getting metadata of all workflows in namespace.
+     * Projected from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return metadata of workflows
+     */
+    public List<ObjectMeta> getAllWorkflowsMetadata(final String namespaceId) {
+        return getAllMetadata(Workflow.class, WORKFLOWS, namespaceId);
     }
 
     /**
@@ -162,6 +333,10 @@ public class ArgoKubernetesService extends KubernetesService {
      * @return Workflow
      */
     public Workflow getWorkflow(final String namespaceId, final String name) {
+        Workflow cached = getFromCache(Workflow.class, WORKFLOWS, namespaceId, name);
+        if (cached != null) {
+            return cached;
+        }
         return authenticatedCall(authenticatedClient -> getWorkflowCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
             .withName(name)
@@ -169,6 +344,77 @@ public class ArgoKubernetesService extends KubernetesService {
     }
 
 
+    /**
+     * Getting runtime info of all workflows in namespace.
+     * Projected from argo resources cache once it's synced, otherwise only the fields of runtime info are read
+     * from the response of kubernetes.
+     *
+     * @param namespaceId namespace id
+     * @return runtime info of all workflows
+     */
+    public List<WorkflowRuntime> getAllWorkflowRuntimes(final String namespaceId) {
+        if (argoResourceCache.isSynced()) {
+            return projectFromCache(Workflow.class, WORKFLOWS, namespaceId, WorkflowRuntime::of);
+        }
+        return readWorkflows(namespaceId, null, WorkflowRuntimeList.class).getItems();
+    }
+
+    /**
+     * Getting runtime info of workflow by name.
+     * Projected from argo resources cache once it's synced, otherwise only the fields of runtime info are read
+     * from the response of kubernetes.
+     *
+     * @param namespaceId namespace name
+     * @param name        workflow name
+     * @return runtime info of workflow
+     */
+    public WorkflowRuntime getWorkflowRuntime(final String namespaceId, final String name) {
+        Workflow cached = getFromCache(Workflow.class, WORKFLOWS, namespaceId, name);
+        if (cached != null) {
+            return WorkflowRuntime.of(cached);
+        }
+        return readWorkflows(namespaceId, name, WorkflowRuntime.class);
+    }
+
+    /**
+     * Reads workflows in namespace, or a single one if name is set, with the user's client.
+     * Response is decoded right from the stream into the given type, so workflows are never built in full.
+     *
+     * @param namespaceId namespace name
+     * @param name        workflow name or null to read all workflows
+     * @param type        type to decode response to
+     * @param <T>         decoded type
+     * @return decoded response
+     */
+    private <T> T readWorkflows(final String namespaceId, final String name, final Class<T> type) {
+        return authenticatedCall((NamespacedKubernetesClient authenticatedClient) -> {
+            HttpUrl.Builder url = HttpUrl
+                .get(authenticatedClient.getMasterUrl())
+                .newBuilder()
+                .addPathSegments(WORKFLOWS_PATH)
+                .addPathSegment(namespaceId)
+                .addPathSegment(WORKFLOWS);
+            if (name != null) {
+                url.addPathSegment(name);
+            }
+            Request request = new Request.Builder().get().url(url.build()).build();
+            try (Response response = ((HttpClientAware) authenticatedClient)
+                .getHttpClient()
+                .newCall(request)
+                .execute()) {
+                if (name != null && response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    throw new ResourceNotFoundException(String.format("Workflow %s/%s not found", namespaceId, name));
+                }
+                if (!response.isSuccessful()) {
+                    throw OperationSupport.requestFailure(request, OperationSupport.createStatus(response));
+                }
+                return Serialization.jsonMapper().readValue(response.body().byteStream(), type);
+            } catch (IOException e) {
+                throw OperationSupport.requestException(request, e);
+            }
+        });
+    }
+
     /**
      * Create or replace cron workflow.
      *
@@ -176,9 +422,10 @@ public class ArgoKubernetesService extends KubernetesService {
      * @param cronWorkflow new cronWorkflow
      */
     public void createOrReplaceCronWorkflow(final String namespaceId, final CronWorkflow cronWorkflow) {
-        authenticatedCall(authenticatedClient -> getCronWorkflowCrdClient(authenticatedClient)
-            .inNamespace(namespaceId)
-            .createOrReplace(cronWorkflow));
+        argoResourceCache.put(CronWorkflow.class,
+                              authenticatedCall(authenticatedClient -> getCronWorkflowCrdClient(authenticatedClient)
+                                  .inNamespace(namespaceId)
+                                  .createOrReplace(cronWorkflow)));
     }
 
     /**
@@ -188,10 +435,35 @@ public class ArgoKubernetesService extends KubernetesService {
      * @param name        cron workflow name
      */
     public void deleteCronWorkflow(final String namespaceId, final String name) {
-        authenticatedCall(authenticatedClient -> getCronWorkflowCrdClient(authenticatedClient)
+        delete(CronWorkflow.class, this::getCronWorkflowCrdClient, namespaceId, name);
+    }
+
+    /**
+     * Getting all cron workflows in namespace.
+     * Served from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return List with all cron workflows
+     */
+    public List<CronWorkflow> getAllCronWorkflows(final String namespaceId) {
+        if (argoResourceCache.isSynced()) {
+            return getAllFromCache(CronWorkflow.class, CRON_WORKFLOWS, namespaceId);
+        }
+        return authenticatedCall(authenticatedClient -> getCronWorkflowCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
-            .withName(name)
-            .delete());
+            .list()
+            .getItems());
+    }
+
+    /**
+     * Getting metadata of all cron workflows in namespace.
+     * Projected from argo resources cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return metadata of cron workflows
+     */
+    public List<ObjectMeta> getAllCronWorkflowsMetadata(final String namespaceId) {
+        return getAllMetadata(CronWorkflow.class, CRON_WORKFLOWS, namespaceId);
     }
 
     /**
@@ -202,6 +474,10 @@ public class ArgoKubernetesService extends KubernetesService {
      * @return Workflow
      */
     public CronWorkflow getCronWorkflow(final String namespaceId, final String name) {
+        CronWorkflow cached = getFromCache(CronWorkflow.class, CRON_WORKFLOWS, namespaceId, name);
+        if (cached != null) {
+            return cached;
+        }
         return authenticatedCall(authenticatedClient -> getCronWorkflowCrdClient(authenticatedClient)
             .inNamespace(namespaceId)
             .withName(name)
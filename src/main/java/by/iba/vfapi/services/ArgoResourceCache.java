@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.model.argo.CronWorkflow;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowTemplate;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.SerializationUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of argo workflow templates, workflows and cron workflows, indexed by namespace.
+ * Backed by informers, so lookups don't make any calls to kubernetes.
+ * Resources created by previous versions and workflows started by cron workflows don't carry app label, so they are
+ * watched in all namespaces and served only for app namespaces.
+ * Resources are returned as copies, so callers may change them without affecting the informers' stores.
+ * It doesn't check permissions, callers must authorize the user before reading from it.
+ */
+@Slf4j
+@Component
+public class ArgoResourceCache {
+    private final AppNamespaceIndex appNamespaces;
+    private final Map<Class<?>, SharedIndexInformer<? extends CustomResource<?, ?>>> informers;
+
+    /**
+     * Constructor for class ArgoResourceCache.
+     *
+     * @param client        admin kubernetes client.
+     * @param appNamespaces index of app namespaces.
+     * @param resync        informers resync period.
+     */
+    public ArgoResourceCache(
+        NamespacedKubernetesClient client,
+        AppNamespaceIndex appNamespaces,
+        @Value("${kubernetes.informers.resync:10m}") Duration resync) {
+        this.appNamespaces = appNamespaces;
+        OperationContext allNamespaces = new OperationContext().withIsNamespaceConfiguredFromGlobalConfig(false);
+        this.informers = Map.of(WorkflowTemplate.class,
+                                client
+                                    .informers()
+                                    .sharedIndexInformerForCustomResource(WorkflowTemplate.class,
+                                                                          allNamespaces,
+                                                                          resync.toMillis()),
+                                Workflow.class,
+                                client
+                                    .informers()
+                                    .sharedIndexInformerForCustomResource(Workflow.class,
+                                                                          allNamespaces,
+                                                                          resync.toMillis()),
+                                CronWorkflow.class,
+                                client
+                                    .informers()
+                                    .sharedIndexInformerForCustomResource(CronWorkflow.class,
+                                                                          allNamespaces,
+                                                                          resync.toMillis()));
+    }
+
+    /**
+     * Starts informers.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            for (SharedIndexInformer<?> informer : informers.values()) {
+                informer.run();
+            }
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to start argo resources informers, pipelines will be read from kubernetes", e);
+        }
+    }
+
+    /**
+     * Stops informers.
+     */
+    @PreDestroy
+    public void stop() {
+        informers.values().forEach(SharedIndexInformer::stop);
+    }
+
+    /**
+     * Checks whether cache reflects the state of the cluster.
+     *
+     * @return true if all informers and index of app namespaces have synced.
+     */
+    public boolean isSynced() {
+        return appNamespaces.isSynced() && informers.values().stream().allMatch(SharedIndexInformer::hasSynced);
+    }
+
+    /**
+     * Gets all resources of given kind in namespace.
+     *
+     * @param type      resource class.
+     * @param namespace namespace name.
+     * @param <T>       resource type.
+     * @return resources.
+     */
+    public <T extends CustomResource<?, ?>> List<T> getAll(final Class<T> type, final String namespace) {
+        return project(type, namespace, SerializationUtils::clone);
+    }
+
+    /**
+     * Projects all resources of given kind in namespace, without copying them.
+     * Projection must not keep references to the parts of resources, which may change.
+     *
+     * @param type       resource class.
+     * @param namespace  namespace name.
+     * @param projection projection.
+     * @param <T>        resource type.
+     * @param <R>        projection type.
+     * @return projections of resources.
+     */
+    public <T extends CustomResource<?, ?>, R> List<R> project(
+        final Class<T> type, final String namespace, final Function<? super T, R> projection) {
+        if (!appNamespaces.contains(namespace)) {
+            return List.of();
+        }
+        return getInformer(type)
+            .getIndexer()
+            .byIndex(Cache.NAMESPACE_INDEX, namespace)
+            .stream()
+            .map(projection)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets resource by name.
+     *
+     * @param type      resource class.
+     * @param namespace namespace name.
+     * @param name      resource name.
+     * @param <T>       resource type.
+     * @return resource or null if there is no such resource.
+     */
+    public <T extends CustomResource<?, ?>> T get(final Class<T> type, final String namespace, final String name) {
+        if (!appNamespaces.contains(namespace)) {
+            return null;
+        }
+        T resource = getInformer(type).getIndexer().getByKey(Cache.namespaceKeyFunc(namespace, name));
+        return resource == null ? null : SerializationUtils.clone(resource);
+    }
+
+    /**
+     * Puts resource written to kubernetes, so it's visible before watch event arrives.
+     * It's skipped once informer has received this version of resource or a later one.
+     *
+     * @param type     resource class.
+     * @param resource resource returned by kubernetes.
+     * @param <T>      resource type.
+     */
+    public <T extends CustomResource<?, ?>> void put(final Class<T> type, final T resource) {
+        if (isSynced()) {
+            InformerWrites.put(getInformer(type), resource);
+        }
+    }
+
+    /**
+     * Removes resource deleted from kubernetes, so it's gone before watch event arrives.
+     * It's skipped if resource has changed since it was read.
+     *
+     * @param type     resource class.
+     * @param resource resource read from cache before it was deleted.
+     * @param <T>      resource type.
+     */
+    public <T extends CustomResource<?, ?>> void remove(final Class<T> type, final T resource) {
+        InformerWrites.remove(getInformer(type), resource);
+    }
+
+    /**
+     * Adds handler of changes of resources of given kind.
+     *
+     * @param type    resource class.
+     * @param handler handler.
+     * @param <T>     resource type.
+     */
+    public <T extends CustomResource<?, ?>> void addEventHandler(
+        final Class<T> type, final ResourceEventHandler<T> handler) {
+        getInformer(type).addEventHandler(handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends CustomResource<?, ?>> SharedIndexInformer<T> getInformer(Class<T> type) {
+        return (SharedIndexInformer<T>) informers.get(type);
+    }
+}
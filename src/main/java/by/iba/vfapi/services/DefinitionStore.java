@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps definitions of jobs and pipelines in their annotations or, when they are too large, in config maps.
+ * Definitions are stored compressed. A compressed definition, which is still longer than the threshold, is moved to
+ * a config map named after the hash of its content and the annotation refers to it by the hash. Such config maps
+ * are never changed, so copies of a job or pipeline share them, and they don't get into job lists, since they have
+ * their own type label. A config map is deleted, once the last job or pipeline referring to it is changed or deleted.
+ */
+@Slf4j
+@Component
+public class DefinitionStore {
+    static final String BLOB_NAME_PREFIX = "def-";
+
+    private final KubernetesService kubernetesService;
+    private final int blobThreshold;
+
+    /**
+     * Constructor for class DefinitionStore.
+     *
+     * @param kubernetesService kubernetes service.
+     * @param blobThreshold     maximum length of definition annotation, longer definitions are kept in config maps.
+     */
+    public DefinitionStore(
+        KubernetesService kubernetesService, @Value("${definitions.blobThreshold:65536}") int blobThreshold) {
+        this.kubernetesService = kubernetesService;
+        this.blobThreshold = blobThreshold;
+    }
+
+    /**
+     * Moves definition of resource to config map if it's too large.
+     * Definitions in legacy encoding are compressed first.
+     *
+     * @param projectId project id.
+     * @param metadata  metadata of job config map or pipeline workflow template.
+     */
+    public void offload(String projectId, ObjectMeta metadata) {
+        Map<String, String> annotations = metadata.getAnnotations();
+        String value = annotations == null ? null : annotations.get(Constants.DEFINITION);
+        if (value == null || value.length() <= blobThreshold || DefinitionCodec.isBlob(value)) {
+            return;
+        }
+        if (!value.startsWith(DefinitionCodec.GZIP_PREFIX)) {
+            value = DefinitionCodec.encode(DefinitionCodec.decode(value));
+        }
+        if (value.length() > blobThreshold) {
+            String compressed = value.substring(DefinitionCodec.GZIP_PREFIX.length());
+            String hash = DigestUtils.sha256Hex(Base64.decodeBase64(compressed));
+            kubernetesService.createOrReplaceConfigMap(projectId,
+                                                       new ConfigMapBuilder()
+                                                           .withNewMetadata()
+                                                           .withName(BLOB_NAME_PREFIX + hash)
+                                                           .addToLabels(Constants.TYPE,
+                                                                        Constants.TYPE_DEFINITION)
+                                                           .endMetadata()
+                                                           .addToBinaryData(Constants.DEFINITION, compressed)
+                                                           .build());
+            LOGGER.info("Definition of {} is kept in config map {}{}", metadata.getName(), BLOB_NAME_PREFIX, hash);
+            value = DefinitionCodec.BLOB_PREFIX + hash;
+        }
+        annotations.put(Constants.DEFINITION, value);
+    }
+
+    /**
+     * Deletes config map of previous definition of resource, if no other resource of the project refers to it.
+     * Resources are listed only if the previous definition was kept in config map.
+     *
+     * @param projectId project id.
+     * @param previous  metadata of resource before it was changed or deleted, null if there was no resource.
+     * @param resources supplier of metadata of resources of the same kind left in the project.
+     */
+    public void release(String projectId, ObjectMeta previous, Supplier<List<ObjectMeta>> resources) {
+        String hash = previous == null ? null : getBlobHash(previous);
+        if (hash == null || resources.get().stream().anyMatch(metadata -> hash.equals(getBlobHash(metadata)))) {
+            return;
+        }
+        kubernetesService.deleteConfigMap(projectId, BLOB_NAME_PREFIX + hash);
+        LOGGER.info("Config map {}{} of definition of {} is deleted", BLOB_NAME_PREFIX, hash, previous.getName());
+    }
+
+    private static String getBlobHash(ObjectMeta metadata) {
+        Map<String, String> annotations = metadata.getAnnotations();
+        String value = annotations == null ? null : annotations.get(Constants.DEFINITION);
+        return value != null && DefinitionCodec.isBlob(value) ? DefinitionCodec.getBlobHash(value) : null;
+    }
+
+    /**
+     * Reads definition of resource.
+     *
+     * @param projectId project id.
+     * @param metadata  metadata of job config map or pipeline workflow template.
+     * @return definition.
+     */
+    public JsonNode read(String projectId, ObjectMeta metadata) {
+        return DefinitionCodec.decode(getInlineValue(projectId, metadata.getAnnotations().get(Constants.DEFINITION)));
+    }
+
+    /**
+     * Puts definition of resource back to its annotation, so resource doesn't depend on config maps of the
+     * project, e.g. when it's exported.
+     *
+     * @param projectId project id.
+     * @param metadata  metadata of job config map or pipeline workflow template.
+     */
+    public void inline(String projectId, ObjectMeta metadata) {
+        Map<String, String> annotations = metadata.getAnnotations();
+        String value = annotations == null ? null : annotations.get(Constants.DEFINITION);
+        if (value != null && DefinitionCodec.isBlob(value)) {
+            annotations.put(Constants.DEFINITION, getInlineValue(projectId, value));
+        }
+    }
+
+    /**
+     * Resolves blob reference to compressed definition.
+     *
+     * @param projectId project id.
+     * @param value     annotation value.
+     * @return annotation value with definition itself.
+     */
+    private String getInlineValue(String projectId, String value) {
+        if (!DefinitionCodec.isBlob(value)) {
+            return value;
+        }
+        ConfigMap blob =
+            kubernetesService.getConfigMap(projectId, BLOB_NAME_PREFIX + DefinitionCodec.getBlobHash(value));
+        return DefinitionCodec.GZIP_PREFIX + blob.getBinaryData().get(Constants.DEFINITION);
+    }
+}
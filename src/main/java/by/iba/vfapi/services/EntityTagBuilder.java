@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds strong entity tag of a response from everything the response is made of:
+ * versions of kubernetes resources and results of permission checks.
+ * Equal tags mean equal responses, so the response doesn't have to be built when the client has it already.
+ */
+public class EntityTagBuilder {
+    private static final Comparator<ObjectMeta> BY_NAME = Comparator.comparing(ObjectMeta::getName);
+
+    private final Hasher hasher = Hashing.sha256().newHasher();
+
+    /**
+     * Adds value to the tag.
+     *
+     * @param value value, may be null.
+     * @return this builder.
+     */
+    public EntityTagBuilder add(final Object value) {
+        hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putByte((byte) 0);
+        return this;
+    }
+
+    /**
+     * Adds names and versions of resources to the tag, order of the resources doesn't matter.
+     *
+     * @param kind      kind of the resources.
+     * @param resources resources.
+     * @return this builder.
+     */
+    public EntityTagBuilder addVersions(final String kind, final Collection<? extends HasMetadata> resources) {
+        return addMetadataVersions(kind,
+                                   resources.stream().map(HasMetadata::getMetadata).collect(Collectors.toList()));
+    }
+
+    /**
+     * Adds names and versions of resources to the tag by their metadata, order of the resources doesn't matter.
+     *
+     * @param kind     kind of the resources.
+     * @param metadata metadata of the resources.
+     * @return this builder.
+     */
+    public EntityTagBuilder addMetadataVersions(final String kind, final Collection<ObjectMeta> metadata) {
+        add(kind).add(metadata.size());
+        List<ObjectMeta> sorted = metadata.stream().sorted(BY_NAME).collect(Collectors.toList());
+        for (ObjectMeta resource : sorted) {
+            add(resource.getName()).add(resource.getResourceVersion());
+        }
+        return this;
+    }
+
+    /**
+     * Adds name and version of the resource to the tag.
+     *
+     * @param resource resource, may be null.
+     * @return this builder.
+     */
+    public EntityTagBuilder addVersion(final HasMetadata resource) {
+        if (resource == null) {
+            return add(null);
+        }
+        ObjectMeta metadata = resource.getMetadata();
+        return add(metadata.getName()).add(metadata.getResourceVersion());
+    }
+
+    /**
+     * Builds quoted tag.
+     *
+     * @return tag.
+     */
+    public String build() {
+        return '"' + hasher.hash().toString() + '"';
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package by.iba.vfapi.services;
+
+import com.google.common.base.Strings;
+import com.google.common.primitives.Longs;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.fabric8.kubernetes.client.informers.cache.Indexer;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Writes of resources changed by the app into stores of informers, so changes are visible before watch events
+ * arrive. Informers apply watch events to their stores concurrently, so a write must never replace a newer state:
+ * a resource is put only if its resource version is newer than anything the informer has received, otherwise the
+ * watch event of the change, or a later one, is already on its way to the store. Resource versions, which are not
+ * numbers, are left to watch events.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class InformerWrites {
+
+    /**
+     * Puts resource returned by kubernetes, unless informer has already received its version or a later one.
+     * Version of stored resource is checked as well, since servers may leave out version of lists.
+     *
+     * @param informer informer.
+     * @param resource resource returned by kubernetes.
+     * @param <T>      resource type.
+     */
+    static <T extends HasMetadata> void put(final SharedIndexInformer<T> informer, final T resource) {
+        Long version = parseVersion(resource);
+        if (version == null) {
+            return;
+        }
+        Indexer<T> indexer = informer.getIndexer();
+        synchronized (indexer) {
+            T indexed = indexer.getByKey(Cache.metaNamespaceKeyFunc(resource));
+            if (isNewer(version, Longs.tryParse(Strings.nullToEmpty(informer.lastSyncResourceVersion()))) &&
+                (indexed == null || isNewer(version, parseVersion(indexed)))) {
+                indexer.update(resource);
+            }
+        }
+    }
+
+    /**
+     * Removes resource deleted from kubernetes, unless it has changed in the store since it was read.
+     * Resource, which is created again or updated meanwhile, stays in the store until its watch event arrives.
+     *
+     * @param informer informer.
+     * @param deleted  resource read from the store before it was deleted.
+     * @param <T>      resource type.
+     */
+    static <T extends HasMetadata> void remove(final SharedIndexInformer<T> informer, final T deleted) {
+        Indexer<T> indexer = informer.getIndexer();
+        synchronized (indexer) {
+            T indexed = indexer.getByKey(Cache.metaNamespaceKeyFunc(deleted));
+            if (indexed != null && Objects.equals(indexed.getMetadata().getResourceVersion(),
+                                                  deleted.getMetadata().getResourceVersion())) {
+                indexer.delete(indexed);
+            }
+        }
+    }
+
+    private static Long parseVersion(HasMetadata resource) {
+        return Longs.tryParse(Strings.nullToEmpty(resource.getMetadata().getResourceVersion()));
+    }
+
+    private static boolean isNewer(long version, Long other) {
+        return other == null || version > other;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of job config maps of all projects, indexed by project and by job name.
+ * Backed by an informer, so lookups don't make any calls to kubernetes.
+ * Config maps are returned as copies, so callers may change them without affecting the informer's store.
+ * It doesn't check permissions, callers must authorize the user before reading from it.
+ */
+@Slf4j
+@Component
+public class JobConfigMapCache {
+    static final String NAME_INDEX = "name";
+
+    private final SharedIndexInformer<ConfigMap> informer;
+
+    /**
+     * Constructor for class JobConfigMapCache.
+     *
+     * @param client       admin kubernetes client.
+     * @param appNameLabel value of app label.
+     * @param resync       informer resync period.
+     */
+    public JobConfigMapCache(
+        NamespacedKubernetesClient client,
+        @Value("${namespace.label}") String appNameLabel,
+        @Value("${kubernetes.informers.resync:10m}") Duration resync) {
+        this.informer = client
+            .informers()
+            .sharedIndexInformerFor(ConfigMap.class,
+                                    new OperationContext()
+                                        .withIsNamespaceConfiguredFromGlobalConfig(false)
+                                        .withLabels(Map.of(K8sUtils.APP,
+                                                           appNameLabel,
+                                                           Constants.TYPE,
+                                                           Constants.TYPE_JOB)),
+                                    resync.toMillis());
+        this.informer.addIndexers(Map.of(NAME_INDEX, JobConfigMapCache::getNameKey));
+    }
+
+    /**
+     * Starts informer.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            informer.run();
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to start job config maps informer, jobs will be read from kubernetes", e);
+        }
+    }
+
+    /**
+     * Stops informer.
+     */
+    @PreDestroy
+    public void stop() {
+        informer.stop();
+    }
+
+    /**
+     * Checks whether cache reflects the state of the cluster.
+     *
+     * @return true if informer has synced.
+     */
+    public boolean isSynced() {
+        return informer.hasSynced();
+    }
+
+    /**
+     * Gets all job config maps in namespace.
+     *
+     * @param namespace namespace name.
+     * @return config maps.
+     */
+    public List<ConfigMap> getAll(final String namespace) {
+        return copy(informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace));
+    }
+
+    /**
+     * Gets metadata of all job config maps in namespace.
+     *
+     * @param namespace namespace name.
+     * @return metadata of config maps.
+     */
+    public List<ObjectMeta> getAllMetadata(final String namespace) {
+        return informer
+            .getIndexer()
+            .byIndex(Cache.NAMESPACE_INDEX, namespace)
+            .stream()
+            .map(configMap -> new ObjectMetaBuilder(configMap.getMetadata()).build())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets job config map by id.
+     *
+     * @param namespace namespace name.
+     * @param id        config map name.
+     * @return config map or null if there is no such job.
+     */
+    public ConfigMap get(final String namespace, final String id) {
+        ConfigMap configMap = informer.getIndexer().getByKey(Cache.namespaceKeyFunc(namespace, id));
+        return configMap == null ? null : new ConfigMapBuilder(configMap).build();
+    }
+
+    /**
+     * Gets job config maps by job name.
+     *
+     * @param namespace namespace name.
+     * @param name      job name.
+     * @return config maps.
+     */
+    public List<ConfigMap> getByName(final String namespace, final String name) {
+        return copy(informer.getIndexer().byIndex(NAME_INDEX, Cache.namespaceKeyFunc(namespace, name)));
+    }
+
+    /**
+     * Puts config map written to kubernetes, so it's visible before watch event arrives.
+     * It's skipped once informer has received this version of config map or a later one.
+     *
+     * @param configMap config map returned by kubernetes.
+     */
+    public void put(final ConfigMap configMap) {
+        if (isSynced() && Constants.TYPE_JOB.equals(configMap.getMetadata().getLabels().get(Constants.TYPE))) {
+            InformerWrites.put(informer, configMap);
+        }
+    }
+
+    /**
+     * Removes config map deleted from kubernetes, so it's gone before watch event arrives.
+     * It's skipped if config map has changed since it was read.
+     *
+     * @param configMap config map read from cache before it was deleted.
+     */
+    public void remove(final ConfigMap configMap) {
+        InformerWrites.remove(informer, configMap);
+    }
+
+    private static List<ConfigMap> copy(List<ConfigMap> configMaps) {
+        return configMaps
+            .stream()
+            .map(configMap -> new ConfigMapBuilder(configMap).build())
+            .collect(Collectors.toList());
+    }
+
+    private static List<String> getNameKey(ConfigMap configMap) {
+        ObjectMeta metadata = configMap.getMetadata();
+        String name = metadata.getLabels() == null ? null : metadata.getLabels().get(Constants.NAME);
+        if (name == null) {
+            return List.of();
+        }
+        return List.of(Cache.namespaceKeyFunc(metadata.getNamespace(), name));
+    }
+}
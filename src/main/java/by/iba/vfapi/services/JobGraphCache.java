@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.PreDestroy;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Least recently used cache of job graphs parsed from job config maps.
+ * Graphs are keyed by resource version of config map, so a changed job is parsed again and its previous
+ * graph is evicted in time. Cached graphs are shared and must not be modified.
+ */
+@Slf4j
+@Component
+public class JobGraphCache {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Cache<GraphKey, GraphDto> graphs;
+
+    /**
+     * Constructor for class JobGraphCache.
+     *
+     * @param size maximum number of cached graphs.
+     */
+    public JobGraphCache(@Value("${job.graphCache.maxSize:1000}") long size) {
+        this.graphs = CacheBuilder.newBuilder().maximumSize(size).recordStats().build();
+    }
+
+    /**
+     * Reports hit ratio of the cache.
+     */
+    @PreDestroy
+    public void close() {
+        CacheStats stats = graphs.stats();
+        LOGGER.info("Job graphs cache: {} requests, hit ratio {}", stats.requestCount(), stats.hitRate());
+    }
+
+    /**
+     * Gets graph of job.
+     * Config maps without resource version, which are not stored yet, are parsed each time.
+     *
+     * @param configMap job config map.
+     * @return parsed graph.
+     */
+    public GraphDto get(ConfigMap configMap) {
+        ObjectMeta metadata = configMap.getMetadata();
+        String jobConfig = configMap.getData().get(Constants.JOB_CONFIG_FIELD);
+        if (metadata.getResourceVersion() == null) {
+            return parse(jobConfig);
+        }
+        try {
+            return graphs.get(new GraphKey(metadata.getNamespace(), metadata.getName(), metadata.getResourceVersion()),
+                              () -> parse(jobConfig));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalProcessingException("Job config is corrupted", e.getCause());
+        }
+    }
+
+    private static GraphDto parse(String jobConfig) {
+        try {
+            return MAPPER.readValue(jobConfig, GraphDto.class);
+        } catch (JsonProcessingException e) {
+            throw new InternalProcessingException("Job config is corrupted", e);
+        }
+    }
+
+    /**
+     * Gets cache statistics.
+     *
+     * @return hit, miss and eviction counters.
+     */
+    public CacheStats getCacheStats() {
+        return graphs.stats();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class GraphKey {
+        private final String namespace;
+        private final String name;
+        private final String resourceVersion;
+    }
+}
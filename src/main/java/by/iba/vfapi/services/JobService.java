@@ -18,9 +18,8 @@
 package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
-import by.iba.vfapi.dto.GraphDto;
 import by.iba.vfapi.dto.LogDto;
-import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.jobs.JobOverviewDto;
 import by.iba.vfapi.dto.jobs.JobOverviewListDto;
 import by.iba.vfapi.dto.jobs.JobRequestDto;
@@ -29,9 +28,8 @@ import by.iba.vfapi.dto.jobs.PipelineJobOverviewDto;
 import by.iba.vfapi.dto.projects.ParamsDto;
 import by.iba.vfapi.exceptions.BadRequestException;
 import by.iba.vfapi.exceptions.ConflictException;
-import by.iba.vfapi.exceptions.InternalProcessingException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
 import io.fabric8.kubernetes.api.model.EnvFromSourceBuilder;
@@ -40,23 +38,20 @@ import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
 import io.fabric8.kubernetes.api.model.PodStatus;
-import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
-import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 /**
@@ -72,18 +67,33 @@ public class JobService {
     private final String imagePullSecret;
     private final String serviceAccount;
     private final KubernetesService kubernetesService;
+    private final UsageAggregator usageAggregator;
+    private final UsageHistory usageHistory;
+    private final ParallelCalls parallelCalls;
+    private final DefinitionStore definitionStore;
+    private final JobGraphCache jobGraphCache;
 
     public JobService(
         @Value("${job.spark.image}") final String jobImage,
         @Value("${job.spark.master}") final String jobMaster,
         @Value("${job.spark.serviceAccount}") final String serviceAccount,
         @Value("${job.imagePullSecret}") final String imagePullSecret,
-        KubernetesService kubernetesService) {
+        KubernetesService kubernetesService,
+        UsageAggregator usageAggregator,
+        UsageHistory usageHistory,
+        ParallelCalls parallelCalls,
+        DefinitionStore definitionStore,
+        JobGraphCache jobGraphCache) {
         this.jobImage = jobImage;
         this.jobMaster = jobMaster;
         this.serviceAccount = serviceAccount;
         this.imagePullSecret = imagePullSecret;
         this.kubernetesService = kubernetesService;
+        this.usageAggregator = usageAggregator;
+        this.usageHistory = usageHistory;
+        this.parallelCalls = parallelCalls;
+        this.definitionStore = definitionStore;
+        this.jobGraphCache = jobGraphCache;
     }
 
     /**
@@ -94,11 +104,15 @@ public class JobService {
      * @param jobName   job name
      */
     void checkJobName(String projectId, String jobId, String jobName) {
-        List<ConfigMap> configMapsByLabels =
-            kubernetesService.getConfigMapsByLabels(projectId, Map.of(Constants.NAME, jobName));
+        List<ObjectMeta> configMapsByLabels =
+            kubernetesService.getConfigMapsMetadataByLabels(projectId,
+                                                            Map.of(Constants.TYPE,
+                                                                   Constants.TYPE_JOB,
+                                                                   Constants.NAME,
+                                                                   jobName));
 
         if (configMapsByLabels.size() > 1 ||
-            (configMapsByLabels.size() == 1 && !configMapsByLabels.get(0).getMetadata().getName().equals(jobId))) {
+            (configMapsByLabels.size() == 1 && !configMapsByLabels.get(0).getName().equals(jobId))) {
             throw new BadRequestException(String.format("Job with name '%s' already exist in project %s",
                                                         jobName,
                                                         projectId));
@@ -139,6 +153,7 @@ public class JobService {
             return createFromConfigMap(projectId, configMap, replaceIfExists);
         } catch (ResourceNotFoundException ex) {
             LOGGER.info("It's ok, there is no job with such id");
+            definitionStore.offload(projectId, configMap.getMetadata());
             kubernetesService.createOrReplaceConfigMap(projectId, configMap);
             return id;
         }
@@ -156,8 +171,19 @@ public class JobService {
         String jobName = jobRequestDto.getName();
         checkJobName(projectId, id, jobName);
 
+        ObjectMeta previous = findMetadata(projectId, id);
         ConfigMap newConfigMap = jobRequestDto.toConfigMap(id);
+        definitionStore.offload(projectId, newConfigMap.getMetadata());
         kubernetesService.createOrReplaceConfigMap(projectId, newConfigMap);
+        definitionStore.release(projectId, previous, () -> kubernetesService.getAllConfigMapsMetadata(projectId));
+    }
+
+    private ObjectMeta findMetadata(final String projectId, final String id) {
+        try {
+            return kubernetesService.getConfigMap(projectId, id).getMetadata();
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
     }
 
     /**
@@ -167,102 +193,147 @@ public class JobService {
      * @return List of jobs
      */
     public JobOverviewListDto getAll(final String projectId) {
-        List<ConfigMap> allConfigMaps = kubernetesService.getAllConfigMaps(projectId);
-        boolean accessibleToRun = kubernetesService.isAccessible(projectId, "pods", "", Constants.CREATE_ACTION);
+        return getAll(projectId, ListQuery.ALL);
+    }
 
-        List<JobOverviewDto> jobs = new ArrayList<>(allConfigMaps.size());
-        for (ConfigMap configMap : allConfigMaps) {
-            ObjectMeta metadata = configMap.getMetadata();
-            String jobId = metadata.getName();
-
-            JobOverviewDto.JobOverviewDtoBuilder jobBuilder = JobOverviewDto.fromConfigMap(configMap);
-
-            try {
-                PodStatus podStatus = kubernetesService.getPodStatus(projectId, jobId);
-                jobBuilder
-                    .startedAt(DateTimeUtils.getFormattedDateTime(podStatus.getStartTime()))
-                    .status(podStatus.getPhase())
-                    .finishedAt(DateTimeUtils.getFormattedDateTime(K8sUtils.extractTerminatedStateField(podStatus,
-                                                                                                        ContainerStateTerminated::getFinishedAt)));
-
-                jobBuilder.usage(getJobUsage(projectId, jobId, null));
-            } catch (ResourceNotFoundException e) {
-                LOGGER.warn("Job {} has not started yet", jobId);
-                jobBuilder.status(K8sUtils.DRAFT_STATUS);
-            }
-            List<Pod> workflowPods = kubernetesService.getWorkflowPods(projectId, jobId);
-
-            List<PipelineJobOverviewDto> pipelineJobOverviewDtos = new ArrayList<>(workflowPods.size());
-            for (Pod workflowPod : workflowPods) {
-                PipelineJobOverviewDto pipelineJobOverviewDto = PipelineJobOverviewDto
-                    .fromPod(workflowPod)
-                    .usage(getJobUsage(projectId, jobId, workflowPod.getMetadata().getName()))
-                    .build();
-                pipelineJobOverviewDtos.add(pipelineJobOverviewDto);
+    /**
+     * Getting page of jobs in project.
+     * Jobs are filtered and sorted by their overview fields first, only jobs of the page get usage,
+     * pipeline instances and runnable flag, and only in the full view. Jobs of the page are built concurrently.
+     * Both views read only metadata of job config maps, since jobs keep their runnable flag in a label.
+     * Job config maps are read in whole once only if some job of the page was saved without the label.
+     *
+     * @param projectId project id
+     * @param query     filter, sort, page and view of jobs
+     * @return List of jobs
+     */
+    public JobOverviewListDto getAll(final String projectId, final ListQuery query) {
+        boolean full = query.getView() == ListView.FULL;
+        List<JobItem> items = new ArrayList<>();
+        for (ObjectMeta metadata : kubernetesService.getAllConfigMapsMetadata(projectId)) {
+            items.add(new JobItem(projectId, metadata));
+        }
+        ListQuery.Page<JobItem> page = query.apply(items);
+        boolean accessibleToRun =
+            full && kubernetesService.isAccessible(projectId, "pods", "", Constants.CREATE_ACTION);
+        Supplier<UsageSnapshot> usage = Suppliers.memoize(() -> usageAggregator.getSnapshot(projectId));
+        Supplier<Map<String, ConfigMap>> configMaps = Suppliers.memoize(() -> kubernetesService
+            .getAllConfigMaps(projectId)
+            .stream()
+            .collect(Collectors.toMap(configMap -> configMap.getMetadata().getName(), Function.identity())));
+
+        List<JobOverviewDto> jobs = parallelCalls.map(page.getItems(), (JobItem item) -> {
+            String jobId = item.getId();
+
+            JobOverviewDto.JobOverviewDtoBuilder jobBuilder = JobOverviewDto
+                .fromMetadata(item.metadata)
+                .startedAt(item.getStartedAt())
+                .status(item.getStatus());
+
+            Optional<PodStatus> jobPodStatus = item.podStatus.get();
+            jobPodStatus.ifPresent(podStatus -> jobBuilder.finishedAt(DateTimeUtils.getFormattedDateTime(
+                K8sUtils.extractTerminatedStateField(podStatus, ContainerStateTerminated::getFinishedAt))));
+            if (full) {
+                if (jobPodStatus.isPresent()) {
+                    jobBuilder.usage(usage.get().getJobUsage(jobId, null));
+                }
+                appendPipelineInstances(projectId, jobId, usage, jobBuilder);
+                jobBuilder.runnable(accessibleToRun && isRunnable(item.metadata, () -> configMaps.get().get(jobId)));
             }
 
-            jobBuilder.pipelineInstances(pipelineJobOverviewDtos);
-
-            appendRunnable(configMap.getData(), jobBuilder::runnable, accessibleToRun);
-
-            jobs.add(jobBuilder.build());
-        }
+            return jobBuilder.build();
+        });
 
-        JobOverviewListDto.JobOverviewListDtoBuilder builder = JobOverviewListDto.builder().jobs(jobs);
+        JobOverviewListDto.JobOverviewListDtoBuilder builder = JobOverviewListDto
+            .builder()
+            .jobs(jobs)
+            .total(page.getTotal())
+            .continueToken(page.getContinueToken());
         appendEditable(projectId, builder::editable);
         return builder.build();
     }
 
-    private void appendEditable(String projectId, Consumer<Boolean> consumer) {
-        consumer.accept(kubernetesService.isAccessible(projectId, "configmaps", "", Constants.UPDATE_ACTION));
-    }
+    private void appendPipelineInstances(
+        String projectId, String jobId, Supplier<UsageSnapshot> usage, JobOverviewDto.JobOverviewDtoBuilder builder) {
+        List<Pod> workflowPods = kubernetesService.getWorkflowPods(projectId, jobId);
 
-    private void appendRunnable(Map<String, String> cmData, Consumer<Boolean> consumer, boolean accessibleToRun) {
-        String jobConfigField = cmData.get(Constants.JOB_CONFIG_FIELD);
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            GraphDto graphDto = objectMapper.readValue(jobConfigField, GraphDto.class);
-            consumer.accept(accessibleToRun && !graphDto.getNodes().isEmpty());
-        } catch (JsonProcessingException e) {
-            throw new InternalProcessingException("Job config is corrupted", e);
+        List<PipelineJobOverviewDto> pipelineJobOverviewDtos = new ArrayList<>(workflowPods.size());
+        for (Pod workflowPod : workflowPods) {
+            PipelineJobOverviewDto pipelineJobOverviewDto = PipelineJobOverviewDto
+                .fromPod(workflowPod)
+                .usage(usage.get().getJobUsage(jobId, workflowPod.getMetadata().getName()))
+                .build();
+            pipelineJobOverviewDtos.add(pipelineJobOverviewDto);
         }
-    }
-
-    private ResourceUsageDto getJobUsage(final String projectId, final String jobId, final String pipelineJobId) {
-        Map<String, String> labels = new HashMap<>(Map.of(Constants.JOB_ID_LABEL,
-                                                          jobId,
-                                                          Constants.SPARK_ROLE_LABEL,
-                                                          Constants.SPARK_ROLE_EXEC));
-        labels.put(Constants.PIPELINE_JOB_ID_LABEL,
-                   Objects.requireNonNullElse(pipelineJobId, Constants.NOT_PIPELINE_FLAG));
-
-        try {
-            List<String> executors = kubernetesService
-                .getPodsByLabels(projectId, labels)
-                .stream()
-                .map(Pod::getMetadata)
-                .map(ObjectMeta::getName)
-                .collect(Collectors.toList());
 
-            List<PodMetrics> podMetrics = new ArrayList<>(executors.size() + 1);
+        builder.pipelineInstances(pipelineJobOverviewDtos);
+    }
 
-            for (String execName : executors) {
-                podMetrics.add(kubernetesService.topPod(projectId, execName));
+    /**
+     * Getting entity tag of all jobs in project.
+     * The tag is made of versions of job config maps and job pods, usage of jobs and permissions of the user,
+     * so it changes whenever the list of jobs does. Usage is taken only in the full view while some job pod
+     * hasn't completed, since there are no metrics of completed pods.
+     *
+     * @param projectId project id
+     * @param view      view of jobs
+     * @return tag or null if jobs are not cached yet, so the tag would cost as much as the jobs
+     */
+    public String getAllTag(final String projectId, final ListView view) {
+        if (!kubernetesService.isJobCacheSynced()) {
+            return null;
+        }
+        List<ObjectMeta> configMaps = kubernetesService.getAllConfigMapsMetadata(projectId);
+        List<Pod> pods =
+            kubernetesService.getPodsByLabels(projectId, Collections.singletonMap(Constants.JOB_ID_LABEL, null));
+        EntityTagBuilder tag = new EntityTagBuilder()
+            .add(view)
+            .addMetadataVersions("configmaps", configMaps)
+            .addVersions("pods", pods)
+            .add(kubernetesService.isAccessible(projectId, "configmaps", "", Constants.UPDATE_ACTION));
+        if (view == ListView.SUMMARY) {
+            return tag.build();
+        }
+        tag.add(kubernetesService.isAccessible(projectId, "pods", "", Constants.CREATE_ACTION));
+        if (pods.stream().anyMatch(JobService::isActive)) {
+            UsageSnapshot usage = usageAggregator.getSnapshot(projectId);
+            for (Pod pod : pods) {
+                ObjectMeta metadata = pod.getMetadata();
+                String jobId = metadata.getLabels().get(Constants.JOB_ID_LABEL);
+                if (metadata.getLabels().containsKey(Constants.WORKFLOW_POD_LABEL)) {
+                    tag.add(usage.getJobUsage(jobId, metadata.getName()));
+                } else if (metadata.getName().equals(jobId)) {
+                    tag.add(usage.getJobUsage(jobId, null));
+                }
             }
+        }
+        return tag.build();
+    }
 
-            podMetrics.add(kubernetesService.topPod(projectId, jobId));
+    private static boolean isActive(Pod pod) {
+        String phase = pod.getStatus() == null ? null : pod.getStatus().getPhase();
+        return !"Succeeded".equals(phase) && !"Failed".equals(phase);
+    }
 
-            return ResourceUsageDto
-                .usageFromMetricsAndQuota(podMetrics,
-                                          kubernetesService.getResourceQuota(projectId, Constants.QUOTA_NAME))
-                .build();
-        } catch (KubernetesClientException e) {
-            if (!e.getStatus().getCode().equals(HttpStatus.NOT_FOUND.value())) {
-                throw e;
-            }
-            LOGGER.warn("Unable to retrieve metrics for pod {}", jobId);
-            return ResourceUsageDto.builder().build();
+    private void appendEditable(String projectId, Consumer<Boolean> consumer) {
+        consumer.accept(kubernetesService.isAccessible(projectId, "configmaps", "", Constants.UPDATE_ACTION));
+    }
+
+    /**
+     * Checks whether job has stages to run.
+     * Jobs saved by previous versions have no runnable label, so their graph is taken from JobGraphCache.
+     *
+     * @param metadata  metadata of job config map
+     * @param configMap job config map, read only for jobs without the label
+     * @return true if graph of job has nodes
+     */
+    private boolean isRunnable(ObjectMeta metadata, Supplier<ConfigMap> configMap) {
+        String runnable = metadata.getLabels() == null ? null : metadata.getLabels().get(Constants.RUNNABLE);
+        if (runnable != null) {
+            return Boolean.parseBoolean(runnable);
         }
+        ConfigMap jobConfigMap = configMap.get();
+        return jobConfigMap != null && !jobGraphCache.get(jobConfigMap).getNodes().isEmpty();
     }
 
     /**
@@ -276,8 +347,9 @@ public class JobService {
         ConfigMap configMap = kubernetesService.getConfigMap(projectId, id);
         boolean accessibleToRun = kubernetesService.isAccessible(projectId, "pods", "", Constants.CREATE_ACTION);
 
-        JobResponseDto.JobResponseDtoBuilder jobResponseDtoBuilder =
-            JobResponseDto.fromConfigMap(configMap).status(K8sUtils.DRAFT_STATUS);
+        JobResponseDto.JobResponseDtoBuilder jobResponseDtoBuilder = JobResponseDto
+            .fromConfigMap(configMap, definitionStore.read(projectId, configMap.getMetadata()))
+            .status(K8sUtils.DRAFT_STATUS);
 
         try {
             PodStatus status = kubernetesService.getPodStatus(projectId, id);
@@ -290,7 +362,7 @@ public class JobService {
             LOGGER.warn("Job {} has not started yet", id);
         }
 
-        appendRunnable(configMap.getData(), jobResponseDtoBuilder::runnable, accessibleToRun);
+        jobResponseDtoBuilder.runnable(accessibleToRun && isRunnable(configMap.getMetadata(), () -> configMap));
         appendEditable(projectId, jobResponseDtoBuilder::editable);
 
         return jobResponseDtoBuilder.build();
@@ -303,8 +375,10 @@ public class JobService {
      * @param id        job id
      */
     public void delete(final String projectId, final String id) {
+        ObjectMeta previous = findMetadata(projectId, id);
         kubernetesService.deleteConfigMap(projectId, id);
         kubernetesService.deletePodsByLabels(projectId, Map.of(Constants.JOB_ID_LABEL, id));
+        definitionStore.release(projectId, previous, () -> kubernetesService.getAllConfigMapsMetadata(projectId));
     }
 
     /**
@@ -343,6 +417,20 @@ public class JobService {
         }
     }
 
+    /**
+     * Getting history of job resource usage.
+     *
+     * @param projectId  project id
+     * @param id         job id
+     * @param resolution history resolution: 1m, 10m or 1h
+     * @return usage history
+     */
+    public UsageHistoryDto getUsageHistory(final String projectId, final String id, final String resolution) {
+        UsageHistory.Resolution historyResolution = UsageHistory.Resolution.fromLabel(resolution);
+        kubernetesService.checkAccess(projectId, "pods", "", "list");
+        return usageHistory.getJobHistory(projectId, id, historyResolution);
+    }
+
     /**
      * Configuration and running job.
      *
@@ -435,4 +523,52 @@ public class JobService {
             throw new ConflictException("Job is not running");
         }
     }
+
+    /**
+     * Metadata of job config map with lazily found status of job pod.
+     * Data of config map is never kept here: runnable flag of the job is taken from its runnable label, and only
+     * jobs saved without the label fall back to the graph parsed from their config map by JobGraphCache.
+     */
+    private final class JobItem implements ListQuery.Item {
+        private final ObjectMeta metadata;
+        private final Supplier<Optional<PodStatus>> podStatus;
+
+        private JobItem(String projectId, ObjectMeta metadata) {
+            this.metadata = metadata;
+            this.podStatus = Suppliers.memoize(() -> kubernetesService.findPodStatus(projectId, metadata.getName()));
+        }
+
+        @Override
+        public String getId() {
+            return metadata.getName();
+        }
+
+        @Override
+        public String getName() {
+            return metadata.getLabels().get(Constants.NAME);
+        }
+
+        @Override
+        public String getLastModified() {
+            return metadata.getAnnotations().get(Constants.LAST_MODIFIED);
+        }
+
+        @Override
+        public String getStatus() {
+            return podStatus.get().map(PodStatus::getPhase).orElse(K8sUtils.DRAFT_STATUS);
+        }
+
+        @Override
+        public String getStartedAt() {
+            return podStatus
+                .get()
+                .map(status -> DateTimeUtils.getFormattedDateTime(status.getStartTime()))
+                .orElse(null);
+        }
+
+        @Override
+        public boolean isCron() {
+            return false;
+        }
+    }
 }
@@ -19,13 +19,14 @@ package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
 import by.iba.vfapi.dto.projects.AccessTableDto;
-import by.iba.vfapi.exceptions.InternalProcessingException;
 import by.iba.vfapi.model.auth.UserInfo;
 import by.iba.vfapi.services.auth.AuthenticationService;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
@@ -36,24 +37,35 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.ServiceAccount;
 import io.fabric8.kubernetes.api.model.ServiceAccountBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
 import io.fabric8.kubernetes.api.model.authorization.v1.SelfSubjectAccessReviewBuilder;
+import io.fabric8.kubernetes.api.model.authorization.v1.SelfSubjectRulesReviewBuilder;
 import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
 import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
 import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
 import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
-import io.fabric8.kubernetes.client.ConfigBuilder;
-import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
-import io.fabric8.kubernetes.client.RequestConfigBuilder;
-import io.fabric8.kubernetes.client.dsl.FunctionCallable;
-import java.nio.charset.StandardCharsets;
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.apache.commons.codec.binary.Base64;
+import lombok.Getter;
+import lombok.Setter;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 /**
@@ -62,41 +74,68 @@ import org.springframework.stereotype.Service;
 @Service
 public class KubernetesService {
     private static final String POD_STOP_COMMAND = "pkill -SIGTERM -u job-user";
+    private static final String PODS = "pods";
+    private static final String CONFIGMAPS = "configmaps";
+    private static final String CORE_API_PATH = "api/v1";
+    static final String METADATA_LIST_ACCEPT =
+        "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json";
 
     protected final String appName;
     protected final String appNameLabel;
     protected final NamespacedKubernetesClient client;
-    protected final NamespacedKubernetesClient userClient;
     protected final AuthenticationService authenticationService;
+    protected final ServiceAccountCache serviceAccountCache;
+    protected final AccessDecisionCache accessDecisionCache;
+    protected final JobConfigMapCache jobConfigMapCache;
+    protected final PodCache podCache;
 
     public KubernetesService(
         final NamespacedKubernetesClient client,
         @Value("${namespace.app}") final String appName,
         @Value("${namespace.label}") final String appNameLabel,
-        final AuthenticationService authenticationService) {
+        final AuthenticationService authenticationService,
+        final ServiceAccountCache serviceAccountCache,
+        final AccessDecisionCache accessDecisionCache,
+        final JobConfigMapCache jobConfigMapCache,
+        final PodCache podCache) {
         this.appName = appName;
         this.appNameLabel = appNameLabel;
         this.authenticationService = authenticationService;
         this.client = client;
-        this.userClient = new DefaultKubernetesClient(new ConfigBuilder(client.getConfiguration())
-                                                          .withClientKeyFile(null)
-                                                          .withClientCertData(null)
-                                                          .withClientCertFile(null)
-                                                          .withClientKeyData(null)
-                                                          .build());
-    }
-
-    protected FunctionCallable<NamespacedKubernetesClient> getAuthenticatedClient(NamespacedKubernetesClient kbClient) {
-        Secret secret = getServiceAccountSecret(authenticationService.getUserInfo().getUsername());
-        String k8sToken = new String(Base64.decodeBase64(secret.getData().get("token")), StandardCharsets.UTF_8);
-        return kbClient.withRequestConfig(new RequestConfigBuilder().withNewOauthToken(k8sToken).build());
+        this.serviceAccountCache = serviceAccountCache;
+        this.accessDecisionCache = accessDecisionCache;
+        this.jobConfigMapCache = jobConfigMapCache;
+        this.podCache = podCache;
     }
 
     protected <T> T authenticatedCall(Function<NamespacedKubernetesClient, T> caller) {
-        if (authenticationService.getUserInfo().isSuperuser()) {
+        UserInfo userInfo = authenticationService.getUserInfo();
+        if (userInfo.isSuperuser()) {
             return caller.apply(client);
         } else {
-            return getAuthenticatedClient(this.userClient).call(caller);
+            return serviceAccountCache.getAuthenticatedClient(userInfo.getUsername()).call(caller);
+        }
+    }
+
+    /**
+     * Makes sure that user is allowed to read resources, that are served from memory instead of his client.
+     *
+     * @param namespace namespace.
+     * @param resource  resource kind.
+     * @param group     resource group.
+     * @param action    action.
+     */
+    protected void checkAccess(
+        final String namespace, final String resource, final String group, final String action) {
+        if (!authenticationService.getUserInfo().isSuperuser() && !isAccessible(namespace, resource, group, action)) {
+            throw new KubernetesClientException(new StatusBuilder()
+                                                    .withCode(HttpStatus.FORBIDDEN.value())
+                                                    .withReason("Forbidden")
+                                                    .withMessage(String.format("Cannot %s %s in namespace %s",
+                                                                               action,
+                                                                               resource,
+                                                                               namespace))
+                                                    .build());
         }
     }
 
@@ -162,6 +201,7 @@ public class KubernetesService {
      */
     public void deleteNamespace(String namespace) {
         authenticatedCall(authenticatedClient -> authenticatedClient.namespaces().withName(namespace).delete());
+        accessDecisionCache.invalidateNamespace(namespace);
     }
 
     /**
@@ -276,6 +316,7 @@ public class KubernetesService {
             }
             return null;
         });
+        accessDecisionCache.invalidateNamespace(namespace);
     }
 
     /**
@@ -286,6 +327,7 @@ public class KubernetesService {
      */
     public void createRoleBinding(String namespace, RoleBinding roleBinding) {
         client.rbac().roleBindings().inNamespace(namespace).create(roleBinding);
+        accessDecisionCache.invalidateNamespace(namespace);
     }
 
     /**
@@ -310,6 +352,7 @@ public class KubernetesService {
             .roleBindings()
             .inNamespace(namespace)
             .delete(roleBindings));
+        accessDecisionCache.invalidateNamespace(namespace);
     }
 
     /**
@@ -330,6 +373,7 @@ public class KubernetesService {
 
     /**
      * Creates service account for given user.
+     * Kubernetes is queried only for users, whose service accounts are not known yet.
      *
      * @param userInfo user information.
      */
@@ -342,18 +386,20 @@ public class KubernetesService {
                                                  userInfo.getName());
         String saName = K8sUtils.getValidK8sName(userInfo.getUsername());
 
-        if (client.serviceAccounts().inNamespace(appName).withName(saName).get() == null) {
-            client
-                .serviceAccounts()
-                .inNamespace(appName)
-                .createOrReplace(new ServiceAccountBuilder()
-                                     .withNewMetadata()
-                                     .addToAnnotations(annotations)
-                                     .withNewName(saName)
-                                     .addToLabels(K8sUtils.APP, appNameLabel)
-                                     .endMetadata()
-                                     .build());
-        }
+        serviceAccountCache.provisionIfUnknown(saName, () -> {
+            if (client.serviceAccounts().inNamespace(appName).withName(saName).get() == null) {
+                client
+                    .serviceAccounts()
+                    .inNamespace(appName)
+                    .createOrReplace(new ServiceAccountBuilder()
+                                         .withNewMetadata()
+                                         .addToAnnotations(annotations)
+                                         .withNewName(saName)
+                                         .addToLabels(K8sUtils.APP, appNameLabel)
+                                         .endMetadata()
+                                         .build());
+            }
+        });
     }
 
     /**
@@ -362,19 +408,7 @@ public class KubernetesService {
      * @param username user name.
      */
     public Secret getServiceAccountSecret(final String username) {
-        String secretName = client
-            .serviceAccounts()
-            .inNamespace(appName)
-            .withName(K8sUtils.getValidK8sName(username))
-            .require()
-            .getSecrets()
-            .stream()
-            .filter(secret -> secret.getName().contains("token"))
-            .findFirst()
-            .orElseThrow(() -> new InternalProcessingException("Unable to find service account secret for user: " +
-                                                                   username))
-            .getName();
-        return client.secrets().inNamespace(appName).withName(secretName).require();
+        return serviceAccountCache.getServiceAccountSecret(username);
     }
 
     /**
@@ -407,12 +441,17 @@ public class KubernetesService {
 
     /**
      * Getting pods by labels.
+     * Job pods are served from pods cache once it's synced.
      *
      * @param namespaceId namespace name
      * @param labels      map of labels
      * @return pods
      */
     public List<Pod> getPodsByLabels(final String namespaceId, final Map<String, String> labels) {
+        if (podCache.isSynced() && labels.containsKey(Constants.JOB_ID_LABEL)) {
+            checkAccess(namespaceId, PODS, "", "list");
+            return podCache.getByLabels(namespaceId, labels);
+        }
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespaceId)
@@ -429,6 +468,13 @@ public class KubernetesService {
      * @return pods
      */
     public List<Pod> getWorkflowPods(final String namespaceId, final String nodeId) {
+        if (podCache.isSynced()) {
+            checkAccess(namespaceId, PODS, "", "list");
+            Map<String, String> labels = new HashMap<>();
+            labels.put(Constants.JOB_ID_LABEL, nodeId);
+            labels.put(Constants.WORKFLOW_POD_LABEL, null);
+            return podCache.getByLabels(namespaceId, labels);
+        }
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespaceId)
@@ -445,14 +491,14 @@ public class KubernetesService {
      * @param pod       Pod
      */
     public void createPod(final String namespace, Pod pod) {
-        authenticatedCall(authenticatedClient -> authenticatedClient
+        podCache.put(authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespace)
             .createOrReplace(new PodBuilder(pod)
                                  .editMetadata()
                                  .addToLabels(K8sUtils.APP, appNameLabel)
                                  .endMetadata()
-                                 .build()));
+                                 .build())));
 
     }
 
@@ -509,12 +555,16 @@ public class KubernetesService {
      * @param name      pod name
      */
     public void deletePod(final String namespace, final String name) {
+        Pod cached = podCache.get(namespace, name);
         authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespace)
             .withName(name)
             .withGracePeriod(0)
             .delete());
+        if (cached != null) {
+            podCache.remove(cached);
+        }
     }
 
     /**
@@ -524,16 +574,20 @@ public class KubernetesService {
      * @param labels    labels if they exists
      */
     public void deletePodsByLabels(final String namespace, final Map<String, String> labels) {
+        List<Pod> cached = podCache.isSynced() && labels.containsKey(Constants.JOB_ID_LABEL) ?
+            podCache.getByLabels(namespace, labels) : List.of();
         authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespace)
             .withLabels(labels)
             .withGracePeriod(0)
             .delete());
+        cached.forEach(podCache::remove);
     }
 
     /**
      * Checks whether user can update given resource.
+     * Decisions are cached for a short time.
      *
      * @param namespace namespace.
      * @param resource  resource kind.
@@ -542,6 +596,26 @@ public class KubernetesService {
      * @return true if resource is accessible.
      */
     public boolean isAccessible(
+        final String namespace, final String resource, final String group, final String action) {
+        return accessDecisionCache.isAllowed(authenticationService.getUserInfo().getUsername(),
+                                             namespace,
+                                             group,
+                                             resource,
+                                             action,
+                                             () -> reviewAccess(namespace, resource, group, action),
+                                             () -> reviewRules(namespace));
+    }
+
+    private AccessRules reviewRules(final String namespace) {
+        return new AccessRules(authenticatedCall(authenticatedClient -> authenticatedClient
+            .authorization()
+            .v1()
+            .selfSubjectRulesReview()
+            .create(new SelfSubjectRulesReviewBuilder().withNewSpec().withNamespace(namespace).endSpec().build())
+            .getStatus()));
+    }
+
+    private boolean reviewAccess(
         final String namespace, final String resource, final String group, final String action) {
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .authorization()
@@ -568,21 +642,7 @@ public class KubernetesService {
      * @return true if user can view namespace.
      */
     public boolean isViewable(final Namespace resource) {
-        return authenticatedCall(authenticatedClient -> authenticatedClient
-            .authorization()
-            .v1()
-            .selfSubjectAccessReview()
-            .create(new SelfSubjectAccessReviewBuilder()
-                        .editOrNewSpec()
-                        .editOrNewResourceAttributes()
-                        .withNamespace(resource.getMetadata().getName())
-                        .withVerb("get")
-                        .withResource("namespaces")
-                        .endResourceAttributes()
-                        .endSpec()
-                        .build())
-            .getStatus()
-            .getAllowed());
+        return isAccessible(resource.getMetadata().getName(), "namespaces", "", "get");
     }
 
     /**
@@ -592,23 +652,37 @@ public class KubernetesService {
      * @param configMap   new configMap
      */
     public void createOrReplaceConfigMap(final String namespaceId, final ConfigMap configMap) {
-        authenticatedCall(authenticatedClient -> authenticatedClient
+        jobConfigMapCache.put(authenticatedCall(authenticatedClient -> authenticatedClient
             .configMaps()
             .inNamespace(namespaceId)
             .createOrReplace(new ConfigMapBuilder(configMap)
                                  .editMetadata()
                                  .addToLabels(K8sUtils.APP, appNameLabel)
                                  .endMetadata()
-                                 .build()));
+                                 .build())));
     }
 
     /**
-     * Getting all config maps in namespace.
+     * Checks whether job config maps and job pods are served from caches.
+     *
+     * @return true if both caches have synced.
+     */
+    public boolean isJobCacheSynced() {
+        return jobConfigMapCache.isSynced() && podCache.isSynced();
+    }
+
+    /**
+     * Getting all job config maps in namespace.
+     * Served from job config maps cache once it's synced.
      *
      * @param namespaceId namespace id
      * @return List with all config maps
      */
     public List<ConfigMap> getAllConfigMaps(final String namespaceId) {
+        if (jobConfigMapCache.isSynced()) {
+            checkAccess(namespaceId, "configmaps", "", "list");
+            return jobConfigMapCache.getAll(namespaceId);
+        }
         return authenticatedCall(authenticationClient -> authenticationClient
             .configMaps()
             .inNamespace(namespaceId)
@@ -617,14 +691,37 @@ public class KubernetesService {
             .getItems());
     }
 
+    /**
+     * Getting metadata of all job config maps in namespace.
+     * Served from job config maps cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @return metadata of config maps
+     */
+    public List<ObjectMeta> getAllConfigMapsMetadata(final String namespaceId) {
+        if (jobConfigMapCache.isSynced()) {
+            checkAccess(namespaceId, "configmaps", "", "list");
+            return jobConfigMapCache.getAllMetadata(namespaceId);
+        }
+        return listMetadata(namespaceId, CORE_API_PATH, CONFIGMAPS, Map.of(Constants.TYPE, Constants.TYPE_JOB));
+    }
+
     /**
      * Getting configmap by name.
+     * Job config maps are served from job config maps cache once it's synced.
      *
      * @param namespaceId namespace name
      * @param name        configmap name
      * @return configmap
      */
     public ConfigMap getConfigMap(final String namespaceId, final String name) {
+        if (jobConfigMapCache.isSynced()) {
+            ConfigMap configMap = jobConfigMapCache.get(namespaceId, name);
+            if (configMap != null) {
+                checkAccess(namespaceId, "configmaps", "", "get");
+                return configMap;
+            }
+        }
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .configMaps()
             .inNamespace(namespaceId)
@@ -634,12 +731,23 @@ public class KubernetesService {
 
     /**
      * Getting configmaps by labels.
+     * Job config maps are served from job config maps cache once it's synced.
      *
      * @param namespaceId namespace name
      * @param labels      map of labels
      * @return configmap
      */
     public List<ConfigMap> getConfigMapsByLabels(final String namespaceId, final Map<String, String> labels) {
+        if (jobConfigMapCache.isSynced() && Constants.TYPE_JOB.equals(labels.get(Constants.TYPE))) {
+            checkAccess(namespaceId, "configmaps", "", "list");
+            String name = labels.get(Constants.NAME);
+            List<ConfigMap> configMaps =
+                name == null ? jobConfigMapCache.getAll(namespaceId) : jobConfigMapCache.getByName(namespaceId, name);
+            return configMaps
+                .stream()
+                .filter(configMap -> configMap.getMetadata().getLabels().entrySet().containsAll(labels.entrySet()))
+                .collect(Collectors.toList());
+        }
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .configMaps()
             .inNamespace(namespaceId)
@@ -648,6 +756,81 @@ public class KubernetesService {
             .getItems());
     }
 
+    /**
+     * Getting metadata of configmaps by labels.
+     * Job config maps are served from job config maps cache once it's synced.
+     *
+     * @param namespaceId namespace name
+     * @param labels      map of labels
+     * @return metadata of config maps
+     */
+    public List<ObjectMeta> getConfigMapsMetadataByLabels(
+        final String namespaceId, final Map<String, String> labels) {
+        if (jobConfigMapCache.isSynced() && Constants.TYPE_JOB.equals(labels.get(Constants.TYPE))) {
+            return getConfigMapsByLabels(namespaceId, labels)
+                .stream()
+                .map(ConfigMap::getMetadata)
+                .collect(Collectors.toList());
+        }
+        return listMetadata(namespaceId, CORE_API_PATH, CONFIGMAPS, labels);
+    }
+
+    /**
+     * Lists only metadata of resources in namespace with the user's client.
+     * Resources are requested as PartialObjectMetadataList, so the API server leaves out their data and spec,
+     * and with resourceVersion=0, so it answers from its watch cache instead of reading etcd. Servers, which
+     * can't convert resources to partial metadata, answer with full resources, that are decoded the same way.
+     *
+     * @param namespaceId namespace name
+     * @param apiPath     path of resource API, e.g. api/v1
+     * @param resource    resource plural name
+     * @param labels      labels of resources
+     * @return metadata of resources
+     */
+    protected List<ObjectMeta> listMetadata(
+        final String namespaceId, final String apiPath, final String resource, final Map<String, String> labels) {
+        return authenticatedCall((NamespacedKubernetesClient authenticatedClient) -> {
+            HttpUrl.Builder url = HttpUrl
+                .get(authenticatedClient.getMasterUrl())
+                .newBuilder()
+                .addPathSegments(apiPath)
+                .addPathSegment("namespaces")
+                .addPathSegment(namespaceId)
+                .addPathSegment(resource);
+            if (!labels.isEmpty()) {
+                url.addQueryParameter("labelSelector",
+                                      new TreeMap<>(labels)
+                                          .entrySet()
+                                          .stream()
+                                          .map(label -> label.getKey() + "=" + label.getValue())
+                                          .collect(Collectors.joining(",")));
+            }
+            url.addQueryParameter("resourceVersion", "0");
+            Request request = new Request.Builder()
+                .get()
+                .url(url.build())
+                .header("Accept", METADATA_LIST_ACCEPT)
+                .build();
+            try (Response response = ((HttpClientAware) authenticatedClient)
+                .getHttpClient()
+                .newCall(request)
+                .execute()) {
+                if (!response.isSuccessful()) {
+                    throw OperationSupport.requestFailure(request, OperationSupport.createStatus(response));
+                }
+                return Serialization
+                    .jsonMapper()
+                    .readValue(response.body().byteStream(), MetadataList.class)
+                    .getItems()
+                    .stream()
+                    .map(MetadataList.Item::getMetadata)
+                    .collect(Collectors.toList());
+            } catch (IOException e) {
+                throw OperationSupport.requestException(request, e);
+            }
+        });
+    }
+
     /**
      * Delete configmap by name.
      *
@@ -655,11 +838,15 @@ public class KubernetesService {
      * @param name        configmap name
      */
     public void deleteConfigMap(final String namespaceId, final String name) {
+        ConfigMap cached = jobConfigMapCache.isSynced() ? jobConfigMapCache.get(namespaceId, name) : null;
         authenticatedCall(authenticatedClient -> authenticatedClient
             .configMaps()
             .inNamespace(namespaceId)
             .withName(name)
             .delete());
+        if (cached != null) {
+            jobConfigMapCache.remove(cached);
+        }
     }
 
     /**
@@ -686,10 +873,59 @@ public class KubernetesService {
      * @return pod
      */
     public PodStatus getPodStatus(final String namespaceId, final String name) {
+        if (podCache.isSynced()) {
+            Pod cached = podCache.get(namespaceId, name);
+            if (cached != null) {
+                checkAccess(namespaceId, PODS, "", "get");
+                return cached.getStatus();
+            }
+        }
         return authenticatedCall(authenticatedClient -> authenticatedClient
             .pods()
             .inNamespace(namespaceId)
             .withName(name)
             .require()).getStatus();
     }
+
+    /**
+     * Getting status of job pod in namespace by name.
+     * Served from pods cache once it's synced.
+     *
+     * @param namespaceId namespace id
+     * @param name        pod name
+     * @return pod status or empty optional if job has no pod
+     */
+    public Optional<PodStatus> findPodStatus(final String namespaceId, final String name) {
+        if (podCache.isSynced()) {
+            checkAccess(namespaceId, PODS, "", "get");
+            return Optional.ofNullable(podCache.get(namespaceId, name)).map(Pod::getStatus);
+        }
+        return Optional
+            .ofNullable(authenticatedCall(authenticatedClient -> authenticatedClient
+                .pods()
+                .inNamespace(namespaceId)
+                .withName(name)
+                .get()))
+            .map(Pod::getStatus);
+    }
+
+    /**
+     * List of resources, of which only metadata is read.
+     */
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class MetadataList {
+        private List<Item> items = new ArrayList<>();
+
+        /**
+         * Resource, of which only metadata is read.
+         */
+        @Getter
+        @Setter
+        @JsonIgnoreProperties(ignoreUnknown = true)
+        static class Item {
+            private ObjectMeta metadata;
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.exceptions.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Filters, sorts and pages lists of jobs and pipelines by their overview fields.
+ * Pages are chained by continue token, which holds the sort key of the last returned item,
+ * so the next page starts right after it even if items were added or removed in between.
+ * Without sort and limit the list keeps its order and is returned in full.
+ * The view tells which sections of the items of the page to build.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+@ToString
+public class ListQuery {
+    public static final ListQuery ALL = ListQuery.builder().build();
+
+    static final String DEFAULT_SORT = "name";
+    private static final String DESCENDING = "-";
+    private static final char SEPARATOR = '\n';
+    private static final Map<String, Function<Item, String>> SORT_KEYS =
+        Map.of("name",
+               item -> item.getName() == null ? null : item.getName().toLowerCase(Locale.ROOT),
+               "lastModified",
+               item -> toSortableDate(item.getLastModified()),
+               "status",
+               Item::getStatus,
+               "startedAt",
+               item -> toSortableDate(item.getStartedAt()));
+
+    private final Integer limit;
+    private final String continueToken;
+    private final String sort;
+    private final String status;
+    private final String name;
+    private final Boolean cron;
+    @Builder.Default
+    private final ListView view = ListView.FULL;
+
+    /**
+     * Selects the page of items.
+     * Only overview fields are read, so the items may compute them lazily and the rest of the work is left for
+     * the items of the page.
+     *
+     * @param items all items.
+     * @param <T>   item type.
+     * @return page.
+     */
+    public <T extends Item> Page<T> apply(final Collection<T> items) {
+        if (limit != null && limit <= 0) {
+            throw new BadRequestException("Limit must be positive");
+        }
+        Set<String> statuses = status == null ?
+            Set.of() :
+            Arrays
+                .stream(status.split(","))
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        String namePrefix = name == null ? null : name.toLowerCase(Locale.ROOT);
+        List<T> matching = items
+            .stream()
+            .filter(item -> statuses.isEmpty() ||
+                (item.getStatus() != null && statuses.contains(item.getStatus().toLowerCase(Locale.ROOT))))
+            .filter(item -> namePrefix == null ||
+                (item.getName() != null && item.getName().toLowerCase(Locale.ROOT).startsWith(namePrefix)))
+            .filter(item -> cron == null || cron == item.isCron())
+            .collect(Collectors.toList());
+        if (sort == null && limit == null && continueToken == null) {
+            return new Page<>(matching, matching.size(), null);
+        }
+
+        String sortField = sort == null ? DEFAULT_SORT : sort;
+        boolean descending = sortField.startsWith(DESCENDING);
+        Function<Item, String> sortKey = SORT_KEYS.get(descending ? sortField.substring(1) : sortField);
+        if (sortKey == null) {
+            throw new BadRequestException(String.format("Unable to sort by '%s', supported fields are %s",
+                                                        sortField,
+                                                        SORT_KEYS.keySet()));
+        }
+        Comparator<String> keyOrder = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        Comparator<Key<T>> order = Comparator
+            .comparing((Key<T> key) -> key.value, Comparator.nullsLast(keyOrder))
+            .thenComparing(key -> key.id);
+        List<Key<T>> keys = new ArrayList<>(matching.size());
+        for (T item : matching) {
+            keys.add(new Key<>(sortKey.apply(item), item.getId(), item));
+        }
+        keys.sort(order);
+
+        int from = 0;
+        if (continueToken != null) {
+            Key<T> last = decode(sortField, continueToken);
+            while (from < keys.size() && order.compare(keys.get(from), last) <= 0) {
+                from++;
+            }
+        }
+        int to = limit == null ? keys.size() : (int) Math.min(keys.size(), (long) from + limit);
+        List<T> page = keys.subList(from, to).stream().map(key -> key.item).collect(Collectors.toList());
+        String next = to < keys.size() ? encode(sortField, keys.get(to - 1)) : null;
+        return new Page<>(page, matching.size(), next);
+    }
+
+    private static String toSortableDate(String dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        try {
+            long millis = ZonedDateTime.parse(dateTime, Constants.DATE_TIME_FORMATTER).toInstant().toEpochMilli();
+            return String.format("%020d", millis);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String sortField, Key<?> key) {
+        String token = sortField + SEPARATOR + key.id + SEPARATOR + (key.value == null ? "" : SEPARATOR + key.value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> Key<T> decode(String sortField, String continueToken) {
+        String token;
+        try {
+            token = new String(Base64.getUrlDecoder().decode(continueToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Continue token is malformed", e);
+        }
+        String[] parts = token.split(String.valueOf(SEPARATOR), -1);
+        if ((parts.length != 3 && parts.length != 4) || !parts[0].equals(sortField)) {
+            throw new BadRequestException("Continue token doesn't belong to the list with this sort");
+        }
+        return new Key<>(parts.length == 4 ? parts[3] : null, parts[1], null);
+    }
+
+    /**
+     * Overview fields of list item.
+     */
+    public interface Item {
+        String getId();
+
+        String getName();
+
+        String getLastModified();
+
+        String getStatus();
+
+        String getStartedAt();
+
+        boolean isCron();
+    }
+
+    /**
+     * Page of items.
+     *
+     * @param <T> item type.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Page<T> {
+        private final List<T> items;
+        private final int total;
+        private final String continueToken;
+    }
+
+    /**
+     * Item with its sort key.
+     */
+    @RequiredArgsConstructor
+    private static final class Key<T> {
+        private final String value;
+        private final String id;
+        private final T item;
+    }
+}
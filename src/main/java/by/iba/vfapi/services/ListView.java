@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.BadRequestException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Sections of list items to build.
+ * Sections, which are not requested, are not computed at all, so they cost no API calls.
+ */
+public enum ListView {
+    /**
+     * Only identity, status and times of items.
+     * Jobs don't get usage, pipeline instances and runnable flag, pipelines don't get statuses of their jobs
+     * and runnable flag.
+     */
+    SUMMARY,
+    /**
+     * Items with all their sections.
+     */
+    FULL;
+
+    /**
+     * Parses view name.
+     *
+     * @param view view name in any case or null.
+     * @return view, full view if name is not set.
+     */
+    public static ListView of(final String view) {
+        if (view == null) {
+            return FULL;
+        }
+        try {
+            return valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(String.format("Unknown view '%s', supported views are %s",
+                                                        view,
+                                                        Arrays.toString(values()).toLowerCase(Locale.ROOT)),
+                                          e);
+        }
+    }
+}
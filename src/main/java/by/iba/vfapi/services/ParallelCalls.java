@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes independent kubernetes calls of one request concurrently.
+ * Threads are shared by all requests and each request uses only a few of them, so one long list doesn't hold up
+ * the others. The calling thread does its part of the calls too, so they progress even when all threads are busy.
+ * Security context of the caller is passed to the threads, since the calls are made on behalf of the user.
+ * Items are taken in order and no further items are started once a call fails, so the thrown exception is the one
+ * of the first failed item, the same as in a sequential loop. Failures of later items started by then are attached
+ * to it as suppressed. No call outlives the method: if the caller is interrupted, calls in progress are interrupted
+ * as well. The servlet container doesn't interrupt requests on its own, so controllers making such calls return
+ * {@link java.util.concurrent.Callable}, which Spring MVC interrupts once the request times out or fails. A client
+ * disconnect may go unnoticed until the response is written, so such a request still runs until it completes or
+ * times out.
+ */
+@Slf4j
+@Component
+public class ParallelCalls {
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * Constructor for class ParallelCalls.
+     *
+     * @param threads     number of threads shared by all requests.
+     * @param parallelism maximum number of concurrent calls of one request.
+     */
+    public ParallelCalls(
+        @Value("${kubernetes.parallelCalls.threads:32}") int threads,
+        @Value("${kubernetes.parallelCalls.perRequest:8}") int parallelism) {
+        this.executor = Executors.newFixedThreadPool(threads,
+                                                     new ThreadFactoryBuilder()
+                                                         .setNameFormat("parallel-calls-%d")
+                                                         .setDaemon(true)
+                                                         .build());
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Interrupts calls in progress.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Applies the call to each item.
+     *
+     * @param items items.
+     * @param call  call.
+     * @param <T>   item type.
+     * @param <R>   result type.
+     * @return results in order of items.
+     */
+    public <T, R> List<R> map(final List<T> items, final Function<? super T, ? extends R> call) {
+        Batch<T, R> batch = new Batch<>(items, call);
+        int workers = Math.min(parallelism, items.size()) - 1;
+        List<Future<?>> futures = new ArrayList<>(Math.max(workers, 0));
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(new DelegatingSecurityContextRunnable(batch::work,
+                                                                                  SecurityContextHolder.getContext())));
+            }
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Calls are made by the calling thread only: {}", e.getMessage());
+        }
+        try {
+            batch.work();
+            batch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalProcessingException("Interrupted while waiting for kubernetes calls", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return batch.getResults();
+    }
+
+    /**
+     * Calls of one request.
+     *
+     * @param <T> item type.
+     * @param <R> result type.
+     */
+    private static final class Batch<T, R> {
+        private final List<T> items;
+        private final Function<? super T, ? extends R> call;
+        private final Object[] results;
+        private final Throwable[] failures;
+        private int next;
+        private int limit;
+        private int inProgress;
+        private boolean closed;
+
+        private Batch(List<T> items, Function<? super T, ? extends R> call) {
+            this.items = items;
+            this.call = call;
+            this.results = new Object[items.size()];
+            this.failures = new Throwable[items.size()];
+            this.limit = items.size();
+        }
+
+        private void work() {
+            while (!Thread.currentThread().isInterrupted()) {
+                int index = take();
+                if (index < 0) {
+                    return;
+                }
+                Throwable failure = null;
+                try {
+                    results[index] = call.apply(items.get(index));
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                complete(index, failure);
+            }
+        }
+
+        private synchronized int take() {
+            if (closed || next >= limit) {
+                return -1;
+            }
+            inProgress++;
+            return next++;
+        }
+
+        private synchronized void complete(int index, Throwable failure) {
+            inProgress--;
+            if (failure != null) {
+                failures[index] = failure;
+                limit = Math.min(limit, index);
+            }
+            notifyAll();
+        }
+
+        private synchronized void await() throws InterruptedException {
+            closed = true;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            while (inProgress > 0) {
+                wait();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized List<R> getResults() {
+            Throwable first = null;
+            for (Throwable failure : failures) {
+                if (first == null) {
+                    first = failure;
+                } else if (failure != null) {
+                    first.addSuppressed(failure);
+                }
+            }
+            if (first instanceof RuntimeException) {
+                throw (RuntimeException) first;
+            }
+            if (first instanceof Error) {
+                throw (Error) first;
+            }
+            return (List<R>) Arrays.asList(results);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.dto.GraphIndex;
+import by.iba.vfapi.exceptions.BadRequestException;
+import by.iba.vfapi.model.argo.Arguments;
+import by.iba.vfapi.model.argo.DagTask;
+import by.iba.vfapi.model.argo.DagTemplate;
+import by.iba.vfapi.model.argo.Parameter;
+import com.google.common.collect.Maps;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Compiler of pipeline graphs to DAG templates.
+ * Arrows are indexed by their stages once, so compiling takes time linear in number of stages and arrows.
+ * Tasks are named by ids from thread local random, since names only have to be unique in the pipeline and
+ * start with a letter, and ids of their stages are kept in graphId parameter.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PipelineDagCompiler {
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String JOB_ID_FIELD = "jobId";
+    private static final String SUCCESS_PATH_FIELD = "successPath";
+
+    /**
+     * Create dag flow in templates.
+     *
+     * @param graphDto nodes and edges
+     * @return DAGTemplate
+     */
+    static DagTemplate compile(GraphDto graphDto) {
+        GraphIndex index = new GraphIndex(graphDto);
+        if (!index.getDuplicateIds().isEmpty()) {
+            throw new BadRequestException(String.format("Stage id %s is used more than once",
+                                                        index.getDuplicateIds().get(0)));
+        }
+        if (!index.getDanglingEdges().isEmpty()) {
+            GraphDto.EdgeDto edge = index.getDanglingEdges().get(0);
+            throw new BadRequestException(String.format("Arrow from %s to %s refers to missing stage",
+                                                        edge.getSource(),
+                                                        edge.getTarget()));
+        }
+        checkJobCount(index);
+        checkSourceArrows(index);
+        checkCycles(index);
+
+        int size = index.size();
+        String[] names = new String[size];
+        Map<String, String> namesByIds = Maps.newHashMapWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            names[i] = generateName();
+            namesByIds.put(index.getNode(i).getId(), names[i]);
+        }
+
+        DagTemplate dagTemplate = new DagTemplate();
+        for (int i = 0; i < size; i++) {
+            GraphDto.NodeDto node = index.getNode(i);
+            String depends = accumulateDepends(index.getIncomingEdges(i), namesByIds);
+            String jobId = node.getValue().get(JOB_ID_FIELD);
+            DagTask dagTask;
+            if (jobId != null) {
+                dagTask = createSparkDagTask(names[i], depends, jobId, node.getId());
+            } else {
+                Map<String, String> value = node.getValue();
+                dagTask = createNotificationDagTask(names[i],
+                                                    depends,
+                                                    value.get(PipelineService.NOTIFICATION_PARAMETER_ADDRESSEES),
+                                                    value.get(PipelineService.NOTIFICATION_PARAMETER_MESSAGE),
+                                                    node.getId());
+            }
+            dagTemplate.addTasksItem(dagTask);
+        }
+        return dagTemplate;
+    }
+
+    /**
+     * Generates task name: random UUID, which starts with a letter.
+     *
+     * @return task name
+     */
+    private static String generateName() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return LETTERS.charAt(random.nextInt(LETTERS.length())) +
+            new UUID(random.nextLong(), random.nextLong()).toString().substring(1);
+    }
+
+    /**
+     * Validate is pipeline have jobs duplicates.
+     *
+     * @param index graph index
+     */
+    private static void checkJobCount(GraphIndex index) {
+        Set<String> jobIds = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            String jobId = index.getNode(i).getValue().get(JOB_ID_FIELD);
+            if (jobId != null && !jobIds.add(jobId)) {
+                throw new BadRequestException("Job can't be used more than once in pipeline");
+            }
+        }
+    }
+
+    /**
+     * Check failure path count.
+     *
+     * @param index graph index
+     */
+    private static void checkSourceArrows(GraphIndex index) {
+        for (int i = 0; i < index.size(); i++) {
+            if (index.getOutgoingEdges(i).stream().filter(edge -> !isSuccessPath(edge)).count() > 1) {
+                throw new BadRequestException("Node can't have more than one failure path");
+            }
+        }
+    }
+
+    /**
+     * Check that stages don't depend on themselves.
+     *
+     * @param index graph index
+     */
+    private static void checkCycles(GraphIndex index) {
+        boolean[] cyclic = index.findCycles();
+        String ids = IntStream
+            .range(0, index.size())
+            .filter(i -> cyclic[i])
+            .mapToObj(i -> index.getNode(i).getId())
+            .collect(Collectors.joining(", "));
+        if (!ids.isEmpty()) {
+            throw new BadRequestException(String.format("Stages %s form a cycle", ids));
+        }
+    }
+
+    /**
+     * Accumulate dependencies for node.
+     *
+     * @param edges      incoming edges of node
+     * @param namesByIds task names by node ids
+     * @return String with dependencies
+     */
+    private static String accumulateDepends(List<GraphDto.EdgeDto> edges, Map<String, String> namesByIds) {
+        if (edges.isEmpty()) {
+            return null;
+        }
+        boolean successPath = isSuccessPath(edges.get(0));
+        StringBuilder depends = new StringBuilder();
+        for (GraphDto.EdgeDto edge : edges) {
+            if (isSuccessPath(edge) != successPath) {
+                throw new BadRequestException("Node can't have different type of income arrows");
+            }
+            String source = namesByIds.get(edge.getSource());
+            if (depends.length() > 0) {
+                depends.append(successPath ? " && " : " || ");
+            }
+            depends.append(source);
+            if (!successPath) {
+                depends.append(".Failed || ").append(source).append(".Errored");
+            }
+        }
+        return depends.toString();
+    }
+
+    /**
+     * Get variable successPath.
+     *
+     * @param edge edge
+     * @return successPath value
+     */
+    private static boolean isSuccessPath(GraphDto.EdgeDto edge) {
+        return Boolean.parseBoolean(edge.getValue().get(SUCCESS_PATH_FIELD));
+    }
+
+    /**
+     * Creating DAGTask for spark job.
+     *
+     * @param name           task name
+     * @param depends        String of dependencies
+     * @param parameterValue value of parameter
+     * @param graphId        value of node id from graph
+     * @return new DAGTask
+     */
+    private static DagTask createSparkDagTask(String name, String depends, String parameterValue, String graphId) {
+        return new DagTask()
+            .name(name)
+            .template(PipelineService.SPARK_TEMPLATE_NAME)
+            .depends(depends)
+            .arguments(new Arguments()
+                           .addParametersItem(new Parameter().name(K8sUtils.CONFIGMAP).value(parameterValue))
+                           .addParametersItem(new Parameter().name(Constants.GRAPH_ID).value(graphId)));
+    }
+
+    /**
+     * Creating DAGTask for slack job.
+     *
+     * @param name       task name
+     * @param depends    String of dependencies
+     * @param addressees value of parameter 'addressees'
+     * @param message    value of parameter 'message'
+     * @param graphId    value of node id from graph
+     * @return new DAGTask
+     */
+    private static DagTask createNotificationDagTask(
+        String name, String depends, String addressees, String message, String graphId) {
+        return new DagTask()
+            .name(name)
+            .template(PipelineService.NOTIFICATION_TEMPLATE_NAME)
+            .depends(depends)
+            .arguments(new Arguments()
+                           .addParametersItem(new Parameter()
+                                                  .name(PipelineService.NOTIFICATION_PARAMETER_ADDRESSEES)
+                                                  .value(Arrays
+                                                             .stream(addressees.split(" "))
+                                                             .map(StringEscapeUtils::escapeXSI)
+                                                             .collect(Collectors.joining(" "))))
+                           .addParametersItem(new Parameter()
+                                                  .name(PipelineService.NOTIFICATION_PARAMETER_MESSAGE)
+                                                  .value(StringEscapeUtils.escapeXSI(message)))
+                           .addParametersItem(new Parameter().name(Constants.GRAPH_ID).value(graphId)));
+    }
+}
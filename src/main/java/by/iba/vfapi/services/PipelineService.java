@@ -18,6 +18,7 @@
 package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
 import by.iba.vfapi.dto.GraphDto;
 import by.iba.vfapi.dto.pipelines.CronPipelineDto;
 import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
@@ -27,7 +28,6 @@ import by.iba.vfapi.dto.projects.ParamsDto;
 import by.iba.vfapi.exceptions.ArgoClientException;
 import by.iba.vfapi.exceptions.BadRequestException;
 import by.iba.vfapi.exceptions.InternalProcessingException;
-import by.iba.vfapi.model.argo.Arguments;
 import by.iba.vfapi.model.argo.ConfigMapRef;
 import by.iba.vfapi.model.argo.Container;
 import by.iba.vfapi.model.argo.CronWorkflow;
@@ -39,21 +39,18 @@ import by.iba.vfapi.model.argo.EnvFrom;
 import by.iba.vfapi.model.argo.FieldRef;
 import by.iba.vfapi.model.argo.ImagePullSecret;
 import by.iba.vfapi.model.argo.Inputs;
-import by.iba.vfapi.model.argo.NodeStatus;
 import by.iba.vfapi.model.argo.Parameter;
 import by.iba.vfapi.model.argo.SecretRef;
 import by.iba.vfapi.model.argo.Template;
 import by.iba.vfapi.model.argo.TemplateMeta;
 import by.iba.vfapi.model.argo.ValueFrom;
 import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
 import by.iba.vfapi.model.argo.WorkflowSpec;
-import by.iba.vfapi.model.argo.WorkflowStatus;
 import by.iba.vfapi.model.argo.WorkflowTemplate;
 import by.iba.vfapi.model.argo.WorkflowTemplateRef;
 import by.iba.vfapi.model.argo.WorkflowTemplateSpec;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.collect.Maps;
 import io.argoproj.workflow.ApiException;
 import io.argoproj.workflow.apis.WorkflowServiceApi;
 import io.argoproj.workflow.models.WorkflowRetryRequest;
@@ -65,26 +62,19 @@ import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.ResourceRequirements;
 import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
 import io.fabric8.kubernetes.client.ResourceNotFoundException;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -100,13 +90,10 @@ public class PipelineService {
     public static final String REQUESTS_MEMORY = "requestsMemory";
     static final String SPARK_TEMPLATE_NAME = "sparkTemplate";
     static final String NOTIFICATION_TEMPLATE_NAME = "notificationTemplate";
-    private static final String NOTIFICATION_PARAMETER_ADDRESSEES = "addressees";
-    private static final String NOTIFICATION_PARAMETER_MESSAGE = "message";
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-    private static final int DEPENDS_OPERATOR_LENGTH = 4;
+    static final String NOTIFICATION_PARAMETER_ADDRESSEES = "addressees";
+    static final String NOTIFICATION_PARAMETER_MESSAGE = "message";
     private static final String STATUS_ERROR = "Error";
     private static final String STATUS_FAILED = "Failed";
-    private static final String GRAPH_ID = "graphId";
 
     private final String sparkImage;
     private final ArgoKubernetesService argoKubernetesService;
@@ -115,6 +102,7 @@ public class PipelineService {
     private final String serviceAccount;
     private final String imagePullSecret;
     private final String notificationImage;
+    private final DefinitionStore definitionStore;
     @Value("${job.slack.apiToken}")
     private String slackApiToken;
 
@@ -125,7 +113,8 @@ public class PipelineService {
         @Value("${job.imagePullSecret}") final String imagePullSecret,
         @Value("${job.slack.image}") final String notificationImage,
         ArgoKubernetesService argoKubernetesService,
-        WorkflowServiceApi apiInstance) {
+        WorkflowServiceApi apiInstance,
+        DefinitionStore definitionStore) {
         this.sparkImage = sparkImage;
         this.jobMaster = jobMaster;
         this.serviceAccount = serviceAccount;
@@ -133,54 +122,7 @@ public class PipelineService {
         this.notificationImage = notificationImage;
         this.argoKubernetesService = argoKubernetesService;
         this.apiInstance = apiInstance;
-    }
-
-    /**
-     * Creating DAGTask for spark job.
-     *
-     * @param name           task name
-     * @param depends        String of dependencies
-     * @param parameterValue value of parameter 'configMap'
-     * @param graphId        value of node id from graph
-     * @return new DAGTask
-     */
-    private static DagTask createSparkDagTask(String name, String depends, String parameterValue, String graphId) {
-        return new DagTask()
-            .name(name)
-            .template(SPARK_TEMPLATE_NAME)
-            .depends(depends)
-            .arguments(new Arguments()
-                           .addParametersItem(new Parameter().name(K8sUtils.CONFIGMAP).value(parameterValue))
-                           .addParametersItem(new Parameter().name(GRAPH_ID).value(graphId)));
-    }
-
-    /**
-     * Creating DAGTask for slack job.
-     *
-     * @param name       task name
-     * @param depends    String of dependencies
-     * @param addressees value of parameter 'addressees'
-     * @param message    value of parameter 'message'
-     * @param graphId    value of node id from graph
-     * @return new DAGTask
-     */
-    private static DagTask createNotificationDagTask(
-        String name, String depends, String addressees, String message, String graphId) {
-        return new DagTask()
-            .name(name)
-            .template(NOTIFICATION_TEMPLATE_NAME)
-            .depends(depends)
-            .arguments(new Arguments()
-                           .addParametersItem(new Parameter()
-                                                  .name(NOTIFICATION_PARAMETER_ADDRESSEES)
-                                                  .value(Arrays
-                                                             .stream(addressees.split(" "))
-                                                             .map(StringEscapeUtils::escapeXSI)
-                                                             .collect(Collectors.joining(" "))))
-                           .addParametersItem(new Parameter()
-                                                  .name(NOTIFICATION_PARAMETER_MESSAGE)
-                                                  .value(StringEscapeUtils.escapeXSI(message)))
-                           .addParametersItem(new Parameter().name(GRAPH_ID).value(graphId)));
+        this.definitionStore = definitionStore;
     }
 
     /**
@@ -199,10 +141,7 @@ public class PipelineService {
         workflowTemplate.setMetadata(new ObjectMetaBuilder()
                                          .withName(workflowTemplateId)
                                          .addToLabels(Constants.NAME, workflowTemplateName)
-                                         .addToAnnotations(Constants.DEFINITION,
-                                                           Base64.encodeBase64String(definition
-                                                                                         .toString()
-                                                                                         .getBytes(StandardCharsets.UTF_8)))
+                                         .addToAnnotations(Constants.DEFINITION, DefinitionCodec.encode(definition))
                                          .addToAnnotations(Constants.LAST_MODIFIED,
                                                            ZonedDateTime
                                                                .now()
@@ -210,155 +149,6 @@ public class PipelineService {
                                          .build());
     }
 
-    /**
-     * Replacing ids in pipelines nodes.
-     *
-     * @param nodes list of GraphDto.NodeDto
-     * @param edges list of GraphDto.EdgeDto
-     */
-    private static void replaceIds(Iterable<GraphDto.NodeDto> nodes, Iterable<GraphDto.EdgeDto> edges) {
-        for (GraphDto.NodeDto node : nodes) {
-            String id = node.getId();
-            String generatedId = RandomStringUtils.randomAlphabetic(1) + UUID.randomUUID().toString().substring(1);
-            node.setId(generatedId);
-            node.getValue().put(generatedId, id);
-
-            for (GraphDto.EdgeDto edge : edges) {
-                if (edge.getSource().equals(id)) {
-                    edge.setSource(generatedId);
-                    continue;
-                }
-                if (edge.getTarget().equals(id)) {
-                    edge.setTarget(generatedId);
-                }
-            }
-        }
-    }
-
-    /**
-     * Create dag flow in templates.
-     *
-     * @param graphDto nodes and edges
-     * @return DAGTemplate
-     */
-    private static DagTemplate createDagFlow(GraphDto graphDto) {
-        List<GraphDto.NodeDto> nodes = graphDto.getNodes();
-        List<GraphDto.EdgeDto> edges = graphDto.getEdges();
-        replaceIds(nodes, edges);
-
-        Map<String, String> idMapping = Maps.newHashMapWithExpectedSize(nodes.size());
-        for (GraphDto.NodeDto node : nodes) {
-            idMapping.put(node.getId(), node.getValue().get("jobId"));
-        }
-
-        checkJobCount(idMapping);
-
-        checkSourceArrows(edges);
-
-        DagTemplate dagTemplate = new DagTemplate();
-        for (GraphDto.NodeDto node : nodes) {
-            String id = node.getId();
-            String depends = accumulateDepends(edges, id);
-
-            DagTask dagTask;
-            if (idMapping.get(id) != null) {
-                dagTask = createSparkDagTask(id, depends, idMapping.get(id), node.getValue().get(id));
-            } else {
-                dagTask = createNotificationDagTask(id,
-                                                    depends,
-                                                    node.getValue().get(NOTIFICATION_PARAMETER_ADDRESSEES),
-                                                    node.getValue().get(NOTIFICATION_PARAMETER_MESSAGE),
-                                                    node.getValue().get(id));
-            }
-            dagTemplate.addTasksItem(dagTask);
-        }
-
-        return dagTemplate;
-    }
-
-    /**
-     * Validate is pipeline have jobs duplicates.
-     *
-     * @param idMapping map of ids
-     */
-    private static void checkJobCount(Map<String, String> idMapping) {
-        int notificationsCount = StringUtils.countMatches(String.valueOf(idMapping.values()), "null");
-        if (new HashSet<>(idMapping.values()).size() < idMapping.size() - notificationsCount) {
-            throw new BadRequestException("Job can't be used more than once in pipeline");
-        }
-    }
-
-    /**
-     * Accumulate dependencies for node.
-     *
-     * @param edges  edges
-     * @param nodeId node id
-     * @return String with dependencies
-     */
-    private static String accumulateDepends(Iterable<GraphDto.EdgeDto> edges, String nodeId) {
-        StringBuilder depends = new StringBuilder();
-        for (GraphDto.EdgeDto edge : edges) {
-            if (edge.getTarget().equals(nodeId)) {
-                boolean isSuccessPath = isSuccessPath(edge);
-                if (isSuccessPath && depends.indexOf("|") == -1) {
-                    depends.append(prepareDependency("&&", edge));
-                } else if (!isSuccessPath && depends.indexOf("&") == -1) {
-                    depends.append(prepareDependency("||", edge));
-                } else {
-                    throw new BadRequestException("Node can't have different type of income arrows");
-                }
-            }
-        }
-
-        if (depends.length() == 0) {
-            return null;
-        }
-        return depends.substring(DEPENDS_OPERATOR_LENGTH);
-    }
-
-    /**
-     * Get variable successPath.
-     *
-     * @param edge edge
-     * @return successPath value
-     */
-    private static boolean isSuccessPath(GraphDto.EdgeDto edge) {
-        return Boolean.parseBoolean(edge.getValue().get("successPath"));
-    }
-
-    /**
-     * Check failure path count.
-     *
-     * @param edges edges
-     */
-    private static void checkSourceArrows(Iterable<GraphDto.EdgeDto> edges) {
-        Set<String> set = new HashSet<>();
-        for (GraphDto.EdgeDto edge : edges) {
-            if (!isSuccessPath(edge)) {
-                if (set.contains(edge.getSource())) {
-                    throw new BadRequestException("Node can't have more than one failure path");
-                } else {
-                    set.add(edge.getSource());
-                }
-            }
-        }
-    }
-
-    /**
-     * Create str with dependency from edge.
-     *
-     * @param operator operator for depends
-     * @param edge     edge
-     * @return str with dependency from edge
-     */
-    private static String prepareDependency(String operator, GraphDto.EdgeDto edge) {
-        String source = edge.getSource();
-        if ("&&".equals(operator)) {
-            return String.format(" && %s", source);
-        }
-        return String.format(" || %s.Failed || %s.Errored", source, source);
-    }
-
     /**
      * Creating Template with DAGTemplate from graph.
      *
@@ -366,7 +156,7 @@ public class PipelineService {
      * @return Template with dag
      */
     private static Template createTemplateWithDag(GraphDto graphDto) {
-        DagTemplate dagFlow = createDagFlow(graphDto);
+        DagTemplate dagFlow = PipelineDagCompiler.compile(graphDto);
         return new Template().name(Constants.DAG_TEMPLATE_NAME).dag(dagFlow);
     }
 
@@ -424,7 +214,7 @@ public class PipelineService {
                                        .getParameters()
                                        .stream()
                                        .filter(parameter -> K8sUtils.CONFIGMAP.equals(parameter.getName()) ||
-                                           GRAPH_ID.equals(parameter.getName()))
+                                           Constants.GRAPH_ID.equals(parameter.getName()))
                                        .collect(Collectors.toList()));
 
                 dagTask
@@ -578,12 +368,13 @@ public class PipelineService {
      * @param pipelineName pipeline name
      */
     void checkPipelineName(String projectId, String pipelineId, String pipelineName) {
-        List<WorkflowTemplate> workflowTemplatesByLabels =
-            argoKubernetesService.getWorkflowTemplatesByLabels(projectId, Map.of(Constants.NAME, pipelineName));
+        List<ObjectMeta> workflowTemplatesByLabels = argoKubernetesService.getWorkflowTemplatesMetadataByLabels(
+            projectId,
+            Map.of(Constants.NAME, pipelineName));
 
         if (workflowTemplatesByLabels.size() > 1 ||
             (workflowTemplatesByLabels.size() == 1 &&
-                !workflowTemplatesByLabels.get(0).getMetadata().getName().equals(pipelineId))) {
+                !workflowTemplatesByLabels.get(0).getName().equals(pipelineId))) {
             throw new BadRequestException(String.format("Pipeline with name '%s' already exist in project %s",
                                                         pipelineName,
                                                         projectId));
@@ -630,6 +421,7 @@ public class PipelineService {
             return createFromWorkflowTemplate(projectId, template, replaceIfExists);
         } catch (ResourceNotFoundException ex) {
             LOGGER.info("It's ok, there is no job with such id: {}", id);
+            definitionStore.offload(projectId, template.getMetadata());
             argoKubernetesService.createOrReplaceWorkflowTemplate(projectId, template);
             return id;
         }
@@ -646,26 +438,22 @@ public class PipelineService {
         WorkflowTemplate workflowTemplate = argoKubernetesService.getWorkflowTemplate(projectId, id);
         ObjectMeta metadata = workflowTemplate.getMetadata();
         Map<String, String> annotations = metadata.getAnnotations();
-        try {
-            boolean editable = isArgoResourceEditable(projectId, "workflowtemplates", Constants.UPDATE_ACTION);
-            PipelineResponseDto pipelineResponseDto = ((PipelineResponseDto) new PipelineResponseDto()
-                .id(id)
-                .name(metadata.getLabels().get(Constants.NAME))
-                .lastModified(annotations.get(Constants.LAST_MODIFIED))
-                .status(K8sUtils.DRAFT_STATUS))
-                .editable(editable)
-                .definition(MAPPER.readTree(Base64.decodeBase64(annotations.get(Constants.DEFINITION))));
-
-            appendRuntimeInfo(projectId, id, pipelineResponseDto);
-            boolean accessibleToRun = isArgoResourceEditable(projectId, "workflows", Constants.CREATE_ACTION);
-            appendRunnable(getDagTaskFromWorkflowTemplateSpec(workflowTemplate.getSpec()),
-                           pipelineResponseDto,
-                           accessibleToRun);
+        boolean editable = isArgoResourceEditable(projectId, "workflowtemplates", Constants.UPDATE_ACTION);
+        PipelineResponseDto pipelineResponseDto = ((PipelineResponseDto) new PipelineResponseDto()
+            .id(id)
+            .name(metadata.getLabels().get(Constants.NAME))
+            .lastModified(annotations.get(Constants.LAST_MODIFIED))
+            .status(K8sUtils.DRAFT_STATUS))
+            .editable(editable)
+            .definition(definitionStore.read(projectId, metadata));
+
+        appendRuntimeInfo(projectId, id, pipelineResponseDto);
+        boolean accessibleToRun = isArgoResourceEditable(projectId, "workflows", Constants.CREATE_ACTION);
+        appendRunnable(getDagTaskFromWorkflowTemplateSpec(workflowTemplate.getSpec()),
+                       pipelineResponseDto,
+                       accessibleToRun);
 
-            return pipelineResponseDto;
-        } catch (IOException e) {
-            throw new InternalProcessingException("Unable to parse definition JSON", e);
-        }
+        return pipelineResponseDto;
     }
 
     /**
@@ -677,57 +465,65 @@ public class PipelineService {
      */
     private void appendRuntimeInfo(String projectId, String id, PipelineOverviewDto dto) {
         try {
-            Workflow workflow = argoKubernetesService.getWorkflow(projectId, id);
-            WorkflowStatus status = workflow.getStatus();
-            String currentStatus = status.getPhase();
-            if (STATUS_FAILED.equals(currentStatus)) {
-                currentStatus = STATUS_ERROR;
-            }
-
-            Map<String, String> statuses = new HashMap<>();
-            Map<String, NodeStatus> nodes = status.getNodes();
-            Collection<NodeStatus> nodeStatuses = new ArrayList<>();
-            if (nodes != null) {
-                nodeStatuses = nodes.values();
-            } else {
-                LOGGER.error(status.getMessage());
-            }
-            dto
-                .startedAt(DateTimeUtils.getFormattedDateTime(status.getStartedAt().toString()))
-                .finishedAt(DateTimeUtils.getFormattedDateTime(String.valueOf(status.getFinishedAt())))
-                .status(currentStatus)
-                .progress(status.getProgress())
-                .jobsStatuses(statuses);
-            if (nodeStatuses.isEmpty()) {
-                return;
-            }
-            for (NodeStatus nodeStatus : nodeStatuses) {
-                if (Constants.NODE_TYPE_POD.equals(nodeStatus.getType())) {
-                    String displayName = nodeStatus.getDisplayName();
-                    Collection<Template> storedTemplates = status.getStoredTemplates().values();
-                    statuses.putAll(storedTemplates
-                                        .stream()
-                                        .filter((Template storedTemplate) -> Constants.DAG_TEMPLATE_NAME.equals(
-                                            storedTemplate.getName()))
-                                        .flatMap((Template storedTemplate) -> storedTemplate
-                                            .getDag()
-                                            .getTasks()
-                                            .stream())
-                                        .filter((DagTask dagTask) -> displayName.equals(dagTask.getName()))
-                                        .flatMap((DagTask dagTask) -> dagTask
-                                            .getArguments()
-                                            .getParameters()
-                                            .stream())
-                                        .filter((Parameter parameter) -> parameter.getName().equals(GRAPH_ID))
-                                        .collect(Collectors.toMap(Parameter::getValue,
-                                                                  (Parameter parameter) -> nodeStatus.getPhase())));
-                }
-            }
+            appendRuntimeInfo(argoKubernetesService.getWorkflowRuntime(projectId, id), dto);
         } catch (ResourceNotFoundException e) {
             LOGGER.info("Pipeline {} has not started yet", id);
         }
     }
 
+    private static String getPhase(WorkflowRuntime runtime) {
+        if (STATUS_FAILED.equals(runtime.getPhase())) {
+            return STATUS_ERROR;
+        }
+        return runtime.getPhase();
+    }
+
+    /**
+     * Append runtime info of the last pipeline run.
+     *
+     * @param workflow workflow of the pipeline
+     * @param dto      dto
+     */
+    static void appendRuntimeInfo(Workflow workflow, PipelineOverviewDto dto) {
+        appendRuntimeInfo(WorkflowRuntime.of(workflow), dto);
+    }
+
+    /**
+     * Append runtime info of the last pipeline run.
+     *
+     * @param runtime runtime info of workflow of the pipeline or null if it has not started yet
+     * @param dto     dto
+     */
+    static void appendRuntimeInfo(WorkflowRuntime runtime, PipelineOverviewDto dto) {
+        if (runtime == null || runtime.getStartedAt() == null) {
+            return;
+        }
+        appendSummaryRuntimeInfo(runtime, dto);
+        if (runtime.getJobsStatuses() == null) {
+            LOGGER.error(runtime.getMessage());
+            dto.jobsStatuses(new HashMap<>());
+        } else {
+            dto.jobsStatuses(runtime.getJobsStatuses());
+        }
+    }
+
+    /**
+     * Append status and times of the last pipeline run without statuses of its jobs.
+     *
+     * @param runtime runtime info of workflow of the pipeline or null if it has not started yet
+     * @param dto     dto
+     */
+    private static void appendSummaryRuntimeInfo(WorkflowRuntime runtime, PipelineOverviewDto dto) {
+        if (runtime == null || runtime.getStartedAt() == null) {
+            return;
+        }
+        dto
+            .startedAt(DateTimeUtils.getFormattedDateTime(runtime.getStartedAt().toString()))
+            .finishedAt(DateTimeUtils.getFormattedDateTime(String.valueOf(runtime.getFinishedAt())))
+            .status(getPhase(runtime))
+            .progress(runtime.getProgress());
+    }
+
     /**
      * Getting all pipelines in project.
      *
@@ -735,26 +531,55 @@ public class PipelineService {
      * @return pipelines list
      */
     public PipelineOverviewListDto getAll(String projectId) {
-        List<WorkflowTemplate> allWorkflowTemplates = argoKubernetesService.getAllWorkflowTemplates(projectId);
-        boolean accessibleToRun = isArgoResourceEditable(projectId, "workflows", Constants.CREATE_ACTION);
+        return getAll(projectId, ListQuery.ALL);
+    }
 
-        List<PipelineOverviewDto> pipelinesList = new ArrayList<>(allWorkflowTemplates.size());
-        for (WorkflowTemplate workflowTemplate : allWorkflowTemplates) {
-            ObjectMeta metadata = workflowTemplate.getMetadata();
+    /**
+     * Getting page of pipelines in project.
+     * Pipelines are filtered and sorted by their overview fields, which are read from metadata of workflow templates
+     * and cron workflows and from runtime info of workflows. Only pipelines of the page get statuses of their jobs
+     * and runnable flag, and only in the full view, so only their workflow templates are read in full.
+     *
+     * @param projectId project id
+     * @param query     filter, sort, page and view of pipelines
+     * @return pipelines list
+     */
+    public PipelineOverviewListDto getAll(String projectId, ListQuery query) {
+        boolean full = query.getView() == ListView.FULL;
+        List<ObjectMeta> allWorkflowTemplates = argoKubernetesService.getAllWorkflowTemplatesMetadata(projectId);
+        Map<String, WorkflowRuntime> runtimes = argoKubernetesService
+            .getAllWorkflowRuntimes(projectId)
+            .stream()
+            .collect(Collectors.toMap(WorkflowRuntime::getName, Function.identity()));
+        Set<String> cronWorkflows = argoKubernetesService
+            .getAllCronWorkflowsMetadata(projectId)
+            .stream()
+            .map(ObjectMeta::getName)
+            .collect(Collectors.toSet());
+        List<PipelineItem> items = new ArrayList<>(allWorkflowTemplates.size());
+        for (ObjectMeta metadata : allWorkflowTemplates) {
             String id = metadata.getName();
+            items.add(new PipelineItem(metadata, runtimes.get(id), cronWorkflows.contains(id)));
+        }
+        ListQuery.Page<PipelineItem> page = query.apply(items);
+        boolean accessibleToRun = full && isArgoResourceEditable(projectId, "workflows", Constants.CREATE_ACTION);
+        Map<String, WorkflowTemplateSpec> specs = full ? getSpecs(projectId, page.getItems()) : Map.of();
+
+        List<PipelineOverviewDto> pipelinesList = new ArrayList<>(page.getItems().size());
+        for (PipelineItem item : page.getItems()) {
             PipelineOverviewDto pipelineOverviewDto = new PipelineOverviewDto()
-                .id(id)
-                .name(metadata.getLabels().get(Constants.NAME))
+                .id(item.getId())
+                .name(item.getName())
                 .status(K8sUtils.DRAFT_STATUS)
-                .lastModified(metadata.getAnnotations().get(Constants.LAST_MODIFIED));
-            try {
-                argoKubernetesService.getCronWorkflow(projectId, id);
-                pipelineOverviewDto.cron(true);
-            } catch (ResourceNotFoundException e) {
-                LOGGER.info("There is no cron: {}", id);
+                .lastModified(item.getLastModified())
+                .cron(item.isCron());
+            if (!full) {
+                appendSummaryRuntimeInfo(item.runtime, pipelineOverviewDto);
+                pipelinesList.add(pipelineOverviewDto);
+                continue;
             }
-            appendRuntimeInfo(projectId, metadata.getName(), pipelineOverviewDto);
-            appendRunnable(getDagTaskFromWorkflowTemplateSpec(workflowTemplate.getSpec()),
+            appendRuntimeInfo(item.runtime, pipelineOverviewDto);
+            appendRunnable(getDagTaskFromWorkflowTemplateSpec(specs.get(item.getId())),
                            pipelineOverviewDto,
                            accessibleToRun);
 
@@ -765,9 +590,60 @@ public class PipelineService {
             .builder()
             .pipelines(pipelinesList)
             .editable(isArgoResourceEditable(projectId, "workflowtemplates", Constants.UPDATE_ACTION))
+            .total(page.getTotal())
+            .continueToken(page.getContinueToken())
             .build();
     }
 
+    /**
+     * Getting specs of workflow templates of pipelines.
+     * Templates are read one by one from argo resources cache, without the cache all of them are listed at once.
+     *
+     * @param projectId project id
+     * @param items     pipelines
+     * @return specs by pipeline id
+     */
+    private Map<String, WorkflowTemplateSpec> getSpecs(String projectId, List<PipelineItem> items) {
+        Map<String, WorkflowTemplateSpec> specs = new HashMap<>();
+        if (argoKubernetesService.isArgoCacheSynced()) {
+            for (PipelineItem item : items) {
+                specs.put(item.getId(), argoKubernetesService.getWorkflowTemplate(projectId, item.getId()).getSpec());
+            }
+        } else {
+            for (WorkflowTemplate workflowTemplate : argoKubernetesService.getAllWorkflowTemplates(projectId)) {
+                specs.put(workflowTemplate.getMetadata().getName(), workflowTemplate.getSpec());
+            }
+        }
+        return specs;
+    }
+
+    /**
+     * Getting entity tag of all pipelines in project.
+     * The tag is made of versions of workflow templates, workflows and cron workflows and permissions of the user,
+     * so it changes whenever the list of pipelines does.
+     *
+     * @param projectId project id
+     * @param view      view of pipelines
+     * @return tag or null if argo resources are not cached yet, so the tag would cost as much as the pipelines
+     */
+    public String getAllTag(final String projectId, final ListView view) {
+        if (!argoKubernetesService.isArgoCacheSynced()) {
+            return null;
+        }
+        EntityTagBuilder tag = new EntityTagBuilder()
+            .add(view)
+            .addMetadataVersions(K8sUtils.WORKFLOW_TEMPLATE_TYPE,
+                                 argoKubernetesService.getAllWorkflowTemplatesMetadata(projectId))
+            .addMetadataVersions(K8sUtils.WORKFLOW_TYPE, argoKubernetesService.getAllWorkflowsMetadata(projectId))
+            .addMetadataVersions(K8sUtils.CRON_WORKFLOW_TYPE,
+                                 argoKubernetesService.getAllCronWorkflowsMetadata(projectId))
+            .add(isArgoResourceEditable(projectId, "workflowtemplates", Constants.UPDATE_ACTION));
+        if (view == ListView.FULL) {
+            tag.add(isArgoResourceEditable(projectId, "workflows", Constants.CREATE_ACTION));
+        }
+        return tag.build();
+    }
+
     private boolean isArgoResourceEditable(String projectId, String resource, String action) {
         return argoKubernetesService.isAccessible(projectId, resource, "argoproj.io", action);
     }
@@ -781,12 +657,16 @@ public class PipelineService {
      * @param name       name
      */
     public void update(final String projectId, final String id, final JsonNode definition, final String name) {
-        argoKubernetesService.getWorkflowTemplate(projectId, id);
+        ObjectMeta previous = argoKubernetesService.getWorkflowTemplate(projectId, id).getMetadata();
 
         checkPipelineName(projectId, id, name);
 
         WorkflowTemplate newWorkflowTemplate = createWorkflowTemplate(projectId, id, name, definition);
+        definitionStore.offload(projectId, newWorkflowTemplate.getMetadata());
         argoKubernetesService.createOrReplaceWorkflowTemplate(projectId, newWorkflowTemplate);
+        definitionStore.release(projectId,
+                                previous,
+                                () -> argoKubernetesService.getAllWorkflowTemplatesMetadata(projectId));
     }
 
     /**
@@ -796,8 +676,20 @@ public class PipelineService {
      * @param id        pipeline id
      */
     public void delete(String projectId, String id) {
+        ObjectMeta previous = findMetadata(projectId, id);
         argoKubernetesService.deleteWorkflowTemplate(projectId, id);
         argoKubernetesService.deleteWorkflow(projectId, id);
+        definitionStore.release(projectId,
+                                previous,
+                                () -> argoKubernetesService.getAllWorkflowTemplatesMetadata(projectId));
+    }
+
+    private ObjectMeta findMetadata(String projectId, String id) {
+        try {
+            return argoKubernetesService.getWorkflowTemplate(projectId, id).getMetadata();
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
     }
 
 
@@ -883,4 +775,55 @@ public class PipelineService {
         CronWorkflow cronWorkflow = argoKubernetesService.getCronWorkflow(projectId, id);
         return CronPipelineDto.fromSpec(cronWorkflow.getSpec());
     }
+
+    /**
+     * Metadata of workflow template with the last run of the pipeline.
+     */
+    private static final class PipelineItem implements ListQuery.Item {
+        private final ObjectMeta metadata;
+        private final WorkflowRuntime runtime;
+        private final boolean cron;
+
+        private PipelineItem(ObjectMeta metadata, WorkflowRuntime runtime, boolean cron) {
+            this.metadata = metadata;
+            this.runtime = runtime;
+            this.cron = cron;
+        }
+
+        @Override
+        public String getId() {
+            return metadata.getName();
+        }
+
+        @Override
+        public String getName() {
+            return metadata.getLabels().get(Constants.NAME);
+        }
+
+        @Override
+        public String getLastModified() {
+            return metadata.getAnnotations().get(Constants.LAST_MODIFIED);
+        }
+
+        @Override
+        public String getStatus() {
+            if (runtime == null || runtime.getStartedAt() == null) {
+                return K8sUtils.DRAFT_STATUS;
+            }
+            return getPhase(runtime);
+        }
+
+        @Override
+        public String getStartedAt() {
+            if (runtime == null || runtime.getStartedAt() == null) {
+                return null;
+            }
+            return DateTimeUtils.getFormattedDateTime(runtime.getStartedAt().toString());
+        }
+
+        @Override
+        public boolean isCron() {
+            return cron;
+        }
+    }
 }
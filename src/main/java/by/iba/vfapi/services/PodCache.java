@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of job pods: job drivers, spark executors and pipeline pods.
+ * All of them carry jobId label, so only pods with this label are watched. Spark executors are labelled by jobs
+ * themselves and don't carry app label, so pods are watched in all namespaces and served only for app namespaces.
+ * Pods are indexed by namespace and by values of jobId, pipelineJobId, spark-role and argo workflow labels.
+ * Backed by an informer, so lookups don't make any calls to kubernetes.
+ * Pods are returned as copies, so callers may change them without affecting the informer's store.
+ * It doesn't check permissions, callers must authorize the user before reading from it.
+ */
+@Slf4j
+@Component
+public class PodCache {
+    /**
+     * Indexed labels, in order of selectivity.
+     */
+    static final List<String> INDEXED_LABELS = List.of(Constants.JOB_ID_LABEL,
+                                                       Constants.WORKFLOW_POD_LABEL,
+                                                       Constants.PIPELINE_JOB_ID_LABEL,
+                                                       Constants.SPARK_ROLE_LABEL);
+
+    private final AppNamespaceIndex appNamespaces;
+    private final SharedIndexInformer<Pod> informer;
+
+    /**
+     * Constructor for class PodCache.
+     *
+     * @param client        admin kubernetes client.
+     * @param appNamespaces index of app namespaces.
+     * @param resync        informer resync period.
+     */
+    public PodCache(
+        NamespacedKubernetesClient client,
+        AppNamespaceIndex appNamespaces,
+        @Value("${kubernetes.informers.resync:10m}") Duration resync) {
+        this.appNamespaces = appNamespaces;
+        this.informer = client
+            .informers()
+            .sharedIndexInformerFor(Pod.class,
+                                    new OperationContext()
+                                        .withIsNamespaceConfiguredFromGlobalConfig(false)
+                                        .withLabels(Collections.singletonMap(Constants.JOB_ID_LABEL, null)),
+                                    resync.toMillis());
+        Map<String, Function<Pod, List<String>>> indexers = new HashMap<>();
+        for (String label : INDEXED_LABELS) {
+            indexers.put(label, (Pod pod) -> getLabelKey(pod, label));
+        }
+        this.informer.addIndexers(indexers);
+    }
+
+    /**
+     * Starts informer.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            informer.run();
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to start pods informer, pods will be read from kubernetes", e);
+        }
+    }
+
+    /**
+     * Stops informer.
+     */
+    @PreDestroy
+    public void stop() {
+        informer.stop();
+    }
+
+    /**
+     * Checks whether cache reflects the state of the cluster.
+     *
+     * @return true if informer and index of app namespaces have synced.
+     */
+    public boolean isSynced() {
+        return appNamespaces.isSynced() && informer.hasSynced();
+    }
+
+    /**
+     * Gets pod by name.
+     *
+     * @param namespace namespace name.
+     * @param name      pod name.
+     * @return pod or null if there is no such job pod.
+     */
+    public Pod get(final String namespace, final String name) {
+        if (!appNamespaces.contains(namespace)) {
+            return null;
+        }
+        Pod pod = informer.getIndexer().getByKey(Cache.namespaceKeyFunc(namespace, name));
+        return pod == null ? null : new PodBuilder(pod).build();
+    }
+
+    /**
+     * Gets pods having all given labels.
+     * Label with null value matches any value of this label.
+     * Candidates are taken from the index of the most selective label.
+     *
+     * @param namespace namespace name.
+     * @param labels    labels.
+     * @return pods.
+     */
+    public List<Pod> getByLabels(final String namespace, final Map<String, String> labels) {
+        if (!appNamespaces.contains(namespace)) {
+            return List.of();
+        }
+        List<Pod> candidates = INDEXED_LABELS
+            .stream()
+            .filter(label -> labels.get(label) != null)
+            .findFirst()
+            .map(label -> informer
+                .getIndexer()
+                .byIndex(label, Cache.namespaceKeyFunc(namespace, labels.get(label))))
+            .orElseGet(() -> informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace));
+        return candidates
+            .stream()
+            .filter(pod -> hasLabels(pod, labels))
+            .map(pod -> new PodBuilder(pod).build())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Puts pod created in kubernetes, so it's visible before watch event arrives.
+     * It's skipped once informer has received this version of pod or a later one.
+     *
+     * @param pod pod returned by kubernetes.
+     */
+    public void put(final Pod pod) {
+        Map<String, String> labels = pod.getMetadata().getLabels();
+        if (informer.hasSynced() && labels != null && labels.containsKey(Constants.JOB_ID_LABEL)) {
+            InformerWrites.put(informer, pod);
+        }
+    }
+
+    /**
+     * Removes pod deleted from kubernetes, so it's gone before watch event arrives.
+     * It's skipped if pod has changed since it was read.
+     *
+     * @param pod pod read from cache before it was deleted.
+     */
+    public void remove(final Pod pod) {
+        InformerWrites.remove(informer, pod);
+    }
+
+    /**
+     * Adds handler of changes of job pods.
+     *
+     * @param handler handler.
+     */
+    public void addEventHandler(final ResourceEventHandler<Pod> handler) {
+        informer.addEventHandler(handler);
+    }
+
+    private static boolean hasLabels(Pod pod, Map<String, String> labels) {
+        Map<String, String> podLabels = pod.getMetadata().getLabels();
+        return labels
+            .entrySet()
+            .stream()
+            .allMatch(label -> podLabels.containsKey(label.getKey()) &&
+                (label.getValue() == null || label.getValue().equals(podLabels.get(label.getKey()))));
+    }
+
+    private static List<String> getLabelKey(Pod pod, String label) {
+        ObjectMeta metadata = pod.getMetadata();
+        String value = metadata.getLabels() == null ? null : metadata.getLabels().get(label);
+        if (value == null) {
+            return List.of();
+        }
+        return List.of(Cache.namespaceKeyFunc(metadata.getNamespace(), value));
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Delivers changes of project resources to Server-Sent Events subscribers.
+ * Last events of each project are kept, so a subscriber reconnecting with Last-Event-ID gets events it missed.
+ * Each subscriber has its own bounded queue, where a newer event about a resource replaces the older one.
+ * A subscriber, which can't keep up even so, gets reset event and is disconnected, the same happens when
+ * missed events are not kept anymore. After reset the client should reload the lists and subscribe again.
+ * It doesn't check permissions, callers must authorize the user before subscribing.
+ */
+@Slf4j
+@Component
+public class ProjectEventBroker {
+    public static final String RESET_EVENT = "reset";
+
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final int replaySize;
+    private final int queueSize;
+    private final AtomicLong lastId;
+    private final long firstId;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                                                                             .setNameFormat("project-events-%d")
+                                                                             .setDaemon(true)
+                                                                             .build());
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * Constructor for class ProjectEventBroker.
+     *
+     * @param heartbeat  how often heartbeat is sent to idle connections.
+     * @param timeout    how long connection is kept open, the client reconnects after it.
+     * @param replaySize number of last events of a project kept for reconnecting clients.
+     * @param queueSize  maximum number of events waiting to be sent to one subscriber.
+     */
+    public ProjectEventBroker(
+        @Value("${events.heartbeat:15s}") Duration heartbeat,
+        @Value("${events.timeout:30m}") Duration timeout,
+        @Value("${events.replaySize:256}") int replaySize,
+        @Value("${events.queueSize:128}") int queueSize) {
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.replaySize = replaySize;
+        this.queueSize = queueSize;
+        this.firstId = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.lastId = new AtomicLong(firstId);
+    }
+
+    /**
+     * Starts sending heartbeats.
+     */
+    @PostConstruct
+    public void start() {
+        heartbeats = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                                    .setNameFormat("project-events-heartbeat-%d")
+                                                                    .setDaemon(true)
+                                                                    .build());
+        heartbeats.scheduleAtFixedRate(() -> channels
+                                           .values()
+                                           .forEach(channel -> channel.subscribers.forEach(Subscriber::heartbeat)),
+                                       heartbeat.toMillis(),
+                                       heartbeat.toMillis(),
+                                       TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes all connections.
+     */
+    @PreDestroy
+    public void stop() {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    /**
+     * Subscribes to events of the project.
+     *
+     * @param namespace   project id.
+     * @param lastEventId id of the last event received by the client or null for new subscription.
+     * @return emitter.
+     */
+    public SseEmitter subscribe(final String namespace, final Long lastEventId) {
+        SseEmitter emitter = createEmitter();
+        Channel channel = channels.computeIfAbsent(namespace, key -> new Channel());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> channel.subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> channel.subscribers.remove(subscriber));
+        synchronized (channel) {
+            if (lastEventId != null) {
+                if (lastEventId < channel.lostUpTo || lastEventId > lastId.get()) {
+                    subscriber.reset();
+                    return emitter;
+                }
+                channel.events.stream().filter(event -> event.id > lastEventId).forEach(subscriber::offer);
+            }
+            channel.subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    /**
+     * Checks whether anybody listens to events of the project.
+     *
+     * @param namespace project id.
+     * @return true if there are subscribers.
+     */
+    public boolean hasSubscribers(final String namespace) {
+        Channel channel = channels.get(namespace);
+        return channel != null && !channel.subscribers.isEmpty();
+    }
+
+    /**
+     * Publishes event to all subscribers of the project.
+     *
+     * @param namespace project id.
+     * @param name      event name.
+     * @param key       key of the resource, which state the event carries, queued event with the same key is replaced.
+     * @param data      event data.
+     */
+    public void publish(final String namespace, final String name, final String key, final Object data) {
+        Channel channel = channels.computeIfAbsent(namespace, k -> new Channel());
+        synchronized (channel) {
+            Event event = new Event(lastId.incrementAndGet(), name, key, data);
+            channel.events.addLast(event);
+            if (channel.events.size() > replaySize) {
+                channel.lostUpTo = channel.events.removeFirst().id;
+            }
+            channel.subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    /**
+     * Events and subscribers of one project.
+     */
+    private final class Channel {
+        private final Deque<Event> events = new ArrayDeque<>();
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private long lostUpTo = firstId;
+    }
+
+    /**
+     * Event with its id.
+     */
+    @RequiredArgsConstructor
+    private static final class Event {
+        private final long id;
+        private final String name;
+        private final String key;
+        private final Object data;
+    }
+
+    /**
+     * Connection with its queue of events.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final LinkedHashMap<String, Event> queue = new LinkedHashMap<>();
+        private boolean sending;
+        private boolean closing;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(Event event) {
+            if (closing) {
+                return;
+            }
+            queue.remove(event.key);
+            queue.put(event.key, event);
+            if (queue.size() > queueSize) {
+                LOGGER.warn("Events subscriber can't keep up, disconnecting it");
+                reset();
+                return;
+            }
+            send();
+        }
+
+        private synchronized void reset() {
+            queue.clear();
+            queue.put(RESET_EVENT, new Event(lastId.get(), RESET_EVENT, RESET_EVENT, RESET_EVENT));
+            closing = true;
+            send();
+        }
+
+        private synchronized void heartbeat() {
+            if (!closing && queue.isEmpty()) {
+                queue.put("", new Event(0, null, "", null));
+                send();
+            }
+        }
+
+        private void send() {
+            if (!sending) {
+                sending = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    Iterator<Event> iterator = queue.values().iterator();
+                    if (!iterator.hasNext()) {
+                        sending = false;
+                        if (closing) {
+                            emitter.complete();
+                        }
+                        return;
+                    }
+                    event = iterator.next();
+                    iterator.remove();
+                }
+                try {
+                    if (event.name == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter
+                                         .event()
+                                         .id(String.valueOf(event.id))
+                                         .name(event.name)
+                                         .data(event.data, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    LOGGER.debug("Unable to send event, closing connection", e);
+                    synchronized (this) {
+                        queue.clear();
+                        closing = true;
+                        sending = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package by.iba.vfapi.services;
 import by.iba.vfapi.config.CustomNamespaceAnnotationsConfig;
 import by.iba.vfapi.dto.Constants;
 import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.projects.AccessTableDto;
 import by.iba.vfapi.dto.projects.ParamDto;
 import by.iba.vfapi.dto.projects.ParamsDto;
@@ -29,6 +30,7 @@ import by.iba.vfapi.dto.projects.ProjectRequestDto;
 import by.iba.vfapi.dto.projects.ProjectResponseDto;
 import by.iba.vfapi.dto.projects.ResourceQuotaResponseDto;
 import by.iba.vfapi.exceptions.BadRequestException;
+import by.iba.vfapi.model.auth.UserInfo;
 import by.iba.vfapi.services.auth.AuthenticationService;
 import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
@@ -41,11 +43,14 @@ import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * ProjectService class.
@@ -62,6 +67,9 @@ public class ProjectService {
 
     private final KubernetesService kubernetesService;
     private final AuthenticationService authenticationService;
+    private final RoleBindingIndex roleBindingIndex;
+    private final UsageHistory usageHistory;
+    private final ProjectEventBroker projectEventBroker;
 
     public ProjectService(
         final KubernetesService kubernetesService,
@@ -71,7 +79,10 @@ public class ProjectService {
         @Value("${job.spark.roleBinding}") final String roleBinding,
         @Value("${namespace.app}") final String namespaceApp,
         final CustomNamespaceAnnotationsConfig customAnnotations,
-        AuthenticationService authenticationService) {
+        AuthenticationService authenticationService,
+        RoleBindingIndex roleBindingIndex,
+        UsageHistory usageHistory,
+        ProjectEventBroker projectEventBroker) {
         this.kubernetesService = kubernetesService;
         this.imagePullSecret = imagePullSecret;
         this.serviceAccount = serviceAccount;
@@ -80,6 +91,9 @@ public class ProjectService {
         this.namespaceApp = namespaceApp;
         this.customNamespaceAnnotations = customAnnotations;
         this.authenticationService = authenticationService;
+        this.roleBindingIndex = roleBindingIndex;
+        this.usageHistory = usageHistory;
+        this.projectEventBroker = projectEventBroker;
     }
 
     private String withNamespacePrefix(final String name) {
@@ -156,25 +170,54 @@ public class ProjectService {
             .build();
     }
 
+    /**
+     * Gets entity tag of the project.
+     * The tag is made of versions of the namespace and its quota and permissions of the user.
+     *
+     * @param id project id.
+     * @return tag.
+     */
+    public String getTag(final String id) {
+        return new EntityTagBuilder()
+            .addVersion(kubernetesService.getNamespace(id))
+            .addVersion(kubernetesService.getResourceQuota(id, Constants.QUOTA_NAME))
+            .add(kubernetesService.isAccessible(id, "namespaces", "", Constants.UPDATE_ACTION))
+            .add(kubernetesService.isAccessible(id, "resourcequotas", "", Constants.UPDATE_ACTION))
+            .build();
+    }
+
     /**
      * Gets all project names.
+     * Superusers see all projects. Projects visible to other users are taken from the index of role bindings and
+     * cluster role bindings. Access reviews of all projects are used only while the index is not synced.
      *
      * @return list of project names.
      */
     public ProjectOverviewListDto getAll() {
+        UserInfo userInfo = authenticationService.getUserInfo();
+        Predicate<Namespace> isViewable = namespace -> true;
+        if (!userInfo.isSuperuser()) {
+            String saName = K8sUtils.getValidK8sName(userInfo.getUsername());
+            if (!roleBindingIndex.isSynced()) {
+                isViewable = kubernetesService::isViewable;
+            } else if (!roleBindingIndex.isViewableEverywhere(saName)) {
+                Set<String> visible = roleBindingIndex.getNamespaces(saName);
+                isViewable = namespace -> visible.contains(namespace.getMetadata().getName());
+            }
+        }
         return ProjectOverviewListDto
             .builder()
             .projects(kubernetesService
                           .getNamespaces()
                           .stream()
-                          .filter(kubernetesService::isViewable)
                           .filter((Namespace namespace) -> namespace
                               .getMetadata()
                               .getName()
                               .startsWith(namespacePrefix) && "Active".equals(namespace.getStatus().getPhase()))
+                          .filter(isViewable)
                           .map(ProjectOverviewDto::fromNamespace)
                           .collect(Collectors.toList()))
-            .editable(authenticationService.getUserInfo().isSuperuser())
+            .editable(userInfo.isSuperuser())
             .build();
     }
 
@@ -211,6 +254,32 @@ public class ProjectService {
             .build();
     }
 
+    /**
+     * Gets history of project resource usage.
+     *
+     * @param id         project id.
+     * @param resolution history resolution: 1m, 10m or 1h.
+     * @return usage history.
+     */
+    public UsageHistoryDto getUsageHistory(final String id, final String resolution) {
+        UsageHistory.Resolution historyResolution = UsageHistory.Resolution.fromLabel(resolution);
+        kubernetesService.checkAccess(id, "pods", "", "list");
+        return usageHistory.getProjectHistory(id, historyResolution);
+    }
+
+    /**
+     * Subscribes to changes of jobs, pipelines and resource usage in project.
+     *
+     * @param id          project id.
+     * @param lastEventId id of the last event received by the client or null for new subscription.
+     * @return events emitter.
+     */
+    public SseEmitter subscribe(final String id, final Long lastEventId) {
+        kubernetesService.checkAccess(id, "pods", "", "list");
+        kubernetesService.checkAccess(id, "workflows", "argoproj.io", "list");
+        return projectEventBroker.subscribe(id, lastEventId);
+    }
+
     /**
      * Creates or updates project parameters.
      *
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRole;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.PolicyRule;
+import io.fabric8.kubernetes.api.model.rbac.Role;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleRef;
+import io.fabric8.kubernetes.api.model.rbac.Subject;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of role bindings and cluster role bindings by subjects they grant access to.
+ * Backed by informers of bindings and of roles they refer to, so lookups don't make any calls to kubernetes.
+ * Service account of the user is matched directly, by its user name and by groups of service accounts
+ * and authenticated users, the same way kubernetes authorizes it.
+ * Binding grants viewing of a namespace if its role allows to get namespaces.
+ */
+@Slf4j
+@Component
+public class RoleBindingIndex {
+    static final String SUBJECT_INDEX = "subject";
+    private static final String SERVICE_ACCOUNT_KIND = "ServiceAccount";
+    private static final String USER_KIND = "User";
+    private static final String GROUP_KIND = "Group";
+    private static final String CLUSTER_ROLE_KIND = "ClusterRole";
+    private static final String SA_USER_PREFIX = "system:serviceaccount:";
+    private static final String SA_GROUP = "system:serviceaccounts";
+    private static final String AUTHENTICATED_GROUP = "system:authenticated";
+    private static final String WILDCARD = "*";
+
+    private final String appName;
+    private final SharedIndexInformer<RoleBinding> roleBindingInformer;
+    private final SharedIndexInformer<ClusterRoleBinding> clusterRoleBindingInformer;
+    private final SharedIndexInformer<Role> roleInformer;
+    private final SharedIndexInformer<ClusterRole> clusterRoleInformer;
+
+    /**
+     * Constructor for class RoleBindingIndex.
+     *
+     * @param client  admin kubernetes client.
+     * @param appName application namespace.
+     * @param resync  informers resync period.
+     */
+    public RoleBindingIndex(
+        NamespacedKubernetesClient client,
+        @Value("${namespace.app}") String appName,
+        @Value("${kubernetes.informers.resync:10m}") Duration resync) {
+        this.appName = appName;
+        this.roleBindingInformer = client
+            .informers()
+            .sharedIndexInformerFor(RoleBinding.class, allNamespaces(), resync.toMillis());
+        this.roleBindingInformer.addIndexers(Map.of(SUBJECT_INDEX, binding -> getSubjectKeys(binding.getSubjects())));
+        this.clusterRoleBindingInformer = client
+            .informers()
+            .sharedIndexInformerFor(ClusterRoleBinding.class, allNamespaces(), resync.toMillis());
+        this.clusterRoleBindingInformer.addIndexers(Map.of(SUBJECT_INDEX,
+                                                           binding -> getSubjectKeys(binding.getSubjects())));
+        this.roleInformer = client.informers().sharedIndexInformerFor(Role.class, allNamespaces(), resync.toMillis());
+        this.clusterRoleInformer =
+            client.informers().sharedIndexInformerFor(ClusterRole.class, allNamespaces(), resync.toMillis());
+    }
+
+    private static OperationContext allNamespaces() {
+        return new OperationContext().withIsNamespaceConfiguredFromGlobalConfig(false);
+    }
+
+    /**
+     * Starts informers.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            for (SharedIndexInformer<?> informer : getInformers()) {
+                informer.run();
+            }
+        } catch (KubernetesClientException e) {
+            LOGGER.warn("Unable to start role bindings informers, access will be checked by access reviews", e);
+        }
+    }
+
+    /**
+     * Stops informers.
+     */
+    @PreDestroy
+    public void stop() {
+        getInformers().forEach(SharedIndexInformer::stop);
+    }
+
+    /**
+     * Checks whether index reflects the state of the cluster.
+     *
+     * @return true if all informers have synced.
+     */
+    public boolean isSynced() {
+        return getInformers().stream().allMatch(SharedIndexInformer::hasSynced);
+    }
+
+    /**
+     * Checks whether cluster role bindings grant given service account viewing of all namespaces.
+     *
+     * @param saName service account name.
+     * @return true if all namespaces are viewable.
+     */
+    public boolean isViewableEverywhere(final String saName) {
+        return getUserSubjectKeys(saName)
+            .flatMap(key -> clusterRoleBindingInformer.getIndexer().byIndex(SUBJECT_INDEX, key).stream())
+            .anyMatch(binding -> allowsView(binding.getRoleRef(), null));
+    }
+
+    /**
+     * Gets namespaces, where role bindings grant viewing of namespace to given service account.
+     *
+     * @param saName service account name.
+     * @return namespace names.
+     */
+    public Set<String> getNamespaces(final String saName) {
+        return getUserSubjectKeys(saName)
+            .flatMap(key -> roleBindingInformer.getIndexer().byIndex(SUBJECT_INDEX, key).stream())
+            .filter(binding -> allowsView(binding.getRoleRef(), binding.getMetadata().getNamespace()))
+            .map(binding -> binding.getMetadata().getNamespace())
+            .collect(Collectors.toSet());
+    }
+
+    private List<SharedIndexInformer<? extends HasMetadata>> getInformers() {
+        return List.of(roleBindingInformer, clusterRoleBindingInformer, roleInformer, clusterRoleInformer);
+    }
+
+    /**
+     * Gets keys of all subjects, which kubernetes matches to service account of the user.
+     *
+     * @param saName service account name.
+     * @return subject keys.
+     */
+    private Stream<String> getUserSubjectKeys(final String saName) {
+        return Stream.of(getSubjectKey(SERVICE_ACCOUNT_KIND, appName, saName),
+                         getSubjectKey(USER_KIND, null, SA_USER_PREFIX + appName + ":" + saName),
+                         getSubjectKey(GROUP_KIND, null, SA_GROUP),
+                         getSubjectKey(GROUP_KIND, null, SA_GROUP + ":" + appName),
+                         getSubjectKey(GROUP_KIND, null, AUTHENTICATED_GROUP));
+    }
+
+    private static List<String> getSubjectKeys(final List<Subject> subjects) {
+        if (subjects == null) {
+            return List.of();
+        }
+        return subjects
+            .stream()
+            .map((Subject subject) -> getSubjectKey(subject.getKind(),
+                                                    SERVICE_ACCOUNT_KIND.equals(subject.getKind()) ?
+                                                        subject.getNamespace() :
+                                                        null,
+                                                    subject.getName()))
+            .collect(Collectors.toList());
+    }
+
+    private static String getSubjectKey(final String kind, final String namespace, final String name) {
+        return namespace == null ? kind + "/" + name : kind + "/" + namespace + "/" + name;
+    }
+
+    /**
+     * Checks whether role of the binding allows to get namespaces.
+     *
+     * @param roleRef   reference to role.
+     * @param namespace namespace of role binding or null for cluster role binding.
+     * @return true if role is known and allows to get namespaces.
+     */
+    private boolean allowsView(final RoleRef roleRef, final String namespace) {
+        List<PolicyRule> rules;
+        if (CLUSTER_ROLE_KIND.equals(roleRef.getKind())) {
+            ClusterRole clusterRole = clusterRoleInformer.getIndexer().getByKey(roleRef.getName());
+            rules = clusterRole == null ? null : clusterRole.getRules();
+        } else if (namespace != null) {
+            Role role = roleInformer.getIndexer().getByKey(Cache.namespaceKeyFunc(namespace, roleRef.getName()));
+            rules = role == null ? null : role.getRules();
+        } else {
+            rules = null;
+        }
+        return rules != null && rules.stream().anyMatch(RoleBindingIndex::allowsView);
+    }
+
+    private static boolean allowsView(final PolicyRule rule) {
+        return (rule.getResourceNames() == null || rule.getResourceNames().isEmpty()) &&
+            matches(rule.getVerbs(), "get") &&
+            matches(rule.getApiGroups(), "") &&
+            matches(rule.getResources(), "namespaces");
+    }
+
+    private static boolean matches(final List<String> values, final String value) {
+        return values != null && (values.contains(WILDCARD) || values.contains(value));
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.ServiceAccountList;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.RequestConfig;
+import io.fabric8.kubernetes.client.RequestConfigBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.dsl.FunctionCallable;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.codec.binary.Base64;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the state derived from users' service accounts in the application namespace.
+ * Keeps configured per-user kubernetes clients, so authenticated calls don't have to read
+ * service account and its token secret every time.
+ * In impersonation mode clients are derived from admin client and act on behalf of user's service account
+ * through Impersonate-User/Impersonate-Group headers, so no tokens are read at all.
+ * Also remembers names of existing service accounts, so they are provisioned only for users not seen before.
+ */
+@Slf4j
+@Component
+public class ServiceAccountCache {
+    static final String SA_NAME_ANNOTATION = "kubernetes.io/service-account.name";
+    static final String SA_TOKEN_TYPE = "kubernetes.io/service-account-token";
+    private static final String TOKEN_FIELD = "token";
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final int TOKEN_REFRESH_DIVIDER = 5;
+    private static final String SA_USER_PREFIX = "system:serviceaccount:";
+    private static final String SA_GROUP = "system:serviceaccounts";
+    private static final String AUTHENTICATED_GROUP = "system:authenticated";
+    private static final int PROVISIONING_STRIPES = 64;
+    private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+    private static final String SERVICE_ACCOUNTS = "service accounts";
+    private static final String SECRETS = "service account secrets";
+
+    private final NamespacedKubernetesClient client;
+    private final NamespacedKubernetesClient userClient;
+    private final String appName;
+    private final String appNameLabel;
+    private final Duration tokenExpiration;
+    private final boolean tokenRequestEnabled;
+    private final Mode mode;
+    private final Cache<String, FunctionCallable<NamespacedKubernetesClient>> clients;
+    private final Set<String> knownServiceAccounts = ConcurrentHashMap.newKeySet();
+    private final Striped<Lock> provisioningLocks = Striped.lock(PROVISIONING_STRIPES);
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService restarts;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for class ServiceAccountCache.
+     *
+     * @param client              admin kubernetes client.
+     * @param appName             application namespace.
+     * @param appNameLabel        value of app label.
+     * @param cacheTtl            how long resolved client is kept for a user.
+     * @param cacheSize           maximum number of cached clients.
+     * @param tokenRequestEnabled whether to use TokenRequest API instead of service account secrets.
+     * @param tokenExpiration     requested lifetime of tokens issued by TokenRequest API.
+     * @param mode                how user clients authenticate: token or impersonation.
+     */
+    public ServiceAccountCache(
+        NamespacedKubernetesClient client,
+        @Value("${namespace.app}") String appName,
+        @Value("${namespace.label}") String appNameLabel,
+        @Value("${kubernetes.userClient.cache.ttl:10m}") Duration cacheTtl,
+        @Value("${kubernetes.userClient.cache.maxSize:1000}") long cacheSize,
+        @Value("${kubernetes.userClient.tokenRequest.enabled:false}") boolean tokenRequestEnabled,
+        @Value("${kubernetes.userClient.tokenRequest.expiration:1h}") Duration tokenExpiration,
+        @Value("${kubernetes.userClient.mode:token}") String mode) {
+        this.client = client;
+        this.appName = appName;
+        this.appNameLabel = appNameLabel;
+        this.tokenRequestEnabled = tokenRequestEnabled;
+        this.tokenExpiration = tokenExpiration;
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        if (this.mode == Mode.TOKEN) {
+            this.userClient = new DefaultKubernetesClient(new ConfigBuilder(client.getConfiguration())
+                                                              .withClientKeyFile(null)
+                                                              .withClientCertData(null)
+                                                              .withClientCertFile(null)
+                                                              .withClientKeyData(null)
+                                                              .build());
+        } else {
+            this.userClient = null;
+        }
+        Duration ttl = cacheTtl;
+        if (this.mode == Mode.TOKEN && tokenRequestEnabled) {
+            // refresh issued token well before it expires
+            Duration refreshTime = tokenExpiration.minus(tokenExpiration.dividedBy(TOKEN_REFRESH_DIVIDER));
+            if (refreshTime.compareTo(ttl) < 0) {
+                ttl = refreshTime;
+            }
+        }
+        this.clients = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(cacheSize).recordStats().build();
+    }
+
+    /**
+     * Loads existing service accounts and starts watches which keep them up to date and invalidate cached clients
+     * when service accounts or their secrets change.
+     * Watches, which fail to start or close unexpectedly, are restarted with growing delay until they succeed.
+     */
+    @PostConstruct
+    public void startWatches() {
+        restarts = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                                  .setNameFormat("service-account-watch-%d")
+                                                                  .setDaemon(true)
+                                                                  .build());
+        startWatch(SERVICE_ACCOUNTS, this::watchServiceAccounts, Duration.ZERO);
+        startWatch(SECRETS, this::watchSecrets, Duration.ZERO);
+    }
+
+    /**
+     * Closes watches and cancels their restarts.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        closed = true;
+        if (restarts != null) {
+            restarts.shutdownNow();
+        }
+        watches.values().forEach(Watch::close);
+        watches.clear();
+    }
+
+    /**
+     * Gets client authenticated as service account of given user.
+     * Concurrent requests for the same user share a single token lookup.
+     *
+     * @param username user name.
+     * @return authenticated client.
+     */
+    public FunctionCallable<NamespacedKubernetesClient> getAuthenticatedClient(final String username) {
+        String saName = K8sUtils.getValidK8sName(username);
+        try {
+            return clients.get(saName, () -> {
+                if (mode == Mode.IMPERSONATION) {
+                    return client.withRequestConfig(getImpersonationConfig(saName));
+                }
+                return userClient.withRequestConfig(new RequestConfigBuilder()
+                                                        .withNewOauthToken(getToken(saName, username))
+                                                        .build());
+            });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalProcessingException("Unable to authenticate user: " + username, e.getCause());
+        }
+    }
+
+    /**
+     * Runs provisioner for service account, unless it's already known to exist.
+     * Concurrent calls for the same service account are coalesced, so provisioner runs only once.
+     *
+     * @param saName      service account name.
+     * @param provisioner action, which makes sure that service account exists.
+     */
+    public void provisionIfUnknown(final String saName, final Runnable provisioner) {
+        if (knownServiceAccounts.contains(saName)) {
+            return;
+        }
+        Lock lock = provisioningLocks.get(saName);
+        lock.lock();
+        try {
+            if (!knownServiceAccounts.contains(saName)) {
+                provisioner.run();
+                knownServiceAccounts.add(saName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether service account is known to exist.
+     *
+     * @param saName service account name.
+     * @return true if service account exists.
+     */
+    boolean isKnown(final String saName) {
+        return knownServiceAccounts.contains(saName);
+    }
+
+    /**
+     * Drops cached client of given service account.
+     *
+     * @param saName service account name.
+     */
+    public void invalidate(final String saName) {
+        clients.invalidate(saName);
+    }
+
+    /**
+     * Gets cached clients statistics.
+     *
+     * @return hit, miss and eviction counters.
+     */
+    public CacheStats getCacheStats() {
+        return clients.stats();
+    }
+
+    /**
+     * Gets service account secret for given user.
+     *
+     * @param username user name.
+     * @return service account token secret.
+     */
+    public Secret getServiceAccountSecret(final String username) {
+        String secretName = client
+            .serviceAccounts()
+            .inNamespace(appName)
+            .withName(K8sUtils.getValidK8sName(username))
+            .require()
+            .getSecrets()
+            .stream()
+            .filter(secret -> secret.getName().contains(TOKEN_FIELD))
+            .findFirst()
+            .orElseThrow(() -> new InternalProcessingException("Unable to find service account secret for user: " +
+                                                                   username))
+            .getName();
+        return client.secrets().inNamespace(appName).withName(secretName).require();
+    }
+
+    /**
+     * Builds request config, which keeps admin credentials and impersonates given service account
+     * with the same groups kubernetes assigns to service account tokens.
+     *
+     * @param saName service account name.
+     * @return request config.
+     */
+    private RequestConfig getImpersonationConfig(final String saName) {
+        RequestConfigBuilder builder = new RequestConfigBuilder();
+        new RequestConfigBuilder(builder, client.getConfiguration().getRequestConfig());
+        return builder
+            .withImpersonateUsername(SA_USER_PREFIX + appName + ":" + saName)
+            .withImpersonateGroups(SA_GROUP, SA_GROUP + ":" + appName, AUTHENTICATED_GROUP)
+            .build();
+    }
+
+    private String getToken(final String saName, final String username) {
+        if (tokenRequestEnabled) {
+            return requestToken(saName);
+        }
+        Secret secret = getServiceAccountSecret(username);
+        return new String(Base64.decodeBase64(secret.getData().get(TOKEN_FIELD)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Issues short-lived token for service account via TokenRequest API.
+     *
+     * @param saName service account name.
+     * @return token.
+     */
+    private String requestToken(final String saName) {
+        String url = String.format("%sapi/v1/namespaces/%s/serviceaccounts/%s/token",
+                                   client.getMasterUrl(),
+                                   appName,
+                                   saName);
+        String body = Serialization.asJson(Map.of("apiVersion",
+                                                  "authentication.k8s.io/v1",
+                                                  "kind",
+                                                  "TokenRequest",
+                                                  "spec",
+                                                  Map.of("expirationSeconds", tokenExpiration.toSeconds())));
+        Request request = new Request.Builder().url(url).post(RequestBody.create(JSON, body)).build();
+        try (Response response = client.adapt(OkHttpClient.class).newCall(request).execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                throw new KubernetesClientException(String.format("Unable to request token for %s: %s",
+                                                                  saName,
+                                                                  response.message()), response.code(), null);
+            }
+            JsonNode tokenRequest = Serialization.jsonMapper().readTree(responseBody.string());
+            return tokenRequest.path("status").path(TOKEN_FIELD).asText();
+        } catch (IOException e) {
+            throw new InternalProcessingException("Unable to request token for service account " + saName, e);
+        }
+    }
+
+    /**
+     * Starts the watch or schedules the next attempt with doubled delay if it fails.
+     * Runs under the same lock as {@link #close()}, so no watch is started or scheduled after closing.
+     *
+     * @param resources name of watched resources.
+     * @param watch     function, which starts the watch.
+     * @param delay     delay of this attempt.
+     */
+    private synchronized void startWatch(String resources, Supplier<Watch> watch, Duration delay) {
+        if (closed) {
+            return;
+        }
+        try {
+            watches.put(resources, watch.get());
+        } catch (KubernetesClientException e) {
+            Duration nextDelay = delay.isZero() ? MIN_RETRY_DELAY : delay.multipliedBy(2);
+            if (nextDelay.compareTo(MAX_RETRY_DELAY) > 0) {
+                nextDelay = MAX_RETRY_DELAY;
+            }
+            LOGGER.warn("Unable to watch {}, retrying in {}, cached clients will expire by ttl only until then",
+                        resources,
+                        nextDelay,
+                        e);
+            scheduleWatch(resources, watch, nextDelay);
+        }
+    }
+
+    /**
+     * Drops closed watch and schedules its restart.
+     *
+     * @param resources name of watched resources.
+     * @param watch     function, which starts the watch.
+     */
+    private synchronized void restartWatch(String resources, Supplier<Watch> watch) {
+        watches.remove(resources);
+        if (!closed) {
+            scheduleWatch(resources, watch, Duration.ZERO);
+        }
+    }
+
+    private void scheduleWatch(String resources, Supplier<Watch> watch, Duration delay) {
+        restarts.schedule(() -> startWatch(resources, watch, delay), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Watch watchServiceAccounts() {
+        ServiceAccountList serviceAccounts =
+            client.serviceAccounts().inNamespace(appName).withLabel(K8sUtils.APP, appNameLabel).list();
+        Set<String> names = serviceAccounts
+            .getItems()
+            .stream()
+            .map(serviceAccount -> serviceAccount.getMetadata().getName())
+            .collect(Collectors.toSet());
+        knownServiceAccounts.addAll(names);
+        knownServiceAccounts.retainAll(names);
+        return client
+            .serviceAccounts()
+            .inNamespace(appName)
+            .withLabel(K8sUtils.APP, appNameLabel)
+            .watch(new ListOptionsBuilder()
+                       .withResourceVersion(serviceAccounts.getMetadata().getResourceVersion())
+                       .build(), new InvalidatingWatcher<>(SERVICE_ACCOUNTS, this::watchServiceAccounts) {
+                @Override
+                public void eventReceived(Action action, ServiceAccount resource) {
+                    String saName = resource.getMetadata().getName();
+                    if (action == Action.DELETED) {
+                        knownServiceAccounts.remove(saName);
+                    } else {
+                        knownServiceAccounts.add(saName);
+                    }
+                    if (action != Action.ADDED) {
+                        invalidate(saName);
+                    }
+                }
+            });
+    }
+
+    private Watch watchSecrets() {
+        return client
+            .secrets()
+            .inNamespace(appName)
+            .withField("type", SA_TOKEN_TYPE)
+            .watch(new InvalidatingWatcher<>(SECRETS, this::watchSecrets) {
+                @Override
+                public void eventReceived(Action action, Secret resource) {
+                    Map<String, String> annotations = resource.getMetadata().getAnnotations();
+                    if (action != Action.ADDED && annotations != null &&
+                        annotations.containsKey(SA_NAME_ANNOTATION)) {
+                        invalidate(annotations.get(SA_NAME_ANNOTATION));
+                    }
+                }
+            });
+    }
+
+    /**
+     * The way clients authenticate as user's service account.
+     */
+    enum Mode {
+        TOKEN,
+        IMPERSONATION
+    }
+
+    /**
+     * Watcher, which drops all cached clients and restarts the watch when it's closed unexpectedly.
+     *
+     * @param <T> resource type.
+     */
+    private abstract class InvalidatingWatcher<T> implements Watcher<T> {
+        private final String resources;
+        private final Supplier<Watch> restart;
+
+        InvalidatingWatcher(String resources, Supplier<Watch> restart) {
+            this.resources = resources;
+            this.restart = restart;
+        }
+
+        @Override
+        public void onClose(WatcherException cause) {
+            clients.invalidateAll();
+            if (!closed) {
+                LOGGER.warn("Watch of {} closed, restarting", resources, cause);
+            }
+            restartWatch(resources, restart);
+        }
+    }
+}
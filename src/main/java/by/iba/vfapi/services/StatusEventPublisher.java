@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.jobs.JobOverviewDto;
+import by.iba.vfapi.dto.jobs.PipelineJobOverviewDto;
+import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
+import by.iba.vfapi.model.argo.Workflow;
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns changes of job pods and argo workflows seen by informers into project events.
+ * Job events carry the same runtime fields as the job list and pipeline events carry the same runtime fields
+ * as the pipeline list, so clients can patch the lists they loaded before.
+ */
+@Slf4j
+@Component
+public class StatusEventPublisher {
+    public static final String JOB_EVENT = "job";
+    public static final String JOB_REMOVED_EVENT = "jobRemoved";
+    public static final String PIPELINE_EVENT = "pipeline";
+
+    private final PodCache podCache;
+    private final ArgoResourceCache argoResourceCache;
+    private final ProjectEventBroker broker;
+
+    /**
+     * Constructor for class StatusEventPublisher.
+     *
+     * @param podCache          pod cache.
+     * @param argoResourceCache argo resources cache.
+     * @param broker            project events broker.
+     */
+    public StatusEventPublisher(PodCache podCache, ArgoResourceCache argoResourceCache, ProjectEventBroker broker) {
+        this.podCache = podCache;
+        this.argoResourceCache = argoResourceCache;
+        this.broker = broker;
+    }
+
+    /**
+     * Starts listening to informers.
+     */
+    @PostConstruct
+    public void start() {
+        podCache.addEventHandler(new ChangeHandler<>(this::publishPod, this::publishPodRemoved));
+        argoResourceCache.addEventHandler(Workflow.class,
+                                          new ChangeHandler<>(this::publishWorkflow, this::publishWorkflowRemoved));
+    }
+
+    void publishPod(Pod pod) {
+        String namespace = pod.getMetadata().getNamespace();
+        Map<String, String> labels = pod.getMetadata().getLabels();
+        String jobId = labels.get(Constants.JOB_ID_LABEL);
+        if (labels.containsKey(Constants.WORKFLOW_POD_LABEL)) {
+            PipelineJobOverviewDto instance = PipelineJobOverviewDto.fromPod(pod).build();
+            broker.publish(namespace,
+                           JOB_EVENT,
+                           JOB_EVENT + '/' + instance.getId(),
+                           JobOverviewDto
+                               .builder()
+                               .id(instance.getId())
+                               .pipelineId(instance.getPipelineId())
+                               .startedAt(instance.getStartedAt())
+                               .finishedAt(instance.getFinishedAt())
+                               .status(instance.getStatus())
+                               .build());
+        } else if (pod.getMetadata().getName().equals(jobId)) {
+            broker.publish(namespace,
+                           JOB_EVENT,
+                           JOB_EVENT + '/' + jobId,
+                           JobOverviewDto
+                               .builder()
+                               .id(jobId)
+                               .startedAt(DateTimeUtils.getFormattedDateTime(pod.getStatus().getStartTime()))
+                               .finishedAt(DateTimeUtils.getFormattedDateTime(K8sUtils.extractTerminatedStateField(
+                                   pod.getStatus(),
+                                   ContainerStateTerminated::getFinishedAt)))
+                               .status(pod.getStatus().getPhase())
+                               .build());
+        }
+    }
+
+    void publishPodRemoved(Pod pod) {
+        String namespace = pod.getMetadata().getNamespace();
+        Map<String, String> labels = pod.getMetadata().getLabels();
+        String name = pod.getMetadata().getName();
+        if (labels.containsKey(Constants.WORKFLOW_POD_LABEL)) {
+            broker.publish(namespace,
+                           JOB_REMOVED_EVENT,
+                           JOB_EVENT + '/' + name,
+                           JobOverviewDto.builder().id(name).build());
+        } else if (name.equals(labels.get(Constants.JOB_ID_LABEL))) {
+            broker.publish(namespace,
+                           JOB_EVENT,
+                           JOB_EVENT + '/' + name,
+                           JobOverviewDto.builder().id(name).status(K8sUtils.DRAFT_STATUS).build());
+        }
+    }
+
+    void publishWorkflow(Workflow workflow) {
+        String id = workflow.getMetadata().getName();
+        PipelineOverviewDto pipeline = new PipelineOverviewDto().id(id);
+        PipelineService.appendRuntimeInfo(workflow, pipeline);
+        broker.publish(workflow.getMetadata().getNamespace(), PIPELINE_EVENT, PIPELINE_EVENT + '/' + id, pipeline);
+    }
+
+    void publishWorkflowRemoved(Workflow workflow) {
+        String id = workflow.getMetadata().getName();
+        broker.publish(workflow.getMetadata().getNamespace(),
+                       PIPELINE_EVENT,
+                       PIPELINE_EVENT + '/' + id,
+                       new PipelineOverviewDto().id(id).status(K8sUtils.DRAFT_STATUS));
+    }
+
+    /**
+     * Publishes changed resources, skipping periodic resyncs of unchanged ones.
+     *
+     * @param <T> resource type.
+     */
+    private static final class ChangeHandler<T extends HasMetadata> implements ResourceEventHandler<T> {
+        private final Consumer<T> onChange;
+        private final Consumer<T> onRemove;
+
+        private ChangeHandler(Consumer<T> onChange, Consumer<T> onRemove) {
+            this.onChange = onChange;
+            this.onRemove = onRemove;
+        }
+
+        @Override
+        public void onAdd(T resource) {
+            handle(onChange, resource);
+        }
+
+        @Override
+        public void onUpdate(T oldResource, T newResource) {
+            if (!Objects.equals(oldResource.getMetadata().getResourceVersion(),
+                                newResource.getMetadata().getResourceVersion())) {
+                handle(onChange, newResource);
+            }
+        }
+
+        @Override
+        public void onDelete(T resource, boolean deletedFinalStateUnknown) {
+            handle(onRemove, resource);
+        }
+
+        private static <T extends HasMetadata> void handle(Consumer<T> handler, T resource) {
+            try {
+                handler.accept(resource);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to publish change of {}", resource.getMetadata().getName(), e);
+            }
+        }
+    }
+}
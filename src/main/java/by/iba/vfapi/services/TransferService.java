@@ -25,13 +25,13 @@ import by.iba.vfapi.dto.importing.ImportResponseDto;
 import by.iba.vfapi.exceptions.BadRequestException;
 import by.iba.vfapi.model.argo.WorkflowTemplate;
 import by.iba.vfapi.model.argo.WorkflowTemplateSpec;
-import com.google.common.collect.Sets;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.client.utils.Serialization;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -57,18 +57,20 @@ public class TransferService {
     private final ArgoKubernetesService argoKubernetesService;
     private final JobService jobService;
     private final PipelineService pipelineService;
+    private final ParallelCalls parallelCalls;
+    private final DefinitionStore definitionStore;
 
 
     /**
      * Exporting jobs by ids.
+     * Jobs are fetched concurrently. Definitions kept in config maps are put back to jobs.
      *
      * @param projectId project id
      * @param jobIds    jobs ids to export
      * @return list of jsons
      */
     private Set<String> exportJobs(final String projectId, final Set<String> jobIds) {
-        Set<String> exportedJobs = Sets.newHashSetWithExpectedSize(jobIds.size());
-        for (String jobId : jobIds) {
+        List<String> exportedJobs = parallelCalls.map(new ArrayList<>(jobIds), (String jobId) -> {
             ConfigMap configMap = argoKubernetesService.getConfigMap(projectId, jobId);
             ObjectMeta metadata = configMap.getMetadata();
             ConfigMap configMapForExport = new ConfigMapBuilder()
@@ -79,14 +81,16 @@ public class TransferService {
                                   .build())
                 .withData(configMap.getData())
                 .build();
-            exportedJobs.add(Serialization.asJson(configMapForExport));
-        }
+            definitionStore.inline(projectId, configMapForExport.getMetadata());
+            return Serialization.asJson(configMapForExport);
+        });
 
-        return exportedJobs;
+        return new HashSet<>(exportedJobs);
     }
 
     /**
      * Exporting pipelines by ids.
+     * Pipelines are fetched concurrently. Definitions kept in config maps are put back to pipelines.
      *
      * @param projectId project id
      * @param pipelines jobs ids to export
@@ -94,44 +98,45 @@ public class TransferService {
      */
     private Set<PipelinesWithRelatedJobs> exportPipelines(
         final String projectId, final Set<ExportRequestDto.PipelineRequest> pipelines) {
-        Set<PipelinesWithRelatedJobs> exportedPipelines = Sets.newHashSetWithExpectedSize(pipelines.size());
-        for (ExportRequestDto.PipelineRequest pipeline : pipelines) {
-            WorkflowTemplate workflowTemplate =
-                argoKubernetesService.getWorkflowTemplate(projectId, pipeline.getPipelineId());
-            ObjectMeta metadata = workflowTemplate.getMetadata();
-            WorkflowTemplateSpec spec = workflowTemplate.getSpec();
-
-            WorkflowTemplate workflowTemplateForExport = new WorkflowTemplate();
-            workflowTemplateForExport.setMetadata(new ObjectMetaBuilder()
-                                                      .withName(metadata.getName())
-                                                      .addToAnnotations(metadata.getAnnotations())
-                                                      .addToLabels(metadata.getLabels())
-                                                      .addToLabels("type", "pipeline")
-                                                      .build());
-            workflowTemplateForExport.setSpec(spec);
-            PipelinesWithRelatedJobs pipelinesWithRelatedJobs =
-                new PipelinesWithRelatedJobs(Serialization.asJson(workflowTemplateForExport));
-
-            if (pipeline.isWithRelatedJobs()) {
-                List<String> jobIds = PipelineService
-                    .getDagTaskFromWorkflowTemplateSpec(spec)
-                    .stream()
-                    .map(task -> task
-                        .getArguments()
-                        .getParameters()
+        List<PipelinesWithRelatedJobs> exportedPipelines =
+            parallelCalls.map(new ArrayList<>(pipelines), (ExportRequestDto.PipelineRequest pipeline) -> {
+                WorkflowTemplate workflowTemplate =
+                    argoKubernetesService.getWorkflowTemplate(projectId, pipeline.getPipelineId());
+                ObjectMeta metadata = workflowTemplate.getMetadata();
+                WorkflowTemplateSpec spec = workflowTemplate.getSpec();
+
+                WorkflowTemplate workflowTemplateForExport = new WorkflowTemplate();
+                workflowTemplateForExport.setMetadata(new ObjectMetaBuilder()
+                                                          .withName(metadata.getName())
+                                                          .addToAnnotations(metadata.getAnnotations())
+                                                          .addToLabels(metadata.getLabels())
+                                                          .addToLabels("type", "pipeline")
+                                                          .build());
+                workflowTemplateForExport.setSpec(spec);
+                definitionStore.inline(projectId, workflowTemplateForExport.getMetadata());
+                PipelinesWithRelatedJobs pipelinesWithRelatedJobs =
+                    new PipelinesWithRelatedJobs(Serialization.asJson(workflowTemplateForExport));
+
+                if (pipeline.isWithRelatedJobs()) {
+                    List<String> jobIds = PipelineService
+                        .getDagTaskFromWorkflowTemplateSpec(spec)
                         .stream()
-                        .filter(param -> K8sUtils.CONFIGMAP.equals(param.getName()))
-                        .findFirst())
-                    .filter(Optional::isPresent)
-                    .map(parameter -> parameter.get().getValue())
-                    .collect(Collectors.toList());
-                pipelinesWithRelatedJobs.getRelatedJobIds().addAll(jobIds);
-            }
-
-            exportedPipelines.add(pipelinesWithRelatedJobs);
-        }
-
-        return exportedPipelines;
+                        .map(task -> task
+                            .getArguments()
+                            .getParameters()
+                            .stream()
+                            .filter(param -> K8sUtils.CONFIGMAP.equals(param.getName()))
+                            .findFirst())
+                        .filter(Optional::isPresent)
+                        .map(parameter -> parameter.get().getValue())
+                        .collect(Collectors.toList());
+                    pipelinesWithRelatedJobs.getRelatedJobIds().addAll(jobIds);
+                }
+
+                return pipelinesWithRelatedJobs;
+            });
+
+        return new HashSet<>(exportedPipelines);
     }
 
     /**
@@ -150,6 +155,7 @@ public class TransferService {
 
             try {
                 jobService.checkJobName(projectId, id, name);
+                definitionStore.offload(projectId, configMap.getMetadata());
                 argoKubernetesService.createOrReplaceConfigMap(projectId, configMap);
             } catch (BadRequestException ex) {
                 LOGGER.error(ex.getMessage(), ex);
@@ -177,6 +183,7 @@ public class TransferService {
 
             try {
                 pipelineService.checkPipelineName(projectId, id, name);
+                definitionStore.offload(projectId, workflowTemplate.getMetadata());
                 argoKubernetesService.createOrReplaceWorkflowTemplate(projectId, workflowTemplate);
             } catch (BadRequestException ex) {
                 LOGGER.error(ex.getMessage(), ex);
@@ -255,7 +262,7 @@ public class TransferService {
             projectId,
             configMap,
             (projId, confMap) -> jobService.createFromConfigMap(projId, confMap, false),
-            argoKubernetesService.getAllConfigMaps(projectId));
+            argoKubernetesService.getAllConfigMapsMetadata(projectId));
 
     }
 
@@ -271,7 +278,7 @@ public class TransferService {
             projectId,
             workflowTemplate,
             (projId, wfTemplate) -> pipelineService.createFromWorkflowTemplate(projId, wfTemplate, false),
-            argoKubernetesService.getAllWorkflowTemplates(projectId));
+            argoKubernetesService.getAllWorkflowTemplatesMetadata(projectId));
     }
 
     /**
@@ -280,11 +287,11 @@ public class TransferService {
      * @param projectId          id of the project
      * @param entityMetadata     entity's metadata
      * @param saver              lambda for saving the copy
-     * @param entityMetadataList list of all available entities(of the same type) from current project
+     * @param entityMetadataList metadata of all available entities(of the same type) from current project
      * @param <T>                entity's metadata
      */
     private <T extends HasMetadata> void copyEntity(
-        final String projectId, T entityMetadata, BiConsumer<String, T> saver, List<T> entityMetadataList) {
+        final String projectId, T entityMetadata, BiConsumer<String, T> saver, List<ObjectMeta> entityMetadataList) {
         String currentName = entityMetadata.getMetadata().getLabels().get(Constants.NAME);
         int availableIndex = getNextEntityCopyIndex(currentName, entityMetadataList);
         if (availableIndex == 1) {
@@ -305,14 +312,13 @@ public class TransferService {
      * Returns the next available index
      *
      * @param entityName         name of the entity
-     * @param entityMetadataList list of all entities
-     * @param <T>                entity type
+     * @param entityMetadataList metadata of all entities
      * @return number of copies
      */
-    private <T extends HasMetadata> int getNextEntityCopyIndex(String entityName, List<T> entityMetadataList) {
+    private static int getNextEntityCopyIndex(String entityName, List<ObjectMeta> entityMetadataList) {
         Pattern groupIndex = Pattern.compile(String.format("^%s-Copy(\\d+)?$", Pattern.quote(entityName)));
-        return entityMetadataList.stream().map((T e) -> {
-            String name = e.getMetadata().getLabels().get(Constants.NAME);
+        return entityMetadataList.stream().map((ObjectMeta e) -> {
+            String name = e.getLabels().get(Constants.NAME);
             Matcher matcher = groupIndex.matcher(name);
             if (!matcher.matches()) {
                 return 0;
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.ResourceQuota;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aggregates resource usage of a namespace.
+ * Metrics of all pods are fetched by one call to metrics API, executors and quota are fetched once as well,
+ * so the number of calls doesn't depend on the number of jobs and pods.
+ * Snapshots are shared for a short time, callers must check that the user can view the namespace.
+ */
+@Slf4j
+@Component
+public class UsageAggregator {
+    private static final long MAX_SNAPSHOTS = 1000;
+
+    private final KubernetesService kubernetesService;
+    private final Cache<String, UsageSnapshot> snapshots;
+
+    /**
+     * Constructor for class UsageAggregator.
+     *
+     * @param kubernetesService kubernetes service.
+     * @param ttl               how long snapshot of a namespace is reused.
+     */
+    public UsageAggregator(
+        KubernetesService kubernetesService, @Value("${kubernetes.metrics.ttl:5s}") Duration ttl) {
+        this.kubernetesService = kubernetesService;
+        this.snapshots = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(MAX_SNAPSHOTS).build();
+    }
+
+    /**
+     * Gets usage snapshot of the namespace.
+     *
+     * @param namespace namespace name.
+     * @return usage snapshot.
+     */
+    public UsageSnapshot getSnapshot(final String namespace) {
+        try {
+            return snapshots.get(namespace, () -> takeSnapshot(namespace));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new InternalProcessingException("Unable to retrieve resource usage", e.getCause());
+        }
+    }
+
+    private UsageSnapshot takeSnapshot(String namespace) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(Constants.SPARK_ROLE_LABEL, Constants.SPARK_ROLE_EXEC);
+        labels.put(Constants.JOB_ID_LABEL, null);
+        List<Pod> executors = kubernetesService.getPodsByLabels(namespace, labels);
+
+        List<PodMetrics> metrics;
+        try {
+            metrics = kubernetesService.topPod(namespace);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
+            LOGGER.warn("Unable to retrieve metrics for namespace {}", namespace);
+            metrics = List.of();
+        }
+
+        ResourceQuota quota;
+        try {
+            quota = kubernetesService.getResourceQuota(namespace, Constants.QUOTA_NAME);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
+            LOGGER.warn("Unable to retrieve quota for namespace {}", namespace);
+            quota = null;
+        }
+        return new UsageSnapshot(metrics, executors, quota);
+    }
+}
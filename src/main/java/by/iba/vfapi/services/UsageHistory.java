@@ -0,0 +1,450 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.UsageHistoryDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * History of cpu and memory usage of projects and jobs.
+ * Metrics of all pods of every project are sampled in background and averaged into ring buffers
+ * of 1 minute, 10 minutes and 1 hour resolution.
+ * Ring buffers of all series are laid out in one buffer of fixed size, which is mapped to a file when it's configured,
+ * so the history survives restarts.
+ * It doesn't check permissions, callers must authorize the user before reading from it.
+ */
+@Slf4j
+@Component
+public class UsageHistory {
+    public static final String USAGE_EVENT = "usage";
+    private static final int MAGIC = 0x56465548;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int KEY_BYTES = 128;
+    private static final int LAST_UPDATE_OFFSET = Short.BYTES + KEY_BYTES;
+    private static final int CPU_OFFSET = Long.BYTES;
+    private static final int MEMORY_OFFSET = CPU_OFFSET + Double.BYTES;
+    private static final int COUNT_OFFSET = MEMORY_OFFSET + Double.BYTES;
+    private static final int SLOT_BYTES = COUNT_OFFSET + Integer.BYTES;
+    private static final int[] RING_OFFSETS = new int[Resolution.values().length];
+    private static final int SERIES_BYTES;
+
+    static {
+        int offset = LAST_UPDATE_OFFSET + Long.BYTES;
+        for (Resolution resolution : Resolution.values()) {
+            RING_OFFSETS[resolution.ordinal()] = offset;
+            offset += resolution.getCapacity() * SLOT_BYTES;
+        }
+        SERIES_BYTES = offset;
+    }
+
+    private final KubernetesService kubernetesService;
+    private final PodCache podCache;
+    private final ProjectEventBroker broker;
+    private final Duration interval;
+    private final int maxSeries;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> series = new HashMap<>();
+    private ScheduledExecutorService sampler;
+
+    /**
+     * Constructor for class UsageHistory.
+     *
+     * @param kubernetesService kubernetes service.
+     * @param podCache          pod cache to find jobs of pods, which metrics come without labels.
+     * @param broker            project events broker, current usage is published to it.
+     * @param interval          how often metrics are sampled, zero disables sampling.
+     * @param file              file to keep history in, history is kept in memory only when it's empty.
+     * @param maxSeries         maximum number of projects and jobs to keep history of.
+     */
+    public UsageHistory(
+        KubernetesService kubernetesService,
+        PodCache podCache,
+        ProjectEventBroker broker,
+        @Value("${kubernetes.metrics.history.interval:15s}") Duration interval,
+        @Value("${kubernetes.metrics.history.file:}") String file,
+        @Value("${kubernetes.metrics.history.maxSeries:1000}") int maxSeries) {
+        this.kubernetesService = kubernetesService;
+        this.podCache = podCache;
+        this.broker = broker;
+        this.interval = interval;
+        this.maxSeries = maxSeries;
+        this.buffer = allocate(file, HEADER_BYTES + (long) maxSeries * SERIES_BYTES);
+        if (buffer.getInt(0) != MAGIC ||
+            buffer.getInt(Integer.BYTES) != VERSION ||
+            buffer.getInt(2 * Integer.BYTES) != maxSeries ||
+            buffer.getInt(3 * Integer.BYTES) != SERIES_BYTES) {
+            clear(0, buffer.capacity());
+            buffer.putInt(0, MAGIC).putInt(Integer.BYTES, VERSION);
+            buffer.putInt(2 * Integer.BYTES, maxSeries).putInt(3 * Integer.BYTES, SERIES_BYTES);
+        }
+        for (int i = 0; i < maxSeries; i++) {
+            String key = readKey(i);
+            if (key != null) {
+                series.put(key, i);
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(String file, long size) {
+        if (!file.isEmpty()) {
+            try (FileChannel channel = FileChannel.open(Path.of(file),
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to map usage history file {}, history will be kept in memory", file, e);
+            }
+        }
+        return ByteBuffer.allocate(Math.toIntExact(size));
+    }
+
+    /**
+     * Starts sampling metrics.
+     */
+    @PostConstruct
+    public void start() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                                 .setNameFormat("usage-sampler-%d")
+                                                                 .setDaemon(true)
+                                                                 .build());
+        sampler.scheduleAtFixedRate(() -> sample(System.currentTimeMillis()),
+                                    interval.toMillis(),
+                                    interval.toMillis(),
+                                    TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling and flushes history to the file.
+     */
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+        synchronized (this) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Takes metrics of all pods in every project and adds them to project and job series.
+     *
+     * @param now sampling time in milliseconds.
+     */
+    void sample(long now) {
+        try {
+            for (Namespace namespace : kubernetesService.getNamespaces()) {
+                sample(namespace.getMetadata().getName(), now);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to sample resource usage", e);
+        }
+    }
+
+    private void sample(String namespace, long now) {
+        List<PodMetrics> metrics;
+        try {
+            metrics = kubernetesService.topPod(namespace);
+        } catch (KubernetesClientException e) {
+            LOGGER.debug("Unable to retrieve metrics for namespace {}", namespace, e);
+            return;
+        }
+        double[] projectUsage = new double[2];
+        Map<String, double[]> jobsUsage = new HashMap<>();
+        for (PodMetrics podMetrics : metrics) {
+            double cpu = sum(podMetrics, Constants.CPU_FIELD);
+            double memory = sum(podMetrics, Constants.MEMORY_FIELD);
+            projectUsage[0] += cpu;
+            projectUsage[1] += memory;
+            String jobId = getJobId(namespace, podMetrics);
+            if (jobId != null) {
+                double[] jobUsage = jobsUsage.computeIfAbsent(jobId, key -> new double[2]);
+                jobUsage[0] += cpu;
+                jobUsage[1] += memory;
+            }
+        }
+        record(namespace, projectUsage[0], projectUsage[1], now);
+        jobsUsage.forEach((String jobId, double[] usage) -> record(getJobKey(namespace, jobId),
+                                                                   usage[0],
+                                                                   usage[1],
+                                                                   now));
+        if (broker.hasSubscribers(namespace)) {
+            Map<String, UsageHistoryDto.Point> jobs = new HashMap<>();
+            jobsUsage.forEach((String jobId, double[] usage) -> jobs.put(jobId, toPoint(now, usage[0], usage[1])));
+            broker.publish(namespace,
+                           USAGE_EVENT,
+                           USAGE_EVENT,
+                           Map.of("project", toPoint(now, projectUsage[0], projectUsage[1]), "jobs", jobs));
+        }
+    }
+
+    private static UsageHistoryDto.Point toPoint(long time, double cpu, double memory) {
+        return UsageHistoryDto.Point
+            .builder()
+            .timestamp(ZonedDateTime
+                           .ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC)
+                           .format(Constants.DATE_TIME_FORMATTER))
+            .cpu(cpu)
+            .memory(memory)
+            .build();
+    }
+
+    private String getJobId(String namespace, PodMetrics podMetrics) {
+        Map<String, String> labels = podMetrics.getMetadata().getLabels();
+        if (labels != null && labels.containsKey(Constants.JOB_ID_LABEL)) {
+            return labels.get(Constants.JOB_ID_LABEL);
+        }
+        if (podCache.isSynced()) {
+            Pod pod = podCache.get(namespace, podMetrics.getMetadata().getName());
+            if (pod != null) {
+                return pod.getMetadata().getLabels().get(Constants.JOB_ID_LABEL);
+            }
+        }
+        return null;
+    }
+
+    private static double sum(PodMetrics podMetrics, String type) {
+        double total = 0;
+        for (ContainerMetrics containerMetrics : podMetrics.getContainers()) {
+            Quantity quantity = containerMetrics.getUsage().get(type);
+            if (quantity != null) {
+                total += Quantity.getAmountInBytes(quantity).doubleValue();
+            }
+        }
+        return total;
+    }
+
+    private static String getJobKey(String projectId, String jobId) {
+        return projectId + '/' + jobId;
+    }
+
+    /**
+     * Adds sample to the series, averaging it with other samples of the same interval.
+     *
+     * @param key    series key.
+     * @param cpu    cpu in cores.
+     * @param memory memory in bytes.
+     * @param now    sampling time in milliseconds.
+     */
+    synchronized void record(String key, double cpu, double memory, long now) {
+        Integer index = series.get(key);
+        if (index == null) {
+            index = add(key);
+            if (index == null) {
+                return;
+            }
+        }
+        int base = HEADER_BYTES + index * SERIES_BYTES;
+        buffer.putLong(base + LAST_UPDATE_OFFSET, now);
+        for (Resolution resolution : Resolution.values()) {
+            long bucket = now / resolution.getStep();
+            int slot = getSlot(base, resolution, bucket);
+            if (buffer.getLong(slot) != bucket) {
+                clear(slot, SLOT_BYTES);
+                buffer.putLong(slot, bucket);
+            }
+            buffer.putDouble(slot + CPU_OFFSET, buffer.getDouble(slot + CPU_OFFSET) + cpu);
+            buffer.putDouble(slot + MEMORY_OFFSET, buffer.getDouble(slot + MEMORY_OFFSET) + memory);
+            buffer.putInt(slot + COUNT_OFFSET, buffer.getInt(slot + COUNT_OFFSET) + 1);
+        }
+    }
+
+    private static int getSlot(int base, Resolution resolution, long bucket) {
+        return base + RING_OFFSETS[resolution.ordinal()] + (int) (bucket % resolution.getCapacity()) * SLOT_BYTES;
+    }
+
+    private Integer add(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > KEY_BYTES) {
+            LOGGER.warn("Usage history key {} is too long", key);
+            return null;
+        }
+        int index = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < maxSeries && oldest > 0; i++) {
+            int base = HEADER_BYTES + i * SERIES_BYTES;
+            long lastUpdate = buffer.getShort(base) == 0 ? 0 : buffer.getLong(base + LAST_UPDATE_OFFSET);
+            if (lastUpdate < oldest) {
+                oldest = lastUpdate;
+                index = i;
+            }
+        }
+        if (index < 0) {
+            return null;
+        }
+        String evicted = readKey(index);
+        if (evicted != null) {
+            series.remove(evicted);
+        }
+        int base = HEADER_BYTES + index * SERIES_BYTES;
+        clear(base, SERIES_BYTES);
+        buffer.putShort(base, (short) bytes.length);
+        ByteBuffer keyBuffer = buffer.duplicate();
+        keyBuffer.position(base + Short.BYTES);
+        keyBuffer.put(bytes);
+        series.put(key, index);
+        return index;
+    }
+
+    private String readKey(int index) {
+        int base = HEADER_BYTES + index * SERIES_BYTES;
+        short length = buffer.getShort(base);
+        if (length <= 0 || length > KEY_BYTES) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer keyBuffer = buffer.duplicate();
+        keyBuffer.position(base + Short.BYTES);
+        keyBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void clear(int offset, int length) {
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            buffer.putLong(offset + i, 0);
+        }
+        for (; i < length; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+    }
+
+    /**
+     * Gets usage history of the project.
+     *
+     * @param projectId  project id.
+     * @param resolution history resolution.
+     * @return usage history.
+     */
+    public UsageHistoryDto getProjectHistory(final String projectId, final Resolution resolution) {
+        return getHistory(projectId, resolution, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets usage history of the job, including its pipeline instances.
+     *
+     * @param projectId  project id.
+     * @param jobId      job id.
+     * @param resolution history resolution.
+     * @return usage history.
+     */
+    public UsageHistoryDto getJobHistory(final String projectId, final String jobId, final Resolution resolution) {
+        return getHistory(getJobKey(projectId, jobId), resolution, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets points of the series within the window of the resolution, oldest first.
+     *
+     * @param key        series key.
+     * @param resolution history resolution.
+     * @param now        current time in milliseconds.
+     * @return usage history.
+     */
+    synchronized UsageHistoryDto getHistory(String key, Resolution resolution, long now) {
+        List<UsageHistoryDto.Point> points = new ArrayList<>();
+        Integer index = series.get(key);
+        if (index != null) {
+            int base = HEADER_BYTES + index * SERIES_BYTES;
+            long current = now / resolution.getStep();
+            for (long bucket = current - resolution.getCapacity() + 1; bucket <= current; bucket++) {
+                int slot = getSlot(base, resolution, bucket);
+                int count = buffer.getInt(slot + COUNT_OFFSET);
+                if (buffer.getLong(slot) == bucket && count > 0) {
+                    points.add(toPoint(bucket * resolution.getStep(),
+                                       buffer.getDouble(slot + CPU_OFFSET) / count,
+                                       buffer.getDouble(slot + MEMORY_OFFSET) / count));
+                }
+            }
+        }
+        return UsageHistoryDto.builder().resolution(resolution.getLabel()).points(points).build();
+    }
+
+    /**
+     * Resolution of usage history.
+     */
+    @Getter
+    public enum Resolution {
+        MINUTE("1m", Duration.ofMinutes(1), 60),
+        TEN_MINUTES("10m", Duration.ofMinutes(10), 144),
+        HOUR("1h", Duration.ofHours(1), 168);
+
+        private final String label;
+        private final long step;
+        private final int capacity;
+
+        Resolution(String label, Duration step, int capacity) {
+            this.label = label;
+            this.step = step.toMillis();
+            this.capacity = capacity;
+        }
+
+        /**
+         * Gets resolution by its label.
+         *
+         * @param label label, e.g. 1m, 10m or 1h.
+         * @return resolution.
+         */
+        public static Resolution fromLabel(final String label) {
+            for (Resolution resolution : values()) {
+                if (resolution.label.equals(label)) {
+                    return resolution;
+                }
+            }
+            throw new BadRequestException(String.format("Unknown resolution %s, expected 1m, 10m or 1h", label));
+        }
+    }
+}
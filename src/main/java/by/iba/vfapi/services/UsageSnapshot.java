@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.ResourceUsageDto;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.ResourceQuota;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Resource usage of all pods in a namespace at some moment.
+ * Usage of any job is computed from it in memory.
+ */
+public class UsageSnapshot {
+    private final Map<String, PodMetrics> metrics;
+    private final Map<String, List<String>> executors;
+    private final ResourceQuota quota;
+
+    /**
+     * Constructor for class UsageSnapshot.
+     *
+     * @param metrics   metrics of all pods in namespace.
+     * @param executors spark executor pods in namespace.
+     * @param quota     namespace quota or null if there is no quota.
+     */
+    public UsageSnapshot(Collection<PodMetrics> metrics, Collection<Pod> executors, ResourceQuota quota) {
+        this.metrics = new HashMap<>();
+        for (PodMetrics podMetrics : metrics) {
+            this.metrics.put(podMetrics.getMetadata().getName(), podMetrics);
+        }
+        this.executors = new HashMap<>();
+        for (Pod executor : executors) {
+            Map<String, String> labels = executor.getMetadata().getLabels();
+            if (labels.containsKey(Constants.PIPELINE_JOB_ID_LABEL)) {
+                this.executors
+                    .computeIfAbsent(getExecutorsKey(labels.get(Constants.JOB_ID_LABEL),
+                                                     labels.get(Constants.PIPELINE_JOB_ID_LABEL)),
+                                     key -> new ArrayList<>())
+                    .add(executor.getMetadata().getName());
+            }
+        }
+        this.quota = quota;
+    }
+
+    private static String getExecutorsKey(String jobId, String pipelineJobId) {
+        return jobId + '/' + Objects.requireNonNullElse(pipelineJobId, Constants.NOT_PIPELINE_FLAG);
+    }
+
+    /**
+     * Gets usage of the job driver and its executors relative to namespace quota.
+     * Usage is empty when there is no quota or some of job pods have no metrics yet.
+     *
+     * @param jobId         job id.
+     * @param pipelineJobId id of pipeline pod, that runs the job, or null for standalone job.
+     * @return resource usage.
+     */
+    public ResourceUsageDto getJobUsage(final String jobId, final String pipelineJobId) {
+        List<String> jobPods =
+            new ArrayList<>(executors.getOrDefault(getExecutorsKey(jobId, pipelineJobId), List.of()));
+        jobPods.add(jobId);
+
+        List<PodMetrics> jobMetrics = new ArrayList<>(jobPods.size());
+        for (String pod : jobPods) {
+            PodMetrics podMetrics = metrics.get(pod);
+            if (podMetrics == null || quota == null) {
+                return ResourceUsageDto.builder().build();
+            }
+            jobMetrics.add(podMetrics);
+        }
+        return ResourceUsageDto.usageFromMetricsAndQuota(jobMetrics, quota).build();
+    }
+}
@@ -20,6 +20,14 @@ package by.iba.vfapi.services.auth;
 import by.iba.vfapi.model.auth.UserInfo;
 import by.iba.vfapi.model.auth.UserInfoBuilder;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
@@ -45,27 +53,72 @@ public class OAuthService {
 
     private final Environment env;
 
+    private final Cache<String, UserInfo> userInfoCache;
+
     /**
      * Constructor for class OAuthService.
      *
      * @param restTemplate RestTemplate
      * @param userInfoUrl  url for getting user info by OAuth.
      * @param environment  env
+     * @param cacheTtl     how long resolved user info is kept for a token.
+     * @param cacheSize    maximum number of cached tokens.
      */
     public OAuthService(
-        RestTemplate restTemplate, @Value("${oauth.url.userInfo}") String userInfoUrl, Environment environment) {
+        RestTemplate restTemplate,
+        @Value("${oauth.url.userInfo}") String userInfoUrl,
+        Environment environment,
+        @Value("${oauth.cache.ttl:1m}") Duration cacheTtl,
+        @Value("${oauth.cache.maxSize:1000}") long cacheSize) {
         this.restTemplate = restTemplate;
         this.userInfoUrl = userInfoUrl;
         this.env = environment;
+        this.userInfoCache =
+            CacheBuilder.newBuilder().expireAfterWrite(cacheTtl).maximumSize(cacheSize).recordStats().build();
     }
 
     /**
-     * Gets user info from AppId by auth-token.
+     * Gets user info by auth-token.
+     * Resolved user info is cached by token hash, concurrent requests with the same token
+     * share a single call to OAuth service. Each request gets its own copy of cached user info,
+     * since the copy is completed later, e.g. with superuser flag.
      *
      * @param token token from request.
      * @return user info object
      */
     public UserInfo getUserInfoByToken(String token) {
+        String tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        try {
+            UserInfo cached = userInfoCache.get(tokenHash, () -> requestUserInfo(token));
+            return new UserInfo(cached.getId(),
+                                cached.getName(),
+                                cached.getUsername(),
+                                cached.getEmail(),
+                                cached.isSuperuser());
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AuthenticationServiceException("Unable to retrieve user info", e.getCause());
+        }
+    }
+
+    /**
+     * Gets user info cache statistics.
+     *
+     * @return hit, miss and eviction counters.
+     */
+    public CacheStats getCacheStats() {
+        return userInfoCache.stats();
+    }
+
+    /**
+     * Requests user info from OAuth service.
+     *
+     * @param token token from request.
+     * @return user info object
+     */
+    private UserInfo requestUserInfo(String token) {
         LOGGER.debug("Start user info request to OAuth service");
 
         try {
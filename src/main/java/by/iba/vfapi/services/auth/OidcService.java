@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services.auth;
+
+import by.iba.vfapi.exceptions.ConfigurationException;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.model.auth.UserInfoBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Validates OIDC access tokens (signed JWT) locally against provider's JWKS.
+ * JWKS is cached and refreshed periodically, or earlier when token is signed by unknown key.
+ */
+@Slf4j
+@Service
+public class OidcService {
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, String> ALGORITHMS = Map.of("RS256",
+                                                                 "SHA256withRSA",
+                                                                 "RS384",
+                                                                 "SHA384withRSA",
+                                                                 "RS512",
+                                                                 "SHA512withRSA",
+                                                                 "ES256",
+                                                                 "SHA256withECDSA",
+                                                                 "ES384",
+                                                                 "SHA384withECDSA",
+                                                                 "ES512",
+                                                                 "SHA512withECDSA");
+    private static final Map<String, String> CURVES =
+        Map.of("P-256", "secp256r1", "P-384", "secp384r1", "P-521", "secp521r1");
+    private static final int JWT_PARTS = 3;
+    private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private final RestTemplate restTemplate;
+    private final Environment env;
+    private final String jwksUrl;
+    private final String issuer;
+    private final String audience;
+    private final Duration refreshInterval;
+    private final Duration clockSkew;
+    private final Clock clock;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile Instant keysLoadedAt = Instant.MIN;
+
+    /**
+     * Constructor for class OidcService.
+     *
+     * @param restTemplate    RestTemplate
+     * @param environment     env
+     * @param jwksUrl         url of provider's JSON Web Key Set.
+     * @param issuer          expected iss claim, not checked if empty.
+     * @param audience        expected aud claim, required when local validation is enabled.
+     * @param refreshInterval how often JWKS is reloaded.
+     * @param clockSkew       allowed difference between clocks for exp and nbf claims.
+     * @param enabled         whether tokens are validated locally.
+     */
+    @Autowired
+    public OidcService(
+        RestTemplate restTemplate,
+        Environment environment,
+        @Value("${oauth.oidc.jwksUrl:}") String jwksUrl,
+        @Value("${oauth.oidc.issuer:}") String issuer,
+        @Value("${oauth.oidc.audience:}") String audience,
+        @Value("${oauth.oidc.jwksRefresh:15m}") Duration refreshInterval,
+        @Value("${oauth.oidc.clockSkew:30s}") Duration clockSkew,
+        @Value("${oauth.oidc.enabled:false}") boolean enabled) {
+        this(restTemplate, environment, jwksUrl, issuer, audience, refreshInterval, clockSkew, Clock.systemUTC());
+        if (enabled && audience.isEmpty()) {
+            throw new ConfigurationException("oauth.oidc.audience must be set when OIDC validation is enabled, " +
+                                                 "otherwise tokens issued for other clients would be accepted");
+        }
+    }
+
+    OidcService(
+        RestTemplate restTemplate,
+        Environment environment,
+        String jwksUrl,
+        String issuer,
+        String audience,
+        Duration refreshInterval,
+        Duration clockSkew,
+        Clock clock) {
+        this.restTemplate = restTemplate;
+        this.env = environment;
+        this.jwksUrl = jwksUrl;
+        this.issuer = issuer;
+        this.audience = audience;
+        this.refreshInterval = refreshInterval;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets user info from validated token claims.
+     *
+     * @param token token from request.
+     * @return user info object
+     */
+    public UserInfo getUserInfoByToken(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != JWT_PARTS) {
+            throw new AuthenticationServiceException("Token is not a signed JWT");
+        }
+        JsonNode header = decodeJson(parts[0]);
+        JsonNode claims = decodeJson(parts[1]);
+
+        String algorithm = ALGORITHMS.get(header.path("alg").asText());
+        if (algorithm == null) {
+            throw new AuthenticationServiceException("Unsupported token algorithm: " + header.path("alg").asText());
+        }
+        verifySignature(algorithm,
+                        getKey(header.path("kid").asText()),
+                        (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII),
+                        decode(parts[2]));
+        validateClaims(claims);
+
+        return UserInfoBuilder.buildWithEnv(env, claims);
+    }
+
+    private static byte[] decode(String part) {
+        try {
+            return DECODER.decode(part);
+        } catch (IllegalArgumentException e) {
+            throw new AuthenticationServiceException("Malformed token", e);
+        }
+    }
+
+    private static JsonNode decodeJson(String part) {
+        try {
+            return MAPPER.readTree(decode(part));
+        } catch (IOException e) {
+            throw new AuthenticationServiceException("Malformed token", e);
+        }
+    }
+
+    private void validateClaims(JsonNode claims) {
+        long now = clock.instant().getEpochSecond();
+        long skew = clockSkew.toSeconds();
+        if (!claims.hasNonNull("exp") || claims.get("exp").asLong() + skew < now) {
+            throw new AuthenticationServiceException("Token is expired");
+        }
+        if (claims.hasNonNull("nbf") && claims.get("nbf").asLong() - skew > now) {
+            throw new AuthenticationServiceException("Token is not valid yet");
+        }
+        if (!issuer.isEmpty() && !issuer.equals(claims.path("iss").asText())) {
+            throw new AuthenticationServiceException("Unexpected token issuer");
+        }
+        if (!hasAudience(claims.path("aud"))) {
+            throw new AuthenticationServiceException("Unexpected token audience");
+        }
+    }
+
+    private boolean hasAudience(JsonNode aud) {
+        if (aud.isArray()) {
+            for (JsonNode value : aud) {
+                if (audience.equals(value.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return audience.equals(aud.asText());
+    }
+
+    private static void verifySignature(String algorithm, PublicKey key, byte[] content, byte[] signature) {
+        try {
+            Signature verifier = Signature.getInstance(algorithm);
+            verifier.initVerify(key);
+            verifier.update(content);
+            byte[] expected = algorithm.endsWith("ECDSA") ? toDer(signature) : signature;
+            if (!verifier.verify(expected)) {
+                throw new AuthenticationServiceException("Invalid token signature");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new AuthenticationServiceException("Unable to verify token signature", e);
+        }
+    }
+
+    /**
+     * Gets key by id, reloading JWKS when it's outdated or doesn't contain the key yet.
+     *
+     * @param kid key id.
+     * @return public key.
+     */
+    private PublicKey getKey(String kid) {
+        if (isOutdated()) {
+            refreshKeys(false);
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            refreshKeys(true);
+            key = keys.get(kid);
+        }
+        if (key == null) {
+            throw new AuthenticationServiceException("Token is signed by unknown key: " + kid);
+        }
+        return key;
+    }
+
+    private boolean isOutdated() {
+        return keysLoadedAt.plus(refreshInterval).isBefore(clock.instant());
+    }
+
+    /**
+     * Reloads JWKS. Concurrent callers share one request, unknown keys don't cause reloads more often than
+     * once in 30 seconds.
+     *
+     * @param unknownKey whether reload is caused by unknown key.
+     */
+    private synchronized void refreshKeys(boolean unknownKey) {
+        Instant now = clock.instant();
+        if (unknownKey ? keysLoadedAt.plus(MIN_REFRESH_INTERVAL).isAfter(now) : !isOutdated()) {
+            return;
+        }
+        try {
+            JsonNode jwks = restTemplate.getForObject(jwksUrl, JsonNode.class);
+            Map<String, PublicKey> loaded = new HashMap<>();
+            if (jwks != null) {
+                for (JsonNode jwk : jwks.path("keys")) {
+                    if (!"sig".equals(jwk.path("use").asText("sig"))) {
+                        continue;
+                    }
+                    try {
+                        loaded.put(jwk.path("kid").asText(), toPublicKey(jwk));
+                    } catch (GeneralSecurityException | IllegalArgumentException e) {
+                        LOGGER.warn("Skipping unsupported key {} from JWKS", jwk.path("kid").asText(), e);
+                    }
+                }
+            }
+            keys = Map.copyOf(loaded);
+            keysLoadedAt = now;
+            LOGGER.debug("Loaded {} keys from JWKS", loaded.size());
+        } catch (ResourceAccessException | HttpStatusCodeException e) {
+            if (keys.isEmpty()) {
+                throw new AuthenticationServiceException("Unable to load JWKS", e);
+            }
+            LOGGER.warn("Unable to refresh JWKS, previously loaded keys are used", e);
+        }
+    }
+
+    private static PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        String kty = jwk.path("kty").asText();
+        if ("RSA".equals(kty)) {
+            return KeyFactory
+                .getInstance(kty)
+                .generatePublic(new RSAPublicKeySpec(toBigInteger(jwk.path("n")), toBigInteger(jwk.path("e"))));
+        }
+        if ("EC".equals(kty)) {
+            String curve = CURVES.get(jwk.path("crv").asText());
+            if (curve == null) {
+                throw new GeneralSecurityException("Unsupported curve: " + jwk.path("crv").asText());
+            }
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance(kty);
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPoint point = new ECPoint(toBigInteger(jwk.path("x")), toBigInteger(jwk.path("y")));
+            return KeyFactory
+                .getInstance(kty)
+                .generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+        }
+        throw new GeneralSecurityException("Unsupported key type: " + kty);
+    }
+
+    private static BigInteger toBigInteger(JsonNode value) {
+        return new BigInteger(1, DECODER.decode(value.asText()));
+    }
+
+    /**
+     * Converts JWS ECDSA signature (R and S concatenated) into DER sequence expected by JCA.
+     *
+     * @param signature JWS signature.
+     * @return DER encoded signature.
+     */
+    static byte[] toDer(byte[] signature) {
+        int half = signature.length / 2;
+        byte[] r = new BigInteger(1, Arrays.copyOfRange(signature, 0, half)).toByteArray();
+        byte[] s = new BigInteger(1, Arrays.copyOfRange(signature, half, signature.length)).toByteArray();
+        int length = 2 + r.length + 2 + s.length;
+        byte[] lengthBytes = length > Byte.MAX_VALUE ? new byte[]{(byte) 0x81, (byte) length} : new byte[]{
+            (byte) length};
+        byte[] der = new byte[1 + lengthBytes.length + length];
+        int i = 0;
+        der[i++] = 0x30;
+        for (byte b : lengthBytes) {
+            der[i++] = b;
+        }
+        der[i++] = 0x02;
+        der[i++] = (byte) r.length;
+        System.arraycopy(r, 0, der, i, r.length);
+        i += r.length;
+        der[i++] = 0x02;
+        der[i++] = (byte) s.length;
+        System.arraycopy(s, 0, der, i, s.length);
+        return der;
+    }
+}
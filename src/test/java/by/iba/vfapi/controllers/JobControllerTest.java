@@ -17,11 +17,14 @@
 
 package by.iba.vfapi.controllers;
 
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.jobs.JobOverviewDto;
 import by.iba.vfapi.dto.jobs.JobOverviewListDto;
 import by.iba.vfapi.dto.jobs.JobRequestDto;
 import by.iba.vfapi.dto.jobs.JobResponseDto;
 import by.iba.vfapi.services.JobService;
+import by.iba.vfapi.services.ListQuery;
+import by.iba.vfapi.services.ListView;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
@@ -32,14 +35,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,8 +64,9 @@ class JobControllerTest {
     }
 
     @Test
-    void testGetAll() {
-        when(jobService.getAll("project1")).thenReturn(JobOverviewListDto
+    void testGetAll() throws Exception {
+        ListQuery query = ListQuery.builder().limit(2).sort("-startedAt").status("Running").build();
+        when(jobService.getAll("project1", query)).thenReturn(JobOverviewListDto
                                                            .builder()
                                                            .jobs(List.of(JobOverviewDto
                                                                              .builder()
@@ -70,11 +79,41 @@ class JobControllerTest {
                                                            .editable(true)
                                                            .build());
 
-        JobOverviewListDto response = controller.getAll("project1");
+        JobOverviewListDto response =
+            controller.getAll("project1",
+                              2,
+                              null,
+                              "-startedAt",
+                              "Running",
+                              null,
+                              null,
+                              new ServletWebRequest(new MockHttpServletRequest())).call().getBody();
         assertEquals(2, response.getJobs().size(), "Jobs size must be 2");
         assertTrue(response.isEditable(), "Must be true");
 
-        verify(jobService).getAll(anyString());
+        verify(jobService).getAll(anyString(), any(ListQuery.class));
+    }
+
+    @Test
+    void testGetAllNotModified() throws Exception {
+        when(jobService.getAllTag("project1", ListView.SUMMARY)).thenReturn("\"tag\"");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/project/project1/job");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"tag\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<JobOverviewListDto> result = controller.getAll("project1",
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      "summary",
+                                                                      new ServletWebRequest(request, response))
+            .call();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(), "Status must be NOT_MODIFIED");
+        assertEquals("\"tag\"", response.getHeader(HttpHeaders.ETAG), "Tag must be returned");
+        verify(jobService, never()).getAll(anyString(), any(ListQuery.class));
     }
 
     @Test
@@ -151,4 +190,13 @@ class JobControllerTest {
         controller.stop("project1", "jobId");
         verify(jobService).stop(anyString(), anyString());
     }
+
+    @Test
+    void testGetUsageHistory() {
+        UsageHistoryDto history = UsageHistoryDto.builder().resolution("1m").points(List.of()).build();
+        when(jobService.getUsageHistory("project1", "jobId", "1m")).thenReturn(history);
+
+        assertEquals(history, controller.getUsageHistory("project1", "jobId", "1m"), "History must be equal");
+        verify(jobService).getUsageHistory("project1", "jobId", "1m");
+    }
 }
@@ -22,6 +22,8 @@ import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
 import by.iba.vfapi.dto.pipelines.PipelineOverviewListDto;
 import by.iba.vfapi.dto.pipelines.PipelineRequestDto;
 import by.iba.vfapi.dto.pipelines.PipelineResponseDto;
+import by.iba.vfapi.services.ListQuery;
+import by.iba.vfapi.services.ListView;
 import by.iba.vfapi.services.PipelineService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -33,14 +35,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -102,7 +109,9 @@ class PipelineControllerTest {
 
     @Test
     void testGetAll() {
-        when(pipelineService.getAll("project1")).thenReturn(PipelineOverviewListDto
+        ListQuery query =
+            ListQuery.builder().continueToken("token").name("pipe").cron(true).view(ListView.SUMMARY).build();
+        when(pipelineService.getAll("project1", query)).thenReturn(PipelineOverviewListDto
                                                                 .builder()
                                                                 .pipelines(List.of(
                                                                     new PipelineOverviewDto(),
@@ -110,12 +119,51 @@ class PipelineControllerTest {
                                                                 .editable(true)
                                                                 .build());
 
-        PipelineOverviewListDto response = pipelineController.getAll("project1");
+        when(pipelineService.getAllTag("project1", ListView.SUMMARY)).thenReturn("\"tag\"");
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+        ResponseEntity<PipelineOverviewListDto> result = pipelineController.getAll("project1",
+                                                                                  null,
+                                                                                  "token",
+                                                                                  null,
+                                                                                  null,
+                                                                                  "pipe",
+                                                                                  true,
+                                                                                  "Summary",
+                                                                                  new ServletWebRequest(
+                                                                                      new MockHttpServletRequest(
+                                                                                          "GET",
+                                                                                          "/api/project/project1"),
+                                                                                      httpResponse));
+        PipelineOverviewListDto response = result.getBody();
 
         assertEquals(2, response.getPipelines().size(), "Size must be equals to 2");
         assertTrue(response.isEditable(), "Must be true");
+        assertEquals("\"tag\"", httpResponse.getHeader(HttpHeaders.ETAG), "Tag must be returned");
+        assertEquals("no-cache, private", result.getHeaders().getCacheControl());
 
-        verify(pipelineService).getAll(anyString());
+        verify(pipelineService).getAll(anyString(), any(ListQuery.class));
+    }
+
+    @Test
+    void testGetAllNotModified() {
+        when(pipelineService.getAllTag("project1", ListView.FULL)).thenReturn("\"tag\"");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/project/project1/pipeline");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", \"tag\"");
+
+        ResponseEntity<PipelineOverviewListDto> result =
+            pipelineController.getAll("project1",
+                                      null,
+                                      null,
+                                      null,
+                                      null,
+                                      null,
+                                      null,
+                                      null,
+                                      new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(), "Status must be NOT_MODIFIED");
+        verify(pipelineService, never()).getAll(anyString(), any(ListQuery.class));
     }
 
     @Test
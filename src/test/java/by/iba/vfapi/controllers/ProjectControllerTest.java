@@ -18,6 +18,7 @@
 package by.iba.vfapi.controllers;
 
 import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.projects.AccessTableDto;
 import by.iba.vfapi.dto.projects.ParamDto;
 import by.iba.vfapi.dto.projects.ParamsDto;
@@ -40,11 +41,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -88,6 +95,23 @@ class ProjectControllerTest {
         verify(projectService).getUsage(name);
     }
 
+    @Test
+    void testGetUsageHistory() {
+        UsageHistoryDto history = UsageHistoryDto.builder().resolution("1m").points(List.of()).build();
+        when(projectService.getUsageHistory("name", "1m")).thenReturn(history);
+
+        assertEquals(history, controller.getUsageHistory("name", "1m"), "History must be equals to expected");
+        verify(projectService).getUsageHistory("name", "1m");
+    }
+
+    @Test
+    void testGetEvents() {
+        SseEmitter emitter = new SseEmitter();
+        when(projectService.subscribe("name", null)).thenReturn(emitter);
+
+        assertEquals(emitter, controller.getEvents("name", null), "Emitter must be equals to expected");
+    }
+
     @Test
     void testUpdate() {
         ProjectRequestDto projectDto = ProjectRequestDto.builder().build();
@@ -163,12 +187,26 @@ class ProjectControllerTest {
             .build();
         when(projectService.get(name)).thenReturn(expected);
 
-        ProjectResponseDto response = controller.get(name);
+        ProjectResponseDto response =
+            controller.get(name, new ServletWebRequest(new MockHttpServletRequest())).getBody();
 
         assertEquals(expected, response, "Response must be equals to expected");
         verify(projectService).get(name);
     }
 
+    @Test
+    void testGetByIdNotModified() {
+        when(projectService.getTag("name")).thenReturn("\"tag\"");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/project/name");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"tag\"");
+
+        ResponseEntity<ProjectResponseDto> result =
+            controller.get("name", new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(), "Status must be NOT_MODIFIED");
+        verify(projectService, never()).get("name");
+    }
+
     @Test
     void testApplyAccessTable() {
         Map<String, String> accessTable = new HashMap<>();
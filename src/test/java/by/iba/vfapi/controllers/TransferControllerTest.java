@@ -47,7 +47,7 @@ class TransferControllerTest {
     private TransferController transferController;
 
     @Test
-    void testExporting() {
+    void testExporting() throws Exception {
         when(transferService.exporting("projectId",
                                        Set.of("jobId1", "jobId2"),
                                        Set.of(new ExportRequestDto.PipelineRequest("pipelineId1",
@@ -64,7 +64,8 @@ class TransferControllerTest {
                                                                   new ExportRequestDto(Set.of("jobId1", "jobId2"),
                                                                                        Set.of(new ExportRequestDto.PipelineRequest(
                                                                                            "pipelineId1",
-                                                                                           true))));
+                                                                                           true))))
+            .call();
         ExportResponseDto exportResponseDto = ExportResponseDto
             .builder()
             .jobs(Set.of("jobId1Json", "jobId2Json", "pipelineId1RelatedJob1Json"))
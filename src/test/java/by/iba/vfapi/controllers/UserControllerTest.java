@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
@@ -72,8 +73,9 @@ class UserControllerTest {
         annotations.put("name", "Ivan");
         expected.add(annotations);
         when(userServiceMock.getUsers()).thenReturn(expected);
-        List<Map<String, String>> actual = controller.getUsers();
-        assertEquals(expected, actual, "List of users must be equals to expected");
+        ResponseEntity<List<Map<String, String>>> actual = controller.getUsers();
+        assertEquals(expected, actual.getBody(), "List of users must be equals to expected");
+        assertEquals("max-age=300, private", actual.getHeaders().getCacheControl());
         verify(userServiceMock).getUsers();
         verifyNoMoreInteractions(userServiceMock);
     }
@@ -84,8 +86,9 @@ class UserControllerTest {
         expected.add("admin");
         expected.add("viewer");
         when(userServiceMock.getRoleNames()).thenReturn(expected);
-        List<String> actual = controller.getRoles();
-        assertEquals(expected, actual, "List of roles must be equals to expected");
+        ResponseEntity<List<String>> actual = controller.getRoles();
+        assertEquals(expected, actual.getBody(), "List of roles must be equals to expected");
+        assertEquals("max-age=300, private", actual.getHeaders().getCacheControl());
         verify(userServiceMock).getRoleNames();
         verifyNoMoreInteractions(userServiceMock);
     }
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefinitionCodecTest {
+    private static final String GRAPH = "{\"graph\":[{\"id\":\"1\",\"value\":{\"operation\":\"READ\"}}]}";
+
+    @Test
+    void testEncode() throws JsonProcessingException {
+        JsonNode definition = new ObjectMapper().readTree(GRAPH);
+
+        String value = DefinitionCodec.encode(definition);
+
+        assertTrue(value.startsWith(DefinitionCodec.GZIP_PREFIX), "Definition must be marked as compressed");
+        assertFalse(DefinitionCodec.isBlob(value));
+        assertEquals(definition, DefinitionCodec.decode(value));
+    }
+
+    @Test
+    void testDecodeLegacy() throws JsonProcessingException {
+        String value = Base64.encodeBase64String(GRAPH.getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(DefinitionCodec.isBlob(value));
+        assertEquals(new ObjectMapper().readTree(GRAPH), DefinitionCodec.decode(value));
+    }
+
+    @Test
+    void testBlob() {
+        String value = DefinitionCodec.BLOB_PREFIX + "hash";
+
+        assertTrue(DefinitionCodec.isBlob(value));
+        assertEquals("hash", DefinitionCodec.getBlobHash(value));
+        assertThrows(IllegalArgumentException.class, () -> DefinitionCodec.decode(value));
+    }
+}
@@ -89,4 +89,16 @@ class GraphDtoTest {
         assertEquals(expectedNodes, graphDto.getNodes(),"Nodes must be equal to expected");
         assertEquals(expectedEdges, graphDto.getEdges(), "Edges must be equal to expected");
     }
+
+    @Test
+    void testCountStages() {
+        GraphDto graphDto = new GraphDto(List.of(new GraphDto.NodeDto("1", Map.of("operation", "READ")),
+                                                 new GraphDto.NodeDto("2", Map.of("operation", "WRITE")),
+                                                 new GraphDto.NodeDto("3", Map.of("operation", "READ"))),
+                                         List.of());
+
+        assertEquals(List.of(Map.entry("READ", 2L), Map.entry("WRITE", 1L)),
+                     List.copyOf(graphDto.countStages().entrySet()),
+                     "Stages must be counted and sorted by operation");
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphIndexTest {
+    private static GraphDto.NodeDto node(String id) {
+        return new GraphDto.NodeDto(id, Map.of());
+    }
+
+    private static GraphDto.EdgeDto edge(String source, String target) {
+        return new GraphDto.EdgeDto(Map.of(), source, target);
+    }
+
+    @Test
+    void testIndex() {
+        GraphIndex index = new GraphIndex(new GraphDto(List.of(node("a"), node("b"), node("c"), node("a")),
+                                                       List.of(edge("a", "b"),
+                                                               edge("a", "c"),
+                                                               edge("b", "c"),
+                                                               edge("c", "d"))));
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(edge("a", "b"), edge("a", "c")), index.getOutgoingEdges(0));
+        assertEquals(List.of(edge("a", "c"), edge("b", "c")), index.getIncomingEdges(2));
+        assertEquals(List.of("a"), index.getDuplicateIds());
+        assertEquals(List.of(edge("c", "d")), index.getDanglingEdges());
+    }
+
+    @Test
+    void testFindCycles() {
+        GraphIndex index = new GraphIndex(new GraphDto(List.of(node("a"), node("b"), node("c"), node("d")),
+                                                       List.of(edge("a", "b"),
+                                                               edge("b", "c"),
+                                                               edge("c", "b"),
+                                                               edge("c", "d"),
+                                                               edge("d", "d"))));
+
+        assertArrayEquals(new boolean[]{false, true, true, true}, index.findCycles());
+        assertArrayEquals(new boolean[]{false, false, false, false}, index.findUnreachable(new int[]{0}));
+        assertArrayEquals(new boolean[]{true, true, true, false}, index.findUnreachable(new int[]{3}));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto.jobs;
+
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures validation of a job graph with 5,000 nodes made of 1,000 groups of two reads, join, transform and
+ * write. The previous implementation, which scanned lists of edge ends for each node, is kept here as a baseline.
+ */
+@Slf4j
+class JobGraphValidatorBenchmarkTest {
+    private static final int GROUPS = 1000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 5;
+
+    private static GraphDto graph() {
+        List<GraphDto.NodeDto> nodes = new ArrayList<>();
+        List<GraphDto.EdgeDto> edges = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            String[] operations = {"READ", "READ", "JOIN", "TRANSFORM", "WRITE"};
+            for (int j = 0; j < operations.length; j++) {
+                nodes.add(new GraphDto.NodeDto(i + "-" + j, Map.of("operation", operations[j])));
+            }
+            edges.add(new GraphDto.EdgeDto(Map.of(), i + "-0", i + "-2"));
+            edges.add(new GraphDto.EdgeDto(Map.of(), i + "-1", i + "-2"));
+            edges.add(new GraphDto.EdgeDto(Map.of(), i + "-2", i + "-3"));
+            edges.add(new GraphDto.EdgeDto(Map.of(), i + "-3", i + "-4"));
+        }
+        return new GraphDto(nodes, edges);
+    }
+
+    private static void scanEdges(GraphDto graphDto) {
+        List<String> targets =
+            graphDto.getEdges().stream().map(GraphDto.EdgeDto::getTarget).collect(Collectors.toList());
+        List<String> sources =
+            graphDto.getEdges().stream().map(GraphDto.EdgeDto::getSource).collect(Collectors.toList());
+        for (GraphDto.NodeDto node : graphDto.getNodes()) {
+            long targetsCount = targets.stream().filter(target -> target.equals(node.getId())).count();
+            String operation = node.getValue().get("operation");
+            if ("READ".equals(operation) && targets.contains(node.getId())) {
+                throw new BadRequestException(String.format("%s stage can have only output arrows", operation));
+            } else if ("WRITE".equals(operation) && (sources.contains(node.getId()) || targetsCount != 1)) {
+                throw new BadRequestException(String.format("%s stage must have only one input arrows",
+                                                            operation));
+            } else if ("JOIN".equals(operation) && targetsCount != 2) {
+                throw new BadRequestException(String.format("%s stage must have two input arrows", operation));
+            } else if ("TRANSFORM".equals(operation) && targetsCount != 1) {
+                throw new BadRequestException(String.format("%s stage must have one input arrows", operation));
+            }
+        }
+    }
+
+    private static long averageNanos(Runnable runnable) {
+        for (int i = 0; i < WARMUP; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    @Test
+    void testValidate() {
+        GraphDto graphDto = graph();
+        assertEquals(List.of(), JobGraphValidator.validate(graphDto));
+
+        long indexed = averageNanos(() -> JobGraphValidator.validate(graphDto));
+        long scanned = averageNanos(() -> scanEdges(graphDto));
+        LOGGER.info("Validated {} nodes in {} us with degrees and topological sort and in {} us with scans of edges",
+                    graphDto.getNodes().size(),
+                    TimeUnit.NANOSECONDS.toMicros(indexed),
+                    TimeUnit.NANOSECONDS.toMicros(scanned));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.dto.jobs;
+
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JobGraphValidatorTest {
+    private final List<GraphDto.NodeDto> nodes = new ArrayList<>();
+    private final List<GraphDto.EdgeDto> edges = new ArrayList<>();
+
+    private JobGraphValidatorTest node(String id, String operation) {
+        nodes.add(new GraphDto.NodeDto(id, Map.of("operation", operation)));
+        return this;
+    }
+
+    private JobGraphValidatorTest edge(String source, String target) {
+        edges.add(new GraphDto.EdgeDto(Map.of(), source, target));
+        return this;
+    }
+
+    private List<String> validate() {
+        return JobGraphValidator.validate(new GraphDto(nodes, edges));
+    }
+
+    @Test
+    void testValid() {
+        node("r1", "READ").node("r2", "READ").node("j", "JOIN").node("t", "TRANSFORM").node("w", "WRITE");
+        edge("r1", "j").edge("r2", "j").edge("j", "t").edge("t", "w");
+
+        assertEquals(List.of(), validate());
+        assertEquals(List.of(), JobGraphValidator.validate(new GraphDto(List.of(), List.of())));
+    }
+
+    @Test
+    void testStageRules() {
+        node("r", "READ").node("t", "TRANSFORM").node("u", "UNION").node("w", "WRITE").node("x", "UNKNOWN");
+        edge("r", "t").edge("t", "u").edge("u", "w").edge("w", "r");
+
+        assertEquals(List.of("READ stage r can have only output arrows",
+                             "UNION stage u must have two input arrows",
+                             "WRITE stage w must have only one input arrows",
+                             "Invalid stage type of stage x",
+                             "Stages r, t, u, w form a cycle",
+                             "Stage x can't be reached from read stages"),
+                     validate());
+    }
+
+    @Test
+    void testCycle() {
+        node("r", "READ").node("a", "UNION").node("b", "TRANSFORM").node("c", "FILTER").node("w", "WRITE");
+        edge("r", "a").edge("a", "b").edge("b", "a").edge("b", "c").edge("c", "w");
+
+        assertEquals(List.of("Stages a, b form a cycle"), validate(), "Stages after cycle must not be in it");
+    }
+
+    @Test
+    void testUnreachable() {
+        node("r", "READ").node("t1", "TRANSFORM").node("t2", "CACHE").node("w", "WRITE");
+        edge("t1", "t2").edge("t2", "t1").edge("t2", "w");
+
+        assertEquals(List.of("Stages t1, t2 form a cycle", "Stage w can't be reached from read stages"),
+                     validate());
+    }
+
+    @Test
+    void testMissingAndDuplicateStages() {
+        node("r", "READ").node("r", "READ").node("w", "WRITE");
+        edge("r", "w").edge("w", "missing");
+
+        assertEquals(List.of("Stage id r is used more than once",
+                             "Arrow from w to missing refers to missing stage"),
+                     validate());
+    }
+
+    @Test
+    void testValidateGraph() {
+        node("r", "READ").node("w", "WRITE").node("f", "FILTER");
+        edge("r", "w");
+        GraphDto graphDto = new GraphDto(nodes, edges);
+        JobRequestDto jobRequestDto = new JobRequestDto();
+
+        BadRequestException exception =
+            assertThrows(BadRequestException.class, () -> jobRequestDto.validateGraph(graphDto));
+        assertEquals("FILTER stage f must have one input arrows; Stage f can't be reached from read stages",
+                     exception.getMessage(),
+                     "All errors must be reported");
+    }
+}
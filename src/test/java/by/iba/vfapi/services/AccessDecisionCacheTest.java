@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.api.model.authorization.v1.SubjectRulesReviewStatusBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessDecisionCacheTest {
+    private static final String APP_NAME_LABEL = "testApp";
+
+    private final KubernetesServer server = new KubernetesServer();
+    private final AtomicInteger reviews = new AtomicInteger();
+    private AccessDecisionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        server.before();
+        cache = new AccessDecisionCache(server.getClient(), APP_NAME_LABEL, Duration.ofSeconds(30), 100, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+        server.after();
+    }
+
+    private boolean isAllowed(String username, String namespace) {
+        return cache.isAllowed(username, namespace, "", "configmaps", "update", () -> {
+            reviews.incrementAndGet();
+            return true;
+        }, () -> {
+            throw new IllegalStateException("Rules review is disabled");
+        });
+    }
+
+    @Test
+    void testIsAllowedCached() {
+        assertTrue(isAllowed("user", "project1"));
+        assertTrue(isAllowed("user", "project1"));
+        assertTrue(isAllowed("other", "project1"));
+
+        assertEquals(2, reviews.get(), "Each user must be reviewed once");
+        assertEquals(1.0 / 3, cache.getCacheStats().hitRate(), 0.001);
+    }
+
+    @Test
+    void testIsAllowedNotCachedOnFailure() {
+        assertThrows(IllegalStateException.class,
+                     () -> cache.isAllowed("user", "project1", "", "pods", "create", () -> {
+                         throw new IllegalStateException("unavailable");
+                     }, () -> null));
+
+        assertFalse(cache.isAllowed("user", "project1", "", "pods", "create", () -> false, () -> null));
+    }
+
+    @Test
+    void testInvalidateNamespace() {
+        isAllowed("user", "project1");
+        isAllowed("user", "project2");
+
+        cache.invalidateNamespace("project1");
+        isAllowed("user", "project1");
+        isAllowed("user", "project2");
+
+        assertEquals(3, reviews.get(), "Only decisions of changed namespace must be reviewed again");
+    }
+
+    @Test
+    void testInvalidateByRoleBindingWatch() throws InterruptedException {
+        RoleBinding roleBinding =
+            new RoleBindingBuilder().withNewMetadata().withNamespace("project1").withName("rb").endMetadata().build();
+        server
+            .expect()
+            .withPath("/apis/rbac.authorization.k8s.io/v1/rolebindings?labelSelector=app%3DtestApp&watch=true")
+            .andUpgradeToWebSocket()
+            .open()
+            .waitFor(200)
+            .andEmit(new WatchEvent(roleBinding, "MODIFIED"))
+            .done()
+            .once();
+        cache.startWatch();
+        isAllowed("user", "project1");
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (reviews.get() == 1 && System.currentTimeMillis() < deadline) {
+            isAllowed("user", "project1");
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        assertEquals(2, reviews.get(), "Decision must be reviewed again after role binding change");
+    }
+
+    @Test
+    void testIsAllowedByRules() {
+        AccessDecisionCache rulesCache =
+            new AccessDecisionCache(server.getClient(), APP_NAME_LABEL, Duration.ofSeconds(30), 100, true);
+        AccessRules accessRules = new AccessRules(new SubjectRulesReviewStatusBuilder()
+                                                      .addNewResourceRule()
+                                                      .withApiGroups("")
+                                                      .withResources("configmaps", "pods")
+                                                      .withVerbs("get", "update", "create")
+                                                      .endResourceRule()
+                                                      .addNewResourceRule()
+                                                      .withApiGroups("argoproj.io")
+                                                      .withResources("*")
+                                                      .withVerbs("*")
+                                                      .endResourceRule()
+                                                      .withIncomplete(false)
+                                                      .build());
+        AtomicInteger rulesReviews = new AtomicInteger();
+        Callable<AccessRules> rulesReview = () -> {
+            rulesReviews.incrementAndGet();
+            return accessRules;
+        };
+        Callable<Boolean> review = () -> {
+            throw new IllegalStateException("Access review must not be used");
+        };
+
+        assertTrue(rulesCache.isAllowed("user", "project1", "", "configmaps", "update", review, rulesReview));
+        assertTrue(rulesCache.isAllowed("user", "project1", "", "pods", "create", review, rulesReview));
+        assertTrue(rulesCache.isAllowed("user", "project1", "argoproj.io", "workflows", "create", review, rulesReview));
+        assertFalse(rulesCache.isAllowed("user", "project1", "", "namespaces", "update", review, rulesReview));
+        assertFalse(rulesCache.isAllowed("user", "project1", "", "secrets", "update", review, rulesReview));
+
+        assertEquals(1, rulesReviews.get(), "Rules must be reviewed once per user and namespace");
+    }
+
+    @Test
+    void testIsAllowedByIncompleteRules() {
+        AccessDecisionCache rulesCache =
+            new AccessDecisionCache(server.getClient(), APP_NAME_LABEL, Duration.ofSeconds(30), 100, true);
+        AccessRules accessRules = new AccessRules(new SubjectRulesReviewStatusBuilder().withIncomplete(true).build());
+
+        assertTrue(rulesCache.isAllowed("user", "project1", "", "pods", "create", () -> {
+            reviews.incrementAndGet();
+            return true;
+        }, () -> accessRules));
+        assertEquals(1, reviews.get(), "Denial by incomplete rules must be confirmed by access review");
+    }
+
+    @Test
+    void testAccessRulesResourceNames() {
+        AccessRules accessRules = new AccessRules(new SubjectRulesReviewStatusBuilder()
+                                                      .addNewResourceRule()
+                                                      .withApiGroups("")
+                                                      .withResources("configmaps")
+                                                      .withResourceNames("cm1")
+                                                      .withVerbs("update")
+                                                      .endResourceRule()
+                                                      .build());
+
+        assertFalse(accessRules.allows("", "configmaps", "update"), "Rules for named resources must not match");
+        assertFalse(accessRules.isIncomplete());
+    }
+}
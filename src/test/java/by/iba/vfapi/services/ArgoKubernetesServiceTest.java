@@ -20,19 +20,24 @@ package by.iba.vfapi.services;
 import by.iba.vfapi.dto.Constants;
 import by.iba.vfapi.model.argo.CronWorkflow;
 import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
 import by.iba.vfapi.model.argo.WorkflowTemplate;
 import by.iba.vfapi.model.argo.WorkflowTemplateList;
 import by.iba.vfapi.model.auth.UserInfo;
 import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition;
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionNamesBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionSpecBuilder;
+import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import java.net.HttpURLConnection;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import org.joda.time.DateTime;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,12 +46,30 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ArgoKubernetesServiceTest {
     private static final String APP_NAME = "vf";
     private static final String APP_NAME_LABEL = "testApp";
+    private static final String WORKFLOW = "{\"kind\":\"Workflow\"," +
+        "\"metadata\":{\"name\":\"id\",\"labels\":{\"name\":\"wf\"}}," +
+        "\"spec\":{\"workflowTemplateRef\":{\"name\":\"id\"}}," +
+        "\"status\":{\"phase\":\"Running\",\"startedAt\":\"2021-10-28T07:37:46Z\",\"finishedAt\":null," +
+        "\"progress\":\"1/2\",\"message\":\"message\",\"nodes\":{" +
+        "\"id\":{\"id\":\"id\",\"displayName\":\"id\",\"type\":\"DAG\",\"phase\":\"Running\"," +
+        "\"children\":[\"id-1\"]}," +
+        "\"id-1\":{\"id\":\"id-1\",\"displayName\":\"pipeline\",\"type\":\"Pod\",\"phase\":\"Succeeded\"," +
+        "\"templateName\":\"sparkTemplate\"}}," +
+        "\"storedTemplates\":{" +
+        "\"namespaced/id/dagTemplate\":{\"dag\":{\"tasks\":[{\"name\":\"pipeline\"," +
+        "\"template\":\"sparkTemplate\",\"arguments\":{\"parameters\":[" +
+        "{\"name\":\"configMap\",\"value\":\"cm\"},{\"name\":\"graphId\",\"value\":\"1\"}]}}]}," +
+        "\"name\":\"dagTemplate\"}," +
+        "\"namespaced/id/sparkTemplate\":{\"name\":\"sparkTemplate\"," +
+        "\"container\":{\"image\":\"spark\",\"args\":[\"a\"]}}}}}";
 
     private final KubernetesServer server = new KubernetesServer();
 
@@ -119,8 +142,31 @@ class ArgoKubernetesServiceTest {
             .withPath("/apis/apiextensions.k8s.io/v1beta1/customresourcedefinitions/cronworkflows.argoproj.io")
             .andReturn(HttpURLConnection.HTTP_OK, cronWfCrd)
             .once();
+        AppNamespaceIndex appNamespaces =
+            new AppNamespaceIndex(server.getClient(), APP_NAME_LABEL, Duration.ofMinutes(10));
         argoKubernetesService =
-            new ArgoKubernetesService(server.getClient(), APP_NAME, APP_NAME_LABEL, authenticationServiceMock);
+            new ArgoKubernetesService(server.getClient(),
+                                      APP_NAME,
+                                      APP_NAME_LABEL,
+                                      authenticationServiceMock,
+                                      new ServiceAccountCache(server.getClient(),
+                                                              APP_NAME,
+                                                              APP_NAME_LABEL,
+                                                              Duration.ofMinutes(10),
+                                                              100,
+                                                              false,
+                                                              Duration.ofHours(1),
+                                                              "token"),
+                                      new AccessDecisionCache(server.getClient(),
+                                                              APP_NAME_LABEL,
+                                                              Duration.ofSeconds(30),
+                                                              100,
+                                                              false),
+                                      new JobConfigMapCache(server.getClient(),
+                                                            APP_NAME_LABEL,
+                                                            Duration.ofMinutes(10)),
+                                      new PodCache(server.getClient(), appNamespaces, Duration.ofMinutes(10)),
+                                      new ArgoResourceCache(server.getClient(), appNamespaces, Duration.ofMinutes(10)));
     }
 
     @AfterEach
@@ -229,6 +275,36 @@ class ArgoKubernetesServiceTest {
             "Metadata must be equals to expected");
     }
 
+    @Test
+    void testGetWorkflowTemplatesMetadata() throws InterruptedException {
+        mockAuthenticationService();
+        String metadataList = "{\"kind\":\"PartialObjectMetadataList\",\"apiVersion\":\"meta.k8s.io/v1\"," +
+            "\"items\":[{\"kind\":\"PartialObjectMetadata\",\"apiVersion\":\"meta.k8s.io/v1\"," +
+            "\"metadata\":{\"name\":\"wftml1\",\"labels\":{\"name\":\"name1\"}}}]}";
+
+        server
+            .expect()
+            .get()
+            .withPath("/apis/argoproj.io/v1alpha1/namespaces/vf/workflowtemplates?resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList)
+            .once();
+        server
+            .expect()
+            .get()
+            .withPath("/apis/argoproj.io/v1alpha1/namespaces/vf/workflowtemplates?labelSelector=name%3Dname1" +
+                          "&resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList)
+            .once();
+
+        ObjectMeta expected = new ObjectMetaBuilder().withName("wftml1").addToLabels(Constants.NAME, "name1").build();
+        assertEquals(List.of(expected), argoKubernetesService.getAllWorkflowTemplatesMetadata("vf"));
+        assertEquals(KubernetesService.METADATA_LIST_ACCEPT,
+                     server.getLastRequest().getHeader("Accept"),
+                     "Only metadata must be requested");
+        assertEquals(List.of(expected),
+                     argoKubernetesService.getWorkflowTemplatesMetadataByLabels("vf", Map.of(Constants.NAME, "name1")));
+    }
+
     @Test
     void testDeleteWorkflowTemplate() {
         mockAuthenticationService();
@@ -280,6 +356,53 @@ class ArgoKubernetesServiceTest {
         assertEquals("wf", actual.getMetadata().getLabels().get("name"), "Label must be equals to expected");
     }
 
+    @Test
+    void testGetAllWorkflowRuntimes() {
+        mockAuthenticationService();
+
+        server
+            .expect()
+            .get()
+            .withPath("/apis/argoproj.io/v1alpha1/namespaces/vf/workflows")
+            .andReturn(HttpURLConnection.HTTP_OK, "{\"kind\":\"WorkflowList\",\"items\":[" + WORKFLOW + "]}")
+            .once();
+
+        List<WorkflowRuntime> actual = argoKubernetesService.getAllWorkflowRuntimes("vf");
+
+        assertEquals(1, actual.size(), "Size must be equals to expected");
+        assertEquals("id", actual.get(0).getName(), "Name must be equals to expected");
+        assertEquals("Running", actual.get(0).getPhase(), "Phase must be equals to expected");
+        assertEquals("message", actual.get(0).getMessage(), "Message must be equals to expected");
+        assertEquals(DateTime.parse("2021-10-28T07:37:46Z"),
+                     actual.get(0).getStartedAt(),
+                     "Start must be equals to expected");
+        assertNull(actual.get(0).getFinishedAt(), "Workflow must not be finished");
+        assertEquals(0.5, actual.get(0).getProgress(), "Progress must be equals to expected");
+        assertEquals(Map.of("1", "Succeeded"),
+                     actual.get(0).getJobsStatuses(),
+                     "Statuses of jobs must be equals to expected");
+    }
+
+    @Test
+    void testGetWorkflowRuntime() {
+        mockAuthenticationService();
+
+        server
+            .expect()
+            .get()
+            .withPath("/apis/argoproj.io/v1alpha1/namespaces/vf/workflows/id")
+            .andReturn(HttpURLConnection.HTTP_OK, WORKFLOW)
+            .once();
+
+        WorkflowRuntime actual = argoKubernetesService.getWorkflowRuntime("vf", "id");
+
+        assertEquals("id", actual.getName(), "Name must be equals to expected");
+        assertEquals("Running", actual.getPhase(), "Phase must be equals to expected");
+        assertThrows(ResourceNotFoundException.class,
+                     () -> argoKubernetesService.getWorkflowRuntime("vf", "other"),
+                     "Missing workflow must not be found");
+    }
+
     @Test
     void testDeleteWorkflow() {
         mockAuthenticationService();
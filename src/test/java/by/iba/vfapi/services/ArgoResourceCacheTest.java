@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.model.argo.CronWorkflow;
+import by.iba.vfapi.model.argo.CronWorkflowList;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowList;
+import by.iba.vfapi.model.argo.WorkflowSpec;
+import by.iba.vfapi.model.argo.WorkflowTemplate;
+import by.iba.vfapi.model.argo.WorkflowTemplateList;
+import by.iba.vfapi.model.argo.WorkflowTemplateRef;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.CustomResource;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArgoResourceCacheTest {
+    private static final String APP_NAME_LABEL = "testApp";
+
+    private final KubernetesServer server = new KubernetesServer(true, true);
+    private AppNamespaceIndex appNamespaces;
+    private ArgoResourceCache argoResourceCache;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        server.before();
+        NamespacedKubernetesClient client = server.getClient();
+        client
+            .namespaces()
+            .create(new NamespaceBuilder()
+                        .withNewMetadata()
+                        .withName("vf-1")
+                        .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+                        .endMetadata()
+                        .build());
+        client.namespaces().create(new NamespaceBuilder().withNewMetadata().withName("other").endMetadata().build());
+        WorkflowTemplate template1 = new WorkflowTemplate();
+        template1.setMetadata(new ObjectMetaBuilder()
+                                  .withName("pipeline1")
+                                  .withNamespace("vf-1")
+                                  .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+                                  .addToLabels(Constants.NAME, "name1")
+                                  .build());
+        WorkflowTemplate template2 = new WorkflowTemplate();
+        template2.setMetadata(new ObjectMetaBuilder()
+                                  .withName("pipeline2")
+                                  .withNamespace("vf-1")
+                                  .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+                                  .addToLabels(Constants.NAME, "name2")
+                                  .build());
+        WorkflowTemplate foreignTemplate = new WorkflowTemplate();
+        foreignTemplate.setMetadata(foreignMetadata());
+        for (WorkflowTemplate template : List.of(template1, template2, foreignTemplate)) {
+            client
+                .customResources(WorkflowTemplate.class, WorkflowTemplateList.class)
+                .inNamespace(template.getMetadata().getNamespace())
+                .create(template);
+        }
+        Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("pipeline1").withNamespace("vf-1").build());
+        Workflow foreignWorkflow = new Workflow();
+        foreignWorkflow.setMetadata(foreignMetadata());
+        for (Workflow created : List.of(workflow, foreignWorkflow)) {
+            client
+                .customResources(Workflow.class, WorkflowList.class)
+                .inNamespace(created.getMetadata().getNamespace())
+                .create(created);
+        }
+        CronWorkflow cronWorkflow = new CronWorkflow();
+        cronWorkflow.setMetadata(new ObjectMetaBuilder().withName("pipeline2").withNamespace("vf-1").build());
+        CronWorkflow foreignCronWorkflow = new CronWorkflow();
+        foreignCronWorkflow.setMetadata(foreignMetadata());
+        for (CronWorkflow created : List.of(cronWorkflow, foreignCronWorkflow)) {
+            client
+                .customResources(CronWorkflow.class, CronWorkflowList.class)
+                .inNamespace(created.getMetadata().getNamespace())
+                .create(created);
+        }
+
+        appNamespaces = new AppNamespaceIndex(client, APP_NAME_LABEL, Duration.ofMinutes(10));
+        appNamespaces.start();
+        argoResourceCache = new ArgoResourceCache(client, appNamespaces, Duration.ofMinutes(10));
+        argoResourceCache.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!argoResourceCache.isSynced() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(argoResourceCache.isSynced(), "Cache must be synced");
+    }
+
+    @AfterEach
+    void tearDown() {
+        argoResourceCache.stop();
+        appNamespaces.stop();
+        server.after();
+    }
+
+    private static ObjectMeta appMetadata(String name) {
+        return new ObjectMetaBuilder()
+            .withName(name)
+            .withNamespace("vf-1")
+            .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+            .build();
+    }
+
+    private static ObjectMeta foreignMetadata() {
+        return new ObjectMetaBuilder().withName("foreign").withNamespace("other").build();
+    }
+
+    private static List<String> names(List<? extends CustomResource<?, ?>> resources) {
+        return resources.stream().map(r -> r.getMetadata().getName()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void testLookups() {
+        assertEquals(List.of("pipeline1", "pipeline2"),
+                     names(argoResourceCache.getAll(WorkflowTemplate.class, "vf-1")),
+                     "Only templates of app namespaces must be cached");
+        assertEquals(List.of("pipeline1"),
+                     names(argoResourceCache.getAll(Workflow.class, "vf-1")),
+                     "Workflows without app label must be cached");
+        assertEquals(List.of("pipeline2"),
+                     names(argoResourceCache.getAll(CronWorkflow.class, "vf-1")),
+                     "Cron workflows without app label must be cached");
+        assertEquals("pipeline2",
+                     argoResourceCache.get(CronWorkflow.class, "vf-1", "pipeline2").getMetadata().getName());
+        assertNull(argoResourceCache.get(CronWorkflow.class, "vf-1", "pipeline1"));
+        assertEquals(List.of(), argoResourceCache.getAll(Workflow.class, "vf-2"));
+        assertEquals(List.of(),
+                     argoResourceCache.getAll(Workflow.class, "other"),
+                     "Workflows of other namespaces must not be served");
+        assertNull(argoResourceCache.get(WorkflowTemplate.class, "other", "foreign"));
+    }
+
+    @Test
+    void testWriteThrough() {
+        Workflow workflow = new Workflow();
+        workflow.setMetadata(appMetadata("pipeline2"));
+        workflow.getMetadata().setResourceVersion(String.valueOf(Long.MAX_VALUE));
+        argoResourceCache.put(Workflow.class, workflow);
+        argoResourceCache.remove(CronWorkflow.class, argoResourceCache.get(CronWorkflow.class, "vf-1", "pipeline2"));
+
+        assertEquals(List.of("pipeline1", "pipeline2"), names(argoResourceCache.getAll(Workflow.class, "vf-1")));
+        assertEquals(List.of(), argoResourceCache.getAll(CronWorkflow.class, "vf-1"));
+    }
+
+    @Test
+    void testWriteThroughKeepsNewerState() {
+        Workflow stale = new Workflow();
+        stale.setMetadata(appMetadata("pipeline1"));
+        stale.getMetadata().setResourceVersion("0");
+        stale.setSpec(new WorkflowSpec().workflowTemplateRef(new WorkflowTemplateRef().name("stale")));
+        argoResourceCache.put(Workflow.class, stale);
+        assertNull(argoResourceCache.get(Workflow.class, "vf-1", "pipeline1").getSpec(),
+                   "Version received by informer must not be replaced by an older one");
+
+        CronWorkflow changed = argoResourceCache.get(CronWorkflow.class, "vf-1", "pipeline2");
+        changed.getMetadata().setResourceVersion("0");
+        argoResourceCache.remove(CronWorkflow.class, changed);
+        assertEquals(List.of("pipeline2"),
+                     names(argoResourceCache.getAll(CronWorkflow.class, "vf-1")),
+                     "Cron workflow changed since it was read must not be removed");
+    }
+
+    @Test
+    void testGetReturnsCopy() {
+        argoResourceCache.get(WorkflowTemplate.class, "vf-1", "pipeline1").getMetadata().setName("renamed");
+        argoResourceCache
+            .getAll(WorkflowTemplate.class, "vf-1")
+            .forEach(template -> template.getMetadata().getLabels().clear());
+
+        WorkflowTemplate template = argoResourceCache.get(WorkflowTemplate.class, "vf-1", "pipeline1");
+        assertEquals("pipeline1", template.getMetadata().getName());
+        assertEquals("name1", template.getMetadata().getLabels().get(Constants.NAME));
+    }
+
+    @Test
+    void testPipelinesListedFromMemory() {
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "admin", "email", true));
+        ArgoKubernetesService argoKubernetesService = new ArgoKubernetesService(server.getClient(),
+                                                                                "vf",
+                                                                                APP_NAME_LABEL,
+                                                                                authenticationService,
+                                                                                null,
+                                                                                null,
+                                                                                null,
+                                                                                null,
+                                                                                argoResourceCache);
+        int requests = server.getMockServer().getRequestCount();
+
+        assertEquals(List.of("pipeline1", "pipeline2"), names(argoKubernetesService.getAllWorkflowTemplates("vf-1")));
+        assertEquals(List.of("pipeline1"), names(argoKubernetesService.getAllWorkflows("vf-1")));
+        assertEquals(List.of("pipeline2"), names(argoKubernetesService.getAllCronWorkflows("vf-1")));
+        assertEquals(List.of("pipeline1"),
+                     argoKubernetesService
+                         .getAllWorkflowsMetadata("vf-1")
+                         .stream()
+                         .map(ObjectMeta::getName)
+                         .collect(Collectors.toList()));
+        assertEquals(List.of("pipeline2"),
+                     argoKubernetesService
+                         .getAllCronWorkflowsMetadata("vf-1")
+                         .stream()
+                         .map(ObjectMeta::getName)
+                         .collect(Collectors.toList()));
+        assertEquals(List.of("pipeline2"),
+                     names(argoKubernetesService.getWorkflowTemplatesByLabels("vf-1",
+                                                                              Map.of(Constants.NAME, "name2"))));
+        assertEquals(requests, server.getMockServer().getRequestCount(), "Reads must not call kubernetes");
+    }
+}
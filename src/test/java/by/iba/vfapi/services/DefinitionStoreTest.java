@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DefinitionStoreTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int THRESHOLD = 1000;
+
+    @Mock
+    private KubernetesService kubernetesService;
+    private DefinitionStore definitionStore;
+
+    @BeforeEach
+    void setUp() {
+        definitionStore = new DefinitionStore(kubernetesService, THRESHOLD);
+    }
+
+    private static JsonNode definition(int nodes, boolean unique) {
+        ObjectNode definition = MAPPER.createObjectNode();
+        ArrayNode graph = definition.putArray("graph");
+        for (int i = 0; i < nodes; i++) {
+            graph
+                .addObject()
+                .put("id", unique ? UUID.randomUUID().toString() : String.valueOf(i))
+                .putObject("value")
+                .put("operation", "READ");
+        }
+        return definition;
+    }
+
+    private static ObjectMeta metadata(String definition) {
+        return new ObjectMetaBuilder().withName("id").addToAnnotations(Constants.DEFINITION, definition).build();
+    }
+
+    @Test
+    void testOffloadSmall() {
+        String value = DefinitionCodec.encode(definition(2, true));
+        ObjectMeta metadata = metadata(value);
+
+        definitionStore.offload("projectId", metadata);
+
+        assertEquals(value, metadata.getAnnotations().get(Constants.DEFINITION));
+        verify(kubernetesService, never()).createOrReplaceConfigMap(anyString(), any(ConfigMap.class));
+    }
+
+    @Test
+    void testOffloadCompressible() {
+        JsonNode definition = definition(100, false);
+        ObjectMeta metadata =
+            metadata(Base64.encodeBase64String(definition.toString().getBytes(StandardCharsets.UTF_8)));
+
+        definitionStore.offload("projectId", metadata);
+
+        String value = metadata.getAnnotations().get(Constants.DEFINITION);
+        assertTrue(value.startsWith(DefinitionCodec.GZIP_PREFIX), "Legacy definition must be compressed");
+        assertTrue(value.length() <= THRESHOLD, "Compressed definition must fit");
+        assertEquals(definition, definitionStore.read("projectId", metadata));
+        verify(kubernetesService, never()).createOrReplaceConfigMap(anyString(), any(ConfigMap.class));
+    }
+
+    @Test
+    void testOffloadLarge() {
+        JsonNode definition = definition(100, true);
+        String compressed = DefinitionCodec.encode(definition);
+        ObjectMeta metadata = metadata(compressed);
+
+        definitionStore.offload("projectId", metadata);
+
+        ArgumentCaptor<ConfigMap> captor = ArgumentCaptor.forClass(ConfigMap.class);
+        verify(kubernetesService).createOrReplaceConfigMap(eq("projectId"), captor.capture());
+        ConfigMap blob = captor.getValue();
+        String value = metadata.getAnnotations().get(Constants.DEFINITION);
+        assertTrue(DefinitionCodec.isBlob(value), "Definition must refer to config map");
+        assertEquals(DefinitionStore.BLOB_NAME_PREFIX + DefinitionCodec.getBlobHash(value),
+                     blob.getMetadata().getName());
+        assertEquals(Constants.TYPE_DEFINITION, blob.getMetadata().getLabels().get(Constants.TYPE));
+        assertEquals(compressed.substring(DefinitionCodec.GZIP_PREFIX.length()),
+                     blob.getBinaryData().get(Constants.DEFINITION));
+
+        when(kubernetesService.getConfigMap("projectId", blob.getMetadata().getName())).thenReturn(blob);
+        assertEquals(definition, definitionStore.read("projectId", metadata));
+
+        ObjectMeta copy = metadata(value);
+        definitionStore.offload("projectId", copy);
+        assertEquals(value, copy.getAnnotations().get(Constants.DEFINITION), "Blob reference must be kept");
+
+        definitionStore.inline("projectId", copy);
+        assertEquals(compressed, copy.getAnnotations().get(Constants.DEFINITION));
+    }
+
+    @Test
+    void testReadLegacy() {
+        JsonNode definition = definition(2, true);
+        ObjectMeta metadata =
+            metadata(Base64.encodeBase64String(definition.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(definition, definitionStore.read("projectId", metadata));
+    }
+
+    @Test
+    void testReleaseUnreferenced() {
+        String hash = "a".repeat(64);
+        ObjectMeta previous = metadata(DefinitionCodec.BLOB_PREFIX + hash);
+
+        definitionStore.release("projectId",
+                                previous,
+                                () -> List.of(metadata(DefinitionCodec.BLOB_PREFIX + "b".repeat(64)),
+                                              metadata(DefinitionCodec.encode(definition(2, true)))));
+
+        verify(kubernetesService).deleteConfigMap("projectId", DefinitionStore.BLOB_NAME_PREFIX + hash);
+    }
+
+    @Test
+    void testReleaseShared() {
+        String value = DefinitionCodec.BLOB_PREFIX + "a".repeat(64);
+
+        definitionStore.release("projectId", metadata(value), () -> List.of(metadata(value)));
+
+        verify(kubernetesService, never()).deleteConfigMap(anyString(), anyString());
+    }
+
+    @Test
+    void testReleaseInline() {
+        Supplier<List<ObjectMeta>> resources = mock(Supplier.class);
+
+        definitionStore.release("projectId", metadata(DefinitionCodec.encode(definition(2, true))), resources);
+        definitionStore.release("projectId", null, resources);
+
+        verify(resources, never()).get();
+        verify(kubernetesService, never()).deleteConfigMap(anyString(), anyString());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityTagBuilderTest {
+
+    private static ConfigMap configMap(String name, String version) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withResourceVersion(version)
+            .endMetadata()
+            .build();
+    }
+
+    private static String tag(List<ConfigMap> configMaps, boolean editable) {
+        return new EntityTagBuilder().addVersions("configmaps", configMaps).add(editable).build();
+    }
+
+    @Test
+    void testBuild() {
+        String tag = tag(List.of(configMap("a", "1"), configMap("b", "2")), true);
+
+        assertTrue(tag.matches("\"[0-9a-f]{64}\""), "Tag must be quoted hash");
+        assertEquals(tag, tag(List.of(configMap("b", "2"), configMap("a", "1")), true), "Order must not matter");
+        assertNotEquals(tag, tag(List.of(configMap("a", "1"), configMap("b", "3")), true));
+        assertNotEquals(tag, tag(List.of(configMap("a", "1")), true));
+        assertNotEquals(tag, tag(List.of(configMap("a", "1"), configMap("b", "2")), false));
+        assertNotEquals(new EntityTagBuilder().add("ab").add("c").build(),
+                        new EntityTagBuilder().add("a").add("bc").build(),
+                        "Values must be separated");
+    }
+
+    @Test
+    void testMetadataVersions() {
+        List<ConfigMap> configMaps = List.of(configMap("a", "1"), configMap("b", "2"));
+
+        assertEquals(tag(configMaps, true),
+                     new EntityTagBuilder()
+                         .addMetadataVersions("configmaps",
+                                              List.of(configMaps.get(1).getMetadata(),
+                                                      configMaps.get(0).getMetadata()))
+                         .add(true)
+                         .build(),
+                     "Metadata must give the same tag as resources");
+    }
+}
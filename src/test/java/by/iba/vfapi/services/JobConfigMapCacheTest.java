@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobConfigMapCacheTest {
+    private static final String APP_NAME_LABEL = "testApp";
+
+    private final KubernetesServer server = new KubernetesServer(true, true);
+    private JobConfigMapCache jobConfigMapCache;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        server.before();
+        NamespacedKubernetesClient client = server.getClient();
+        client.configMaps().inNamespace("vf-1").create(configMap("vf-1", "job1", "name1", Constants.TYPE_JOB));
+        client.configMaps().inNamespace("vf-1").create(configMap("vf-1", "job2", "name2", Constants.TYPE_JOB));
+        client.configMaps().inNamespace("vf-1").create(configMap("vf-1", "params", "params", "params"));
+        client.configMaps().inNamespace("vf-2").create(configMap("vf-2", "job3", "name1", Constants.TYPE_JOB));
+
+        jobConfigMapCache = new JobConfigMapCache(client, APP_NAME_LABEL, Duration.ofMinutes(10));
+        jobConfigMapCache.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!jobConfigMapCache.isSynced() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(jobConfigMapCache.isSynced(), "Cache must be synced");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobConfigMapCache.stop();
+        server.after();
+    }
+
+    private static ConfigMap configMap(String namespace, String id, String name, String type) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withName(id)
+            .withNamespace(namespace)
+            .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+            .addToLabels(Constants.TYPE, type)
+            .addToLabels(Constants.NAME, name)
+            .endMetadata()
+            .addToData(Constants.JOB_CONFIG_FIELD, "{\"nodes\":[],\"edges\":[]}")
+            .build();
+    }
+
+    private static List<String> ids(List<ConfigMap> configMaps) {
+        return configMaps.stream().map(cm -> cm.getMetadata().getName()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void testIndexes() {
+        assertEquals(List.of("job1", "job2"), ids(jobConfigMapCache.getAll("vf-1")), "Only jobs must be cached");
+        assertEquals(List.of("job3"), ids(jobConfigMapCache.getByName("vf-2", "name1")));
+        assertEquals("job2", jobConfigMapCache.get("vf-1", "job2").getMetadata().getName());
+        assertNull(jobConfigMapCache.get("vf-1", "params"));
+    }
+
+    @Test
+    void testWriteThrough() {
+        ConfigMap written = configMap("vf-2", "job4", "name4", Constants.TYPE_JOB);
+        written.getMetadata().setResourceVersion(String.valueOf(Long.MAX_VALUE));
+        jobConfigMapCache.put(written);
+        assertEquals(List.of("job4"), ids(jobConfigMapCache.getByName("vf-2", "name4")));
+
+        ConfigMap deleted = jobConfigMapCache.get("vf-1", "job1");
+        jobConfigMapCache.remove(deleted);
+        assertEquals(List.of("job2"), ids(jobConfigMapCache.getAll("vf-1")));
+    }
+
+    @Test
+    void testWriteThroughKeepsNewerState() {
+        ConfigMap indexed = jobConfigMapCache.get("vf-1", "job1");
+        ConfigMap stale = configMap("vf-1", "job1", "stale", Constants.TYPE_JOB);
+        stale.getMetadata().setResourceVersion("0");
+        jobConfigMapCache.put(stale);
+        assertEquals("name1",
+                     jobConfigMapCache.get("vf-1", "job1").getMetadata().getLabels().get(Constants.NAME),
+                     "Version received by informer must not be replaced by an older one");
+
+        ConfigMap changed = new ConfigMapBuilder(indexed).editMetadata().withResourceVersion("0").endMetadata().build();
+        jobConfigMapCache.remove(changed);
+        assertEquals(List.of("job1", "job2"),
+                     ids(jobConfigMapCache.getAll("vf-1")),
+                     "Config map changed since it was read must not be removed");
+    }
+
+    @Test
+    void testGetReturnsCopy() {
+        jobConfigMapCache.get("vf-1", "job1").getMetadata().getLabels().put(Constants.NAME, "changed");
+        jobConfigMapCache.getAll("vf-1").forEach(configMap -> configMap.getData().clear());
+
+        ConfigMap configMap = jobConfigMapCache.get("vf-1", "job1");
+        assertEquals("name1", configMap.getMetadata().getLabels().get(Constants.NAME));
+        assertEquals(Map.of(Constants.JOB_CONFIG_FIELD, "{\"nodes\":[],\"edges\":[]}"), configMap.getData());
+    }
+
+    @Test
+    void testKubernetesServiceReadsFromCache() {
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        AccessDecisionCache accessDecisionCache = mock(AccessDecisionCache.class);
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "user", "email", false));
+        when(accessDecisionCache.isAllowed(eq("user"),
+                                           anyString(),
+                                           eq(""),
+                                           eq("configmaps"),
+                                           anyString(),
+                                           any(),
+                                           any())).thenAnswer(invocation -> "vf-1".equals(invocation.getArgument(1)));
+        KubernetesService kubernetesService = new KubernetesService(server.getClient(),
+                                                                    "vf",
+                                                                    APP_NAME_LABEL,
+                                                                    authenticationService,
+                                                                    null,
+                                                                    accessDecisionCache,
+                                                                    jobConfigMapCache,
+                                                                    null);
+        int requests = server.getMockServer().getRequestCount();
+
+        assertEquals(List.of("job1", "job2"), ids(kubernetesService.getAllConfigMaps("vf-1")));
+        assertEquals("job1", kubernetesService.getConfigMap("vf-1", "job1").getMetadata().getName());
+        assertEquals(List.of("job1"),
+                     ids(kubernetesService.getConfigMapsByLabels("vf-1",
+                                                                 Map.of(Constants.TYPE,
+                                                                        Constants.TYPE_JOB,
+                                                                        Constants.NAME,
+                                                                        "name1"))));
+        assertEquals(requests, server.getMockServer().getRequestCount(), "Reads must not call kubernetes");
+
+        KubernetesClientException exception =
+            assertThrows(KubernetesClientException.class, () -> kubernetesService.getAllConfigMaps("vf-2"));
+        assertEquals(403, exception.getCode());
+    }
+}
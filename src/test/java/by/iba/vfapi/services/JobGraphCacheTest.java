@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JobGraphCacheTest {
+    private static final String JOB_CONFIG = "{\"nodes\":[{\"id\":\"1\",\"value\":{\"operation\":\"READ\"}}]," +
+        "\"edges\":[]}";
+
+    private final JobGraphCache cache = new JobGraphCache(2);
+
+    private static ConfigMap configMap(String name, String resourceVersion, String jobConfig) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withNamespace("project")
+            .withName(name)
+            .withResourceVersion(resourceVersion)
+            .endMetadata()
+            .addToData(Constants.JOB_CONFIG_FIELD, jobConfig)
+            .build();
+    }
+
+    @Test
+    void testGetCached() {
+        GraphDto graph = cache.get(configMap("job", "1", JOB_CONFIG));
+
+        assertEquals("1", graph.getNodes().get(0).getId());
+        assertSame(graph, cache.get(configMap("job", "1", JOB_CONFIG)), "Graph of the same version must be cached");
+        assertNotSame(graph, cache.get(configMap("job", "2", JOB_CONFIG)), "Changed job must be parsed again");
+        assertNotSame(graph, cache.get(configMap("other", "1", JOB_CONFIG)), "Other job must be parsed");
+        assertEquals(1, cache.getCacheStats().hitCount());
+    }
+
+    @Test
+    void testGetEvicted() {
+        GraphDto graph = cache.get(configMap("job1", "1", JOB_CONFIG));
+        cache.get(configMap("job2", "1", JOB_CONFIG));
+        cache.get(configMap("job3", "1", JOB_CONFIG));
+
+        assertNotSame(graph,
+                      cache.get(configMap("job1", "1", JOB_CONFIG)),
+                      "Least recently used graph must be evicted");
+        assertEquals(0, cache.getCacheStats().hitCount());
+    }
+
+    @Test
+    void testGetNotStored() {
+        GraphDto graph = cache.get(configMap("job", null, JOB_CONFIG));
+
+        assertNotSame(graph, cache.get(configMap("job", null, JOB_CONFIG)), "Graph without version must not be cached");
+        assertEquals(0, cache.getCacheStats().requestCount());
+    }
+
+    @Test
+    void testGetCorrupted() {
+        ConfigMap configMap = configMap("job", "1", "{");
+
+        assertThrows(InternalProcessingException.class, () -> cache.get(configMap));
+        assertThrows(InternalProcessingException.class, () -> cache.get(configMap), "Failure must not be cached");
+    }
+}
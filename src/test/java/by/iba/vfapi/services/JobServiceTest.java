@@ -18,8 +18,10 @@
 package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
 import by.iba.vfapi.dto.LogDto;
 import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.jobs.JobOverviewDto;
 import by.iba.vfapi.dto.jobs.JobOverviewListDto;
 import by.iba.vfapi.dto.jobs.JobRequestDto;
@@ -32,6 +34,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
@@ -39,12 +42,18 @@ import io.fabric8.kubernetes.api.model.PodStatusBuilder;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.ResourceQuota;
 import io.fabric8.kubernetes.api.model.ResourceQuotaBuilder;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
 import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsBuilder;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -54,6 +63,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -113,11 +126,35 @@ class JobServiceTest {
 
     @Mock
     private KubernetesService kubernetesService;
+    @Mock
+    private UsageHistory usageHistory;
+    private final JobGraphCache jobGraphCache = new JobGraphCache(100);
     private JobService jobService;
 
     @BeforeEach
     void setUp() {
-        this.jobService = new JobService("image", "master", "spark", "pullSecret", kubernetesService);
+        this.jobService = new JobService("image",
+                                         "master",
+                                         "spark",
+                                         "pullSecret",
+                                         kubernetesService,
+                                         new UsageAggregator(kubernetesService, Duration.ofSeconds(5)),
+                                         usageHistory,
+                                         new ParallelCalls(4, 4),
+                                         new DefinitionStore(kubernetesService, 65536),
+                                         jobGraphCache);
+    }
+
+    private static PodMetrics podMetrics(String name) {
+        return new PodMetricsBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .endMetadata()
+            .addNewContainer()
+            .addToUsage(Constants.CPU_FIELD, Quantity.parse("5"))
+            .addToUsage(Constants.MEMORY_FIELD, Quantity.parse("25Gi"))
+            .endContainer()
+            .build();
     }
 
     @Test
@@ -148,6 +185,10 @@ class JobServiceTest {
         assertEquals("1G",
                      captor.getValue().getData().get(Constants.DRIVER_MEMORY),
                      "Driver memory must be equals to expected");
+        ObjectMeta metadata = captor.getValue().getMetadata();
+        assertEquals("true", metadata.getLabels().get(Constants.RUNNABLE), "Job with stages must be runnable");
+        assertEquals("2", metadata.getAnnotations().get(Constants.NODE_COUNT));
+        assertEquals("READ=1,WRITE=1", metadata.getAnnotations().get(Constants.STAGE_COUNTS));
 
         verify(kubernetesService).createOrReplaceConfigMap(anyString(), any(ConfigMap.class));
         verify(kubernetesService, times(2)).getConfigMap(anyString(), anyString());
@@ -155,10 +196,12 @@ class JobServiceTest {
 
     @Test
     void testCreateNotUniqueName() {
-        when(kubernetesService.getConfigMapsByLabels("projectId",
-                                                     Map.of(Constants.NAME,
-                                                            "name"))).thenReturn(List.of(new ConfigMap(),
-                                                                                         new ConfigMap()));
+        when(kubernetesService.getConfigMapsMetadataByLabels("projectId",
+                                                             Map.of(Constants.TYPE,
+                                                                    Constants.TYPE_JOB,
+                                                                    Constants.NAME,
+                                                                    "name"))).thenReturn(List.of(new ObjectMeta(),
+                                                                                                 new ObjectMeta()));
 
         JobRequestDto build =
             JobRequestDto.builder().params(Map.of("param1", "value1")).name("name").definition(GRAPH).build();
@@ -171,6 +214,11 @@ class JobServiceTest {
 
     @Test
     void testUpdate() {
+        when(kubernetesService.getConfigMap("projectId", "id")).thenReturn(new ConfigMapBuilder()
+                                                                                .withNewMetadata()
+                                                                                .withName("id")
+                                                                                .endMetadata()
+                                                                                .build());
         doNothing().when(kubernetesService).createOrReplaceConfigMap(eq("projectId"), any(ConfigMap.class));
 
         jobService.update("id",
@@ -183,10 +231,20 @@ class JobServiceTest {
                               .build());
 
         verify(kubernetesService).createOrReplaceConfigMap(anyString(), any(ConfigMap.class));
+        verify(kubernetesService, never()).getAllConfigMapsMetadata(anyString());
     }
 
     @Test
     void testDelete() {
+        String blob = DefinitionCodec.BLOB_PREFIX + "a".repeat(64);
+        when(kubernetesService.getConfigMap("projectId", "id")).thenReturn(new ConfigMapBuilder()
+                                                                                .withNewMetadata()
+                                                                                .withName("id")
+                                                                                .addToAnnotations(Constants.DEFINITION,
+                                                                                                  blob)
+                                                                                .endMetadata()
+                                                                                .build());
+        when(kubernetesService.getAllConfigMapsMetadata("projectId")).thenReturn(List.of());
         doNothing().when(kubernetesService).deleteConfigMap("projectId", "id");
         doNothing().when(kubernetesService).deletePodsByLabels("projectId", Map.of(Constants.JOB_ID_LABEL, "id"));
 
@@ -194,6 +252,17 @@ class JobServiceTest {
 
         verify(kubernetesService).deleteConfigMap("projectId", "id");
         verify(kubernetesService).deletePodsByLabels(anyString(), anyMap());
+        verify(kubernetesService).deleteConfigMap("projectId", DefinitionStore.BLOB_NAME_PREFIX + "a".repeat(64));
+    }
+
+    @Test
+    void testDeleteMissing() {
+        when(kubernetesService.getConfigMap("projectId", "id")).thenThrow(new ResourceNotFoundException("missing"));
+
+        jobService.delete("projectId", "id");
+
+        verify(kubernetesService).deleteConfigMap("projectId", "id");
+        verify(kubernetesService, never()).getAllConfigMapsMetadata(anyString());
     }
 
     @Test
@@ -213,12 +282,14 @@ class JobServiceTest {
                                                                    .build())
                                                  .build());
 
+        when(kubernetesService.getAllConfigMapsMetadata("projectId"))
+            .thenReturn(List.of(configMaps.get(0).getMetadata()));
         when(kubernetesService.getAllConfigMaps("projectId")).thenReturn(configMaps);
-        when(kubernetesService.getPodStatus("projectId", "id1")).thenReturn(new PodStatusBuilder()
-                                                                                .withPhase("Pending")
-                                                                                .withStartTime(
-                                                                                    "2020-10-27T10:14:46Z")
-                                                                                .build());
+        when(kubernetesService.findPodStatus("projectId", "id1")).thenReturn(Optional.of(new PodStatusBuilder()
+                                                                                             .withPhase("Pending")
+                                                                                             .withStartTime(
+                                                                                                 "2020-10-27T10:14:46Z")
+                                                                                             .build()));
 
         Map<String, Quantity> hard = Map.of(Constants.LIMITS_CPU,
                                             Quantity.parse("20"),
@@ -230,31 +301,20 @@ class JobServiceTest {
                                             Quantity.parse("100Gi"));
         ResourceQuota quota = new ResourceQuotaBuilder().withNewStatus().addToHard(hard).endStatus().build();
 
-        List<Pod> execs = List.of(new PodBuilder().withNewMetadata().withName("1").endMetadata().build());
-
-        when(kubernetesService.getPodsByLabels("projectId", Map.of(Constants.JOB_ID_LABEL,
-                                                                   "id1",
-                                                                   Constants.PIPELINE_JOB_ID_LABEL,
-                                                                   Constants.NOT_PIPELINE_FLAG,
-                                                                   Constants.SPARK_ROLE_LABEL,
-                                                                   Constants.SPARK_ROLE_EXEC))).thenReturn(execs);
-
-        when(kubernetesService.topPod("projectId", "1")).thenReturn(new PodMetricsBuilder()
-                                                                        .addNewContainer()
-                                                                        .addToUsage(Constants.CPU_FIELD,
-                                                                                    Quantity.parse("5"))
-                                                                        .addToUsage(Constants.MEMORY_FIELD,
-                                                                                    Quantity.parse("25Gi"))
-                                                                        .endContainer()
-                                                                        .build());
-        when(kubernetesService.topPod("projectId", "id1")).thenReturn(new PodMetricsBuilder()
-                                                                          .addNewContainer()
-                                                                          .addToUsage(Constants.CPU_FIELD,
-                                                                                      Quantity.parse("5"))
-                                                                          .addToUsage(Constants.MEMORY_FIELD,
-                                                                                      Quantity.parse("25Gi"))
-                                                                          .endContainer()
-                                                                          .build());
+        List<Pod> execs = List.of(new PodBuilder()
+                                      .withNewMetadata()
+                                      .withName("1")
+                                      .addToLabels(Constants.JOB_ID_LABEL, "id1")
+                                      .addToLabels(Constants.SPARK_ROLE_LABEL, Constants.SPARK_ROLE_EXEC)
+                                      .addToLabels(Constants.PIPELINE_JOB_ID_LABEL, Constants.NOT_PIPELINE_FLAG)
+                                      .endMetadata()
+                                      .build());
+        Map<String, String> executorLabels = new HashMap<>();
+        executorLabels.put(Constants.SPARK_ROLE_LABEL, Constants.SPARK_ROLE_EXEC);
+        executorLabels.put(Constants.JOB_ID_LABEL, null);
+        when(kubernetesService.getPodsByLabels("projectId", executorLabels)).thenReturn(execs);
+
+        when(kubernetesService.topPod("projectId")).thenReturn(List.of(podMetrics("1"), podMetrics("id1")));
         when(kubernetesService.getResourceQuota("projectId", Constants.QUOTA_NAME)).thenReturn(quota);
 
         when(kubernetesService.getWorkflowPods("projectId", "id1")).thenReturn(List.of(new PodBuilder()
@@ -301,6 +361,118 @@ class JobServiceTest {
         assertTrue(projectId.isEditable(), "Must be true");
     }
 
+    @Test
+    void testGetAllPage() {
+        List<ConfigMap> configMaps =
+            List.of(jobConfigMap("id1", "c"), jobConfigMap("id2", "a"), jobConfigMap("id3", "b"));
+        when(kubernetesService.getAllConfigMapsMetadata("projectId"))
+            .thenReturn(configMaps.stream().map(ConfigMap::getMetadata).collect(Collectors.toList()));
+        when(kubernetesService.getAllConfigMaps("projectId")).thenReturn(configMaps);
+        when(kubernetesService.findPodStatus("projectId", "id2")).thenReturn(Optional.empty());
+        when(kubernetesService.getWorkflowPods("projectId", "id2")).thenReturn(List.of());
+        when(kubernetesService.isAccessible("projectId", "pods", "", Constants.CREATE_ACTION)).thenReturn(true);
+        when(kubernetesService.isAccessible("projectId", "configmaps", "", Constants.UPDATE_ACTION)).thenReturn(
+            true);
+
+        JobOverviewListDto page = jobService.getAll("projectId", ListQuery.builder().limit(1).sort("name").build());
+
+        assertEquals(1, page.getJobs().size(), "Page must contain one job");
+        assertEquals("id2", page.getJobs().get(0).getId());
+        assertEquals(K8sUtils.DRAFT_STATUS, page.getJobs().get(0).getStatus());
+        assertEquals(3, page.getTotal());
+        assertNotNull(page.getContinueToken(), "There must be next page");
+        verify(kubernetesService, never()).findPodStatus("projectId", "id1");
+        verify(kubernetesService, never()).getWorkflowPods("projectId", "id3");
+    }
+
+    @Test
+    void testGetAllSummary() {
+        List<ObjectMeta> metadata = List.of(jobConfigMap("id1", "a").getMetadata());
+        when(kubernetesService.getAllConfigMapsMetadata("projectId")).thenReturn(metadata);
+        when(kubernetesService.findPodStatus("projectId", "id1")).thenReturn(Optional.empty());
+        when(kubernetesService.isAccessible("projectId", "configmaps", "", Constants.UPDATE_ACTION)).thenReturn(
+            true);
+
+        JobOverviewListDto jobs = jobService.getAll("projectId", ListQuery.builder().view(ListView.SUMMARY).build());
+
+        assertEquals(JobOverviewDto.builder().id("id1").name("a").status(K8sUtils.DRAFT_STATUS).build(),
+                     jobs.getJobs().get(0));
+        verify(kubernetesService, never()).getAllConfigMaps("projectId");
+    }
+
+    @Test
+    void testGetAllRunnableLabel() {
+        List<ObjectMeta> metadata = List.of(new ObjectMetaBuilder(jobConfigMap("id1", "a").getMetadata())
+                                                .addToLabels(Constants.RUNNABLE, "true")
+                                                .build(),
+                                            new ObjectMetaBuilder(jobConfigMap("id2", "b").getMetadata())
+                                                .addToLabels(Constants.RUNNABLE, "false")
+                                                .build());
+        when(kubernetesService.getAllConfigMapsMetadata("projectId")).thenReturn(metadata);
+        when(kubernetesService.findPodStatus(eq("projectId"), anyString())).thenReturn(Optional.empty());
+        when(kubernetesService.getWorkflowPods(eq("projectId"), anyString())).thenReturn(List.of());
+        when(kubernetesService.isAccessible("projectId", "pods", "", Constants.CREATE_ACTION)).thenReturn(true);
+        when(kubernetesService.isAccessible("projectId", "configmaps", "", Constants.UPDATE_ACTION)).thenReturn(
+            true);
+
+        List<JobOverviewDto> jobs = jobService.getAll("projectId").getJobs();
+
+        assertTrue(jobs.get(0).isRunnable(), "Job must be runnable by its label");
+        assertFalse(jobs.get(1).isRunnable(), "Job must not be runnable by its label");
+        verify(kubernetesService, never()).getAllConfigMaps("projectId");
+        assertEquals(0, jobGraphCache.getCacheStats().requestCount(), "Graphs must not be parsed");
+    }
+
+    private static ConfigMap jobConfigMap(String id, String name) {
+        return new ConfigMapBuilder()
+            .addToData(Constants.JOB_CONFIG_FIELD, "{\"nodes\":[],\"edges\":[]}")
+            .withNewMetadata()
+            .withName(id)
+            .addToLabels(Constants.NAME, name)
+            .addToLabels(Constants.TYPE, Constants.TYPE_JOB)
+            .addToAnnotations(Constants.DEFINITION, Base64.encodeBase64String("data".getBytes()))
+            .endMetadata()
+            .build();
+    }
+
+    @Test
+    void testGetAllTag() {
+        ConfigMap configMap =
+            new ConfigMapBuilder().withNewMetadata().withName("id1").withResourceVersion("1").endMetadata().build();
+        Pod pod = new PodBuilder()
+            .withNewMetadata()
+            .withName("id1")
+            .withResourceVersion("2")
+            .addToLabels(Constants.JOB_ID_LABEL, "id1")
+            .endMetadata()
+            .withNewStatus()
+            .withPhase("Succeeded")
+            .endStatus()
+            .build();
+        when(kubernetesService.isJobCacheSynced()).thenReturn(false, true);
+        when(kubernetesService.getAllConfigMapsMetadata("projectId")).thenReturn(List.of(configMap.getMetadata()));
+        when(kubernetesService.getPodsByLabels("projectId", Collections.singletonMap(Constants.JOB_ID_LABEL, null)))
+            .thenReturn(List.of(pod));
+        when(kubernetesService.isAccessible("projectId", "pods", "", Constants.CREATE_ACTION)).thenReturn(true);
+        when(kubernetesService.isAccessible("projectId", "configmaps", "", Constants.UPDATE_ACTION))
+            .thenReturn(true, true, false, true);
+
+        assertNull(jobService.getAllTag("projectId", ListView.FULL), "Tag must be unknown until jobs are cached");
+        String tag = jobService.getAllTag("projectId", ListView.FULL);
+        assertEquals(tag,
+                     jobService.getAllTag("projectId", ListView.FULL),
+                     "Tag must be the same while jobs don't change");
+        assertNotEquals(tag, jobService.getAllTag("projectId", ListView.FULL), "Tag must change with permissions");
+        configMap.getMetadata().setResourceVersion("3");
+        assertNotEquals(tag, jobService.getAllTag("projectId", ListView.FULL), "Tag must change with config maps");
+        assertNotEquals(jobService.getAllTag("projectId", ListView.FULL),
+                        jobService.getAllTag("projectId", ListView.SUMMARY),
+                        "Tag must change with view");
+        verify(kubernetesService, times(5)).isAccessible("projectId", "pods", "", Constants.CREATE_ACTION);
+        verify(kubernetesService, never()).topPod(anyString());
+        verify(kubernetesService, never()).getAllConfigMaps(anyString());
+    }
+
     @Test
     void testGet() throws IOException {
         ConfigMap configMap = new ConfigMapBuilder()
@@ -359,6 +531,16 @@ class JobServiceTest {
         assertEquals(expected, logsObjects.get(0), "Logs must be equal to expected");
     }
 
+    @Test
+    void testGetUsageHistory() {
+        UsageHistoryDto history = UsageHistoryDto.builder().resolution("1h").points(List.of()).build();
+        when(usageHistory.getJobHistory("projectId", "id", UsageHistory.Resolution.HOUR)).thenReturn(history);
+
+        assertEquals(history, jobService.getUsageHistory("projectId", "id", "1h"));
+        verify(kubernetesService).checkAccess("projectId", "pods", "", "list");
+        assertThrows(BadRequestException.class, () -> jobService.getUsageHistory("projectId", "id", "1d"));
+    }
+
     @Test
     void testGetLogsNotFound() {
         when(kubernetesService.getLogs("projectId", "id")).thenThrow(ResourceNotFoundException.class);
@@ -32,6 +32,7 @@ import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.api.model.NamespaceBuilder;
 import io.fabric8.kubernetes.api.model.NamespaceList;
 import io.fabric8.kubernetes.api.model.NamespaceListBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
@@ -44,6 +45,7 @@ import io.fabric8.kubernetes.api.model.ServiceAccount;
 import io.fabric8.kubernetes.api.model.ServiceAccountBuilder;
 import io.fabric8.kubernetes.api.model.ServiceAccountList;
 import io.fabric8.kubernetes.api.model.ServiceAccountListBuilder;
+import io.fabric8.kubernetes.api.model.authorization.v1.SelfSubjectRulesReviewBuilder;
 import io.fabric8.kubernetes.api.model.authorization.v1.SubjectAccessReview;
 import io.fabric8.kubernetes.api.model.authorization.v1.SubjectAccessReviewBuilder;
 import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetricsBuilder;
@@ -59,6 +61,7 @@ import io.fabric8.kubernetes.api.model.rbac.RoleBindingList;
 import io.fabric8.kubernetes.api.model.rbac.RoleBindingListBuilder;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import java.net.HttpURLConnection;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -71,6 +74,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -91,7 +95,29 @@ class KubernetesServiceTest {
     void setUp() {
         server.before();
         kubernetesService =
-            new KubernetesService(server.getClient(), APP_NAME, APP_NAME_LABEL, authenticationServiceMock);
+            new KubernetesService(server.getClient(),
+                                  APP_NAME,
+                                  APP_NAME_LABEL,
+                                  authenticationServiceMock,
+                                  new ServiceAccountCache(server.getClient(),
+                                                          APP_NAME,
+                                                          APP_NAME_LABEL,
+                                                          Duration.ofMinutes(10),
+                                                          100,
+                                                          false,
+                                                          Duration.ofHours(1),
+                                                          "token"),
+                                  new AccessDecisionCache(server.getClient(),
+                                                          APP_NAME_LABEL,
+                                                          Duration.ofSeconds(30),
+                                                          100,
+                                                          false),
+                                  new JobConfigMapCache(server.getClient(), APP_NAME_LABEL, Duration.ofMinutes(10)),
+                                  new PodCache(server.getClient(),
+                                               new AppNamespaceIndex(server.getClient(),
+                                                                     APP_NAME_LABEL,
+                                                                     Duration.ofMinutes(10)),
+                                               Duration.ofMinutes(10)));
     }
 
     @AfterEach
@@ -427,6 +453,26 @@ class KubernetesServiceTest {
         kubernetesService.createIfNotExistServiceAccount(userInfo);
     }
 
+    @Test
+    void testCreateIfNotExistServiceAccountKnown() {
+        UserInfo userInfo = new UserInfo();
+        userInfo.setUsername("IvanShautsou");
+        userInfo.setId("22");
+        userInfo.setName("Ivan");
+
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/serviceaccounts/ivanshautsou")
+            .andReturn(HttpURLConnection.HTTP_OK, new ServiceAccountBuilder().build())
+            .once();
+
+        kubernetesService.createIfNotExistServiceAccount(userInfo);
+        kubernetesService.createIfNotExistServiceAccount(userInfo);
+
+        assertEquals(1, server.getMockServer().getRequestCount(), "Known service account must not be requested");
+    }
+
     @Test
     void testCreateOrReplaceRoleBindings() {
         mockAuthenticationService();
@@ -518,6 +564,71 @@ class KubernetesServiceTest {
         assertTrue(result, "Must be true");
     }
 
+    @Test
+    void testIsAccessibleCached() {
+        mockAuthenticationService();
+
+        SubjectAccessReview sa =
+            new SubjectAccessReviewBuilder().withNewStatus().withAllowed(true).endStatus().build();
+
+        server
+            .expect()
+            .post()
+            .withPath("/apis/authorization.k8s.io/v1/selfsubjectaccessreviews")
+            .andReturn(HttpURLConnection.HTTP_OK, sa)
+            .once();
+
+        assertTrue(kubernetesService.isAccessible("name1", "configmaps", "", Constants.UPDATE_ACTION));
+        assertTrue(kubernetesService.isAccessible("name1", "configmaps", "", Constants.UPDATE_ACTION));
+        assertEquals(1, server.getMockServer().getRequestCount(), "Decision must be reviewed once");
+    }
+
+    @Test
+    void testIsAccessibleRulesReview() {
+        mockAuthenticationService();
+        KubernetesService rulesService = new KubernetesService(server.getClient(),
+                                                               APP_NAME,
+                                                               APP_NAME_LABEL,
+                                                               authenticationServiceMock,
+                                                               null,
+                                                               new AccessDecisionCache(server.getClient(),
+                                                                                       APP_NAME_LABEL,
+                                                                                       Duration.ofSeconds(30),
+                                                                                       100,
+                                                                                       true),
+                                                               null,
+                                                               null);
+
+        server
+            .expect()
+            .post()
+            .withPath("/apis/authorization.k8s.io/v1/selfsubjectrulesreviews")
+            .andReturn(HttpURLConnection.HTTP_CREATED,
+                       new SelfSubjectRulesReviewBuilder()
+                           .withNewStatus()
+                           .addNewResourceRule()
+                           .withApiGroups("")
+                           .withResources("configmaps", "pods", "namespaces", "resourcequotas")
+                           .withVerbs("get", "update", "create")
+                           .endResourceRule()
+                           .withIncomplete(false)
+                           .endStatus()
+                           .build())
+            .once();
+
+        assertTrue(rulesService.isAccessible("name1", "pods", "", Constants.CREATE_ACTION));
+        assertTrue(rulesService.isAccessible("name1", "configmaps", "", Constants.UPDATE_ACTION));
+        assertTrue(rulesService.isAccessible("name1", "namespaces", "", Constants.UPDATE_ACTION));
+        assertTrue(rulesService.isAccessible("name1", "resourcequotas", "", Constants.UPDATE_ACTION));
+        assertFalse(rulesService.isAccessible("name1", "secrets", "", Constants.UPDATE_ACTION));
+        assertTrue(rulesService.isViewable(new NamespaceBuilder()
+                                               .withNewMetadata()
+                                               .withName("name1")
+                                               .endMetadata()
+                                               .build()));
+        assertEquals(1, server.getMockServer().getRequestCount(), "Permissions must be resolved by one call");
+    }
+
     @Test
     void testTopPods() {
         List<PodMetrics> metrics = List.of(new PodMetricsBuilder()
@@ -712,6 +823,44 @@ class KubernetesServiceTest {
         assertEquals(configMapList.getItems().get(0), actual.get(0), "ConfigMaps must be equal to expected");
     }
 
+    @Test
+    void testGetConfigMapsMetadata() throws InterruptedException {
+        mockAuthenticationService();
+        String metadataList = "{\"kind\":\"PartialObjectMetadataList\",\"apiVersion\":\"meta.k8s.io/v1\"," +
+            "\"metadata\":{\"resourceVersion\":\"10\"},\"items\":[{\"kind\":\"PartialObjectMetadata\"," +
+            "\"apiVersion\":\"meta.k8s.io/v1\",\"metadata\":{\"name\":\"cm1\",\"labels\":{\"type\":\"job\"," +
+            "\"name\":\"name1\"}}}]}";
+
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/configmaps?labelSelector=type%3Djob&resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList)
+            .once();
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/configmaps?labelSelector=name%3Dname1%2Ctype%3Djob&resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList)
+            .once();
+
+        ObjectMeta expected = new ObjectMetaBuilder()
+            .withName("cm1")
+            .addToLabels(Constants.TYPE, Constants.TYPE_JOB)
+            .addToLabels(Constants.NAME, "name1")
+            .build();
+        assertEquals(List.of(expected), kubernetesService.getAllConfigMapsMetadata("vf"));
+        assertEquals(KubernetesService.METADATA_LIST_ACCEPT,
+                     server.getLastRequest().getHeader("Accept"),
+                     "Only metadata must be requested");
+        assertEquals(List.of(expected),
+                     kubernetesService.getConfigMapsMetadataByLabels("vf",
+                                                                     Map.of(Constants.TYPE,
+                                                                            Constants.TYPE_JOB,
+                                                                            Constants.NAME,
+                                                                            "name1")));
+    }
+
     @Test
     void testGetPodsByLabels() {
         mockAuthenticationService();
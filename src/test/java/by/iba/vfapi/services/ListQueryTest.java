@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ListQueryTest {
+    private static final List<TestItem> ITEMS = List.of(
+        new TestItem("1", "Load", "2021-01-01 10:00:00 +0000", "Draft", null, false),
+        new TestItem("2", "export", "2021-01-03 10:00:00 +0000", "Running", "2021-01-04 10:00:00 +0000", true),
+        new TestItem("3", "loader", "2021-01-02 13:00:00 +0300", "Failed", "2021-01-04 09:00:00 +0000", false),
+        new TestItem("4", "clean", "2021-01-02 11:00:00 +0000", "Running", "2021-01-04 09:30:00 +0300", true));
+
+    private static List<String> ids(ListQuery.Page<TestItem> page) {
+        return page.getItems().stream().map(TestItem::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testAll() {
+        ListQuery.Page<TestItem> page = ListQuery.ALL.apply(ITEMS);
+
+        assertEquals(List.of("1", "2", "3", "4"), ids(page), "Order must be kept");
+        assertEquals(4, page.getTotal());
+        assertNull(page.getContinueToken());
+    }
+
+    @Test
+    void testFilter() {
+        assertEquals(List.of("2", "4"), ids(ListQuery.builder().status("running").build().apply(ITEMS)));
+        assertEquals(List.of("1", "3"),
+                     ids(ListQuery.builder().status("Draft, failed").name("").cron(null).build().apply(ITEMS)));
+        assertEquals(List.of("1", "3"), ids(ListQuery.builder().name("LOAD").build().apply(ITEMS)));
+        ListQuery.Page<TestItem> page = ListQuery.builder().cron(true).status("Running").build().apply(ITEMS);
+        assertEquals(List.of("2", "4"), ids(page));
+        assertEquals(2, page.getTotal());
+    }
+
+    @Test
+    void testSort() {
+        assertEquals(List.of("4", "2", "1", "3"), ids(ListQuery.builder().sort("name").build().apply(ITEMS)));
+        assertEquals(List.of("1", "3", "4", "2"), ids(ListQuery.builder().sort("lastModified").build().apply(ITEMS)));
+        assertEquals(List.of("2", "3", "4", "1"), ids(ListQuery.builder().sort("-startedAt").build().apply(ITEMS)));
+        assertEquals(List.of("1", "3", "2", "4"), ids(ListQuery.builder().sort("status").build().apply(ITEMS)));
+        assertThrows(BadRequestException.class, () -> ListQuery.builder().sort("id").build().apply(ITEMS));
+    }
+
+    @Test
+    void testPages() {
+        List<TestItem> items = new ArrayList<>(ITEMS);
+        ListQuery.Page<TestItem> first = ListQuery.builder().limit(2).build().apply(items);
+        assertEquals(List.of("4", "2"), ids(first), "Pages must be sorted by name by default");
+        assertEquals(4, first.getTotal());
+
+        items.add(new TestItem("5", "aggregate", null, "Draft", null, false));
+        items.remove(1);
+        ListQuery.Page<TestItem> second =
+            ListQuery.builder().limit(2).continueToken(first.getContinueToken()).build().apply(items);
+        assertEquals(List.of("1", "3"), ids(second), "Next page must start after the last item of previous one");
+        assertNull(second.getContinueToken(), "There must be no more pages");
+
+        ListQuery.Page<TestItem> byDate = ListQuery.builder().limit(3).sort("-startedAt").build().apply(ITEMS);
+        assertEquals(List.of("2", "3", "4"), ids(byDate));
+        ListQuery.Page<TestItem> last = ListQuery
+            .builder()
+            .limit(3)
+            .sort("-startedAt")
+            .continueToken(byDate.getContinueToken())
+            .build()
+            .apply(ITEMS);
+        assertEquals(List.of("1"), ids(last), "Items without the sort field must be last");
+
+        ListQuery otherSort = ListQuery.builder().continueToken(first.getContinueToken()).sort("status").build();
+        assertThrows(BadRequestException.class, () -> otherSort.apply(ITEMS));
+        assertThrows(BadRequestException.class,
+                     () -> ListQuery.builder().continueToken("#").build().apply(ITEMS));
+        assertThrows(BadRequestException.class, () -> ListQuery.builder().limit(0).build().apply(ITEMS));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class TestItem implements ListQuery.Item {
+        private final String id;
+        private final String name;
+        private final String lastModified;
+        private final String status;
+        private final String startedAt;
+        private final boolean cron;
+    }
+}
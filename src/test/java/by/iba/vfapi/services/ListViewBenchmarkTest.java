@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.jobs.JobOverviewListDto;
+import by.iba.vfapi.dto.pipelines.PipelineOverviewListDto;
+import by.iba.vfapi.model.argo.DagTemplate;
+import by.iba.vfapi.model.argo.Template;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
+import by.iba.vfapi.model.argo.WorkflowStatus;
+import by.iba.vfapi.model.argo.WorkflowTemplate;
+import by.iba.vfapi.model.argo.WorkflowTemplateSpec;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodStatusBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts kubernetes API calls made to list 200 jobs and 200 pipelines in each view.
+ * Caches are not synced here, so each call of kubernetes service is a request to the API server.
+ */
+@Slf4j
+class ListViewBenchmarkTest {
+    private static final String PROJECT = "project";
+    private static final int ITEMS = 200;
+
+    private static int calls(Object service) {
+        return (int) mockingDetails(service)
+            .getInvocations()
+            .stream()
+            .filter(invocation -> !invocation.getMethod().getName().endsWith("CacheSynced"))
+            .count();
+    }
+
+    private static int listJobs(ListView view) {
+        KubernetesService kubernetesService = mock(KubernetesService.class);
+        List<ConfigMap> configMaps = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            configMaps.add(new ConfigMapBuilder()
+                               .addToData(Constants.JOB_CONFIG_FIELD, "{\"nodes\":[],\"edges\":[]}")
+                               .withNewMetadata()
+                               .withName("job" + i)
+                               .addToLabels(Constants.NAME, "job " + i)
+                               .addToLabels(Constants.RUNNABLE, "false")
+                               .addToAnnotations(Constants.LAST_MODIFIED, "2021-01-01 10:00:00 +0000")
+                               .endMetadata()
+                               .build());
+        }
+        when(kubernetesService.getAllConfigMapsMetadata(PROJECT))
+            .thenReturn(configMaps.stream().map(ConfigMap::getMetadata).collect(Collectors.toList()));
+        when(kubernetesService.findPodStatus(eq(PROJECT), anyString())).thenReturn(Optional.of(new PodStatusBuilder()
+            .withPhase("Running")
+            .withStartTime("2021-01-01T10:00:00Z")
+            .build()));
+        when(kubernetesService.getWorkflowPods(eq(PROJECT), anyString())).thenReturn(List.of(new PodBuilder()
+            .withNewMetadata()
+            .withName("pipeline-pod")
+            .addToLabels(Constants.WORKFLOW_POD_LABEL, "pipeline")
+            .endMetadata()
+            .withNewStatus()
+            .withPhase("Running")
+            .endStatus()
+            .build()));
+        when(kubernetesService.getPodsByLabels(eq(PROJECT), anyMap())).thenReturn(List.of());
+        when(kubernetesService.isAccessible(eq(PROJECT), anyString(), anyString(), anyString())).thenReturn(true);
+        JobService jobService = new JobService("image",
+                                               "master",
+                                               "spark",
+                                               "pullSecret",
+                                               kubernetesService,
+                                               new UsageAggregator(kubernetesService, Duration.ofSeconds(5)),
+                                               null,
+                                               new ParallelCalls(8, 8),
+                                               new DefinitionStore(kubernetesService, 65536),
+                                               new JobGraphCache(ITEMS));
+
+        long start = System.nanoTime();
+        JobOverviewListDto jobs = jobService.getAll(PROJECT, ListQuery.builder().view(view).build());
+        long elapsed = System.nanoTime() - start;
+        int calls = calls(kubernetesService);
+
+        assertEquals(ITEMS, jobs.getJobs().size());
+        LOGGER.info("Listed {} jobs in {} view in {} ms with {} API calls",
+                    ITEMS,
+                    view,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    calls);
+        return calls;
+    }
+
+    private static int listPipelines(ListView view) {
+        ArgoKubernetesService argoKubernetesService = mock(ArgoKubernetesService.class);
+        List<WorkflowTemplate> workflowTemplates = new ArrayList<>(ITEMS);
+        List<WorkflowRuntime> workflows = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            WorkflowTemplate workflowTemplate = new WorkflowTemplate();
+            workflowTemplate.setMetadata(new ObjectMetaBuilder()
+                                             .withName("pipeline" + i)
+                                             .addToLabels(Constants.NAME, "pipeline " + i)
+                                             .addToAnnotations(Constants.LAST_MODIFIED, "2021-01-01 10:00:00 +0000")
+                                             .build());
+            workflowTemplate.setSpec(new WorkflowTemplateSpec().templates(List.of(new Template()
+                                                                                      .name(Constants.DAG_TEMPLATE_NAME)
+                                                                                      .dag(new DagTemplate()))));
+            workflowTemplates.add(workflowTemplate);
+            Workflow workflow = new Workflow();
+            workflow.setMetadata(new ObjectMetaBuilder().withName("pipeline" + i).build());
+            WorkflowStatus status = new WorkflowStatus();
+            status.setStartedAt(DateTime.parse("2021-01-01T10:00:00Z"));
+            status.setPhase("Running");
+            workflow.setStatus(status);
+            workflows.add(WorkflowRuntime.of(workflow));
+        }
+        when(argoKubernetesService.getAllWorkflowTemplates(PROJECT)).thenReturn(workflowTemplates);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata(PROJECT))
+            .thenReturn(workflowTemplates.stream().map(WorkflowTemplate::getMetadata).collect(Collectors.toList()));
+        when(argoKubernetesService.getAllWorkflowRuntimes(PROJECT)).thenReturn(workflows);
+        when(argoKubernetesService.getAllCronWorkflowsMetadata(PROJECT)).thenReturn(List.of());
+        when(argoKubernetesService.isAccessible(eq(PROJECT), anyString(), anyString(), anyString())).thenReturn(true);
+        PipelineService pipelineService = new PipelineService("sparkImage",
+                                                              "sparkMaster",
+                                                              "spark",
+                                                              "pullSecret",
+                                                              "slackImage",
+                                                              argoKubernetesService,
+                                                              null,
+                                                              new DefinitionStore(argoKubernetesService, 65536));
+
+        long start = System.nanoTime();
+        PipelineOverviewListDto pipelines =
+            pipelineService.getAll(PROJECT, ListQuery.builder().view(view).build());
+        long elapsed = System.nanoTime() - start;
+        int calls = calls(argoKubernetesService);
+
+        assertEquals(ITEMS, pipelines.getPipelines().size());
+        LOGGER.info("Listed {} pipelines in {} view in {} ms with {} API calls",
+                    ITEMS,
+                    view,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    calls);
+        return calls;
+    }
+
+    @Test
+    void testJobsApiCalls() {
+        assertEquals(1 + ITEMS + 1, listJobs(ListView.SUMMARY), "Config maps, job pods and edit permission");
+        assertEquals(1 + 2 * ITEMS + 3 + 2,
+                     listJobs(ListView.FULL),
+                     "Summary calls, pipeline pods of each job, usage snapshot and run permission");
+    }
+
+    @Test
+    void testPipelinesApiCalls() {
+        assertEquals(3 + 1, listPipelines(ListView.SUMMARY), "Argo resources and edit permission");
+        assertEquals(3 + 1 + 2,
+                     listPipelines(ListView.FULL),
+                     "Summary calls, templates of the page and run permission");
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures bytes received from the mock server to list 100 jobs and 100 pipelines of 30 stages each, as whole
+ * resources and as metadata only. Responses of the mock server are built the same way the API server builds them
+ * from the same resources.
+ */
+@Slf4j
+class MetadataListBenchmarkTest {
+    private static final ObjectMapper MAPPER = Serialization.jsonMapper();
+    private static final String APP_NAME_LABEL = "vf";
+    private static final String PROJECT = "project";
+    private static final int ITEMS = 100;
+    private static final int STAGES = 30;
+
+    private final KubernetesServer server = new KubernetesServer();
+    private final AtomicLong received = new AtomicLong();
+    private ArgoKubernetesService argoKubernetesService;
+
+    @BeforeEach
+    void setUp() {
+        server.before();
+        DefaultKubernetesClient mockClient = (DefaultKubernetesClient) server.getClient();
+        OkHttpClient httpClient = mockClient.getHttpClient().newBuilder().addNetworkInterceptor(chain -> {
+            Response response = chain.proceed(chain.request());
+            received.addAndGet(response.body().contentLength());
+            return response;
+        }).build();
+        NamespacedKubernetesClient client = new DefaultKubernetesClient(httpClient, mockClient.getConfiguration());
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        UserInfo userInfo = new UserInfo();
+        userInfo.setSuperuser(true);
+        when(authenticationService.getUserInfo()).thenReturn(userInfo);
+        AppNamespaceIndex appNamespaces = new AppNamespaceIndex(client, APP_NAME_LABEL, Duration.ofMinutes(10));
+        argoKubernetesService =
+            new ArgoKubernetesService(client,
+                                      "app",
+                                      APP_NAME_LABEL,
+                                      authenticationService,
+                                      new ServiceAccountCache(client,
+                                                              "app",
+                                                              APP_NAME_LABEL,
+                                                              Duration.ofMinutes(10),
+                                                              100,
+                                                              false,
+                                                              Duration.ofHours(1),
+                                                              "token"),
+                                      new AccessDecisionCache(client,
+                                                              APP_NAME_LABEL,
+                                                              Duration.ofSeconds(30),
+                                                              100,
+                                                              false),
+                                      new JobConfigMapCache(client, APP_NAME_LABEL, Duration.ofMinutes(10)),
+                                      new PodCache(client, appNamespaces, Duration.ofMinutes(10)),
+                                      new ArgoResourceCache(client, appNamespaces, Duration.ofMinutes(10)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.after();
+    }
+
+    private static ObjectNode metadata(ObjectNode resource, String name) {
+        ArrayNode nodes = MAPPER.createArrayNode();
+        for (int i = 0; i < STAGES; i++) {
+            ObjectNode node = nodes.addObject().put("id", "stage-" + i).put("vertex", true).put("parent", "1");
+            node
+                .putObject("value")
+                .put("operation", "TRANSFORM")
+                .put("name", "Stage " + i)
+                .put("statement", "select id, name, created_at from source_" + i + " where id > " + i);
+            node.putObject("geometry").put("x", i * 120).put("y", i * 40).put("width", 200).put("height", 40);
+        }
+        ObjectNode definition = MAPPER.createObjectNode();
+        definition.set("graph", nodes);
+        ObjectNode metadata = resource.putObject("metadata").put("name", name).put("namespace", PROJECT);
+        metadata.put("resourceVersion", "12345").put("uid", "0b1a7e0c-3c1e-4e8e-9c0e-" + name);
+        metadata.putObject("labels").put(Constants.NAME, name).put(Constants.TYPE, Constants.TYPE_JOB);
+        metadata
+            .putObject("annotations")
+            .put(Constants.DEFINITION, DefinitionCodec.encode(definition))
+            .put(Constants.LAST_MODIFIED, "2021-01-01 10:00:00 +0000");
+        return resource;
+    }
+
+    private static ObjectNode configMap(int index) {
+        ObjectNode configMap = metadata(MAPPER.createObjectNode().put("kind", "ConfigMap"), "job" + index);
+        ArrayNode nodes = MAPPER.createArrayNode();
+        for (int i = 0; i < STAGES; i++) {
+            nodes
+                .addObject()
+                .put("id", "stage-" + i)
+                .putObject("value")
+                .put("operation", "TRANSFORM")
+                .put("statement", "select id, name, created_at from source_" + i + " where id > " + i);
+        }
+        ObjectNode jobConfig = MAPPER.createObjectNode();
+        jobConfig.set("nodes", nodes);
+        jobConfig.putArray("edges");
+        configMap
+            .putObject("data")
+            .put(Constants.JOB_CONFIG_FIELD, jobConfig.toString())
+            .put(Constants.DRIVER_MEMORY, "1G")
+            .put(Constants.EXECUTOR_MEMORY, "1G");
+        return configMap;
+    }
+
+    private static ObjectNode workflowTemplate(int index) {
+        ObjectNode workflowTemplate =
+            metadata(MAPPER.createObjectNode().put("kind", "WorkflowTemplate"), "pipeline" + index);
+        ObjectNode spec = workflowTemplate.putObject("spec").put("entrypoint", Constants.DAG_TEMPLATE_NAME);
+        ArrayNode templates = spec.putArray("templates");
+        ObjectNode container = templates
+            .addObject()
+            .put("name", PipelineService.SPARK_TEMPLATE_NAME)
+            .putObject("container")
+            .put("image", "spark:3.0.1");
+        container.putArray("command").add("/opt/spark/work-dir/entrypoint.sh");
+        container.putObject("resources").putObject("limits").put("cpu", "1").put("memory", "2457Mi");
+        ArrayNode tasks = templates
+            .addObject()
+            .put("name", Constants.DAG_TEMPLATE_NAME)
+            .putObject("dag")
+            .putArray("tasks");
+        for (int i = 0; i < STAGES; i++) {
+            ObjectNode task = tasks
+                .addObject()
+                .put("name", "pipeline-" + index + "-task-" + i)
+                .put("template", PipelineService.SPARK_TEMPLATE_NAME)
+                .put("depends", i == 0 ? "" : "pipeline-" + index + "-task-" + (i - 1) + ".Succeeded");
+            ArrayNode parameters = task.putObject("arguments").putArray("parameters");
+            parameters.addObject().put("name", K8sUtils.CONFIGMAP).put("value", "job" + i);
+            parameters.addObject().put("name", Constants.GRAPH_ID).put("value", "stage-" + i);
+        }
+        return workflowTemplate;
+    }
+
+    private static String list(String kind, ArrayNode items) {
+        ObjectNode list = MAPPER.createObjectNode().put("kind", kind);
+        list.set("items", items);
+        return list.toString();
+    }
+
+    private static String metadataList(ArrayNode items) {
+        ArrayNode partial = MAPPER.createArrayNode();
+        items.forEach(item -> partial
+            .addObject()
+            .put("kind", "PartialObjectMetadata")
+            .put("apiVersion", "meta.k8s.io/v1")
+            .set("metadata", item.get("metadata")));
+        return list("PartialObjectMetadataList", partial);
+    }
+
+    private long receivedBy(Runnable list) {
+        received.set(0);
+        list.run();
+        return received.get();
+    }
+
+    @Test
+    void testConfigMapsBytes() {
+        ArrayNode configMaps = MAPPER.createArrayNode();
+        for (int i = 0; i < ITEMS; i++) {
+            configMaps.add(configMap(i));
+        }
+        String path = "/api/v1/namespaces/" + PROJECT + "/configmaps?labelSelector=type%3Djob";
+        server.expect().get().withPath(path).andReturn(HttpURLConnection.HTTP_OK, list("ConfigMapList", configMaps))
+            .once();
+        server.expect().get().withPath(path + "&resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList(configMaps))
+            .once();
+
+        long full = receivedBy(() -> assertEquals(ITEMS, argoKubernetesService.getAllConfigMaps(PROJECT).size()));
+        long metadata =
+            receivedBy(() -> assertEquals(ITEMS, argoKubernetesService.getAllConfigMapsMetadata(PROJECT).size()));
+
+        LOGGER.info("Listed {} job config maps with {} KB as whole resources and with {} KB as metadata",
+                    ITEMS,
+                    full / 1024,
+                    metadata / 1024);
+        assertTrue(metadata * 2 < full, "Metadata must take less than half of the bytes");
+    }
+
+    @Test
+    void testWorkflowTemplatesBytes() {
+        ArrayNode workflowTemplates = MAPPER.createArrayNode();
+        for (int i = 0; i < ITEMS; i++) {
+            workflowTemplates.add(workflowTemplate(i));
+        }
+        String path = "/apis/argoproj.io/v1alpha1/namespaces/" + PROJECT + "/workflowtemplates";
+        server.expect().get().withPath(path)
+            .andReturn(HttpURLConnection.HTTP_OK, list("WorkflowTemplateList", workflowTemplates))
+            .once();
+        server.expect().get().withPath(path + "?resourceVersion=0")
+            .andReturn(HttpURLConnection.HTTP_OK, metadataList(workflowTemplates))
+            .once();
+
+        long full =
+            receivedBy(() -> assertEquals(ITEMS, argoKubernetesService.getAllWorkflowTemplates(PROJECT).size()));
+        long metadata = receivedBy(() -> assertEquals(ITEMS,
+                                                      argoKubernetesService
+                                                          .getAllWorkflowTemplatesMetadata(PROJECT)
+                                                          .size()));
+
+        LOGGER.info("Listed {} workflow templates with {} KB as whole resources and with {} KB as metadata",
+                    ITEMS,
+                    full / 1024,
+                    metadata / 1024);
+        assertTrue(metadata * 2 < full, "Metadata must take less than half of the bytes");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.exceptions.InternalProcessingException;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCallsTest {
+    private static final List<Integer> ITEMS = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+    private final ParallelCalls parallelCalls = new ParallelCalls(8, 4);
+
+    @AfterEach
+    void tearDown() {
+        parallelCalls.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testMap() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> results = parallelCalls.map(ITEMS, (Integer item) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread().getName());
+            sleep(2);
+            running.decrementAndGet();
+            return item * 2;
+        });
+
+        assertEquals(ITEMS.stream().map(item -> item * 2).collect(Collectors.toList()), results);
+        assertTrue(maxRunning.get() > 1, "Calls must run concurrently");
+        assertTrue(maxRunning.get() <= 4, "Calls must not exceed parallelism of the request");
+        assertTrue(threads.contains(Thread.currentThread().getName()), "Caller must make calls too");
+        assertEquals(List.of(), parallelCalls.map(List.of(), item -> item));
+    }
+
+    @Test
+    void testSecurityContext() {
+        SecurityContextHolder.clearContext();
+        AuthenticationService authenticationService = new AuthenticationService();
+        authenticationService.setUserInfo(new UserInfo("id", "name", "user", "email", false));
+
+        List<String> users = parallelCalls.map(ITEMS, item -> authenticationService.getUserInfo().getUsername());
+
+        assertEquals(ITEMS.size(), users.size());
+        assertTrue(users.stream().allMatch("user"::equals), "User must be known to each call");
+    }
+
+    @Test
+    void testFirstFailure() {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            Set<Integer> called = ConcurrentHashMap.newKeySet();
+            IllegalStateException exception =
+                assertThrows(IllegalStateException.class, () -> parallelCalls.map(ITEMS, (Integer item) -> {
+                    called.add(item);
+                    if (item == 7 || item == 9 || item == 30) {
+                        throw new IllegalStateException(String.valueOf(item));
+                    }
+                    sleep(item);
+                    return item;
+                }));
+
+            assertEquals("7", exception.getMessage(), "Failure of the first failed item must be thrown");
+            assertTrue(called.containsAll(ITEMS.subList(0, 7)), "All items before the failed one must be called");
+            assertFalse(called.contains(30), "Items after the failed one must not be started");
+            assertTrue(Arrays
+                           .stream(exception.getSuppressed())
+                           .allMatch(suppressed -> "9".equals(suppressed.getMessage())));
+        }
+    }
+
+    @Test
+    void testInterrupted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch interrupted = new CountDownLatch(3);
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                parallelCalls.map(ITEMS, (Integer item) -> {
+                    started.countDown();
+                    try {
+                        TimeUnit.MINUTES.sleep(1);
+                    } catch (InterruptedException e) {
+                        if (Thread.currentThread().getName().startsWith("parallel-calls")) {
+                            interrupted.countDown();
+                        }
+                        Thread.currentThread().interrupt();
+                    }
+                    return item;
+                });
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+        });
+        caller.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS), "Calls must start");
+
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(caller.isAlive(), "Caller must not wait for interrupted calls");
+        assertTrue(thrown.get() instanceof InternalProcessingException, "Caller must fail");
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS), "Calls in progress must be interrupted");
+    }
+
+    @Test
+    void testStopped() {
+        parallelCalls.stop();
+
+        assertEquals(ITEMS, parallelCalls.map(ITEMS, item -> item), "Caller must make all calls");
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import by.iba.vfapi.model.argo.DagTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures compiling of a pipeline with 2,000 jobs, where each job after the first ten depends on two of
+ * the previous ten jobs on success and the last job depends on all jobs on failure.
+ * The previous implementation, which scanned all arrows for each stage, is kept here as a baseline.
+ */
+@Slf4j
+class PipelineDagCompilerBenchmarkTest {
+    private static final int NODES = 2000;
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 10;
+
+    private static GraphDto graph() {
+        List<GraphDto.NodeDto> nodes = new ArrayList<>(NODES);
+        List<GraphDto.EdgeDto> edges = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new GraphDto.NodeDto(String.valueOf(i), new HashMap<>(Map.of("jobId", "job" + i))));
+            if (i >= 10) {
+                edges.add(edge(i - 10, i, true));
+                edges.add(edge(i - 3, i, true));
+            }
+        }
+        nodes.add(new GraphDto.NodeDto("notification", new HashMap<>(Map.of("addressees", "a", "message", "m"))));
+        for (int i = 0; i < NODES; i++) {
+            edges.add(new GraphDto.EdgeDto(Map.of("successPath", "false"), String.valueOf(i), "notification"));
+        }
+        return new GraphDto(nodes, edges);
+    }
+
+    private static GraphDto.EdgeDto edge(int source, int target, boolean successPath) {
+        return new GraphDto.EdgeDto(Map.of("successPath", String.valueOf(successPath)),
+                                    String.valueOf(source),
+                                    String.valueOf(target));
+    }
+
+    private static GraphDto copy(GraphDto graphDto) {
+        List<GraphDto.NodeDto> nodes = new ArrayList<>(graphDto.getNodes().size());
+        for (GraphDto.NodeDto node : graphDto.getNodes()) {
+            nodes.add(new GraphDto.NodeDto(node.getId(), new HashMap<>(node.getValue())));
+        }
+        List<GraphDto.EdgeDto> edges = new ArrayList<>(graphDto.getEdges().size());
+        for (GraphDto.EdgeDto edge : graphDto.getEdges()) {
+            edges.add(new GraphDto.EdgeDto(edge.getValue(), edge.getSource(), edge.getTarget()));
+        }
+        return new GraphDto(nodes, edges);
+    }
+
+    private static Map<String, String> scanEdges(GraphDto graphDto) {
+        List<GraphDto.NodeDto> nodes = graphDto.getNodes();
+        List<GraphDto.EdgeDto> edges = graphDto.getEdges();
+        for (GraphDto.NodeDto node : nodes) {
+            String id = node.getId();
+            String generatedId = RandomStringUtils.randomAlphabetic(1) + UUID.randomUUID().toString().substring(1);
+            node.setId(generatedId);
+            node.getValue().put(generatedId, id);
+            for (GraphDto.EdgeDto edge : edges) {
+                if (edge.getSource().equals(id)) {
+                    edge.setSource(generatedId);
+                    continue;
+                }
+                if (edge.getTarget().equals(id)) {
+                    edge.setTarget(generatedId);
+                }
+            }
+        }
+        Set<String> failureSources = new HashSet<>();
+        for (GraphDto.EdgeDto edge : edges) {
+            if (!isSuccessPath(edge) && !failureSources.add(edge.getSource())) {
+                throw new BadRequestException("Node can't have more than one failure path");
+            }
+        }
+        Map<String, String> depends = new HashMap<>();
+        for (GraphDto.NodeDto node : nodes) {
+            StringBuilder nodeDepends = new StringBuilder();
+            for (GraphDto.EdgeDto edge : edges) {
+                if (edge.getTarget().equals(node.getId())) {
+                    if (isSuccessPath(edge)) {
+                        nodeDepends.append(String.format(" && %s", edge.getSource()));
+                    } else {
+                        nodeDepends.append(String.format(" || %s.Failed || %s.Errored",
+                                                         edge.getSource(),
+                                                         edge.getSource()));
+                    }
+                }
+            }
+            depends.put(node.getId(), nodeDepends.length() == 0 ? null : nodeDepends.substring(4));
+        }
+        return depends;
+    }
+
+    private static boolean isSuccessPath(GraphDto.EdgeDto edge) {
+        return Boolean.parseBoolean(edge.getValue().get("successPath"));
+    }
+
+    private static long averageNanos(Runnable runnable) {
+        for (int i = 0; i < WARMUP; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    @Test
+    void testCompile() {
+        GraphDto graphDto = graph();
+        DagTemplate dagTemplate = PipelineDagCompiler.compile(graphDto);
+        assertEquals(NODES + 1, dagTemplate.getTasks().size());
+
+        long indexed = averageNanos(() -> PipelineDagCompiler.compile(graphDto));
+        long scanned = averageNanos(() -> scanEdges(copy(graphDto)));
+        LOGGER.info("Compiled {} stages in {} us with index of arrows and in {} us with scans of arrows",
+                    graphDto.getNodes().size(),
+                    TimeUnit.NANOSECONDS.toMicros(indexed),
+                    TimeUnit.NANOSECONDS.toMicros(scanned));
+    }
+}
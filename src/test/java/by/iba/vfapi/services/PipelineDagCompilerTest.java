@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.GraphDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import by.iba.vfapi.model.argo.DagTask;
+import by.iba.vfapi.model.argo.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineDagCompilerTest {
+    private final List<GraphDto.NodeDto> nodes = new ArrayList<>();
+    private final List<GraphDto.EdgeDto> edges = new ArrayList<>();
+
+    private PipelineDagCompilerTest job(String id, String jobId) {
+        nodes.add(new GraphDto.NodeDto(id, Map.of("jobId", jobId)));
+        return this;
+    }
+
+    private PipelineDagCompilerTest notification(String id) {
+        nodes.add(new GraphDto.NodeDto(id, Map.of("addressees", "a b", "message", "done")));
+        return this;
+    }
+
+    private PipelineDagCompilerTest edge(String source, String target, boolean successPath) {
+        edges.add(new GraphDto.EdgeDto(Map.of("successPath", String.valueOf(successPath)), source, target));
+        return this;
+    }
+
+    private Map<String, DagTask> compile() {
+        return PipelineDagCompiler
+            .compile(new GraphDto(nodes, edges))
+            .getTasks()
+            .stream()
+            .collect(Collectors.toMap(PipelineDagCompilerTest::getGraphId, Function.identity()));
+    }
+
+    private static String getGraphId(DagTask task) {
+        return task
+            .getArguments()
+            .getParameters()
+            .stream()
+            .filter(parameter -> Constants.GRAPH_ID.equals(parameter.getName()))
+            .map(Parameter::getValue)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    @Test
+    void testCompile() {
+        job("1", "cm1").job("2", "cm2").job("3", "cm3").notification("4");
+        edge("1", "3", true).edge("2", "3", true).edge("3", "4", false).edge("2", "4", false);
+
+        Map<String, DagTask> tasks = compile();
+
+        String first = tasks.get("1").getName();
+        String second = tasks.get("2").getName();
+        String third = tasks.get("3").getName();
+        assertEquals(4, tasks.values().stream().map(DagTask::getName).distinct().count(), "Names must be unique");
+        assertTrue(tasks.values().stream().allMatch(task -> task.getName().matches("[A-Za-z][0-9a-f-]{35}")),
+                   "Names must start with a letter");
+        assertNull(tasks.get("1").getDepends());
+        assertEquals(first + " && " + second, tasks.get("3").getDepends());
+        assertEquals(third + ".Failed || " + third + ".Errored || " + second + ".Failed || " + second + ".Errored",
+                     tasks.get("4").getDepends());
+        assertEquals(PipelineService.SPARK_TEMPLATE_NAME, tasks.get("3").getTemplate());
+        assertEquals("cm3", tasks.get("3").getArguments().getParameters().get(0).getValue());
+        assertEquals(PipelineService.NOTIFICATION_TEMPLATE_NAME, tasks.get("4").getTemplate());
+        assertEquals("done", tasks.get("4").getArguments().getParameters().get(1).getValue());
+    }
+
+    @Test
+    void testCompileInvalid() {
+        assertThrows(BadRequestException.class,
+                     () -> new PipelineDagCompilerTest().job("1", "cm").job("2", "cm").compile(),
+                     "Job can't be used twice");
+        assertThrows(BadRequestException.class,
+                     () -> new PipelineDagCompilerTest()
+                         .job("1", "cm1")
+                         .job("2", "cm2")
+                         .job("3", "cm3")
+                         .edge("1", "2", false)
+                         .edge("1", "3", false)
+                         .compile(),
+                     "Job can't have two failure paths");
+        assertThrows(BadRequestException.class,
+                     () -> new PipelineDagCompilerTest()
+                         .job("1", "cm1")
+                         .job("2", "cm2")
+                         .job("3", "cm3")
+                         .edge("1", "3", true)
+                         .edge("2", "3", false)
+                         .compile(),
+                     "Job can't have arrows of different types");
+        assertThrows(BadRequestException.class,
+                     () -> new PipelineDagCompilerTest().job("1", "cm1").edge("1", "2", true).compile(),
+                     "Arrow can't refer to missing job");
+    }
+
+    @Test
+    void testCompileCycle() {
+        job("1", "cm1").job("2", "cm2").job("3", "cm3").job("4", "cm4");
+        edge("1", "2", true).edge("2", "3", true).edge("3", "2", true).edge("3", "4", true);
+
+        BadRequestException exception = assertThrows(BadRequestException.class, this::compile);
+        assertEquals("Stages 2, 3 form a cycle", exception.getMessage());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
+import by.iba.vfapi.model.argo.Arguments;
+import by.iba.vfapi.model.argo.DagTask;
+import by.iba.vfapi.model.argo.DagTemplate;
+import by.iba.vfapi.model.argo.NodeStatus;
+import by.iba.vfapi.model.argo.Parameter;
+import by.iba.vfapi.model.argo.Template;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowStatus;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures mapping of node phases to job statuses of a pipeline run with 500 nodes.
+ * The previous implementation, which searched dag tasks for each node, is kept here as a baseline.
+ */
+@Slf4j
+class PipelineServiceBenchmarkTest {
+    private static final int NODES = 500;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 200;
+
+    private static Workflow workflow() {
+        DagTemplate dag = new DagTemplate();
+        Map<String, NodeStatus> nodes = new HashMap<>();
+        for (int i = 0; i < NODES; i++) {
+            dag.addTasksItem(new DagTask()
+                                 .name("task-" + i)
+                                 .template(PipelineService.SPARK_TEMPLATE_NAME)
+                                 .arguments(new Arguments()
+                                                .addParametersItem(new Parameter().name(K8sUtils.CONFIGMAP).value("cm"))
+                                                .addParametersItem(new Parameter()
+                                                                       .name(Constants.GRAPH_ID)
+                                                                       .value(String.valueOf(i)))));
+            NodeStatus pod = new NodeStatus();
+            pod.setDisplayName("task-" + i);
+            pod.setType(Constants.NODE_TYPE_POD);
+            pod.setPhase(i % 2 == 0 ? "Succeeded" : "Running");
+            nodes.put("pipeline-" + i, pod);
+        }
+        NodeStatus dagNode = new NodeStatus();
+        dagNode.setDisplayName("pipeline");
+        dagNode.setType("DAG");
+        nodes.put("pipeline", dagNode);
+
+        WorkflowStatus status = new WorkflowStatus();
+        status.setStartedAt(DateTime.parse("2021-01-01T10:00:00Z"));
+        status.setPhase("Running");
+        status.setNodes(nodes);
+        status.setStoredTemplates(Map.of(Constants.DAG_TEMPLATE_NAME,
+                                         new Template().name(Constants.DAG_TEMPLATE_NAME).dag(dag),
+                                         PipelineService.SPARK_TEMPLATE_NAME,
+                                         new Template().name(PipelineService.SPARK_TEMPLATE_NAME)));
+        Workflow workflow = new Workflow();
+        workflow.setStatus(status);
+        return workflow;
+    }
+
+    private static Map<String, String> searchTasks(WorkflowStatus status) {
+        Map<String, String> statuses = new HashMap<>();
+        for (NodeStatus nodeStatus : status.getNodes().values()) {
+            if (Constants.NODE_TYPE_POD.equals(nodeStatus.getType())) {
+                statuses.putAll(status
+                                    .getStoredTemplates()
+                                    .values()
+                                    .stream()
+                                    .filter(template -> Constants.DAG_TEMPLATE_NAME.equals(template.getName()))
+                                    .flatMap(template -> template.getDag().getTasks().stream())
+                                    .filter(dagTask -> nodeStatus.getDisplayName().equals(dagTask.getName()))
+                                    .flatMap(dagTask -> dagTask.getArguments().getParameters().stream())
+                                    .filter(parameter -> Constants.GRAPH_ID.equals(parameter.getName()))
+                                    .collect(Collectors.toMap(Parameter::getValue,
+                                                              parameter -> nodeStatus.getPhase())));
+            }
+        }
+        return statuses;
+    }
+
+    private static long averageNanos(Runnable runnable) {
+        for (int i = 0; i < WARMUP; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    @Test
+    void testAppendRuntimeInfo() {
+        Workflow workflow = workflow();
+        PipelineOverviewDto dto = new PipelineOverviewDto();
+        PipelineService.appendRuntimeInfo(workflow, dto);
+
+        Map<String, String> expected = searchTasks(workflow.getStatus());
+        assertEquals(NODES, dto.getJobsStatuses().size());
+        assertEquals(expected, dto.getJobsStatuses(), "Statuses must be the same as found by search of tasks");
+
+        long indexed = averageNanos(() -> PipelineService.appendRuntimeInfo(workflow, new PipelineOverviewDto()));
+        long searched = averageNanos(() -> searchTasks(workflow.getStatus()));
+        LOGGER.info("Mapped {} nodes in {} us with index of tasks and in {} us with search of tasks",
+                    NODES,
+                    TimeUnit.NANOSECONDS.toMicros(indexed),
+                    TimeUnit.NANOSECONDS.toMicros(searched));
+    }
+}
@@ -18,6 +18,7 @@
 package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
 import by.iba.vfapi.dto.pipelines.CronPipelineDto;
 import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
 import by.iba.vfapi.dto.pipelines.PipelineOverviewListDto;
@@ -33,6 +34,7 @@ import by.iba.vfapi.model.argo.NodeStatus;
 import by.iba.vfapi.model.argo.Parameter;
 import by.iba.vfapi.model.argo.Template;
 import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
 import by.iba.vfapi.model.argo.WorkflowStatus;
 import by.iba.vfapi.model.argo.WorkflowTemplate;
 import by.iba.vfapi.model.argo.WorkflowTemplateSpec;
@@ -43,9 +45,12 @@ import io.argoproj.workflow.ApiException;
 import io.argoproj.workflow.apis.WorkflowServiceApi;
 import io.argoproj.workflow.models.WorkflowRetryRequest;
 import io.argoproj.workflow.models.WorkflowTerminateRequest;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.client.ResourceNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -59,6 +64,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static by.iba.vfapi.dto.Constants.NODE_TYPE_POD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -119,7 +126,12 @@ class PipelineServiceTest {
                                                    "pullSecret",
                                                    "slackImage",
                                                    argoKubernetesService,
-                                                   apiInstance);
+                                                   apiInstance,
+                                                   new DefinitionStore(argoKubernetesService, 65536));
+    }
+
+    private static List<ObjectMeta> metadata(List<? extends HasMetadata> resources) {
+        return resources.stream().map(HasMetadata::getMetadata).collect(Collectors.toList());
     }
 
     @Test
@@ -137,10 +149,9 @@ class PipelineServiceTest {
 
     @Test
     void testCreateNotUniqueName() {
-        when(argoKubernetesService.getWorkflowTemplatesByLabels("projectId",
-                                                                Map.of(Constants.NAME,
-                                                                       "name"))).thenReturn(List.of(new WorkflowTemplate(),
-                                                                                                    new WorkflowTemplate()));
+        when(argoKubernetesService.getWorkflowTemplatesMetadataByLabels("projectId",
+                                                                        Map.of(Constants.NAME, "name")))
+            .thenReturn(List.of(new ObjectMeta(), new ObjectMeta()));
         assertThrows(BadRequestException.class,
                      () -> pipelineService.create("projectId", "name", GRAPH),
                      "Expected exception must be thrown");
@@ -166,7 +177,7 @@ class PipelineServiceTest {
                                                                                       new DagTask())))));
 
         when(argoKubernetesService.getWorkflowTemplate("projectId", "id")).thenReturn(workflowTemplate);
-        when(argoKubernetesService.getWorkflow("projectId", "id")).thenThrow(ResourceNotFoundException.class);
+        when(argoKubernetesService.getWorkflowRuntime("projectId", "id")).thenThrow(ResourceNotFoundException.class);
         when(argoKubernetesService.isAccessible("projectId",
                                                 "workflowtemplates",
                                                 "argoproj.io",
@@ -211,6 +222,7 @@ class PipelineServiceTest {
                                                                                           .name("name"))))));
         List<WorkflowTemplate> workflowTemplates = List.of(workflowTemplate);
         Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("id1").build());
         WorkflowStatus status = new WorkflowStatus();
         status.setFinishedAt(DateTime.parse("2020-10-27T10:14:46Z"));
         status.setStartedAt(DateTime.parse("2020-10-27T10:14:46Z"));
@@ -256,8 +268,11 @@ class PipelineServiceTest {
         workflow.setStatus(status);
 
         when(argoKubernetesService.getAllWorkflowTemplates("projectId")).thenReturn(workflowTemplates);
-        when(argoKubernetesService.getWorkflow("projectId", "id1")).thenReturn(workflow);
-        when(argoKubernetesService.getCronWorkflow("projectId", "id1")).thenThrow(ResourceNotFoundException.class);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(metadata(workflowTemplates));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId"))
+            .thenReturn(List.of(WorkflowRuntime.of(workflow)));
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId")).thenReturn(List.of());
         when(argoKubernetesService.isAccessible("projectId",
                                                 "workflowtemplates",
                                                 "argoproj.io",
@@ -285,6 +300,80 @@ class PipelineServiceTest {
         assertTrue(pipelines.isEditable(), "Must be true");
     }
 
+    @Test
+    void testGetAllSummary() {
+        WorkflowTemplate workflowTemplate = new WorkflowTemplate();
+        workflowTemplate.setMetadata(new ObjectMetaBuilder()
+                                         .withName("id1")
+                                         .addToLabels(Constants.NAME, "name1")
+                                         .addToAnnotations(Constants.LAST_MODIFIED, "lastModified")
+                                         .build());
+        Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("id1").build());
+        WorkflowStatus status = new WorkflowStatus();
+        status.setStartedAt(DateTime.parse("2020-10-27T10:14:46Z"));
+        status.setPhase("Failed");
+        workflow.setStatus(status);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(List.of(workflowTemplate.getMetadata()));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId"))
+            .thenReturn(List.of(WorkflowRuntime.of(workflow)));
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.isAccessible("projectId",
+                                                "workflowtemplates",
+                                                "argoproj.io",
+                                                Constants.UPDATE_ACTION)).thenReturn(true);
+
+        PipelineOverviewListDto pipelines =
+            pipelineService.getAll("projectId", ListQuery.builder().view(ListView.SUMMARY).build());
+
+        PipelineOverviewDto expected = new PipelineOverviewDto()
+            .id("id1")
+            .name("name1")
+            .lastModified("lastModified")
+            .startedAt("2020-10-27 10:14:46 +0000")
+            .status("Error");
+        assertEquals(expected, pipelines.getPipelines().get(0), "Pipeline must be equals to expected");
+        verify(argoKubernetesService, never()).isAccessible("projectId",
+                                                            "workflows",
+                                                            "argoproj.io",
+                                                            Constants.CREATE_ACTION);
+    }
+
+    @Test
+    void testGetAllPageReadsOnlyItsTemplates() {
+        List<WorkflowTemplate> workflowTemplates = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            WorkflowTemplate workflowTemplate = new WorkflowTemplate();
+            workflowTemplate.setMetadata(new ObjectMetaBuilder()
+                                             .withName("id" + i)
+                                             .addToLabels(Constants.NAME, "name" + i)
+                                             .addToAnnotations(Constants.LAST_MODIFIED, "lastModified")
+                                             .build());
+            workflowTemplate.setSpec(new WorkflowTemplateSpec().templates(List.of(new Template()
+                                                                                      .name(Constants.DAG_TEMPLATE_NAME)
+                                                                                      .dag(new DagTemplate()))));
+            workflowTemplates.add(workflowTemplate);
+        }
+        when(argoKubernetesService.isArgoCacheSynced()).thenReturn(true);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(metadata(workflowTemplates));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.getWorkflowTemplate("projectId", "id1")).thenReturn(workflowTemplates.get(0));
+        when(argoKubernetesService.isAccessible(eq("projectId"), anyString(), eq("argoproj.io"), anyString()))
+            .thenReturn(true);
+
+        PipelineOverviewListDto pipelines =
+            pipelineService.getAll("projectId", ListQuery.builder().limit(1).sort("name").build());
+
+        assertEquals(List.of("id1"),
+                     pipelines.getPipelines().stream().map(PipelineOverviewDto::getId).collect(Collectors.toList()));
+        assertEquals(3, pipelines.getTotal());
+        verify(argoKubernetesService).getWorkflowTemplate(anyString(), anyString());
+        verify(argoKubernetesService, never()).getAllWorkflowTemplates(anyString());
+    }
+
     @Test
     void testGetAllInProjectCron() {
         WorkflowTemplate workflowTemplate = new WorkflowTemplate();
@@ -311,7 +400,9 @@ class PipelineServiceTest {
 
         List<WorkflowTemplate> workflowTemplates = List.of(workflowTemplate);
         Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("id1").build());
         CronWorkflow cronWorkflow = new CronWorkflow();
+        cronWorkflow.setMetadata(new ObjectMetaBuilder().withName("id1").build());
         WorkflowStatus status = new WorkflowStatus();
         status.setFinishedAt(DateTime.parse("2020-10-27T10:14:46Z"));
         status.setStartedAt(DateTime.parse("2020-10-27T10:14:46Z"));
@@ -357,8 +448,12 @@ class PipelineServiceTest {
         workflow.setStatus(status);
 
         when(argoKubernetesService.getAllWorkflowTemplates("projectId")).thenReturn(workflowTemplates);
-        when(argoKubernetesService.getWorkflow("projectId", "id1")).thenReturn(workflow);
-        when(argoKubernetesService.getCronWorkflow("projectId", "id1")).thenReturn(cronWorkflow);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(metadata(workflowTemplates));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId"))
+            .thenReturn(List.of(WorkflowRuntime.of(workflow)));
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId"))
+            .thenReturn(List.of(cronWorkflow.getMetadata()));
         when(argoKubernetesService.isAccessible("projectId",
                                                 "workflowtemplates",
                                                 "argoproj.io",
@@ -402,8 +497,10 @@ class PipelineServiceTest {
         List<WorkflowTemplate> workflowTemplates = List.of(workflowTemplate);
 
         when(argoKubernetesService.getAllWorkflowTemplates("projectId")).thenReturn(workflowTemplates);
-        when(argoKubernetesService.getWorkflow("projectId", "id1")).thenThrow(ResourceNotFoundException.class);
-        when(argoKubernetesService.getCronWorkflow("projectId", "id1")).thenThrow(ResourceNotFoundException.class);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(metadata(workflowTemplates));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId")).thenReturn(List.of());
         when(argoKubernetesService.isAccessible("projectId",
                                                 "workflowtemplates",
                                                 "argoproj.io",
@@ -431,6 +528,7 @@ class PipelineServiceTest {
     void testGetAllInProjectWithoutWorkflowCron() {
         WorkflowTemplate workflowTemplate = new WorkflowTemplate();
         CronWorkflow cronWorkflow = new CronWorkflow();
+        cronWorkflow.setMetadata(new ObjectMetaBuilder().withName("id1").build());
         workflowTemplate.setMetadata(new ObjectMetaBuilder()
                                          .withName("id1")
                                          .addToLabels(Constants.NAME, "name1")
@@ -445,8 +543,11 @@ class PipelineServiceTest {
         List<WorkflowTemplate> workflowTemplates = List.of(workflowTemplate);
 
         when(argoKubernetesService.getAllWorkflowTemplates("projectId")).thenReturn(workflowTemplates);
-        when(argoKubernetesService.getWorkflow("projectId", "id1")).thenThrow(ResourceNotFoundException.class);
-        when(argoKubernetesService.getCronWorkflow("projectId", "id1")).thenReturn(cronWorkflow);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(metadata(workflowTemplates));
+        when(argoKubernetesService.getAllWorkflowRuntimes("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId"))
+            .thenReturn(List.of(cronWorkflow.getMetadata()));
         when(argoKubernetesService.isAccessible("projectId",
                                                 "workflowtemplates",
                                                 "argoproj.io",
@@ -470,8 +571,56 @@ class PipelineServiceTest {
         assertTrue(pipelines.isEditable(), "Must be true");
     }
 
+    @Test
+    void testGetAllTag() {
+        WorkflowTemplate workflowTemplate = new WorkflowTemplate();
+        workflowTemplate.setMetadata(new ObjectMetaBuilder().withName("id1").withResourceVersion("1").build());
+        Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("id1").withResourceVersion("2").build());
+        when(argoKubernetesService.isArgoCacheSynced()).thenReturn(false, true);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId"))
+            .thenReturn(List.of(workflowTemplate.getMetadata()));
+        when(argoKubernetesService.getAllWorkflowsMetadata("projectId"))
+            .thenReturn(List.of(), List.of(workflow.getMetadata()));
+        when(argoKubernetesService.getAllCronWorkflowsMetadata("projectId")).thenReturn(List.of());
+        when(argoKubernetesService.isAccessible("projectId", "workflows", "argoproj.io", Constants.CREATE_ACTION))
+            .thenReturn(true);
+        when(argoKubernetesService.isAccessible("projectId",
+                                                "workflowtemplates",
+                                                "argoproj.io",
+                                                Constants.UPDATE_ACTION)).thenReturn(true);
+
+        assertNull(pipelineService.getAllTag("projectId", ListView.FULL),
+                   "Tag must be unknown until pipelines are cached");
+        String tag = pipelineService.getAllTag("projectId", ListView.FULL);
+        assertNotEquals(tag,
+                        pipelineService.getAllTag("projectId", ListView.FULL),
+                        "Tag must change when pipeline runs");
+        workflow.getMetadata().setResourceVersion("3");
+        String running = pipelineService.getAllTag("projectId", ListView.FULL);
+        workflow.getMetadata().setResourceVersion("2");
+        assertNotEquals(running,
+                        pipelineService.getAllTag("projectId", ListView.FULL),
+                        "Tag must change with workflow");
+        assertNotEquals(pipelineService.getAllTag("projectId", ListView.FULL),
+                        pipelineService.getAllTag("projectId", ListView.SUMMARY),
+                        "Tag must change with view");
+        verify(argoKubernetesService, never()).getAllWorkflowTemplates(anyString());
+        verify(argoKubernetesService, never()).getAllWorkflows(anyString());
+        verify(argoKubernetesService, never()).getAllCronWorkflows(anyString());
+    }
+
     @Test
     void testUpdate() {
+        String blob = DefinitionCodec.BLOB_PREFIX + "a".repeat(64);
+        WorkflowTemplate previous = new WorkflowTemplate();
+        previous.setMetadata(new ObjectMetaBuilder()
+                                 .withName("id")
+                                 .addToAnnotations(Constants.DEFINITION, blob)
+                                 .build());
+        when(argoKubernetesService.getWorkflowTemplate("projectId", "id")).thenReturn(previous);
+        ObjectMeta copy = new ObjectMetaBuilder().withName("copy").addToAnnotations(Constants.DEFINITION, blob).build();
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId")).thenReturn(List.of(copy));
         doNothing()
             .when(argoKubernetesService)
             .createOrReplaceWorkflowTemplate(eq("projectId"), any(WorkflowTemplate.class));
@@ -479,10 +628,18 @@ class PipelineServiceTest {
         pipelineService.update("projectId", "id", GRAPH, "newName");
 
         verify(argoKubernetesService).createOrReplaceWorkflowTemplate(anyString(), any(WorkflowTemplate.class));
+        verify(argoKubernetesService, never()).deleteConfigMap(anyString(), anyString());
     }
 
     @Test
     void testDelete() {
+        WorkflowTemplate previous = new WorkflowTemplate();
+        previous.setMetadata(new ObjectMetaBuilder()
+                                 .withName("id")
+                                 .addToAnnotations(Constants.DEFINITION, DefinitionCodec.BLOB_PREFIX + "a".repeat(64))
+                                 .build());
+        when(argoKubernetesService.getWorkflowTemplate("projectId", "id")).thenReturn(previous);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata("projectId")).thenReturn(List.of());
         doNothing().when(argoKubernetesService).deleteWorkflowTemplate("projectId", "id");
         doNothing().when(argoKubernetesService).deleteWorkflow("projectId", "id");
 
@@ -490,6 +647,8 @@ class PipelineServiceTest {
 
         verify(argoKubernetesService).deleteWorkflowTemplate("projectId", "id");
         verify(argoKubernetesService).deleteWorkflow("projectId", "id");
+        verify(argoKubernetesService).deleteConfigMap("projectId",
+                                                      DefinitionStore.BLOB_NAME_PREFIX + "a".repeat(64));
     }
 
     @Test
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PodCacheTest {
+    private static final String APP_NAME_LABEL = "testApp";
+
+    private final KubernetesServer server = new KubernetesServer(true, true);
+    private AppNamespaceIndex appNamespaces;
+    private PodCache podCache;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        server.before();
+        NamespacedKubernetesClient client = server.getClient();
+        client.namespaces().create(namespace("vf-1", Map.of(K8sUtils.APP, APP_NAME_LABEL)));
+        client.namespaces().create(namespace("foreign", Map.of()));
+        client.pods().inNamespace("vf-1").create(pod("vf-1", "job1", Map.of(Constants.JOB_ID_LABEL, "job1")));
+        client
+            .pods()
+            .inNamespace("vf-1")
+            .create(pod("vf-1",
+                        "job1-exec-1",
+                        Map.of(Constants.JOB_ID_LABEL,
+                               "job1",
+                               Constants.SPARK_ROLE_LABEL,
+                               Constants.SPARK_ROLE_EXEC,
+                               Constants.PIPELINE_JOB_ID_LABEL,
+                               Constants.NOT_PIPELINE_FLAG)));
+        client
+            .pods()
+            .inNamespace("vf-1")
+            .create(pod("vf-1",
+                        "pipeline1-1",
+                        Map.of(Constants.JOB_ID_LABEL, "job1", Constants.WORKFLOW_POD_LABEL, "pipeline1")));
+        client.pods().inNamespace("vf-1").create(pod("vf-1", "other", Map.of("app", "other")));
+        client
+            .pods()
+            .inNamespace("foreign")
+            .create(pod("foreign", "job1", Map.of(Constants.JOB_ID_LABEL, "job1")));
+
+        appNamespaces = new AppNamespaceIndex(client, APP_NAME_LABEL, Duration.ofMinutes(10));
+        appNamespaces.start();
+        podCache = new PodCache(client, appNamespaces, Duration.ofMinutes(10));
+        podCache.start();
+        awaitSynced();
+    }
+
+    private void awaitSynced() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!podCache.isSynced() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(podCache.isSynced(), "Cache must be synced");
+    }
+
+    @AfterEach
+    void tearDown() {
+        podCache.stop();
+        appNamespaces.stop();
+        server.after();
+    }
+
+    private static Namespace namespace(String name, Map<String, String> labels) {
+        return new NamespaceBuilder().withNewMetadata().withName(name).addToLabels(labels).endMetadata().build();
+    }
+
+    private static Pod pod(String namespace, String name, Map<String, String> labels) {
+        return new PodBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withNamespace(namespace)
+            .addToLabels(labels)
+            .endMetadata()
+            .withNewStatus()
+            .withPhase("Running")
+            .endStatus()
+            .build();
+    }
+
+    private static List<String> names(List<Pod> pods) {
+        return pods.stream().map(pod -> pod.getMetadata().getName()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void testIndexes() {
+        assertNull(podCache.get("vf-1", "other"), "Pods without jobId must not be cached");
+        assertEquals(List.of("job1", "job1-exec-1", "pipeline1-1"),
+                     names(podCache.getByLabels("vf-1", Map.of(Constants.JOB_ID_LABEL, "job1"))));
+        assertEquals(List.of("job1-exec-1"),
+                     names(podCache.getByLabels("vf-1",
+                                                Map.of(Constants.JOB_ID_LABEL,
+                                                       "job1",
+                                                       Constants.SPARK_ROLE_LABEL,
+                                                       Constants.SPARK_ROLE_EXEC))));
+        assertEquals(List.of("pipeline1-1"),
+                     names(podCache.getByLabels("vf-1", Map.of(Constants.WORKFLOW_POD_LABEL, "pipeline1"))));
+        assertEquals(List.of(), podCache.getByLabels("vf-2", Map.of(Constants.JOB_ID_LABEL, "job1")));
+        assertNull(podCache.get("foreign", "job1"), "Pods of other namespaces must not be served");
+    }
+
+    @Test
+    void testNamespaceAddedLater() throws InterruptedException {
+        List<String> added = new CopyOnWriteArrayList<>();
+        podCache.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(Pod pod) {
+                added.add(pod.getMetadata().getNamespace() + '/' + pod.getMetadata().getName());
+            }
+
+            @Override
+            public void onUpdate(Pod oldPod, Pod newPod) {
+                // only additions are checked
+            }
+
+            @Override
+            public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+                // only additions are checked
+            }
+        });
+        NamespacedKubernetesClient client = server.getClient();
+        client.namespaces().create(namespace("vf-2", Map.of(K8sUtils.APP, APP_NAME_LABEL)));
+        client.pods().inNamespace("vf-2").create(pod("vf-2", "job2", Map.of(Constants.JOB_ID_LABEL, "job2")));
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (podCache.get("vf-2", "job2") == null && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        awaitSynced();
+        assertEquals("job2", podCache.get("vf-2", "job2").getMetadata().getName());
+        assertTrue(added.contains("vf-2/job2"), "Handlers must receive pods of new namespaces");
+    }
+
+    @Test
+    void testGetReturnsCopy() {
+        podCache.get("vf-1", "job1").getStatus().setPhase("Failed");
+        podCache
+            .getByLabels("vf-1", Map.of(Constants.JOB_ID_LABEL, "job1"))
+            .forEach(pod -> pod.getMetadata().getLabels().clear());
+
+        Pod pod = podCache.get("vf-1", "job1");
+        assertEquals("Running", pod.getStatus().getPhase());
+        assertEquals("job1", pod.getMetadata().getLabels().get(Constants.JOB_ID_LABEL));
+    }
+
+    @Test
+    void testKubernetesServiceReadsFromCache() {
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "admin", "email", true));
+        KubernetesService kubernetesService = new KubernetesService(server.getClient(),
+                                                                    "vf",
+                                                                    "testApp",
+                                                                    authenticationService,
+                                                                    null,
+                                                                    null,
+                                                                    null,
+                                                                    podCache);
+        int requests = server.getMockServer().getRequestCount();
+
+        assertEquals("Running", kubernetesService.findPodStatus("vf-1", "job1").map(s -> s.getPhase()).orElse(null));
+        assertEquals(Optional.empty(), kubernetesService.findPodStatus("vf-1", "job2"));
+        assertEquals(List.of("pipeline1-1"), names(kubernetesService.getWorkflowPods("vf-1", "job1")));
+        Map<String, String> executors = new HashMap<>(Map.of(Constants.JOB_ID_LABEL, "job1"));
+        executors.put(Constants.SPARK_ROLE_LABEL, Constants.SPARK_ROLE_EXEC);
+        assertEquals(List.of("job1-exec-1"), names(kubernetesService.getPodsByLabels("vf-1", executors)));
+        assertEquals(requests, server.getMockServer().getRequestCount(), "Reads must not call kubernetes");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectEventBrokerTest {
+    private static final Pattern ID = Pattern.compile("id:(\\d+)");
+    private static final Pattern NAME = Pattern.compile("event:(\\w+)");
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ProjectEventBroker broker = new ProjectEventBroker(Duration.ofMinutes(1),
+                                                                       Duration.ofMinutes(1),
+                                                                       2,
+                                                                       3) {
+        @Override
+        SseEmitter createEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    private static void await(RecordingEmitter emitter, int events) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (emitter.sent.size() < events && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(events, emitter.sent.size(), "Unexpected number of sent events");
+    }
+
+    private static String group(Pattern pattern, String event) {
+        Matcher matcher = pattern.matcher(event);
+        assertTrue(matcher.find(), "Event must match " + pattern);
+        return matcher.group(1);
+    }
+
+    private static List<String> names(RecordingEmitter emitter) {
+        return emitter.sent.stream().map(event -> group(NAME, event)).collect(Collectors.toList());
+    }
+
+    @Test
+    void testPublishAndResume() throws InterruptedException {
+        broker.subscribe("vf-1", null);
+        RecordingEmitter first = emitters.get(0);
+        assertTrue(broker.hasSubscribers("vf-1"));
+        assertFalse(broker.hasSubscribers("vf-2"));
+
+        broker.publish("vf-1", "job", "job/1", "first");
+        broker.publish("vf-1", "job", "job/2", "second");
+        broker.publish("vf-1", "pipeline", "pipeline/1", "third");
+        broker.publish("vf-2", "job", "job/3", "other");
+        await(first, 3);
+        assertEquals(List.of("job", "job", "pipeline"), names(first));
+        long firstId = Long.parseLong(group(ID, first.sent.get(0)));
+        long secondId = Long.parseLong(group(ID, first.sent.get(1)));
+
+        broker.subscribe("vf-1", secondId);
+        RecordingEmitter resumed = emitters.get(1);
+        await(resumed, 1);
+        assertTrue(resumed.sent.get(0).contains("third"), "Only missed events must be replayed");
+
+        broker.subscribe("vf-1", firstId - 1);
+        RecordingEmitter lost = emitters.get(2);
+        await(lost, 1);
+        assertEquals(List.of(ProjectEventBroker.RESET_EVENT), names(lost));
+        assertTrue(lost.completed, "Connection must be closed after reset");
+    }
+
+    @Test
+    void testSlowSubscriber() throws InterruptedException {
+        broker.subscribe("vf-1", null);
+        RecordingEmitter slow = emitters.get(0);
+        slow.blocked = new CountDownLatch(1);
+
+        broker.publish("vf-1", "job", "job/1", "first");
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (slow.sending.getCount() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        broker.publish("vf-1", "job", "job/2", "second");
+        broker.publish("vf-1", "job", "job/2", "second updated");
+        broker.publish("vf-1", "job", "job/3", "third");
+        broker.publish("vf-1", "job", "job/4", "fourth");
+        assertFalse(slow.completed, "Queue with coalesced events must not overflow");
+        broker.publish("vf-1", "job", "job/5", "fifth");
+        slow.blocked.countDown();
+
+        await(slow, 2);
+        assertEquals(List.of("job", ProjectEventBroker.RESET_EVENT), names(slow));
+        assertTrue(slow.completed, "Slow subscriber must be disconnected");
+    }
+
+    /**
+     * Emitter recording sent events.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile CountDownLatch blocked = new CountDownLatch(0);
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(builder
+                         .build()
+                         .stream()
+                         .map(data -> String.valueOf(data.getData()))
+                         .collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
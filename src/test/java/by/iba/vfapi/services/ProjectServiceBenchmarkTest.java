@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.config.CustomNamespaceAnnotationsConfig;
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.projects.ProjectOverviewListDto;
+import by.iba.vfapi.model.auth.UserInfo;
+import by.iba.vfapi.services.auth.AuthenticationService;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceListBuilder;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBindingList;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleBindingListBuilder;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleList;
+import io.fabric8.kubernetes.api.model.rbac.ClusterRoleListBuilder;
+import io.fabric8.kubernetes.api.model.rbac.PolicyRule;
+import io.fabric8.kubernetes.api.model.rbac.PolicyRuleBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBinding;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBindingListBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleBuilder;
+import io.fabric8.kubernetes.api.model.rbac.RoleListBuilder;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures project listing of a regular user on a cluster with 1000 projects.
+ * Access is granted to the service account of the user directly, to its user name and to its groups, by cluster
+ * roles and by roles. Access reviews are counted here instead of being sent to the mock server.
+ */
+@Slf4j
+class ProjectServiceBenchmarkTest {
+    private static final String APP_NAME = "vf";
+    private static final String APP_NAME_LABEL = "testApp";
+    private static final int PROJECTS = 1000;
+    private static final int USER_PROJECTS_STEP = 10;
+    private static final String RBAC_PATH = "/apis/rbac.authorization.k8s.io/v1/";
+
+    private final KubernetesServer server = new KubernetesServer(true, false);
+    private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+    private final AtomicInteger reviews = new AtomicInteger();
+    private RoleBindingIndex roleBindingIndex;
+    private ProjectService projectService;
+
+    @BeforeEach
+    void setUp() {
+        server.before();
+        NamespaceListBuilder namespaces = new NamespaceListBuilder();
+        RoleBindingListBuilder roleBindings = new RoleBindingListBuilder()
+            .withMetadata(new ListMetaBuilder().withResourceVersion("1").build());
+        RoleListBuilder roles = new RoleListBuilder()
+            .withMetadata(new ListMetaBuilder().withResourceVersion("1").build());
+        for (int i = 0; i < PROJECTS; i++) {
+            String namespace = "vf-project-" + i;
+            namespaces.addToItems(new NamespaceBuilder()
+                                      .withNewMetadata()
+                                      .withName(namespace)
+                                      .addToLabels(K8sUtils.APP, APP_NAME_LABEL)
+                                      .addToAnnotations(Constants.DESCRIPTION_FIELD, "description")
+                                      .endMetadata()
+                                      .withNewStatus()
+                                      .withPhase("Active")
+                                      .endStatus()
+                                      .build());
+            switch (i % USER_PROJECTS_STEP) {
+                case 0:
+                    roleBindings.addToItems(getRoleBinding(namespace,
+                                                           "ServiceAccount",
+                                                           "user",
+                                                           "ClusterRole",
+                                                           "vf-viewer"));
+                    break;
+                case 1:
+                    roleBindings.addToItems(getRoleBinding(namespace,
+                                                           "Group",
+                                                           "system:serviceaccounts:" + APP_NAME,
+                                                           "Role",
+                                                           "project-viewer"));
+                    roles.addToItems(new RoleBuilder()
+                                         .withNewMetadata()
+                                         .withName("project-viewer")
+                                         .withNamespace(namespace)
+                                         .endMetadata()
+                                         .withRules(getViewRule())
+                                         .build());
+                    break;
+                case 2:
+                    roleBindings.addToItems(getRoleBinding(namespace,
+                                                           "User",
+                                                           "system:serviceaccount:" + APP_NAME + ":user",
+                                                           "ClusterRole",
+                                                           "vf-viewer"));
+                    break;
+                case 3:
+                    roleBindings.addToItems(getRoleBinding(namespace,
+                                                           "ServiceAccount",
+                                                           "user",
+                                                           "ClusterRole",
+                                                           "pod-reader"));
+                    break;
+                case 4:
+                    roleBindings.addToItems(getRoleBinding(namespace,
+                                                           "ServiceAccount",
+                                                           "other",
+                                                           "ClusterRole",
+                                                           "vf-viewer"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        ClusterRoleBindingList clusterRoleBindings = new ClusterRoleBindingListBuilder()
+            .withMetadata(new ListMetaBuilder().withResourceVersion("1").build())
+            .addNewItem()
+            .withNewMetadata()
+            .withName("authenticated-pod-reader")
+            .endMetadata()
+            .addNewSubject()
+            .withKind("Group")
+            .withName("system:authenticated")
+            .endSubject()
+            .withNewRoleRef()
+            .withKind("ClusterRole")
+            .withName("pod-reader")
+            .endRoleRef()
+            .endItem()
+            .build();
+        ClusterRoleList clusterRoles = new ClusterRoleListBuilder()
+            .withMetadata(new ListMetaBuilder().withResourceVersion("1").build())
+            .addNewItem()
+            .withNewMetadata()
+            .withName("vf-viewer")
+            .endMetadata()
+            .withRules(getViewRule())
+            .endItem()
+            .addNewItem()
+            .withNewMetadata()
+            .withName("pod-reader")
+            .endMetadata()
+            .addNewRule()
+            .withApiGroups("")
+            .withResources("pods")
+            .withVerbs("get", "list")
+            .endRule()
+            .endItem()
+            .build();
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces?labelSelector=app%3DtestApp")
+            .andReturn(HttpURLConnection.HTTP_OK, namespaces.build())
+            .always();
+        expectInformer("rolebindings", roleBindings.build());
+        expectInformer("clusterrolebindings", clusterRoleBindings);
+        expectInformer("roles", roles.build());
+        expectInformer("clusterroles", clusterRoles);
+        NamespacedKubernetesClient client = server.getClient();
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "user", "email", false));
+
+        roleBindingIndex = new RoleBindingIndex(client, APP_NAME, Duration.ofMinutes(10));
+        KubernetesService kubernetesService = new KubernetesService(client,
+                                                                    APP_NAME,
+                                                                    APP_NAME_LABEL,
+                                                                    authenticationService,
+                                                                    null,
+                                                                    null,
+                                                                    null,
+                                                                    null) {
+            @Override
+            public boolean isViewable(Namespace resource) {
+                reviews.incrementAndGet();
+                return false;
+            }
+        };
+        projectService = new ProjectService(kubernetesService,
+                                            "vf-",
+                                            "imagePullSecret",
+                                            "spark",
+                                            "spark-edit",
+                                            APP_NAME,
+                                            new CustomNamespaceAnnotationsConfig(),
+                                            authenticationService,
+                                            roleBindingIndex,
+                                            null,
+                                            null);
+    }
+
+    private void expectInformer(String resource, Object list) {
+        server.expect().get().withPath(RBAC_PATH + resource).andReturn(HttpURLConnection.HTTP_OK, list).once();
+        server
+            .expect()
+            .withPath(RBAC_PATH + resource + "?resourceVersion=1&watch=true")
+            .andUpgradeToWebSocket()
+            .open()
+            .done()
+            .always();
+    }
+
+    private static RoleBinding getRoleBinding(
+        String namespace, String subjectKind, String subjectName, String roleKind, String roleName) {
+        return new RoleBindingBuilder()
+            .withNewMetadata()
+            .withName(subjectName.replace(':', '-') + "-" + roleName)
+            .withNamespace(namespace)
+            .endMetadata()
+            .addNewSubject()
+            .withKind(subjectKind)
+            .withName(subjectName)
+            .withNamespace("ServiceAccount".equals(subjectKind) ? APP_NAME : null)
+            .endSubject()
+            .withNewRoleRef()
+            .withKind(roleKind)
+            .withName(roleName)
+            .endRoleRef()
+            .build();
+    }
+
+    private static PolicyRule getViewRule() {
+        return new PolicyRuleBuilder().withApiGroups("").withResources("namespaces").withVerbs("get").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        roleBindingIndex.stop();
+        server.after();
+    }
+
+    @Test
+    void testGetAllThousandProjects() throws InterruptedException {
+        roleBindingIndex.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!roleBindingIndex.isSynced() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(roleBindingIndex.isSynced(), "Index must be synced");
+
+        int requestsBefore = server.getMockServer().getRequestCount();
+        long start = System.nanoTime();
+        ProjectOverviewListDto projects = projectService.getAll();
+        long elapsed = System.nanoTime() - start;
+        int requests = server.getMockServer().getRequestCount() - requestsBefore;
+
+        LOGGER.info("Listed {} of {} projects in {} ms with {} API calls and {} access reviews",
+                    projects.getProjects().size(),
+                    PROJECTS,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    requests,
+                    reviews.get());
+        assertEquals(3 * PROJECTS / USER_PROJECTS_STEP, projects.getProjects().size());
+        assertEquals(1, requests, "Only namespaces must be listed");
+        assertEquals(0, reviews.get(), "Access must be resolved from the index");
+    }
+}
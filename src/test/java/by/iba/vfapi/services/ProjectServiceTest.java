@@ -20,6 +20,7 @@ package by.iba.vfapi.services;
 import by.iba.vfapi.config.CustomNamespaceAnnotationsConfig;
 import by.iba.vfapi.dto.Constants;
 import by.iba.vfapi.dto.ResourceUsageDto;
+import by.iba.vfapi.dto.UsageHistoryDto;
 import by.iba.vfapi.dto.projects.AccessTableDto;
 import by.iba.vfapi.dto.projects.ParamDto;
 import by.iba.vfapi.dto.projects.ParamsDto;
@@ -49,14 +50,20 @@ import io.fabric8.kubernetes.api.model.rbac.RoleBindingBuilder;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -71,6 +78,12 @@ class ProjectServiceTest {
     private KubernetesService kubernetesService;
     @Mock
     private AuthenticationService authenticationService;
+    @Mock
+    private RoleBindingIndex roleBindingIndex;
+    @Mock
+    private UsageHistory usageHistory;
+    @Mock
+    private ProjectEventBroker projectEventBroker;
 
     private ProjectService projectService;
 
@@ -83,7 +96,10 @@ class ProjectServiceTest {
                                             "spark-edit",
                                             "vf",
                                             new CustomNamespaceAnnotationsConfig(),
-                                            authenticationService);
+                                            authenticationService,
+                                            roleBindingIndex,
+                                            usageHistory,
+                                            projectEventBroker);
     }
 
 
@@ -221,11 +237,12 @@ class ProjectServiceTest {
             .build();
         when(kubernetesService.getNamespaces()).thenReturn(List.of(namespace));
         when(kubernetesService.isViewable(namespace)).thenReturn(true);
+        when(roleBindingIndex.isSynced()).thenReturn(false);
         when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id",
                                                                           "name",
                                                                           "username",
                                                                           "email",
-                                                                          true));
+                                                                          false));
 
         ProjectOverviewListDto result = projectService.getAll();
 
@@ -233,13 +250,83 @@ class ProjectServiceTest {
         assertEquals(ProjectOverviewListDto
                          .builder()
                          .projects(List.of(ProjectOverviewDto.fromNamespace(namespace)))
-                         .editable(true)
+                         .editable(false)
                          .build(), result, "Project must be equals to expected");
         verify(kubernetesService).getNamespaces();
         verify(kubernetesService).isViewable(namespace);
         verify(authenticationService).getUserInfo();
     }
 
+    @Test
+    void testGetAllFromIndex() {
+        Namespace visible = new NamespaceBuilder()
+            .withStatus(new NamespaceStatusBuilder().withNewPhase("Active").build())
+            .withNewMetadata()
+            .withName(PROJECT_ID)
+            .addToAnnotations(Constants.DESCRIPTION_FIELD, "description")
+            .endMetadata()
+            .build();
+        Namespace hidden = new NamespaceBuilder(visible).editMetadata().withName("vf-other").endMetadata().build();
+        Namespace terminating = new NamespaceBuilder(visible)
+            .editMetadata()
+            .withName("vf-terminating")
+            .endMetadata()
+            .withStatus(new NamespaceStatusBuilder().withNewPhase("Terminating").build())
+            .build();
+        when(kubernetesService.getNamespaces()).thenReturn(List.of(visible, hidden, terminating));
+        when(roleBindingIndex.isSynced()).thenReturn(true);
+        when(roleBindingIndex.getNamespaces("user-name")).thenReturn(Set.of(PROJECT_ID, "vf-terminating"));
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "User.Name", "email", false));
+
+        ProjectOverviewListDto result = projectService.getAll();
+
+        assertEquals(List.of(ProjectOverviewDto.fromNamespace(visible)), result.getProjects());
+        verify(kubernetesService, never()).isViewable(any());
+    }
+
+    @Test
+    void testGetAllViewableEverywhere() {
+        Namespace namespace = new NamespaceBuilder()
+            .withStatus(new NamespaceStatusBuilder().withNewPhase("Active").build())
+            .withNewMetadata()
+            .withName(PROJECT_ID)
+            .addToAnnotations(Constants.DESCRIPTION_FIELD, "description")
+            .endMetadata()
+            .build();
+        when(kubernetesService.getNamespaces()).thenReturn(List.of(namespace));
+        when(roleBindingIndex.isSynced()).thenReturn(true);
+        when(roleBindingIndex.isViewableEverywhere("user")).thenReturn(true);
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "user", "email", false));
+
+        ProjectOverviewListDto result = projectService.getAll();
+
+        assertEquals(List.of(ProjectOverviewDto.fromNamespace(namespace)),
+                     result.getProjects(),
+                     "Project granted by cluster role binding must be visible");
+        verify(roleBindingIndex, never()).getNamespaces(any());
+        verify(kubernetesService, never()).isViewable(any());
+    }
+
+    @Test
+    void testGetAllSuperuser() {
+        Namespace namespace = new NamespaceBuilder()
+            .withStatus(new NamespaceStatusBuilder().withNewPhase("Active").build())
+            .withNewMetadata()
+            .withName(PROJECT_ID)
+            .addToAnnotations(Constants.DESCRIPTION_FIELD, "description")
+            .endMetadata()
+            .build();
+        when(kubernetesService.getNamespaces()).thenReturn(List.of(namespace));
+        when(authenticationService.getUserInfo()).thenReturn(new UserInfo("id", "name", "admin", "email", true));
+
+        ProjectOverviewListDto result = projectService.getAll();
+
+        assertEquals(List.of(ProjectOverviewDto.fromNamespace(namespace)), result.getProjects());
+        assertTrue(result.isEditable());
+        verify(kubernetesService, never()).isViewable(any());
+        verify(roleBindingIndex, never()).getNamespaces(any());
+    }
+
     @Test
     void testDelete() {
         doNothing().when(kubernetesService).deleteNamespace(PROJECT_ID);
@@ -276,6 +363,42 @@ class ProjectServiceTest {
         verify(kubernetesService).getResourceQuota(PROJECT_ID, Constants.QUOTA_NAME);
     }
 
+    @Test
+    void testGetTag() {
+        Namespace namespace = new NamespaceBuilder().withNewMetadata().withName(PROJECT_ID).endMetadata().build();
+        ResourceQuota quota =
+            new ResourceQuotaBuilder().withNewMetadata().withResourceVersion("1").endMetadata().build();
+        when(kubernetesService.getNamespace(PROJECT_ID)).thenReturn(namespace);
+        when(kubernetesService.getResourceQuota(PROJECT_ID, Constants.QUOTA_NAME)).thenReturn(quota);
+        when(kubernetesService.isAccessible(PROJECT_ID, "namespaces", "", Constants.UPDATE_ACTION)).thenReturn(true);
+        when(kubernetesService.isAccessible(PROJECT_ID, "resourcequotas", "", Constants.UPDATE_ACTION))
+            .thenReturn(true);
+
+        String tag = projectService.getTag(PROJECT_ID);
+        assertEquals(tag, projectService.getTag(PROJECT_ID), "Tag must be the same while project doesn't change");
+        quota.getMetadata().setResourceVersion("2");
+        assertNotEquals(tag, projectService.getTag(PROJECT_ID), "Tag must change with quota usage");
+    }
+
+    @Test
+    void testGetUsageHistory() {
+        UsageHistoryDto history = UsageHistoryDto.builder().resolution("10m").points(List.of()).build();
+        when(usageHistory.getProjectHistory(PROJECT_ID, UsageHistory.Resolution.TEN_MINUTES)).thenReturn(history);
+
+        assertEquals(history, projectService.getUsageHistory(PROJECT_ID, "10m"));
+        verify(kubernetesService).checkAccess(PROJECT_ID, "pods", "", "list");
+    }
+
+    @Test
+    void testSubscribe() {
+        SseEmitter emitter = new SseEmitter();
+        when(projectEventBroker.subscribe(PROJECT_ID, 10L)).thenReturn(emitter);
+
+        assertEquals(emitter, projectService.subscribe(PROJECT_ID, 10L));
+        verify(kubernetesService).checkAccess(PROJECT_ID, "pods", "", "list");
+        verify(kubernetesService).checkAccess(PROJECT_ID, "workflows", "argoproj.io", "list");
+    }
+
     @Test
     void testUpdate() {
         ResourceQuotaRequestDto quotaDto = ResourceQuotaRequestDto
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.ServiceAccount;
+import io.fabric8.kubernetes.api.model.ServiceAccountBuilder;
+import io.fabric8.kubernetes.api.model.ServiceAccountList;
+import io.fabric8.kubernetes.api.model.ServiceAccountListBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceAccountCacheTest {
+    private static final String APP_NAME = "vf";
+    private static final String APP_NAME_LABEL = "testApp";
+    private static final String USERNAME = "IvanShautsou";
+    private static final long WATCH_DELAY = 50;
+    private static final int THREADS = 8;
+    private static final Function<NamespacedKubernetesClient, ConfigMap> GET_CONFIG_MAP =
+        client -> client.configMaps().inNamespace("vf").withName("cm").get();
+
+    private final KubernetesServer server = new KubernetesServer();
+
+    @BeforeEach
+    void setUp() {
+        server.before();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.after();
+    }
+
+    private ServiceAccountCache createCache(boolean tokenRequestEnabled, String mode) {
+        return new ServiceAccountCache(server.getClient(),
+                                       APP_NAME,
+                                       APP_NAME_LABEL,
+                                       Duration.ofMinutes(10),
+                                       100,
+                                       tokenRequestEnabled,
+                                       Duration.ofHours(1),
+                                       mode);
+    }
+
+    private void expectConfigMap(int times) {
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/configmaps/cm")
+            .andReturn(HttpURLConnection.HTTP_OK, new ConfigMapBuilder().build())
+            .times(times);
+    }
+
+    private void expectServiceAccountSecret(int times) {
+        ServiceAccount sa =
+            new ServiceAccountBuilder().addNewSecret().withName("user-secret-token").endSecret().build();
+        Secret secret = new SecretBuilder()
+            .addToData("token", Base64.encodeBase64String("k8sToken".getBytes(StandardCharsets.UTF_8)))
+            .build();
+
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/serviceaccounts/ivanshautsou")
+            .andReturn(HttpURLConnection.HTTP_OK, sa)
+            .times(times);
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/secrets/user-secret-token")
+            .andReturn(HttpURLConnection.HTTP_OK, secret)
+            .times(times);
+    }
+
+    @Test
+    void testGetAuthenticatedClientCached() {
+        expectServiceAccountSecret(1);
+        ServiceAccountCache cache = createCache(false, "token");
+
+        cache.getAuthenticatedClient(USERNAME);
+        cache.getAuthenticatedClient(USERNAME);
+
+        assertEquals(2, server.getMockServer().getRequestCount(), "Token must be resolved once");
+        assertEquals(1, cache.getCacheStats().hitCount(), "Second call must be served from cache");
+    }
+
+    @Test
+    void testGetAuthenticatedClientInvalidate() {
+        expectServiceAccountSecret(2);
+        ServiceAccountCache cache = createCache(false, "token");
+
+        cache.getAuthenticatedClient(USERNAME);
+        cache.invalidate("ivanshautsou");
+        cache.getAuthenticatedClient(USERNAME);
+
+        assertEquals(4, server.getMockServer().getRequestCount(), "Token must be resolved again");
+        assertEquals(2, cache.getCacheStats().missCount());
+    }
+
+    @Test
+    void testGetAuthenticatedClientTokenRequest() {
+        server
+            .expect()
+            .post()
+            .withPath("/api/v1/namespaces/vf/serviceaccounts/ivanshautsou/token")
+            .andReturn(HttpURLConnection.HTTP_CREATED, Map.of("status", Map.of("token", "k8sToken")))
+            .once();
+        ServiceAccountCache cache = createCache(true, "token");
+
+        cache.getAuthenticatedClient(USERNAME);
+        cache.getAuthenticatedClient(USERNAME);
+
+        assertEquals(1, server.getMockServer().getRequestCount(), "Secrets must not be read");
+    }
+
+    @Test
+    void testApiCallsPerRequestToken() throws InterruptedException {
+        expectServiceAccountSecret(1);
+        expectConfigMap(2);
+        ServiceAccountCache cache = createCache(false, "token");
+
+        cache.getAuthenticatedClient(USERNAME).call(GET_CONFIG_MAP);
+        assertEquals(3, server.getMockServer().getRequestCount(), "First request reads service account and secret");
+        cache.getAuthenticatedClient(USERNAME).call(GET_CONFIG_MAP);
+        assertEquals(4, server.getMockServer().getRequestCount(), "Next requests make only the call itself");
+
+        server.getMockServer().takeRequest();
+        server.getMockServer().takeRequest();
+        RecordedRequest request = server.getMockServer().takeRequest();
+        assertEquals("Bearer k8sToken", request.getHeader("Authorization"));
+        assertNull(request.getHeader("Impersonate-User"));
+    }
+
+    @Test
+    void testApiCallsPerRequestImpersonation() throws InterruptedException {
+        expectConfigMap(2);
+        ServiceAccountCache cache = createCache(false, "impersonation");
+
+        cache.getAuthenticatedClient(USERNAME).call(GET_CONFIG_MAP);
+        assertEquals(1, server.getMockServer().getRequestCount(), "Tokens must not be read");
+        cache.getAuthenticatedClient(USERNAME).call(GET_CONFIG_MAP);
+        assertEquals(2, server.getMockServer().getRequestCount());
+
+        RecordedRequest request = server.getMockServer().takeRequest();
+        assertEquals("system:serviceaccount:vf:ivanshautsou", request.getHeader("Impersonate-User"));
+        assertEquals(List.of("system:serviceaccounts", "system:serviceaccounts:vf", "system:authenticated"),
+                     request.getHeaders().values("Impersonate-Group"));
+    }
+
+    @Test
+    void testKnownServiceAccountsListAndWatch() {
+        ServiceAccountList serviceAccounts = new ServiceAccountListBuilder()
+            .withNewMetadata()
+            .withResourceVersion("1")
+            .endMetadata()
+            .addNewItem()
+            .withNewMetadata()
+            .withName("known")
+            .endMetadata()
+            .endItem()
+            .build();
+        ServiceAccount added = new ServiceAccountBuilder().withNewMetadata().withName("added").endMetadata().build();
+
+        server
+            .expect()
+            .get()
+            .withPath("/api/v1/namespaces/vf/serviceaccounts?labelSelector=app%3DtestApp")
+            .andReturn(HttpURLConnection.HTTP_OK, serviceAccounts)
+            .once();
+        server
+            .expect()
+            .withPath("/api/v1/namespaces/vf/serviceaccounts?labelSelector=app%3DtestApp&resourceVersion=1&watch=true")
+            .andUpgradeToWebSocket()
+            .open()
+            .waitFor(WATCH_DELAY)
+            .andEmit(new WatchEvent(added, "ADDED"))
+            .done()
+            .once();
+        ServiceAccountCache cache = createCache(false, "token");
+
+        cache.startWatches();
+
+        assertTrue(cache.isKnown("known"));
+        assertFalse(cache.isKnown("unknown"));
+        await(() -> cache.isKnown("added"));
+        cache.close();
+    }
+
+    @Test
+    void testWatchRetriedUntilStarted() {
+        String path = "/api/v1/namespaces/vf/serviceaccounts?labelSelector=app%3DtestApp";
+        server.expect().get().withPath(path).andReturn(HttpURLConnection.HTTP_INTERNAL_ERROR, "").once();
+        server.expect().get().withPath(path).andReturn(HttpURLConnection.HTTP_OK, serviceAccounts("1", "known")).once();
+        server
+            .expect()
+            .withPath(path + "&resourceVersion=1&watch=true")
+            .andUpgradeToWebSocket()
+            .open()
+            .waitFor(WATCH_DELAY)
+            .andEmit(new WatchEvent(new StatusBuilder().withCode(HttpURLConnection.HTTP_GONE).build(), "ERROR"))
+            .done()
+            .once();
+        server
+            .expect()
+            .get()
+            .withPath(path)
+            .andReturn(HttpURLConnection.HTTP_OK, serviceAccounts("2", "relisted"))
+            .once();
+        server
+            .expect()
+            .withPath(path + "&resourceVersion=2&watch=true")
+            .andUpgradeToWebSocket()
+            .open()
+            .done()
+            .once();
+        ServiceAccountCache cache = createCache(false, "token");
+
+        cache.startWatches();
+
+        assertFalse(cache.isKnown("known"));
+        await(() -> cache.isKnown("known"));
+        await(() -> cache.isKnown("relisted"));
+        assertFalse(cache.isKnown("known"));
+        cache.close();
+    }
+
+    private static ServiceAccountList serviceAccounts(String resourceVersion, String name) {
+        return new ServiceAccountListBuilder()
+            .withNewMetadata()
+            .withResourceVersion(resourceVersion)
+            .endMetadata()
+            .addNewItem()
+            .withNewMetadata()
+            .withName(name)
+            .endMetadata()
+            .endItem()
+            .build();
+    }
+
+    @Test
+    void testProvisionIfUnknownCoalesced() throws InterruptedException {
+        ServiceAccountCache cache = createCache(false, "token");
+        AtomicInteger provisioned = new AtomicInteger();
+        Runnable provisioner = () -> {
+            provisioned.incrementAndGet();
+            sleep(WATCH_DELAY);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> cache.provisionIfUnknown("ivanshautsou", provisioner));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        cache.provisionIfUnknown("ivanshautsou", provisioner);
+
+        assertEquals(1, provisioned.get(), "Service account must be provisioned once");
+        assertTrue(cache.isKnown("ivanshautsou"));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition is not met in time");
+            sleep(WATCH_DELAY);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.jobs.JobOverviewDto;
+import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowStatus;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import java.util.Map;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class StatusEventPublisherTest {
+    @Mock
+    private PodCache podCache;
+    @Mock
+    private ArgoResourceCache argoResourceCache;
+    @Mock
+    private ProjectEventBroker broker;
+    private StatusEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new StatusEventPublisher(podCache, argoResourceCache, broker);
+    }
+
+    private static Pod pod(String name, Map<String, String> labels, String phase) {
+        return new PodBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .withNamespace("vf-1")
+            .withResourceVersion("1")
+            .addToLabels(labels)
+            .endMetadata()
+            .withNewStatus()
+            .withPhase(phase)
+            .withStartTime("2021-10-27T10:14:46Z")
+            .endStatus()
+            .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPodChanges() {
+        publisher.start();
+        ArgumentCaptor<ResourceEventHandler<Pod>> handler = ArgumentCaptor.forClass(ResourceEventHandler.class);
+        verify(podCache).addEventHandler(handler.capture());
+        Pod driver = pod("job1", Map.of(Constants.JOB_ID_LABEL, "job1"), "Running");
+        Pod executor = pod("job1-exec-1", Map.of(Constants.JOB_ID_LABEL, "job1"), "Running");
+
+        handler.getValue().onAdd(driver);
+        handler.getValue().onUpdate(driver, driver);
+        handler.getValue().onAdd(executor);
+        handler.getValue().onDelete(driver, false);
+
+        ArgumentCaptor<JobOverviewDto> jobs = ArgumentCaptor.forClass(JobOverviewDto.class);
+        verify(broker, times(2)).publish(eq("vf-1"),
+                                         eq(StatusEventPublisher.JOB_EVENT),
+                                         eq("job/job1"),
+                                         jobs.capture());
+        assertEquals("Running", jobs.getAllValues().get(0).getStatus());
+        assertEquals("2021-10-27 10:14:46 +0000", jobs.getAllValues().get(0).getStartedAt());
+        assertEquals(K8sUtils.DRAFT_STATUS, jobs.getAllValues().get(1).getStatus());
+    }
+
+    @Test
+    void testPipelinePodChanges() {
+        Pod pod = pod("pipeline-1",
+                      Map.of(Constants.JOB_ID_LABEL, "job1", Constants.WORKFLOW_POD_LABEL, "pipeline"),
+                      "Succeeded");
+
+        publisher.publishPod(pod);
+        publisher.publishPodRemoved(pod);
+
+        ArgumentCaptor<JobOverviewDto> job = ArgumentCaptor.forClass(JobOverviewDto.class);
+        verify(broker).publish(eq("vf-1"), eq(StatusEventPublisher.JOB_EVENT), eq("job/pipeline-1"), job.capture());
+        assertEquals("pipeline", job.getValue().getPipelineId());
+        assertEquals("Succeeded", job.getValue().getStatus());
+        verify(broker).publish(eq("vf-1"),
+                               eq(StatusEventPublisher.JOB_REMOVED_EVENT),
+                               eq("job/pipeline-1"),
+                               any(JobOverviewDto.class));
+    }
+
+    @Test
+    void testWorkflowChanges() {
+        Workflow workflow = new Workflow();
+        workflow.setMetadata(new ObjectMetaBuilder().withName("pipeline").withNamespace("vf-1").build());
+        WorkflowStatus status = new WorkflowStatus();
+        status.setStartedAt(DateTime.parse("2020-10-27T10:14:46Z"));
+        status.setPhase("Failed");
+        status.setNodes(Map.of());
+        workflow.setStatus(status);
+
+        publisher.publishWorkflow(workflow);
+        publisher.publishWorkflowRemoved(workflow);
+
+        ArgumentCaptor<PipelineOverviewDto> pipelines = ArgumentCaptor.forClass(PipelineOverviewDto.class);
+        verify(broker, times(2)).publish(eq("vf-1"),
+                                         eq(StatusEventPublisher.PIPELINE_EVENT),
+                                         eq("pipeline/pipeline"),
+                                         pipelines.capture());
+        assertEquals("Error", pipelines.getAllValues().get(0).getStatus());
+        assertEquals(K8sUtils.DRAFT_STATUS, pipelines.getAllValues().get(1).getStatus());
+        verifyNoInteractions(podCache, argoResourceCache);
+    }
+}
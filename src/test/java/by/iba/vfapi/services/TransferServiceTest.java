@@ -18,6 +18,7 @@
 package by.iba.vfapi.services;
 
 import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.DefinitionCodec;
 import by.iba.vfapi.dto.exporting.ExportRequestDto;
 import by.iba.vfapi.dto.exporting.ExportResponseDto;
 import by.iba.vfapi.dto.importing.ImportResponseDto;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.SerializationUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -69,7 +71,12 @@ class TransferServiceTest {
 
     @BeforeEach
     void setUp() {
-        transferService = new TransferService(argoKubernetesService, jobService, pipelineService);
+        transferService =
+            new TransferService(argoKubernetesService,
+                                jobService,
+                                pipelineService,
+                                new ParallelCalls(4, 4),
+                                new DefinitionStore(argoKubernetesService, 65536));
     }
 
     @Test
@@ -146,6 +153,39 @@ class TransferServiceTest {
         assertEquals(expected, exporting);
     }
 
+    @Test
+    void testExportingDefinitionInConfigMap() {
+        ConfigMap configMap = new ConfigMapBuilder()
+            .addToData(Map.of(Constants.JOB_CONFIG_FIELD, "{\"nodes\":[], \"edges\":[]}"))
+            .withNewMetadata()
+            .withName("jobId")
+            .addToLabels(Constants.NAME, "name")
+            .addToLabels(Constants.TYPE, Constants.TYPE_JOB)
+            .addToAnnotations(Constants.DEFINITION, DefinitionCodec.BLOB_PREFIX + "hash")
+            .endMetadata()
+            .build();
+        when(argoKubernetesService.getConfigMap("projectId", "jobId")).thenReturn(configMap);
+        when(argoKubernetesService.getConfigMap("projectId", DefinitionStore.BLOB_NAME_PREFIX + "hash"))
+            .thenReturn(new ConfigMapBuilder()
+                            .withNewMetadata()
+                            .withName(DefinitionStore.BLOB_NAME_PREFIX + "hash")
+                            .endMetadata()
+                            .addToBinaryData(Constants.DEFINITION, "R1JBUEg=")
+                            .build());
+
+        ExportResponseDto exporting = transferService.exporting("projectId", Set.of("jobId"), Set.of());
+
+        ConfigMap expected = new ConfigMapBuilder(configMap)
+            .editMetadata()
+            .addToAnnotations(Constants.DEFINITION, DefinitionCodec.GZIP_PREFIX + "R1JBUEg=")
+            .endMetadata()
+            .build();
+        assertEquals(Set.of(Serialization.asJson(expected)), exporting.getJobs());
+        assertEquals(DefinitionCodec.BLOB_PREFIX + "hash",
+                     configMap.getMetadata().getAnnotations().get(Constants.DEFINITION),
+                     "Config map of project must not be changed");
+    }
+
     @Test
     void testImporting() {
         ConfigMap configMap1 = new ConfigMapBuilder()
@@ -342,7 +382,10 @@ class TransferServiceTest {
             .build();
         List<ConfigMap> configMaps = new ArrayList<>();
         configMaps.add(configMap1);
-        when(argoKubernetesService.getAllConfigMaps(anyString())).thenReturn(configMaps);
+        when(argoKubernetesService.getAllConfigMapsMetadata(anyString())).thenAnswer(invocation -> configMaps
+            .stream()
+            .map(ConfigMap::getMetadata)
+            .collect(Collectors.toList()));
 
         for (ConfigMap wf : List.of(configMap2, configMap3)) {
             ConfigMap original = SerializationUtils.clone(configMap1);
@@ -434,7 +477,11 @@ class TransferServiceTest {
                                                                                                                                "jobFromPipeline"))))))));
         List<WorkflowTemplate> workflowTemplates = new ArrayList<>();
         workflowTemplates.add(workflowTemplate1);
-        when(argoKubernetesService.getAllWorkflowTemplates(anyString())).thenReturn(workflowTemplates);
+        when(argoKubernetesService.getAllWorkflowTemplatesMetadata(anyString()))
+            .thenAnswer(invocation -> workflowTemplates
+                .stream()
+                .map(WorkflowTemplate::getMetadata)
+                .collect(Collectors.toList()));
 
         for (WorkflowTemplate wf : List.of(workflowTemplate2, workflowTemplate3)) {
             WorkflowTemplate original = SerializationUtils.clone(workflowTemplate1);
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.ResourceUsageDto;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceQuotaBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UsageAggregatorTest {
+    @Mock
+    private KubernetesService kubernetesService;
+    private UsageAggregator usageAggregator;
+
+    @BeforeEach
+    void setUp() {
+        usageAggregator = new UsageAggregator(kubernetesService, Duration.ofMinutes(1));
+    }
+
+    private static PodMetrics podMetrics(String name, String cpu) {
+        return new PodMetricsBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .endMetadata()
+            .addNewContainer()
+            .addToUsage(Constants.CPU_FIELD, Quantity.parse(cpu))
+            .addToUsage(Constants.MEMORY_FIELD, Quantity.parse("10Gi"))
+            .endContainer()
+            .build();
+    }
+
+    private static Pod executor(String name, String jobId, String pipelineJobId) {
+        return new PodBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .addToLabels(Constants.JOB_ID_LABEL, jobId)
+            .addToLabels(Constants.SPARK_ROLE_LABEL, Constants.SPARK_ROLE_EXEC)
+            .addToLabels(Constants.PIPELINE_JOB_ID_LABEL, pipelineJobId)
+            .endMetadata()
+            .build();
+    }
+
+    private void mockQuota() {
+        Map<String, Quantity> hard =
+            Map.of(Constants.LIMITS_CPU, Quantity.parse("10"), Constants.LIMITS_MEMORY, Quantity.parse("100Gi"));
+        when(kubernetesService.getResourceQuota("vf-1", Constants.QUOTA_NAME))
+            .thenReturn(new ResourceQuotaBuilder().withNewStatus().addToHard(hard).endStatus().build());
+    }
+
+    private static KubernetesClientException exception(int code) {
+        return new KubernetesClientException(new StatusBuilder().withCode(code).build());
+    }
+
+    @Test
+    void testJobUsageFromOneSnapshot() {
+        when(kubernetesService.getPodsByLabels(eq("vf-1"), anyMap()))
+            .thenReturn(List.of(executor("job1-exec-1", "job1", Constants.NOT_PIPELINE_FLAG),
+                                executor("job1-exec-2", "job1", "pipeline1-1")));
+        when(kubernetesService.topPod("vf-1")).thenReturn(List.of(podMetrics("job1", "1"),
+                                                                  podMetrics("job1-exec-1", "2"),
+                                                                  podMetrics("job1-exec-2", "3")));
+        mockQuota();
+
+        UsageSnapshot snapshot = usageAggregator.getSnapshot("vf-1");
+
+        assertEquals(ResourceUsageDto.builder().cpu(0.3f).memory(0.2f).build(), snapshot.getJobUsage("job1", null));
+        assertEquals(ResourceUsageDto.builder().cpu(0.4f).memory(0.2f).build(),
+                     snapshot.getJobUsage("job1", "pipeline1-1"));
+        assertEquals(ResourceUsageDto.builder().build(), snapshot.getJobUsage("job2", null));
+        assertSame(snapshot, usageAggregator.getSnapshot("vf-1"), "Snapshot must be reused");
+        verify(kubernetesService, times(1)).topPod("vf-1");
+    }
+
+    @Test
+    void testMissingMetricsAndQuota() {
+        when(kubernetesService.topPod("vf-1")).thenThrow(exception(404));
+        when(kubernetesService.getResourceQuota("vf-1", Constants.QUOTA_NAME)).thenThrow(exception(404));
+
+        assertEquals(ResourceUsageDto.builder().build(),
+                     usageAggregator.getSnapshot("vf-1").getJobUsage("job1", null));
+    }
+
+    @Test
+    void testErrorsPropagated() {
+        when(kubernetesService.topPod("vf-1")).thenThrow(exception(403));
+
+        KubernetesClientException exception =
+            assertThrows(KubernetesClientException.class, () -> usageAggregator.getSnapshot("vf-1"));
+        assertEquals(403, exception.getCode());
+    }
+}
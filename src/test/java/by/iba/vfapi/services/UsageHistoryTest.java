@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.UsageHistoryDto;
+import by.iba.vfapi.exceptions.BadRequestException;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetricsBuilder;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UsageHistoryTest {
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long START = Duration.ofDays(20000).toMillis();
+
+    @Mock
+    private KubernetesService kubernetesService;
+    @Mock
+    private PodCache podCache;
+    @Mock
+    private ProjectEventBroker broker;
+
+    private UsageHistory history(String file, int maxSeries) {
+        return new UsageHistory(kubernetesService, podCache, broker, Duration.ZERO, file, maxSeries);
+    }
+
+    private static List<Double> cpu(UsageHistoryDto history) {
+        return history.getPoints().stream().map(UsageHistoryDto.Point::getCpu).collect(Collectors.toList());
+    }
+
+    private static PodMetrics podMetrics(String name, Map<String, String> labels, String cpu) {
+        return new PodMetricsBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .addToLabels(labels)
+            .endMetadata()
+            .addNewContainer()
+            .addToUsage(Constants.CPU_FIELD, Quantity.parse(cpu))
+            .addToUsage(Constants.MEMORY_FIELD, Quantity.parse("1Gi"))
+            .endContainer()
+            .build();
+    }
+
+    @Test
+    void testDownsampling() {
+        UsageHistory usageHistory = history("", 10);
+        for (int minute = 0; minute < 90; minute++) {
+            usageHistory.record("vf-1", minute, 2, START + minute * MINUTE);
+            usageHistory.record("vf-1", minute + 1, 2, START + minute * MINUTE + MINUTE / 2);
+        }
+        long now = START + 89 * MINUTE;
+
+        UsageHistoryDto minutes = usageHistory.getHistory("vf-1", UsageHistory.Resolution.MINUTE, now);
+        assertEquals("1m", minutes.getResolution());
+        assertEquals(60, minutes.getPoints().size(), "Only last hour must be kept");
+        assertEquals(30.5, cpu(minutes).get(0));
+        assertEquals(89.5, cpu(minutes).get(59));
+        assertEquals(2.0, minutes.getPoints().get(0).getMemory());
+
+        List<Double> tenMinutes = cpu(usageHistory.getHistory("vf-1", UsageHistory.Resolution.TEN_MINUTES, now));
+        assertEquals(List.of(5.0, 15.0, 25.0, 35.0, 45.0, 55.0, 65.0, 75.0, 85.0), tenMinutes);
+        assertEquals(List.of(30.0, 75.0), cpu(usageHistory.getHistory("vf-1", UsageHistory.Resolution.HOUR, now)));
+        assertEquals(List.of(), usageHistory.getHistory("vf-2", UsageHistory.Resolution.HOUR, now).getPoints());
+    }
+
+    @Test
+    void testPersistence(@TempDir Path directory) {
+        String file = directory.resolve("usage").toString();
+        UsageHistory usageHistory = history(file, 10);
+        usageHistory.record("vf-1/job1", 1, 1024, START);
+        usageHistory.stop();
+
+        UsageHistory restored = history(file, 10);
+        assertEquals(List.of(1.0), cpu(restored.getHistory("vf-1/job1", UsageHistory.Resolution.MINUTE, START)));
+
+        UsageHistory resized = history(file, 20);
+        assertEquals(List.of(), resized.getHistory("vf-1/job1", UsageHistory.Resolution.MINUTE, START).getPoints());
+    }
+
+    @Test
+    void testEviction() {
+        UsageHistory usageHistory = history("", 2);
+        usageHistory.record("vf-1", 1, 1, START);
+        usageHistory.record("vf-2", 2, 1, START + 1);
+        usageHistory.record("vf-1", 1, 1, START + 2);
+        usageHistory.record("vf-3", 3, 1, START + 3);
+
+        assertEquals(List.of(), usageHistory.getHistory("vf-2", UsageHistory.Resolution.MINUTE, START).getPoints());
+        assertEquals(List.of(1.0), cpu(usageHistory.getHistory("vf-1", UsageHistory.Resolution.MINUTE, START)));
+        assertEquals(List.of(3.0), cpu(usageHistory.getHistory("vf-3", UsageHistory.Resolution.MINUTE, START)));
+    }
+
+    @Test
+    void testSample() {
+        Pod executor = new PodBuilder()
+            .withNewMetadata()
+            .withName("job1-exec-1")
+            .addToLabels(Constants.JOB_ID_LABEL, "job1")
+            .endMetadata()
+            .build();
+        when(kubernetesService.getNamespaces()).thenReturn(List.of(new NamespaceBuilder()
+                                                                       .withNewMetadata()
+                                                                       .withName("vf-1")
+                                                                       .endMetadata()
+                                                                       .build()));
+        when(kubernetesService.topPod("vf-1")).thenReturn(List.of(podMetrics("job1",
+                                                                             Map.of(Constants.JOB_ID_LABEL, "job1"),
+                                                                             "1"),
+                                                                  podMetrics("job1-exec-1", Map.of(), "2"),
+                                                                  podMetrics("other", Map.of(), "4")));
+        when(podCache.isSynced()).thenReturn(true);
+        when(podCache.get("vf-1", "job1-exec-1")).thenReturn(executor);
+        when(podCache.get("vf-1", "other")).thenReturn(null);
+        UsageHistory usageHistory = history("", 10);
+
+        when(broker.hasSubscribers("vf-1")).thenReturn(true);
+
+        usageHistory.sample(START);
+
+        assertEquals(List.of(7.0), cpu(usageHistory.getHistory("vf-1", UsageHistory.Resolution.MINUTE, START)));
+        assertEquals(List.of(3.0),
+                     cpu(usageHistory.getHistory("vf-1/job1", UsageHistory.Resolution.MINUTE, START)));
+        verify(broker).publish(eq("vf-1"), eq(UsageHistory.USAGE_EVENT), eq(UsageHistory.USAGE_EVENT), any());
+    }
+
+    @Test
+    void testResolution() {
+        assertEquals(UsageHistory.Resolution.TEN_MINUTES, UsageHistory.Resolution.fromLabel("10m"));
+        assertThrows(BadRequestException.class, () -> UsageHistory.Resolution.fromLabel("1d"));
+    }
+}
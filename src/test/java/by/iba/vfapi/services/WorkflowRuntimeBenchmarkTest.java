@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services;
+
+import by.iba.vfapi.dto.Constants;
+import by.iba.vfapi.dto.pipelines.PipelineOverviewDto;
+import by.iba.vfapi.model.argo.Workflow;
+import by.iba.vfapi.model.argo.WorkflowList;
+import by.iba.vfapi.model.argo.WorkflowRuntime;
+import by.iba.vfapi.model.argo.WorkflowRuntimeList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures heap allocated to read 20 workflows of pipelines with 50 jobs each as whole workflows and as runtime info.
+ * Allocation is counted by the JVM for the reading thread, so it doesn't depend on garbage collection.
+ */
+@Slf4j
+class WorkflowRuntimeBenchmarkTest {
+    private static final ObjectMapper MAPPER = Serialization.jsonMapper();
+    private static final int WORKFLOWS = 20;
+    private static final int JOBS = 50;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 50;
+
+    private static ObjectNode parameter(String name, String value) {
+        return MAPPER.createObjectNode().put("name", name).put("value", value);
+    }
+
+    private static ObjectNode sparkTemplate() {
+        ObjectNode template = MAPPER.createObjectNode().put("name", PipelineService.SPARK_TEMPLATE_NAME);
+        template
+            .putObject("metadata")
+            .putObject("labels")
+            .put(Constants.JOB_ID_LABEL, "{{inputs.parameters.configMap}}");
+        template.putObject("inputs").putArray("parameters").add(MAPPER.createObjectNode().put("name", "configMap"));
+        ObjectNode container =
+            template.putObject("container").put("image", "spark:3.0.1").put("imagePullPolicy", "Always");
+        container.putArray("command").add("/opt/spark/work-dir/entrypoint.sh");
+        container.putArray("args").add("--conf").add("spark.kubernetes.executor.podNamePrefix=job");
+        ArrayNode env = container.putArray("env");
+        for (String name : List.of("JOB_ID", "POD_NAME", "POD_IP", "NAMESPACE", "IMAGE_PULL_SECRETS", "JOB_MASTER")) {
+            env.addObject().put("name", name).putObject("valueFrom").putObject("fieldRef").put("fieldPath",
+                                                                                              "metadata.name");
+        }
+        container
+            .putArray("envFrom")
+            .addObject()
+            .putObject("configMapRef")
+            .put("name", "{{inputs.parameters.configMap}}");
+        ObjectNode resources = container.putObject("resources");
+        resources.putObject("limits").put("cpu", "1").put("memory", "2457Mi");
+        resources.putObject("requests").put("cpu", "1").put("memory", "2457Mi");
+        template.put("podSpecPatch", "{\"imagePullSecrets\": [{\"name\": \"vf-dev-image-pull\"}]," +
+            "\"containers\":[{\"name\":\"main\",\"resources\":{\"limits\":{\"cpu\":\"1\",\"memory\":\"2457Mi\"}}}]}");
+        return template;
+    }
+
+    private static ObjectNode dagTemplate() {
+        ObjectNode template = MAPPER.createObjectNode().put("name", Constants.DAG_TEMPLATE_NAME);
+        ArrayNode tasks = template.putObject("dag").putArray("tasks");
+        for (int i = 0; i < JOBS; i++) {
+            ObjectNode task = tasks
+                .addObject()
+                .put("name", "pipeline-" + i)
+                .put("template", PipelineService.SPARK_TEMPLATE_NAME)
+                .put("depends", i == 0 ? null : "pipeline-" + (i - 1));
+            task
+                .putObject("arguments")
+                .putArray("parameters")
+                .add(parameter(K8sUtils.CONFIGMAP, "cm" + i))
+                .add(parameter(Constants.GRAPH_ID, String.valueOf(i)));
+        }
+        return template;
+    }
+
+    private static ObjectNode workflow(int index) {
+        String name = "pipeline" + index;
+        ObjectNode workflow =
+            MAPPER.createObjectNode().put("apiVersion", "argoproj.io/v1alpha1").put("kind", "Workflow");
+        ObjectNode metadata = workflow
+            .putObject("metadata")
+            .put("name", name)
+            .put("namespace", "vf-project")
+            .put("uid", "2d6b0f5e-8a8a-4c0f-9c7e-" + index)
+            .put("resourceVersion", String.valueOf(1000 + index))
+            .put("creationTimestamp", "2021-10-28T07:37:00Z");
+        metadata.putObject("labels").put("workflows.argoproj.io/phase", "Running").put(Constants.NAME, name);
+        metadata
+            .putArray("managedFields")
+            .addObject()
+            .put("manager", "workflow-controller")
+            .put("operation", "Update")
+            .put("apiVersion", "argoproj.io/v1alpha1")
+            .put("time", "2021-10-28T07:39:00Z")
+            .put("fieldsType", "FieldsV1")
+            .putObject("fieldsV1")
+            .putObject("f:status")
+            .put("f:nodes", "{}")
+            .put("f:phase", "{}")
+            .put("f:progress", "{}")
+            .put("f:resourcesDuration", "{}")
+            .put("f:storedTemplates", "{}");
+        workflow.putObject("spec").putObject("workflowTemplateRef").put("name", name);
+
+        ObjectNode status = workflow
+            .putObject("status")
+            .put("phase", "Running")
+            .put("startedAt", "2021-10-28T07:37:46Z")
+            .putNull("finishedAt")
+            .put("progress", "25/" + JOBS);
+        ObjectNode nodes = status.putObject("nodes");
+        ObjectNode dagNode = nodes
+            .putObject(name)
+            .put("id", name)
+            .put("name", name)
+            .put("displayName", name)
+            .put("type", "DAG")
+            .put("templateName", Constants.DAG_TEMPLATE_NAME)
+            .put("phase", "Running")
+            .put("startedAt", "2021-10-28T07:37:46Z");
+        ArrayNode children = dagNode.putArray("children");
+        for (int i = 0; i < JOBS; i++) {
+            String id = name + "-" + (1_000_000_000L + i);
+            children.add(id);
+            ObjectNode node = nodes
+                .putObject(id)
+                .put("id", id)
+                .put("name", name + ".pipeline-" + i)
+                .put("displayName", "pipeline-" + i)
+                .put("type", Constants.NODE_TYPE_POD)
+                .put("templateName", PipelineService.SPARK_TEMPLATE_NAME)
+                .put("templateScope", "namespaced/" + name)
+                .put("phase", i < JOBS / 2 ? "Succeeded" : "Pending")
+                .put("boundaryID", name)
+                .put("startedAt", "2021-10-28T07:38:00Z")
+                .put("finishedAt", "2021-10-28T07:39:00Z")
+                .put("progress", "1/1")
+                .put("hostNodeName", "worker-" + i % 3);
+            node.putObject("resourcesDuration").put("cpu", 60).put("memory", 120);
+            node.putObject("inputs").putArray("parameters").add(parameter(K8sUtils.CONFIGMAP, "cm" + i));
+            ObjectNode artifact = node
+                .putObject("outputs")
+                .put("exitCode", "0")
+                .putArray("artifacts")
+                .addObject()
+                .put("name", "main-logs");
+            artifact.putObject("s3").put("key", name + "/" + id + "/main.log");
+            node.putArray("children").add(name + "-" + (1_000_000_000L + i + 1));
+        }
+        status.putObject("resourcesDuration").put("cpu", 60 * JOBS).put("memory", 120 * JOBS);
+        status.putArray("conditions").addObject().put("type", "PodRunning").put("status", "True");
+        ObjectNode storedTemplates = status.putObject("storedTemplates");
+        storedTemplates.set("namespaced/" + name + "/" + Constants.DAG_TEMPLATE_NAME, dagTemplate());
+        storedTemplates.set("namespaced/" + name + "/" + PipelineService.SPARK_TEMPLATE_NAME, sparkTemplate());
+        status
+            .putObject("storedWorkflowTemplateSpec")
+            .put("entrypoint", Constants.DAG_TEMPLATE_NAME)
+            .putArray("templates")
+            .add(dagTemplate())
+            .add(sparkTemplate());
+        return workflow;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread
+            .currentThread()
+            .getId());
+    }
+
+    private static long allocatedBytesPerWorkflow(byte[] json, Class<?> type) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            MAPPER.readValue(new ByteArrayInputStream(json), type);
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            MAPPER.readValue(new ByteArrayInputStream(json), type);
+        }
+        return (allocatedBytes() - start) / ITERATIONS / WORKFLOWS;
+    }
+
+    @Test
+    void testReadWorkflows() throws IOException {
+        ObjectNode list = MAPPER.createObjectNode().put("kind", "WorkflowList");
+        ArrayNode items = list.putArray("items");
+        for (int i = 0; i < WORKFLOWS; i++) {
+            items.add(workflow(i));
+        }
+        byte[] json = MAPPER.writeValueAsBytes(list);
+
+        List<Workflow> workflows = MAPPER.readValue(json, WorkflowList.class).getItems();
+        List<WorkflowRuntime> runtimes = MAPPER.readValue(json, WorkflowRuntimeList.class).getItems();
+        assertEquals(WORKFLOWS, runtimes.size());
+        for (int i = 0; i < WORKFLOWS; i++) {
+            PipelineOverviewDto expected = new PipelineOverviewDto();
+            PipelineService.appendRuntimeInfo(workflows.get(i), expected);
+            PipelineOverviewDto actual = new PipelineOverviewDto();
+            PipelineService.appendRuntimeInfo(runtimes.get(i), actual);
+            assertEquals(workflows.get(i).getMetadata().getName(), runtimes.get(i).getName());
+            assertEquals(JOBS, actual.getJobsStatuses().size());
+            assertEquals(expected, actual, "Runtime info must be the same as of whole workflow");
+        }
+
+        long whole = allocatedBytesPerWorkflow(json, WorkflowList.class);
+        long runtime = allocatedBytesPerWorkflow(json, WorkflowRuntimeList.class);
+        LOGGER.info("Read {} KB workflow with {} jobs allocating {} KB as whole workflow and {} KB as runtime info",
+                    json.length / WORKFLOWS / 1024,
+                    JOBS,
+                    whole / 1024,
+                    runtime / 1024);
+        assertTrue(runtime * 10 <= whole, "Runtime info must take an order of magnitude less memory to read");
+    }
+}
@@ -21,17 +21,35 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import by.iba.vfapi.model.auth.UserInfo;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class OAuthServiceTest {
@@ -48,7 +66,9 @@ class OAuthServiceTest {
                                                                    .withProperty("auth.id", AUTH_ID)
                                                                    .withProperty("auth.username", AUTH_USERNAME)
                                                                    .withProperty("auth.name", AUTH_NAME)
-                                                                   .withProperty("auth.email", AUTH_EMAIL));
+                                                                   .withProperty("auth.email", AUTH_EMAIL),
+                                                               Duration.ofMinutes(1),
+                                                               2);
 
     @Test
     void testGetUserInfoByToken() {
@@ -74,4 +94,78 @@ class OAuthServiceTest {
                      "Headers must be equal to expected");
         assertEquals(JsonNode.class, jsonCaptor.getValue());
     }
+
+    private static ObjectNode userNode(String username) {
+        ObjectNode nodes = new ObjectMapper().createObjectNode();
+        Map
+            .of(AUTH_ID, "test", AUTH_USERNAME, username, AUTH_NAME, "abc", AUTH_EMAIL, "test@test.com")
+            .forEach((k, v) -> nodes.set(k, new TextNode(v)));
+        return nodes;
+    }
+
+    @Test
+    void testGetUserInfoByTokenCached() {
+        when(restTemplateMock.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class)))
+            .thenReturn(ResponseEntity.ok(userNode("tester")));
+
+        UserInfo first = oAuthService.getUserInfoByToken("token");
+        UserInfo second = oAuthService.getUserInfoByToken("token");
+
+        assertEquals(first, second, "Cached user info must be returned");
+        assertNotSame(first, second, "Each request must get its own copy of cached user info");
+        first.setSuperuser(true);
+        assertFalse(oAuthService.getUserInfoByToken("token").isSuperuser(), "Cached user info must not change");
+        verify(restTemplateMock, times(1))
+            .exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class));
+        assertEquals(2, oAuthService.getCacheStats().hitCount(), "Hit count must be equal to expected");
+        assertEquals(1, oAuthService.getCacheStats().missCount(), "Miss count must be equal to expected");
+    }
+
+    @Test
+    void testGetUserInfoByTokenEviction() {
+        when(restTemplateMock.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class)))
+            .thenReturn(ResponseEntity.ok(userNode("tester")));
+
+        oAuthService.getUserInfoByToken("token1");
+        oAuthService.getUserInfoByToken("token2");
+        oAuthService.getUserInfoByToken("token3");
+
+        assertEquals(1, oAuthService.getCacheStats().evictionCount(), "Eviction count must be equal to expected");
+    }
+
+    @Test
+    void testGetUserInfoByTokenFailureNotCached() {
+        when(restTemplateMock.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class)))
+            .thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED))
+            .thenReturn(ResponseEntity.ok(userNode("tester")));
+
+        assertThrows(AuthenticationServiceException.class, () -> oAuthService.getUserInfoByToken("token"));
+        assertEquals("tester", oAuthService.getUserInfoByToken("token").getUsername(), "Username must be equal");
+    }
+
+    @Test
+    void testGetUserInfoByTokenSingleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplateMock.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class)))
+            .thenAnswer((invocation) -> {
+                release.await(5, TimeUnit.SECONDS);
+                return ResponseEntity.ok(userNode("tester"));
+            });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<UserInfo> first = executor.submit(() -> oAuthService.getUserInfoByToken("token"));
+            Future<UserInfo> second = executor.submit(() -> oAuthService.getUserInfoByToken("token"));
+            Future<UserInfo> third = executor.submit(() -> oAuthService.getUserInfoByToken("token"));
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+
+            assertEquals(first.get(), second.get(), "Concurrent requests must share user info");
+            assertEquals(first.get(), third.get(), "Concurrent requests must share user info");
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(restTemplateMock, times(1))
+            .exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(JsonNode.class));
+    }
 }
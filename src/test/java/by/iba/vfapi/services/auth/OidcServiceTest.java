@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package by.iba.vfapi.services.auth;
+
+import by.iba.vfapi.exceptions.ConfigurationException;
+import by.iba.vfapi.model.auth.UserInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OidcServiceTest {
+    private static final String JWKS_URL = "https://keycloak/certs";
+    private static final String ISSUER = "https://keycloak/realms/vf";
+    private static final Instant NOW = Instant.parse("2021-06-01T10:00:00Z");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static KeyPair rsaKeyPair;
+    private static KeyPair ecKeyPair;
+
+    private final RestTemplate restTemplateMock = mock(RestTemplate.class);
+    private final Clock clockMock = mock(Clock.class);
+    private OidcService oidcService;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaGenerator.initialize(2048);
+        rsaKeyPair = rsaGenerator.generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ecKeyPair = ecGenerator.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(clockMock.instant()).thenReturn(NOW);
+        oidcService = new OidcService(restTemplateMock,
+                                      new MockEnvironment()
+                                          .withProperty("auth.id", "sub")
+                                          .withProperty("auth.username", "preferred_username")
+                                          .withProperty("auth.name", "name")
+                                          .withProperty("auth.email", "email"),
+                                      JWKS_URL,
+                                      ISSUER,
+                                      "vf-api",
+                                      Duration.ofMinutes(15),
+                                      Duration.ofSeconds(30),
+                                      clockMock);
+    }
+
+    /**
+     * Local stand-in for provider's JWKS endpoint.
+     */
+    private static JsonNode jwks(String... kids) {
+        ObjectNode jwks = MAPPER.createObjectNode();
+        for (String kid : kids) {
+            ObjectNode jwk = jwks.withArray("keys").addObject();
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            if (kid.startsWith("ec")) {
+                ECPublicKey key = (ECPublicKey) ecKeyPair.getPublic();
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("x", encode(key.getW().getAffineX(), 32));
+                jwk.put("y", encode(key.getW().getAffineY(), 32));
+            } else {
+                RSAPublicKey key = (RSAPublicKey) rsaKeyPair.getPublic();
+                jwk.put("kty", "RSA");
+                jwk.put("n", encode(key.getModulus(), 0));
+                jwk.put("e", encode(key.getPublicExponent(), 0));
+            }
+        }
+        return jwks;
+    }
+
+    private static String encode(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static Map<String, Object> claims(Instant expiration) {
+        return Map.of("sub",
+                      "42",
+                      "preferred_username",
+                      "tester",
+                      "name",
+                      "Test User",
+                      "email",
+                      "test@test.com",
+                      "iss",
+                      ISSUER,
+                      "aud",
+                      List.of("account", "vf-api"),
+                      "exp",
+                      expiration.getEpochSecond());
+    }
+
+    private static String token(String alg, String kid, Map<String, Object> claims) throws Exception {
+        String content = ENCODER.encodeToString(MAPPER.writeValueAsBytes(Map.of("alg", alg, "kid", kid))) + "." +
+            ENCODER.encodeToString(MAPPER.writeValueAsBytes(claims));
+        boolean ec = alg.startsWith("ES");
+        PrivateKey key = ec ? ecKeyPair.getPrivate() : rsaKeyPair.getPrivate();
+        Signature signer = Signature.getInstance(ec ? "SHA256withECDSAinP1363Format" : "SHA256withRSA");
+        signer.initSign(key);
+        signer.update(content.getBytes(StandardCharsets.US_ASCII));
+        return content + "." + ENCODER.encodeToString(signer.sign());
+    }
+
+    @Test
+    void testGetUserInfoByToken() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+
+        UserInfo userInfo = oidcService.getUserInfoByToken(token("RS256", "rsa", claims(NOW.plusSeconds(60))));
+
+        assertEquals("42", userInfo.getId());
+        assertEquals("tester", userInfo.getUsername());
+        assertEquals("Test User", userInfo.getName());
+        assertEquals("test@test.com", userInfo.getEmail());
+    }
+
+    @Test
+    void testGetUserInfoByTokenEc() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("ec"));
+
+        UserInfo userInfo = oidcService.getUserInfoByToken(token("ES256", "ec", claims(NOW.plusSeconds(60))));
+
+        assertEquals("tester", userInfo.getUsername());
+    }
+
+    @Test
+    void testJwksCached() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+        String token = token("RS256", "rsa", claims(NOW.plusSeconds(3600)));
+
+        oidcService.getUserInfoByToken(token);
+        oidcService.getUserInfoByToken(token);
+        verify(restTemplateMock, times(1)).getForObject(JWKS_URL, JsonNode.class);
+
+        when(clockMock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(16)));
+        oidcService.getUserInfoByToken(token);
+        verify(restTemplateMock, times(2)).getForObject(JWKS_URL, JsonNode.class);
+    }
+
+    @Test
+    void testJwksRefreshedForUnknownKey() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"), jwks("rsa", "ec"));
+        oidcService.getUserInfoByToken(token("RS256", "rsa", claims(NOW.plusSeconds(3600))));
+        String rotated = token("ES256", "ec", claims(NOW.plusSeconds(3600)));
+
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken(rotated));
+
+        when(clockMock.instant()).thenReturn(NOW.plusSeconds(31));
+        assertEquals("tester", oidcService.getUserInfoByToken(rotated).getUsername());
+        verify(restTemplateMock, times(2)).getForObject(JWKS_URL, JsonNode.class);
+    }
+
+    @Test
+    void testJwksRefreshFailureKeepsKeys() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class))
+            .thenReturn(jwks("rsa"))
+            .thenThrow(new ResourceAccessException("unavailable"));
+        String token = token("RS256", "rsa", claims(NOW.plusSeconds(3600)));
+        oidcService.getUserInfoByToken(token);
+
+        when(clockMock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(16)));
+
+        assertEquals("tester", oidcService.getUserInfoByToken(token).getUsername());
+    }
+
+    @Test
+    void testExpiredToken() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+        String token = token("RS256", "rsa", claims(NOW.minusSeconds(60)));
+
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken(token));
+    }
+
+    @Test
+    void testInvalidSignature() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+        String token = token("RS256", "rsa", claims(NOW.plusSeconds(60)));
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." +
+            ENCODER.encodeToString(MAPPER.writeValueAsBytes(Map.of("preferred_username", "admin"))) + "." + parts[2];
+
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken(forged));
+    }
+
+    @Test
+    void testWrongAudience() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+        Map<String, Object> claims = new HashMap<>(claims(NOW.plusSeconds(60)));
+        claims.put("aud", "other");
+        String token = token("RS256", "rsa", claims);
+
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken(token));
+    }
+
+    @Test
+    void testMissingAudience() throws Exception {
+        when(restTemplateMock.getForObject(JWKS_URL, JsonNode.class)).thenReturn(jwks("rsa"));
+        Map<String, Object> claims = new HashMap<>(claims(NOW.plusSeconds(60)));
+        claims.remove("aud");
+        String token = token("RS256", "rsa", claims);
+
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken(token));
+    }
+
+    @Test
+    void testAudienceRequired() {
+        MockEnvironment environment = new MockEnvironment();
+        Duration refresh = Duration.ofMinutes(15);
+        Duration skew = Duration.ofSeconds(30);
+
+        assertThrows(ConfigurationException.class,
+                     () -> new OidcService(restTemplateMock, environment, JWKS_URL, ISSUER, "", refresh, skew, true),
+                     "Audience must be required when validation is enabled");
+        new OidcService(restTemplateMock, environment, JWKS_URL, ISSUER, "", refresh, skew, false);
+    }
+
+    @Test
+    void testMalformedToken() {
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken("opaque-token"));
+        assertThrows(AuthenticationServiceException.class, () -> oidcService.getUserInfoByToken("a.b.c"));
+    }
+}